@@ -0,0 +1,81 @@
+package projections.Tools.Timeline;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projections.analysis.Analysis;
+import projections.analysis.SyntheticRun;
+
+/** Painting a 1200 pixel wide view of the Timeline into an image, without a display */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PaintBenchmarks {
+
+	private static final int VIEW_WIDTH = 1200;
+
+	@Param({"4"})
+	int numPEs;
+
+	@Param({"100000"})
+	int eventsPerPE;
+
+	/** How many times the whole run is wider than the view. The middle of the run is painted. */
+	@Param({"1", "40", "2000"})
+	int zoom;
+
+	private MainPanel panel;
+	private BufferedImage image;
+	private Graphics2D g;
+
+	@Setup
+	public void setup() throws IOException {
+		Analysis run = SyntheticRun.open(numPEs, eventsPerPE);
+		Data data = new Data(null);
+		data.setProcessorList(run.getValidProcessorList());
+		data.setRange(0, run.getTotalTime());
+		data.createTLOArray(null, false);
+		panel = new MainPanel(data, null);
+
+		data.setScaleFactor(zoom);
+		data.scaledScreenWidth(VIEW_WIDTH);
+		int width = VIEW_WIDTH * zoom;
+		int height = data.screenHeight();
+		panel.setSize(width, height);
+
+		image = new BufferedImage(VIEW_WIDTH, height, BufferedImage.TYPE_INT_RGB);
+		g = image.createGraphics();
+		int left = (width - VIEW_WIDTH) / 2;
+		g.translate(-left, 0);
+		g.setClip(left, 0, VIEW_WIDTH, height);
+	}
+
+	@TearDown
+	public void tearDown() {
+		g.dispose();
+	}
+
+	@Benchmark
+	public long paintAll() {
+		return panel.paintAll(g);
+	}
+
+}
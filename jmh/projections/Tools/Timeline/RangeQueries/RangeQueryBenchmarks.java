@@ -0,0 +1,91 @@
+package projections.Tools.Timeline.RangeQueries;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projections.Tools.Timeline.RangeQueries.Benchmark.Event;
+
+/** Building and querying the Query1D implementations with events like those of a Timeline PE */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RangeQueryBenchmarks {
+
+	@Param({"RangeQueryTree", "RangeQuerySortedArray"})
+	String implementation;
+
+	@Param({"100000"})
+	int entries;
+
+	private Event[] events;
+	private long span;
+	private Query1D<Event> filled;
+	private long[] queryBounds;
+
+	@Setup
+	public void setup() {
+		events = projections.Tools.Timeline.RangeQueries.Benchmark.makeEvents(entries, new Random(1));
+		span = events[entries-1].ub;
+		filled = build();
+
+		// Queries of the sizes seen when zoomed in or scrolling
+		Random random = new Random(2);
+		queryBounds = new long[2000];
+		for (int q = 0; q < queryBounds.length; q += 2) {
+			long width = (long) (Math.pow(random.nextDouble(), 2) * span / 100);
+			queryBounds[q] = (long) (random.nextDouble() * (span - width));
+			queryBounds[q+1] = queryBounds[q] + width;
+		}
+	}
+
+	private Query1D<Event> create() {
+		if (implementation.equals("RangeQueryTree"))
+			return new RangeQueryTree<Event>();
+		return new RangeQuerySortedArray<Event>();
+	}
+
+	private Query1D<Event> build() {
+		Query1D<Event> db = create();
+		for (Event e : events)
+			db.add(e);
+		// Includes any sorting done on the first query
+		db.iterator(0, 0).hasNext();
+		return db;
+	}
+
+	@Benchmark
+	public Query1D<Event> add() {
+		return build();
+	}
+
+	/** 1000 queries */
+	@Benchmark
+	public long query() {
+		long found = 0;
+		for (int q = 0; q < queryBounds.length; q += 2) {
+			Iterator<Event> iter = filled.iterator(queryBounds[q], queryBounds[q+1]);
+			while (iter.hasNext()) {
+				iter.next();
+				found++;
+			}
+		}
+		return found;
+	}
+
+}
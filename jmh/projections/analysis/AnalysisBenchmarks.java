@@ -0,0 +1,186 @@
+package projections.analysis;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import projections.misc.LogEntry;
+import projections.misc.SummaryFormatException;
+
+/** Benchmarks of reading logs and summary files, and of binning their data into intervals */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class AnalysisBenchmarks {
+
+	@Param({"4"})
+	int numPEs;
+
+	@Param({"100000"})
+	int eventsPerPE;
+
+	private Analysis run;
+	private String[] logLines;
+	private byte[] logBytes;
+	private double[] intervals;
+
+	@Setup
+	public void setup() throws IOException {
+		run = SyntheticRun.open(numPEs, eventsPerPE);
+		ProjMain.WRITE_BINARY_LOG_CACHE = true;
+
+		ArrayList<String> lines = new ArrayList<String>();
+		try (BufferedReader in = new BufferedReader(new FileReader(run.getLog(0)))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.length() > 0 && Character.isDigit(line.charAt(0)))
+					lines.add(line);
+			}
+		}
+		logLines = lines.toArray(new String[lines.size()]);
+		logBytes = Files.readAllBytes(run.getLog(0).toPath());
+
+		Random random = new Random(1);
+		intervals = new double[100000];
+		for (int i = 0; i < intervals.length; i++)
+			intervals[i] = random.nextDouble() * 100.0;
+	}
+
+	/** Read every event of one log, from its binary cache once the first read has made one */
+	@Benchmark
+	public long genericLogReaderNextEvent() throws IOException {
+		GenericLogReader reader = new GenericLogReader(0, run.getVersion());
+		LogEntry data = new LogEntry();
+		long count = 0;
+		try {
+			while (true) {
+				reader.nextEvent(data);
+				count++;
+			}
+		} catch (EndOfLogSuccess e) {
+			// finished reading the file
+		} finally {
+			reader.close();
+		}
+		return count;
+	}
+
+	/** Read every event of one log by parsing its text with ByteLogParser, even if it has a binary cache */
+	@Benchmark
+	public long genericLogReaderNextEventText() throws IOException {
+		ProjMain.BINARY_LOG_CACHE = false;
+		try {
+			return genericLogReaderNextEvent();
+		} finally {
+			ProjMain.BINARY_LOG_CACHE = true;
+		}
+	}
+
+	/** Read every event of one log with the String per line parser used before ByteLogParser */
+	@Benchmark
+	public long genericLogReaderNextEventLegacy() throws IOException {
+		ProjMain.LEGACY_LOG_PARSER = true;
+		try {
+			return genericLogReaderNextEvent();
+		} finally {
+			ProjMain.LEGACY_LOG_PARSER = false;
+		}
+	}
+
+	/** Read the type and time of every event of one log from its text, as a lookup of its end time does */
+	@Benchmark
+	public long genericLogReaderNextEventTypeAndTime() throws IOException {
+		ProjMain.BINARY_LOG_CACHE = false;
+		GenericLogReader reader = new GenericLogReader(0, run.getVersion());
+		LogEntry data = new LogEntry();
+		long count = 0;
+		try {
+			while (true) {
+				reader.nextEventTypeAndTime(data);
+				count++;
+			}
+		} catch (EndOfLogSuccess e) {
+			// finished reading the file
+		} finally {
+			reader.close();
+			ProjMain.BINARY_LOG_CACHE = true;
+		}
+		return count;
+	}
+
+	/** Decode every number of one log, already in memory, and do nothing
+	 *  else. No parser that decodes every field can be faster than this. */
+	@Benchmark
+	public long decodeDigitsOnly() {
+		final byte[] b = logBytes;
+		long sum = 0;
+		int p = 0;
+		while (p < b.length) {
+			int c = b[p];
+			if (c <= ' ') {
+				p++;
+				continue;
+			}
+			long value = 0;
+			while (p < b.length && (c = b[p]) > ' ') {
+				value = 10 * value + (c - '0');
+				p++;
+			}
+			sum += value;
+		}
+		return sum;
+	}
+
+	/** Tokenize the lines of one log, already in memory */
+	@Benchmark
+	public long asciiLineParserNextLong() throws IOException {
+		long sum = 0;
+		for (String line : logLines) {
+			AsciiLineParser parser = new AsciiLineParser(line);
+			while (parser.hasNextField())
+				sum += parser.nextLong();
+		}
+		return sum;
+	}
+
+	/** Bin all logs into about 1000 intervals per entry method, as the time profile does */
+	@Benchmark
+	public LogReader logReaderRead() {
+		long intervalSize = run.getTotalTime() / 1000 + 1;
+		int numIntervals = (int) (run.getTotalTime() / intervalSize);
+		LogReader reader = new LogReader();
+		reader.read(intervalSize, 0, numIntervals, true, null, false, null);
+		return reader;
+	}
+
+	@Benchmark
+	public double[] intervalUtilsRebin() {
+		return IntervalUtils.rebin(intervals, 1000.0, 7000.0);
+	}
+
+	/** Parse the summary files of all PEs */
+	@Benchmark
+	public SumAnalyzer sumAnalyzer() throws IOException, SummaryFormatException {
+		return new SumAnalyzer();
+	}
+
+}
@@ -0,0 +1,32 @@
+package projections.analysis;
+
+import java.io.File;
+import java.io.IOException;
+
+import projections.Testing.SyntheticLogGenerator;
+import projections.gui.MainWindow;
+
+/** Opens a run written by SyntheticLogGenerator as the current run, as
+ *  ProjMain would, so benchmarks can use the tools without the GUI.
+ *
+ *  Runs are kept in the temporary directory, one per size, and only
+ *  generated if they are not already there. Files that Projections writes
+ *  next to the logs (e.g. index and metadata caches) are kept too, so the
+ *  first benchmark iteration on a new run may take longer than the others.
+ */
+public class SyntheticRun {
+
+	public static Analysis open(int numPEs, int eventsPerPE) throws IOException {
+		File dir = new File(System.getProperty("java.io.tmpdir"), "projections-jmh-" + numPEs + "x" + eventsPerPE);
+		File sts = new File(dir, SyntheticLogGenerator.NAME + ".sts");
+		if (!sts.isFile())
+			SyntheticLogGenerator.generate(dir, numPEs, eventsPerPE, 1);
+
+		MainWindow.CUR_VERSION = ProjMain.CUR_VERSION;
+		MainWindow.runObject = new Analysis[1];
+		MainWindow.runObject[0] = new Analysis();
+		MainWindow.runObject[0].initAnalysis(sts.getPath(), null);
+		return MainWindow.runObject[0];
+	}
+
+}
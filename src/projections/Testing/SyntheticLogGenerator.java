@@ -0,0 +1,160 @@
+package projections.Testing;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+
+/** Writes a synthetic run in the same format as test/hello.*: an sts file,
+ *  and a version 3.0 ASCII log and summary file for each PE.
+ *
+ *  Each PE runs eventsPerPE entry methods. Each entry method processes the
+ *  message sent by the previous entry method of the PE before it, sends up
+ *  to two messages, and is sometimes followed by a period of idle time.
+ *  The durations are drawn from a seeded random number generator, so the
+ *  same arguments always produce the same files, which makes the run
+ *  suitable for repeatable benchmarks without real traces.
+ *
+ *  Usage: SyntheticLogGenerator directory numPEs eventsPerPE [seed]
+ */
+public class SyntheticLogGenerator {
+
+	/** The base name of the files written */
+	public static final String NAME = "synthetic";
+
+	private static final int NUM_CHARES = 2;
+	private static final int NUM_EPS = 8;
+	private static final int MSG_LEN = 104;
+	/** Length of each summary interval, in microseconds */
+	private static final long SUM_INTERVAL = 1000;
+
+	// Record types of the version 3.0 log format, as in ProjDefs
+	private static final int CREATION = 1;
+	private static final int BEGIN_PROCESSING = 2;
+	private static final int END_PROCESSING = 3;
+	private static final int BEGIN_COMPUTATION = 6;
+	private static final int END_COMPUTATION = 7;
+	private static final int BEGIN_IDLE = 14;
+	private static final int END_IDLE = 15;
+	private static final int FOR_CHARE_MSG = 3;
+
+	public static void main(String args[]) throws IOException {
+		if (args.length < 3) {
+			System.err.println("Usage: SyntheticLogGenerator directory numPEs eventsPerPE [seed]");
+			System.exit(1);
+		}
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+		File sts = generate(new File(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), seed);
+		System.out.println("Wrote " + sts.getPath());
+	}
+
+	/** Write the run into dir, creating it if needed, and return its sts file */
+	public static File generate(File dir, int numPEs, int eventsPerPE, long seed) throws IOException {
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Could not create " + dir);
+		for (int pe = 0; pe < numPEs; pe++)
+			writePE(dir, pe, numPEs, eventsPerPE, new Random(seed * 1000003L + pe));
+		// Last, so that a complete run is one that has an sts file
+		File sts = new File(dir, NAME + ".sts");
+		writeSts(sts, numPEs);
+		return sts;
+	}
+
+	private static void writeSts(File file, int numPEs) throws IOException {
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+			out.println("VERSION 3.0");
+			out.println("MACHINE synthetic");
+			out.println("PROCESSORS " + numPEs);
+			out.println("TOTAL_CHARES " + NUM_CHARES);
+			out.println("TOTAL_EPS " + NUM_EPS);
+			out.println("TOTAL_MSGS 1");
+			out.println("TOTAL_PSEUDOS 0");
+			out.println("TOTAL_EVENTS 0");
+			out.println("CHARE 0 Main");
+			out.println("CHARE 1 Worker");
+			out.println("ENTRY CHARE 0 Main(CkArgMsg* impl_msg) 0 0");
+			for (int ep = 1; ep < NUM_EPS; ep++)
+				out.println("ENTRY CHARE " + ep + " work" + ep + "(WorkMsg* impl_msg) 1 0");
+			out.println("MESSAGE 0 " + MSG_LEN);
+			out.println("END");
+		}
+	}
+
+	private static void writePE(File dir, int pe, int numPEs, int eventsPerPE, Random random) throws IOException {
+		final int src = (pe + numPEs - 1) % numPEs;
+		long[] busyPerInterval = new long[16];
+		long[] epTime = new long[NUM_EPS];
+		int[] epCount = new int[NUM_EPS];
+
+		long time = 1000;
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, NAME + "." + pe + ".log")), 1 << 16))) {
+			out.println("PROJECTIONS-RECORD");
+			out.println(BEGIN_COMPUTATION + " " + time);
+			for (int i = 0; i < eventsPerPE; i++) {
+				// Mostly short entry methods, with a few long ones
+				final int ep = 1 + random.nextInt(NUM_EPS - 1);
+				time += 1 + random.nextInt(20);
+				final long begin = time;
+				out.println(BEGIN_PROCESSING + " " + FOR_CHARE_MSG + " " + ep + " " + time + " " + i + " " + src + " " + MSG_LEN);
+				time += 1 + (long) (Math.pow(random.nextDouble(), 3) * 200);
+				for (int m = random.nextInt(3); m > 0; m--) {
+					// Event ids of messages from this PE are i+1, matching the next begin on the next PE
+					out.println(CREATION + " " + FOR_CHARE_MSG + " " + ep + " " + time + " " + (i + 1) + " " + pe + " " + MSG_LEN);
+					time++;
+				}
+				out.println(END_PROCESSING + " " + FOR_CHARE_MSG + " " + ep + " " + time + " " + i + " " + src + " 0");
+				epTime[ep] += time - begin;
+				epCount[ep]++;
+				busyPerInterval = addBusy(busyPerInterval, begin, time);
+
+				if (random.nextDouble() < 0.3) {
+					out.println(BEGIN_IDLE + " " + time + " " + pe);
+					time += 1 + random.nextInt(100);
+					out.println(END_IDLE + " " + time + " " + pe);
+				}
+			}
+			time++;
+			out.println(END_COMPUTATION + " " + time);
+		}
+
+		final int numIntervals = (int) (time / SUM_INTERVAL) + 1;
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, NAME + "." + pe + ".sum"))))) {
+			out.println("ver:3.0 " + pe + "/" + numPEs + " count:" + numIntervals + " ep:" + NUM_EPS + " interval:1.000000e-03 phases:0");
+			StringBuilder line = new StringBuilder();
+			for (int i = 0; i < numIntervals; i++) {
+				long busy = i < busyPerInterval.length ? busyPerInterval[i] : 0;
+				line.append(' ').append(Math.min(100, busy * 100 / SUM_INTERVAL));
+			}
+			out.println(line);
+			line.setLength(0);
+			for (int ep = 0; ep < NUM_EPS; ep++)
+				line.append(epTime[ep]).append(' ');
+			out.println(line);
+			line.setLength(0);
+			for (int ep = 0; ep < NUM_EPS; ep++)
+				line.append(epCount[ep]).append(' ');
+			out.println(line);
+			out.println("0 ");
+		}
+	}
+
+	/** Add the time from begin to end to the busy time of the summary intervals it spans */
+	private static long[] addBusy(long[] busy, long begin, long end) {
+		final int last = (int) (end / SUM_INTERVAL);
+		if (last >= busy.length) {
+			long[] grown = new long[Math.max(last + 1, busy.length * 2)];
+			System.arraycopy(busy, 0, grown, 0, busy.length);
+			busy = grown;
+		}
+		for (int i = (int) (begin / SUM_INTERVAL); i <= last; i++) {
+			long from = Math.max(begin, i * SUM_INTERVAL);
+			long to = Math.min(end, (i + 1) * SUM_INTERVAL);
+			busy[i] += to - from;
+		}
+		return busy;
+	}
+
+}
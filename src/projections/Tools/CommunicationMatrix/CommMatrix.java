@@ -0,0 +1,224 @@
+package projections.Tools.CommunicationMatrix;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+
+import projections.analysis.TimedProgressThreadExecutor;
+import projections.gui.MainWindow;
+
+/**
+ *  The number of messages and bytes sent from each source PE to each
+ *  destination PE, from the BEGIN_PROCESSING records in the logs of the
+ *  destination PEs. Both axes span all the PEs of the run; only the columns
+ *  of the PEs whose logs were read have any data.
+ *
+ *  Each column is stored sparsely, sorted by source PE. For drawing the
+ *  matrix zoomed out, a summed-area table over a grid of at most
+ *  MAX_GRID x MAX_GRID bins answers the sum over any block of bins in
+ *  constant time. One is built for each view the first time it is needed.
+ */
+class CommMatrix {
+
+	/** The quantities that can be viewed */
+	static final int MESSAGES = 0;
+	static final int BYTES = 1;
+
+	/** Which pairs of PEs to include */
+	static final int ALL = 0;
+	static final int WITHIN_NODE = 1;
+	static final int BETWEEN_NODES = 2;
+
+	private static final int MAX_GRID = 1024;
+
+	private final int size;
+	private final int[] pes;
+	private final List<Runnable> readers = new ArrayList<Runnable>();
+
+	/** The column index of each destination PE, or -1 if its log was not read */
+	private final int[] columnOf;
+	private final int[][] colSrc;
+	private final int[][] colMsgs;
+	private final long[][] colBytes;
+	private final boolean[][] colSameNode;
+	private final long[] sentMsgs;
+	private final long[] sentBytes;
+
+	/** Number of bins of the summed-area tables along each axis */
+	private final int grid;
+	/** The summed-area tables for each [quantity * 3 + pairs], built lazily */
+	private final long[][] tables = new long[6][];
+	private final long[] maxCell = new long[6];
+
+	CommMatrix(SortedSet<Integer> selected, long startTime, long endTime) {
+		size = MainWindow.runObject[0].getSts().getProcessorCount();
+		grid = Math.min(size, MAX_GRID);
+		pes = new int[selected.size()];
+		columnOf = new int[size];
+		Arrays.fill(columnOf, -1);
+		colSrc = new int[pes.length][];
+		colMsgs = new int[pes.length][];
+		colBytes = new long[pes.length][];
+		colSameNode = new boolean[pes.length][];
+		sentMsgs = new long[pes.length];
+		sentBytes = new long[pes.length];
+		Arrays.fill(maxCell, -1);
+
+		int pIdx = 0;
+		for (Integer pe : selected) {
+			pes[pIdx] = pe;
+			columnOf[pe] = pIdx;
+			readers.add(new ThreadedFileReader(pe, pIdx, startTime, endTime, this));
+			pIdx++;
+		}
+	}
+
+	List<Runnable> getReaders() {
+		return readers;
+	}
+
+	/** Run the readers on the shared worker pool, showing progress over guiRoot if it is not null */
+	void load(Component guiRoot) {
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Communication Matrix in Parallel", readers, guiRoot, true);
+		threadManager.runAll();
+	}
+
+	/** Called by the reader of column pIdx once it has read the log */
+	void setColumn(int pIdx, int pe, int[] src, int[] msgs, long[] bytes, boolean[] sameNode, long sentMsgCount, long sentByteCount) {
+		colSrc[pIdx] = src;
+		colMsgs[pIdx] = msgs;
+		colBytes[pIdx] = bytes;
+		colSameNode[pIdx] = sameNode;
+		sentMsgs[pIdx] = sentMsgCount;
+		sentBytes[pIdx] = sentByteCount;
+	}
+
+	/** The number of PEs along each axis */
+	int size() {
+		return size;
+	}
+
+	int grid() {
+		return grid;
+	}
+
+	/** The bin of the summed-area tables that holds pe */
+	int bin(int pe) {
+		return (int) ((long) pe * grid / size);
+	}
+
+	/** The first PE in bin b, or size if b is grid */
+	int binStart(int b) {
+		return (int) (((long) b * size + grid - 1) / grid);
+	}
+
+	private static boolean included(boolean sameNode, int pairs) {
+		return pairs == ALL || (pairs == WITHIN_NODE) == sameNode;
+	}
+
+	private long value(int c, int j, int quantity) {
+		return quantity == MESSAGES ? colMsgs[c][j] : colBytes[c][j];
+	}
+
+	/** The sum over the sources from srcLo up to srcHi and destinations from destLo up to destHi */
+	long sum(int srcLo, int srcHi, int destLo, int destHi, int quantity, int pairs) {
+		long total = 0;
+		for (int d = destLo; d < destHi; d++) {
+			int c = columnOf[d];
+			if (c < 0 || colSrc[c] == null)
+				continue;
+			int[] src = colSrc[c];
+			int j = Arrays.binarySearch(src, srcLo);
+			if (j < 0)
+				j = -j - 1;
+			for (; j < src.length && src[j] < srcHi; j++) {
+				if (included(colSameNode[c][j], pairs))
+					total += value(c, j, quantity);
+			}
+		}
+		return total;
+	}
+
+	/** Call visitor.cell() for each non-zero cell with a source from srcLo up to srcHi and a destination from destLo up to destHi */
+	void forEachCell(int srcLo, int srcHi, int destLo, int destHi, int quantity, int pairs, CellVisitor visitor) {
+		for (int d = Math.max(0, destLo); d < Math.min(size, destHi); d++) {
+			int c = columnOf[d];
+			if (c < 0 || colSrc[c] == null)
+				continue;
+			int[] src = colSrc[c];
+			int j = Arrays.binarySearch(src, srcLo);
+			if (j < 0)
+				j = -j - 1;
+			for (; j < src.length && src[j] < srcHi; j++) {
+				if (included(colSameNode[c][j], pairs))
+					visitor.cell(src[j], d, value(c, j, quantity));
+			}
+		}
+	}
+
+	interface CellVisitor {
+		void cell(int src, int dest, long value);
+	}
+
+	/** The sum over the bins of sources from b0 up to b1 and destinations from c0 up to c1 */
+	long binSum(int b0, int b1, int c0, int c1, int quantity, int pairs) {
+		long[] sat = table(quantity, pairs);
+		int w = grid + 1;
+		return sat[b1 * w + c1] - sat[b0 * w + c1] - sat[b1 * w + c0] + sat[b0 * w + c0];
+	}
+
+	/** The largest value of any one cell */
+	long maxCell(int quantity, int pairs) {
+		table(quantity, pairs);
+		return maxCell[quantity * 3 + pairs];
+	}
+
+	private synchronized long[] table(int quantity, int pairs) {
+		int t = quantity * 3 + pairs;
+		if (tables[t] != null)
+			return tables[t];
+
+		int w = grid + 1;
+		long[] sat = new long[w * w];
+		long max = 0;
+		for (int c = 0; c < pes.length; c++) {
+			if (colSrc[c] == null)
+				continue;
+			int col = bin(pes[c]) + 1;
+			for (int j = 0; j < colSrc[c].length; j++) {
+				if (included(colSameNode[c][j], pairs)) {
+					long v = value(c, j, quantity);
+					sat[(bin(colSrc[c][j]) + 1) * w + col] += v;
+					max = Math.max(max, v);
+				}
+			}
+		}
+		for (int r = 1; r < w; r++) {
+			long row = 0;
+			for (int col = 1; col < w; col++) {
+				row += sat[r * w + col];
+				sat[r * w + col] = sat[(r - 1) * w + col] + row;
+			}
+		}
+		tables[t] = sat;
+		maxCell[t] = max;
+		return sat;
+	}
+
+	/** Whether the log of pe was read, so its column is known */
+	boolean hasColumn(int pe) {
+		return pe >= 0 && pe < size && columnOf[pe] >= 0;
+	}
+
+	/** The messages sent by pe to any destination, including those whose logs were not read, counted from its own log */
+	long sentMsgs(int pe) {
+		return hasColumn(pe) ? sentMsgs[columnOf[pe]] : 0;
+	}
+
+	long sentBytes(int pe) {
+		return hasColumn(pe) ? sentBytes[columnOf[pe]] : 0;
+	}
+
+}
@@ -0,0 +1,210 @@
+package projections.Tools.CommunicationMatrix;
+
+/**
+ * Communication Matrix
+ *
+ * Shows the messages or bytes sent between every pair of PEs as a heatmap,
+ * with the source PEs down the side and the destination PEs across the top.
+ * The matrix is read from the logs of the destination PEs, so only their
+ * columns are filled in.
+ */
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.GridBagConstraints;
+import java.awt.GridBagLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.SortedSet;
+
+import javax.swing.ButtonGroup;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JMenuBar;
+import javax.swing.JMenuItem;
+import javax.swing.JPanel;
+import javax.swing.JRadioButton;
+import javax.swing.SwingWorker;
+
+import projections.gui.MainWindow;
+import projections.gui.ProjectionsWindow;
+import projections.gui.RangeDialog;
+import projections.gui.ScalePanel;
+import projections.gui.Util;
+
+public class CommMatrixWindow extends ProjectionsWindow
+implements ActionListener, ScalePanel.StatusDisplay
+{
+
+	private static final long serialVersionUID = 1L;
+
+	// Temporary hardcode. This variable will be assigned appropriate
+	// meaning in future versions of Projections that support multiple
+	// runs.
+	private int myRun = 0;
+
+	private HeatmapPanel heatmap;
+	private JLabel status;
+
+	private JRadioButton showMessages;
+	private JRadioButton showBytes;
+	private JRadioButton allPairs;
+	private JRadioButton withinNode;
+	private JRadioButton betweenNodes;
+
+	private JButton zoomIn;
+	private JButton zoomOut;
+	private JButton zoomFit;
+
+	private CommMatrix matrix;
+
+	private CommMatrixWindow thisWindow;
+
+	public CommMatrixWindow(MainWindow mainWindow)
+	{
+		super(mainWindow);
+		thisWindow = this;
+
+		setForeground(Color.lightGray);
+		setTitle("Projections Communication Matrix - " + MainWindow.runObject[myRun].getFilename() + ".sts");
+
+		createMenus();
+		createLayout();
+		pack();
+		showDialog();
+	}
+
+	private void createLayout()
+	{
+		GridBagLayout      gbl = new GridBagLayout();
+		GridBagConstraints gbc = new GridBagConstraints();
+
+		Container windowPane = this.getContentPane();
+		windowPane.setLayout(new BorderLayout());
+
+		heatmap = new HeatmapPanel();
+		heatmap.setStatusDisplay(this);
+		status = new JLabel(" ");
+
+		JPanel displayPanel = new JPanel(new BorderLayout());
+		displayPanel.add(new JLabel("Destination PE ->   (source PEs down the side; scroll to zoom, drag to pan)"), BorderLayout.NORTH);
+		displayPanel.add(heatmap, BorderLayout.CENTER);
+		displayPanel.add(status, BorderLayout.SOUTH);
+		windowPane.add(displayPanel, BorderLayout.CENTER);
+
+		ButtonGroup quantityGroup = new ButtonGroup();
+		showMessages = new JRadioButton("Messages", true);
+		showBytes = new JRadioButton("Bytes");
+		quantityGroup.add(showMessages);
+		quantityGroup.add(showBytes);
+
+		ButtonGroup pairsGroup = new ButtonGroup();
+		allPairs = new JRadioButton("All PEs", true);
+		withinNode = new JRadioButton("Within Node");
+		betweenNodes = new JRadioButton("Between Nodes");
+		pairsGroup.add(allPairs);
+		pairsGroup.add(withinNode);
+		pairsGroup.add(betweenNodes);
+
+		zoomIn = new JButton("Zoom In");
+		zoomOut = new JButton("Zoom Out");
+		zoomFit = new JButton("Zoom To Fit");
+
+		JPanel controlPanel = new JPanel();
+		controlPanel.setLayout(gbl);
+		gbc.fill = GridBagConstraints.HORIZONTAL;
+		Util.gblAdd(controlPanel, new JLabel("Show:"), gbc, 0,0, 1,1, 0,0);
+		Util.gblAdd(controlPanel, showMessages,        gbc, 1,0, 1,1, 0,0);
+		Util.gblAdd(controlPanel, showBytes,           gbc, 2,0, 1,1, 0,0);
+		Util.gblAdd(controlPanel, new JLabel("Pairs:"), gbc, 3,0, 1,1, 0,0);
+		Util.gblAdd(controlPanel, allPairs,            gbc, 4,0, 1,1, 0,0);
+		Util.gblAdd(controlPanel, withinNode,          gbc, 5,0, 1,1, 0,0);
+		Util.gblAdd(controlPanel, betweenNodes,        gbc, 6,0, 1,1, 0,0);
+		Util.gblAdd(controlPanel, zoomIn,              gbc, 0,1, 2,1, 0,0);
+		Util.gblAdd(controlPanel, zoomOut,             gbc, 2,1, 2,1, 0,0);
+		Util.gblAdd(controlPanel, zoomFit,             gbc, 4,1, 2,1, 0,0);
+		windowPane.add(controlPanel, BorderLayout.SOUTH);
+
+		JRadioButton[] radios = { showMessages, showBytes, allPairs, withinNode, betweenNodes };
+		for (JRadioButton b : radios)
+			b.addActionListener(this);
+		zoomIn.addActionListener(this);
+		zoomOut.addActionListener(this);
+		zoomFit.addActionListener(this);
+	}
+
+	private void createMenus()
+	{
+		JMenuBar mbar = new JMenuBar();
+		mbar.add(Util.makeJMenu("File", new Object[] { "Close" }, this));
+		mbar.add(Util.makeJMenu("Modify", new Object[] { "Set Range" }, this));
+		setJMenuBar(mbar);
+	}
+
+	public void showDialog()
+	{
+		if (dialog == null) {
+			dialog = new RangeDialog(this, "Select Range", null, false);
+		}
+		dialog.displayDialog();
+		if (!dialog.isCancelled()) {
+			final SortedSet<Integer> pes = dialog.getSelectedProcessors();
+			final long startTime = dialog.getStartTime();
+			final long endTime = dialog.getEndTime();
+
+			final SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+				public Void doInBackground() {
+					Component guiRoot = thisWindow.isVisible() ? thisWindow : parentWindow;
+					CommMatrix m = new CommMatrix(pes, startTime, endTime);
+					m.load(guiRoot);
+					matrix = m;
+					return null;
+				}
+				public void done() {
+					thisWindow.setVisible(true);
+					heatmap.setMatrix(matrix);
+					updateView();
+				}
+			};
+			worker.execute();
+		}
+	}
+
+	private void updateView() {
+		int quantity = showBytes.isSelected() ? CommMatrix.BYTES : CommMatrix.MESSAGES;
+		int pairs = CommMatrix.ALL;
+		if (withinNode.isSelected())
+			pairs = CommMatrix.WITHIN_NODE;
+		else if (betweenNodes.isSelected())
+			pairs = CommMatrix.BETWEEN_NODES;
+		heatmap.setView(quantity, pairs);
+	}
+
+	public void actionPerformed(ActionEvent evt)
+	{
+		Object src = evt.getSource();
+		if (src instanceof JRadioButton) {
+			if (matrix != null)
+				updateView();
+		} else if (src == zoomIn) {
+			heatmap.zoomIn();
+		} else if (src == zoomOut) {
+			heatmap.zoomOut();
+		} else if (src == zoomFit) {
+			heatmap.zoomToFit();
+		} else if (src instanceof JMenuItem) {
+			String arg = ((JMenuItem)src).getText();
+			if (arg.equals("Close"))
+				close();
+			else if (arg.equals("Set Range"))
+				showDialog();
+		}
+	}
+
+	public void setStatus(String msg) {
+		status.setText(msg);
+	}
+
+}
@@ -0,0 +1,336 @@
+package projections.Tools.CommunicationMatrix;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.text.DecimalFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.JPanel;
+
+import projections.gui.ColorMap;
+import projections.gui.ScalePanel;
+
+/**
+ *  Draws a CommMatrix as a heatmap, with the source PEs down the side and
+ *  the destination PEs across the top. The mouse wheel zooms about the
+ *  cursor and dragging pans.
+ *
+ *  The image is drawn in tiles of TILE_SIZE pixels, which are kept in an
+ *  LRU cache, so panning only computes the tiles that come into view. When
+ *  each pixel covers at least one bin of the matrix's summed-area tables,
+ *  its color comes from them in constant time; zoomed in further, the
+ *  tile is filled from the non-zero cells in its range.
+ *
+ *  A pixel's color shows the mean over the pairs of PEs it covers, on a
+ *  log scale up to the largest single cell, so the colors mean the same at
+ *  every zoom level.
+ */
+class HeatmapPanel extends JPanel {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int TILE_SIZE = 256;
+	private static final int MAX_TILES = 128;
+	/** The most pixels across one PE */
+	private static final double MAX_SCALE = 64;
+
+	private CommMatrix matrix;
+	private int quantity = CommMatrix.MESSAGES;
+	private int pairs = CommMatrix.ALL;
+
+	/** Pixels across one PE when zoomed all the way out, so the matrix fills the panel */
+	private double fitScale = 1;
+	private int zoom = 0;
+	/** The pixel of the matrix at the top left corner of the panel, at the current zoom */
+	private long viewX = 0;
+	private long viewY = 0;
+
+	private final ColorMap colorMap = new ColorMap();
+	private double logMax = 1;
+
+	private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(MAX_TILES, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+			return size() > MAX_TILES;
+		}
+	};
+
+	private ScalePanel.StatusDisplay status;
+	private final DecimalFormat format = new DecimalFormat("###,###");
+
+	HeatmapPanel() {
+		setPreferredSize(new Dimension(600, 600));
+		setBackground(Color.black);
+		// Zero is black, then from dark blue through red and yellow to white
+		colorMap.addBreak(0, 0, 0, 0, 1, 0, 0, 80);
+		colorMap.addBreak(1, 0, 0, 80, 96, 160, 0, 160);
+		colorMap.addBreak(96, 160, 0, 160, 160, 255, 0, 0);
+		colorMap.addBreak(160, 255, 0, 0, 224, 255, 255, 0);
+		colorMap.addBreak(224, 255, 255, 0, 255, 255, 255, 255);
+
+		MouseAdapter mouse = new MouseAdapter() {
+			private int lastX, lastY;
+
+			public void mousePressed(MouseEvent e) {
+				lastX = e.getX();
+				lastY = e.getY();
+			}
+
+			public void mouseDragged(MouseEvent e) {
+				setView(viewX - (e.getX() - lastX), viewY - (e.getY() - lastY));
+				lastX = e.getX();
+				lastY = e.getY();
+				repaint();
+			}
+
+			public void mouseMoved(MouseEvent e) {
+				showStatus(e.getX(), e.getY());
+			}
+
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				zoomAbout(zoom - e.getWheelRotation(), e.getX(), e.getY());
+			}
+		};
+		addMouseListener(mouse);
+		addMouseMotionListener(mouse);
+		addMouseWheelListener(mouse);
+	}
+
+	void setStatusDisplay(ScalePanel.StatusDisplay status) {
+		this.status = status;
+	}
+
+	void setMatrix(CommMatrix matrix) {
+		this.matrix = matrix;
+		int side = Math.max(1, Math.min(getWidth(), getHeight()));
+		if (side <= 1)
+			side = getPreferredSize().width;
+		fitScale = (double) side / matrix.size();
+		zoom = 0;
+		viewX = 0;
+		viewY = 0;
+		update();
+	}
+
+	/** Show a quantity, CommMatrix.MESSAGES or BYTES, for some pairs, CommMatrix.ALL, WITHIN_NODE or BETWEEN_NODES */
+	void setView(int quantity, int pairs) {
+		this.quantity = quantity;
+		this.pairs = pairs;
+		update();
+	}
+
+	private void update() {
+		synchronized (tiles) {
+			tiles.clear();
+		}
+		if (matrix != null)
+			logMax = Math.log1p(matrix.maxCell(quantity, pairs));
+		repaint();
+	}
+
+	void zoomIn() {
+		zoomAbout(zoom + 1, getWidth() / 2, getHeight() / 2);
+	}
+
+	void zoomOut() {
+		zoomAbout(zoom - 1, getWidth() / 2, getHeight() / 2);
+	}
+
+	void zoomToFit() {
+		zoomAbout(0, 0, 0);
+	}
+
+	private double scale() {
+		return fitScale * Math.pow(2, zoom);
+	}
+
+	/** Change the zoom level, keeping the point of the matrix at pixel (x,y) of the panel where it is */
+	private void zoomAbout(int newZoom, int x, int y) {
+		if (matrix == null)
+			return;
+		newZoom = Math.max(0, newZoom);
+		while (newZoom > 0 && fitScale * Math.pow(2, newZoom) > MAX_SCALE)
+			newZoom--;
+		if (newZoom == zoom)
+			return;
+		double factor = Math.pow(2, newZoom - zoom);
+		zoom = newZoom;
+		setView((long) ((viewX + x) * factor) - x, (long) ((viewY + y) * factor) - y);
+		repaint();
+	}
+
+	private void setView(long x, long y) {
+		if (matrix == null)
+			return;
+		long extent = (long) Math.ceil(matrix.size() * scale());
+		viewX = Math.max(0, Math.min(x, extent - getWidth()));
+		viewY = Math.max(0, Math.min(y, extent - getHeight()));
+	}
+
+	/** The pixel, at the current zoom, that pe is drawn in, or the first of them */
+	private long pixelOf(int pe) {
+		return (long) Math.floor(pe * scale());
+	}
+
+	/** The first PE drawn in or after pixel p */
+	private int firstPE(long p) {
+		int pe = (int) Math.min(matrix.size(), Math.max(0, Math.ceil(p / scale())));
+		while (pe > 0 && pixelOf(pe - 1) >= p)
+			pe--;
+		while (pe < matrix.size() && pixelOf(pe) < p)
+			pe++;
+		return pe;
+	}
+
+	/** The first PE covered by pixel p. Zoomed out, a pixel covers the PEs whose first
+	 *  pixel it is; zoomed in, it covers just the PE it is part of. */
+	private int startPE(long p) {
+		if (scale() < 1)
+			return firstPE(p);
+		return (int) Math.min(matrix.size(), (long) Math.floor(p / scale()));
+	}
+
+	/** The PE after the last one covered by pixel p */
+	private int endPE(long p) {
+		if (scale() < 1)
+			return firstPE(p + 1);
+		return Math.min(matrix.size(), startPE(p) + 1);
+	}
+
+	public void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		if (matrix == null)
+			return;
+		long extent = (long) Math.ceil(matrix.size() * scale());
+		long lastX = Math.min(extent, viewX + getWidth());
+		long lastY = Math.min(extent, viewY + getHeight());
+		for (long ty = viewY / TILE_SIZE; ty * TILE_SIZE < lastY; ty++) {
+			for (long tx = viewX / TILE_SIZE; tx * TILE_SIZE < lastX; tx++) {
+				g.drawImage(tile(tx, ty), (int) (tx * TILE_SIZE - viewX), (int) (ty * TILE_SIZE - viewY), null);
+			}
+		}
+	}
+
+	private BufferedImage tile(long tx, long ty) {
+		long key = ((long) zoom << 56) | (tx << 28) | ty;
+		synchronized (tiles) {
+			BufferedImage image = tiles.get(key);
+			if (image == null) {
+				image = renderTile(tx * TILE_SIZE, ty * TILE_SIZE);
+				tiles.put(key, image);
+			}
+			return image;
+		}
+	}
+
+	/** Draw the tile whose top left pixel is (x0,y0) */
+	private BufferedImage renderTile(long x0, long y0) {
+		// Each pixel of the tile covers the PEs from lo[i] up to hi[i]
+		int[] destLo = new int[TILE_SIZE];
+		int[] destHi = new int[TILE_SIZE];
+		int[] srcLo = new int[TILE_SIZE];
+		int[] srcHi = new int[TILE_SIZE];
+		for (int i = 0; i < TILE_SIZE; i++) {
+			destLo[i] = startPE(x0 + i);
+			destHi[i] = endPE(x0 + i);
+			srcLo[i] = startPE(y0 + i);
+			srcHi[i] = endPE(y0 + i);
+		}
+
+		double[] means = new double[TILE_SIZE * TILE_SIZE];
+		boolean useTables = (double) matrix.size() / matrix.grid() <= 1 / scale();
+		if (useTables) {
+			// Each pixel covers whole bins; snap the PEs it covers to them
+			for (int y = 0; y < TILE_SIZE && srcLo[y] < srcHi[y]; y++) {
+				int b0 = matrix.bin(srcLo[y]);
+				int b1 = matrix.bin(srcHi[y] - 1) + 1;
+				for (int x = 0; x < TILE_SIZE && destLo[x] < destHi[x]; x++) {
+					int c0 = matrix.bin(destLo[x]);
+					int c1 = matrix.bin(destHi[x] - 1) + 1;
+					long pairCount = (long) (matrix.binStart(b1) - matrix.binStart(b0)) * (matrix.binStart(c1) - matrix.binStart(c0));
+					means[y * TILE_SIZE + x] = (double) matrix.binSum(b0, b1, c0, c1, quantity, pairs) / pairCount;
+				}
+			}
+		} else {
+			// Sum the cells into blocks, one per distinct range of PEs along each axis
+			final int[] srcStarts = blockStarts(srcLo, srcHi);
+			final int[] destStarts = blockStarts(destLo, destHi);
+			final long[] blocks = new long[srcStarts.length * destStarts.length];
+			matrix.forEachCell(srcLo[0], srcHi[TILE_SIZE - 1], destLo[0], destHi[TILE_SIZE - 1], quantity, pairs, new CommMatrix.CellVisitor() {
+				public void cell(int src, int dest, long value) {
+					int y = blockOf(srcStarts, src);
+					int x = blockOf(destStarts, dest);
+					blocks[y * destStarts.length + x] += value;
+				}
+			});
+			for (int y = 0; y < TILE_SIZE && srcLo[y] < srcHi[y]; y++) {
+				int by = blockOf(srcStarts, srcLo[y]);
+				for (int x = 0; x < TILE_SIZE && destLo[x] < destHi[x]; x++) {
+					int bx = blockOf(destStarts, destLo[x]);
+					long pairCount = (long) (srcHi[y] - srcLo[y]) * (destHi[x] - destLo[x]);
+					means[y * TILE_SIZE + x] = (double) blocks[by * destStarts.length + bx] / pairCount;
+				}
+			}
+		}
+
+		BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+		int background = getBackground().getRGB();
+		for (int y = 0; y < TILE_SIZE; y++) {
+			for (int x = 0; x < TILE_SIZE; x++) {
+				boolean inside = srcLo[y] < srcHi[y] && destLo[x] < destHi[x];
+				image.setRGB(x, y, inside ? colorMap.apply(colorIndex(means[y * TILE_SIZE + x])) : background);
+			}
+		}
+		return image;
+	}
+
+	/** The first PE of each distinct, non-empty range of PEs covered by the pixels, in order */
+	private static int[] blockStarts(int[] lo, int[] hi) {
+		int[] starts = new int[lo.length];
+		int n = 0;
+		for (int i = 0; i < lo.length && lo[i] < hi[i]; i++) {
+			if (n == 0 || starts[n - 1] != lo[i])
+				starts[n++] = lo[i];
+		}
+		return java.util.Arrays.copyOf(starts, n);
+	}
+
+	/** The block holding pe */
+	private static int blockOf(int[] starts, int pe) {
+		int i = java.util.Arrays.binarySearch(starts, pe);
+		return i >= 0 ? i : -i - 2;
+	}
+
+	private int colorIndex(double mean) {
+		if (mean <= 0 || logMax <= 0)
+			return 0;
+		return 1 + (int) Math.min(254, 254 * Math.log1p(mean) / logMax);
+	}
+
+	private void showStatus(int x, int y) {
+		if (status == null || matrix == null)
+			return;
+		int src0 = startPE(viewY + y);
+		int src1 = endPE(viewY + y);
+		int dest0 = startPE(viewX + x);
+		int dest1 = endPE(viewX + x);
+		if (src0 >= src1 || dest0 >= dest1) {
+			status.setStatus(" ");
+			return;
+		}
+		long msgs = matrix.sum(src0, src1, dest0, dest1, CommMatrix.MESSAGES, pairs);
+		long bytes = matrix.sum(src0, src1, dest0, dest1, CommMatrix.BYTES, pairs);
+		String from = (src1 - src0 == 1) ? "PE " + src0 : "PEs " + src0 + "-" + (src1 - 1);
+		String to = (dest1 - dest0 == 1) ? "PE " + dest0 : "PEs " + dest0 + "-" + (dest1 - 1);
+		String text = "From " + from + " to " + to + ": " + format.format(msgs) + " messages, " + format.format(bytes) + " bytes";
+		if (src1 - src0 == 1 && matrix.hasColumn(src0))
+			text += "   (" + from + " sent " + format.format(matrix.sentMsgs(src0)) + " messages in all)";
+		status.setStatus(text);
+	}
+
+}
@@ -0,0 +1,136 @@
+package projections.Tools.CommunicationMatrix;
+
+import java.util.Arrays;
+
+import projections.Tools.ThreadedFileReaderBase;
+import projections.analysis.LogEventVisitor;
+import projections.analysis.ProjDefs;
+import projections.misc.LogEntry;
+
+/** The reader threads for the Communication Matrix tool. Each one builds the column of
+ *  the matrix for the PE whose log it reads, in its own sparse table, so the readers
+ *  never contend; CommMatrix just collects the finished columns. The log is read through
+ *  ThreadedFileReaderBase, possibly in the same pass as for other tools. */
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable, LogEventVisitor {
+
+	private final int pe;
+	private final int pIdx;
+	private final long startTime;
+	private final long endTime;
+	private final CommMatrix matrix;
+
+	// Open addressing table from source PE to its messages and bytes
+	private int[] keys;
+	private int[] msgs;
+	private long[] bytes;
+	private int size;
+
+	private long sentMsgs;
+	private long sentBytes;
+
+	protected ThreadedFileReader(int pe, int pIdx, long startTime, long endTime, CommMatrix matrix) {
+		this.pe = pe;
+		this.pIdx = pIdx;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.matrix = matrix;
+		attach(pe, this);
+	}
+
+	public void run() {
+		readLog();
+	}
+
+	public void beginLog() {
+		keys = new int[64];
+		Arrays.fill(keys, -1);
+		msgs = new int[64];
+		bytes = new long[64];
+		size = 0;
+	}
+
+	public boolean visit(LogEntry data) {
+		if (data.time < startTime || data.time > endTime)
+			return true;
+		switch (data.type) {
+		case ProjDefs.BEGIN_PROCESSING:
+			if (data.pe >= 0 && data.pe < matrix.size())
+				add(data.pe, Math.max(0, data.msglen));
+			break;
+		case ProjDefs.CREATION:
+			sentMsgs++;
+			sentBytes += Math.max(0, data.msglen);
+			break;
+		case ProjDefs.CREATION_BCAST:
+		case ProjDefs.CREATION_MULTICAST:
+			sentMsgs += data.numPEs;
+			sentBytes += (long) Math.max(0, data.msglen) * data.numPEs;
+			break;
+		}
+		return true;
+	}
+
+	private void add(int src, int len) {
+		if (2 * (size + 1) > keys.length)
+			grow();
+		int i = slot(src);
+		if (keys[i] < 0) {
+			keys[i] = src;
+			size++;
+		}
+		msgs[i]++;
+		bytes[i] += len;
+	}
+
+	private int slot(int src) {
+		int mask = keys.length - 1;
+		int h = src * 0x9E3779B9;
+		int i = (h ^ h >>> 16) & mask;
+		while (keys[i] >= 0 && keys[i] != src)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		int[] oldMsgs = msgs;
+		long[] oldBytes = bytes;
+		keys = new int[oldKeys.length * 2];
+		Arrays.fill(keys, -1);
+		msgs = new int[keys.length];
+		bytes = new long[keys.length];
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] >= 0) {
+				int i = slot(oldKeys[j]);
+				keys[i] = oldKeys[j];
+				msgs[i] = oldMsgs[j];
+				bytes[i] = oldBytes[j];
+			}
+		}
+	}
+
+	/** Hand the column, sorted by source PE, to the matrix */
+	public void endOfLog() {
+		int[] src = new int[size];
+		int n = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] >= 0)
+				src[n++] = keys[i];
+		}
+		Arrays.sort(src);
+		int[] colMsgs = new int[size];
+		long[] colBytes = new long[size];
+		boolean[] sameNode = new boolean[size];
+		for (int j = 0; j < size; j++) {
+			int i = slot(src[j]);
+			colMsgs[j] = msgs[i];
+			colBytes[j] = bytes[i];
+			sameNode[j] = isSameNode(src[j], pe);
+		}
+		keys = null;
+		msgs = null;
+		bytes = null;
+		matrix.setColumn(pIdx, pe, src, colMsgs, colBytes, sameNode, sentMsgs, sentBytes);
+	}
+
+}
@@ -1,12 +1,8 @@
 package projections.Tools.CommunicationOverTime;
 
-import java.io.IOException;
-
 import projections.Tools.ThreadedFileReaderBase;
-import projections.analysis.EndOfLogSuccess;
-import projections.analysis.GenericLogReader;
+import projections.analysis.LogEventVisitor;
 import projections.analysis.ProjDefs;
-import projections.analysis.StsReader;
 import projections.gui.MainWindow;
 import projections.misc.LogEntry;
 
@@ -16,7 +12,7 @@ import projections.misc.LogEntry;
  *  Written by Samir Mirza, Isaac Dooley, and possibly others
  * 
  */
-class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable  {
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable, LogEventVisitor  {
 
 	private int pe;
 	private long startInterval;
@@ -32,6 +28,18 @@ class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable  {
 	private double[][] globalExternalBytesRecv;
 	private double[][] globalExternalNodeMessageRecv;
 	private double[][] globalExternalNodeBytesRecv;
+
+	// Results for this PE, filled in while its log is scanned
+	private int numEPs;
+	private int numIntervals;
+	private double[][] localMessagesSend;
+	private double[][] localMessagesRecv;
+	private double[][] localBytesSend;
+	private double[][] localBytesRecv;
+	private double[][] localExternalMessageRecv;
+	private double[][] localExternalBytesRecv;
+	private double[][] localExternalNodeMessageRecv;
+	private double[][] localExternalNodeBytesRecv;
 	
 
 	/** Construct a file reading thread that will generate data for one PE. */
@@ -53,110 +61,107 @@ class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable  {
 		this.globalExternalBytesRecv = globalExternalBytesRecv;
 		this.globalExternalNodeMessageRecv = globalExternalNodeMessageRecv;
 		this.globalExternalNodeBytesRecv = globalExternalNodeBytesRecv;
+
+		attach(pe, this);
 	}
 
 
 
-	public void run() { 
-
-		GenericLogReader reader = new GenericLogReader( pe, MainWindow.runObject[myRun].getVersion());
+	public void beginLog() {
 		//Initialize class variables
-		int numEPs = MainWindow.runObject[myRun].getNumUserEntries();
-		int numIntervals = (int) (endInterval-startInterval+1);
-		double[][] localMessagesSend = new double[numIntervals][numEPs];
-		double[][] localMessagesRecv = new double[numIntervals][numEPs];
-
-		double[][] localBytesSend = new double[numIntervals][numEPs];
-		double[][] localBytesRecv = new double[numIntervals][numEPs];
-
-		double[][] localExternalMessageRecv = new double[numIntervals][numEPs];
-		double[][] localExternalBytesRecv = new double[numIntervals][numEPs];	
-
-		double[][] localExternalNodeMessageRecv = new double[numIntervals][numEPs];
-		double[][] localExternalNodeBytesRecv = new double[numIntervals][numEPs];	
-
-		try	{
-
-			while(true){
-				LogEntry logdata = reader.nextEvent();
-
-				//Now we have entered into the time interval
-
-				if (logdata.type == ProjDefs.CREATION) {  // Message being sent
-					int destEP = logdata.entry;
-					int timeInterval = getInterval(logdata.time);
-
-					// Update message and byte sent arrays
-					if(timeInterval >= 0 && timeInterval < numIntervals){
-						localMessagesSend[timeInterval][destEP]++;
-						localBytesSend[timeInterval][destEP]+=logdata.msglen;
-					}
-					// May implement Sent External later on
-				} else if ((logdata.type ==  ProjDefs.CREATION_BCAST) ||
-						(logdata.type ==  ProjDefs.CREATION_MULTICAST)) {
-					int destEP = logdata.entry;
-					int timeInterval = getInterval(logdata.time);
-					if(timeInterval >= 0 && timeInterval < numIntervals){
-						localMessagesSend[timeInterval][destEP] += logdata.numPEs;
-						localBytesSend[timeInterval][destEP] +=	(logdata.msglen * logdata.numPEs);
-					}
-				} else if (logdata.type ==  ProjDefs.BEGIN_PROCESSING) {  // Starting new entry method
-					int currEPindex = MainWindow.runObject[myRun].getEntryIndex(logdata.entry);
-					int srcPe = logdata.pe;
-					int timeInterval = getInterval(logdata.time);
-					if(timeInterval >= 0 && timeInterval < numIntervals){
-						// Update message and byte received arrays
-						localMessagesRecv[timeInterval][currEPindex]++;
-						localBytesRecv[timeInterval][currEPindex]+=logdata.msglen;
-
-						if (pe != srcPe) {
-							// Update message and byte received external arrays
-							localExternalMessageRecv[timeInterval][currEPindex]++;
-							localExternalBytesRecv[timeInterval][currEPindex]+=logdata.msglen;
-						}
-                        if(!isSameNode(pe, srcPe))
-                        {
-                            // Update message and byte received external arrays
-							localExternalNodeMessageRecv[timeInterval][currEPindex]++;
-							localExternalNodeBytesRecv[timeInterval][currEPindex]+=logdata.msglen;
-
-                        }
-					}
-				}
+		numEPs = MainWindow.runObject[myRun].getNumUserEntries();
+		numIntervals = (int) (endInterval-startInterval+1);
+		localMessagesSend = new double[numIntervals][numEPs];
+		localMessagesRecv = new double[numIntervals][numEPs];
 
-			}
+		localBytesSend = new double[numIntervals][numEPs];
+		localBytesRecv = new double[numIntervals][numEPs];
 
-		} catch (EndOfLogSuccess e) {
-			// Successfully reached end of log file
+		localExternalMessageRecv = new double[numIntervals][numEPs];
+		localExternalBytesRecv = new double[numIntervals][numEPs];	
 
-			// Convert intervalSize (in ms) to seconds
-			double intervalSizeSec = intervalSize / 1000.0;
-			for (int interval = 0; interval < numIntervals; interval++) {
-				for (int ep = 0; ep < numEPs; ep++) {
-					// Convert to rates by dividing by intervalSizeSec
-					localMessagesSend[interval][ep] /= intervalSizeSec;
-					localMessagesRecv[interval][ep] /= intervalSizeSec;
+		localExternalNodeMessageRecv = new double[numIntervals][numEPs];
+		localExternalNodeBytesRecv = new double[numIntervals][numEPs];	
+	}
+
+
+	public boolean visit(LogEntry logdata) {
+
+		//Now we have entered into the time interval
 
-					localBytesSend[interval][ep] /= intervalSizeSec;
-					localBytesRecv[interval][ep] /= intervalSizeSec;
+		if (logdata.type == ProjDefs.CREATION) {  // Message being sent
+			int destEP = logdata.entry;
+			int timeInterval = getInterval(logdata.time);
 
-					localExternalMessageRecv[interval][ep] /= intervalSizeSec;
-					localExternalBytesRecv[interval][ep] /= intervalSizeSec;
+			// Update message and byte sent arrays
+			if(timeInterval >= 0 && timeInterval < numIntervals){
+				localMessagesSend[timeInterval][destEP]++;
+				localBytesSend[timeInterval][destEP]+=logdata.msglen;
+			}
+			// May implement Sent External later on
+		} else if ((logdata.type ==  ProjDefs.CREATION_BCAST) ||
+				(logdata.type ==  ProjDefs.CREATION_MULTICAST)) {
+			int destEP = logdata.entry;
+			int timeInterval = getInterval(logdata.time);
+			if(timeInterval >= 0 && timeInterval < numIntervals){
+				localMessagesSend[timeInterval][destEP] += logdata.numPEs;
+				localBytesSend[timeInterval][destEP] +=	(logdata.msglen * logdata.numPEs);
+			}
+		} else if (logdata.type ==  ProjDefs.BEGIN_PROCESSING) {  // Starting new entry method
+			int currEPindex = MainWindow.runObject[myRun].getEntryIndex(logdata.entry);
+			int srcPe = logdata.pe;
+			int timeInterval = getInterval(logdata.time);
+			if(timeInterval >= 0 && timeInterval < numIntervals){
+				// Update message and byte received arrays
+				localMessagesRecv[timeInterval][currEPindex]++;
+				localBytesRecv[timeInterval][currEPindex]+=logdata.msglen;
+
+				if (pe != srcPe) {
+					// Update message and byte received external arrays
+					localExternalMessageRecv[timeInterval][currEPindex]++;
+					localExternalBytesRecv[timeInterval][currEPindex]+=logdata.msglen;
+				}
+				if(!isSameNode(pe, srcPe))
+				{
+					// Update message and byte received external arrays
+					localExternalNodeMessageRecv[timeInterval][currEPindex]++;
+					localExternalNodeBytesRecv[timeInterval][currEPindex]+=logdata.msglen;
 
-					localExternalNodeMessageRecv[interval][ep] /= intervalSizeSec;
-					localExternalNodeBytesRecv[interval][ep] /= intervalSizeSec;
 				}
 			}
-		} catch (java.io.IOException e) {
-			System.out.println("Exception: " +e);
-			e.printStackTrace();
 		}
+		return true;
+	}
+
+
+	public void endOfLog() {
+		// Successfully reached end of log file
+
+		// Convert intervalSize (in ms) to seconds
+		double intervalSizeSec = intervalSize / 1000.0;
+		for (int interval = 0; interval < numIntervals; interval++) {
+			for (int ep = 0; ep < numEPs; ep++) {
+				// Convert to rates by dividing by intervalSizeSec
+				localMessagesSend[interval][ep] /= intervalSizeSec;
+				localMessagesRecv[interval][ep] /= intervalSizeSec;
 
-		try {
-			reader.close();
-		} catch (IOException e1) {
-			System.err.println("Error: could not close log file reader for processor " + pe );
+				localBytesSend[interval][ep] /= intervalSizeSec;
+				localBytesRecv[interval][ep] /= intervalSizeSec;
+
+				localExternalMessageRecv[interval][ep] /= intervalSizeSec;
+				localExternalBytesRecv[interval][ep] /= intervalSizeSec;
+
+				localExternalNodeMessageRecv[interval][ep] /= intervalSizeSec;
+				localExternalNodeBytesRecv[interval][ep] /= intervalSizeSec;
+			}
 		}
+	}
+
+
+	public void run() { 
+
+		// Possibly shared with the readers of other tools
+		readLog();
 
 		// Accumulate into global results. This must be done safely as many threads will all use these same arrays
 		synchronized (globalMessagesSend) {
@@ -222,6 +227,12 @@ class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable  {
 				}
 			}
 		}
+
+		// Release any unneeded memory
+		localMessagesSend = localMessagesRecv = null;
+		localBytesSend = localBytesRecv = null;
+		localExternalMessageRecv = localExternalBytesRecv = null;
+		localExternalNodeMessageRecv = localExternalNodeBytesRecv = null;
 		
 
 		
@@ -0,0 +1,127 @@
+package projections.Tools.CommunicationPerPE;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import projections.analysis.TimedProgressThreadExecutor;
+import projections.gui.MainWindow;
+
+/**
+ *  Computes the communication of each of a set of PEs from their log files,
+ *  without any of the window. Used by CommWindow and by the batch analysis.
+ *
+ *  All the counts are [pe index][ep], where the pe index is the position of
+ *  the PE in the set, and are rates per millisecond of the time range.
+ */
+public class CommLoader {
+
+	private final double[][] sentMsgCount;
+	private final double[][] sentByteCount;
+	private final double[][] receivedMsgCount;
+	private final double[][] receivedByteCount;
+	private final double[][] externalRecv;
+	private final double[][] externalBytesRecv;
+	private final double[][] externalNodeRecv;
+	private final double[][] externalNodeBytesRecv;
+	private final int[][] hopCount;
+
+	private final List<Runnable> readers = new ArrayList<Runnable>();
+
+	public CommLoader(SortedSet<Integer> pes, long startTime, long endTime) {
+		sentMsgCount = new double[pes.size()][];
+		sentByteCount = new double[pes.size()][];
+		receivedMsgCount = new double[pes.size()][];
+		receivedByteCount = new double[pes.size()][];
+		externalRecv = new double[pes.size()][];
+		externalBytesRecv = new double[pes.size()][];
+		externalNodeRecv = new double[pes.size()][];
+		externalNodeBytesRecv = new double[pes.size()][];
+		if (MainWindow.BLUEGENE) {
+			hopCount = new int[pes.size()][];
+		} else {
+			hopCount = null;
+		}
+
+		int pIdx = 0;
+		for (Integer nextPe : pes) {
+			readers.add(new ThreadedFileReader(nextPe, pIdx, startTime, endTime,
+					sentMsgCount, sentByteCount,
+					receivedMsgCount, receivedByteCount,
+					externalRecv, externalBytesRecv,
+					externalNodeRecv, externalNodeBytesRecv,
+					hopCount));
+			pIdx++;
+		}
+	}
+
+	/** The readers, to be run before the results are asked for */
+	public List<Runnable> getReaders() {
+		return readers;
+	}
+
+	/** Run the readers on the shared worker pool, showing progress over guiRoot if it is not null */
+	public void load(Component guiRoot) {
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Communication Data in Parallel", readers, guiRoot, true);
+		threadManager.runAll();
+	}
+
+	public double[][] getSentMsgCount() {
+		return sentMsgCount;
+	}
+
+	public double[][] getSentByteCount() {
+		return sentByteCount;
+	}
+
+	public double[][] getReceivedMsgCount() {
+		return receivedMsgCount;
+	}
+
+	public double[][] getReceivedByteCount() {
+		return receivedByteCount;
+	}
+
+	/** Messages received from other PEs */
+	public double[][] getExternalRecv() {
+		return externalRecv;
+	}
+
+	public double[][] getExternalBytesRecv() {
+		return externalBytesRecv;
+	}
+
+	/** Messages received from other nodes */
+	public double[][] getExternalNodeRecv() {
+		return externalNodeRecv;
+	}
+
+	public double[][] getExternalNodeBytesRecv() {
+		return externalNodeBytesRecv;
+	}
+
+	/** The summed hop counts, or null unless MainWindow.BLUEGENE */
+	public int[][] getHopCount() {
+		return hopCount;
+	}
+
+	/** The number of messages sent of each size in bytes, over all the PEs */
+	public int[] getMessageSizeCounts() {
+		int max = 0;
+		for (Runnable r : readers) {
+			for (Integer size : ((ThreadedFileReader) r).localHistogram) {
+				if (size > max)
+					max = size;
+			}
+		}
+		int[] histArray = new int[max+1];
+		for (Runnable r : readers) {
+			for (Integer size : ((ThreadedFileReader) r).localHistogram) {
+				histArray[size] += 1;
+			}
+		}
+		return histArray;
+	}
+
+}
@@ -9,10 +9,6 @@ import java.awt.event.ActionListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.awt.event.MouseEvent;
-import java.lang.reflect.Array;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.text.DecimalFormat;
@@ -20,7 +16,6 @@ import java.text.DecimalFormat;
 import javax.swing.*;
 
 import projections.analysis.Analysis;
-import projections.analysis.TimedProgressThreadExecutor;
 import projections.gui.Clickable;
 import projections.gui.GenericGraphWindow;
 import projections.gui.MainWindow;
@@ -56,7 +51,6 @@ implements ActionListener, Clickable
 
 	private DecimalFormat _format;
 
-	private ArrayList<Integer> histogram;
 	private int[]	histArray;
 	private String 	currentArrayName;
 
@@ -449,37 +443,10 @@ implements ActionListener, Clickable
 
 
 	private void getData(long startTime, long endTime, SortedSet<Integer> pes){
-		sentMsgCount = new double[pes.size()][];
-		sentByteCount = new double[pes.size()][];
-		receivedMsgCount = new double[pes.size()][];
-		receivedByteCount = new double[pes.size()][];
-		externalRecv = new double[pes.size()][];
-		externalBytesRecv = new double[pes.size()][];
-		externalNodeRecv = new double[pes.size()][];
-		externalNodeBytesRecv = new double[pes.size()][];
-		if (MainWindow.BLUEGENE) {
-			hopCount = new int[pes.size()][];
-		} else {
-			hopCount = null;
-		}
-
 		this.timeInterval = endTime - startTime;
 
-		histogram = new ArrayList<Integer>();
-		
-		// Create a list of worker threads
-		LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
-		int pIdx = 0;
-    	for(Integer nextPe : pes){
-			readyReaders.add(new ThreadedFileReader(nextPe, pIdx, startTime, endTime,
-					sentMsgCount, sentByteCount,
-					receivedMsgCount, receivedByteCount,
-					externalRecv, externalBytesRecv,
-					externalNodeRecv, externalNodeBytesRecv,
-					hopCount));
-			pIdx++;
-		}
-		
+		CommLoader loader = new CommLoader(pes, startTime, endTime);
+
 		// Determine a component to show the progress bar with
 		Component guiRootForProgressBar = null;
 		if(thisWindow!=null && thisWindow.isVisible()) {
@@ -488,52 +455,20 @@ implements ActionListener, Clickable
 			guiRootForProgressBar = MainWindow.runObject[myRun].guiRoot;
 		}
 
-		// Pass this list of threads to a class that manages/runs the threads nicely
-		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Communication Data in Parallel", readyReaders, guiRootForProgressBar, true);
-		threadManager.runAll();
-		
-		
-		// Combine histograms from all processors
-		
-		Iterator<Runnable> iter = readyReaders.iterator();
-		while(iter.hasNext()){
-			ThreadedFileReader t = (ThreadedFileReader) iter.next();
-			histogram.addAll(t.localHistogram);
-		}
-		
-		// Do some post processing
-		
-		// **CW** Highly inefficient ... needs to be re-written as a
-		// bin-based solution instead.
-
-		int max;
-		int min;
-		if(histogram.size()>0){
-			max = histogram.get(0).intValue();
-			min = histogram.get(0).intValue();
-		} else {
-			min = 0;
-			max = 0;
-		}
+		loader.load(guiRootForProgressBar);
 
-		for(int k=1; k<histogram.size(); k++){
-			if((histogram.get(k)).intValue() < min)
-				min = (histogram.get(k)).intValue();
-			if((histogram.get(k)).intValue() > max)
-				max = (histogram.get(k)).intValue();
-		}
+		sentMsgCount = loader.getSentMsgCount();
+		sentByteCount = loader.getSentByteCount();
+		receivedMsgCount = loader.getReceivedMsgCount();
+		receivedByteCount = loader.getReceivedByteCount();
+		externalRecv = loader.getExternalRecv();
+		externalBytesRecv = loader.getExternalBytesRecv();
+		externalNodeRecv = loader.getExternalNodeRecv();
+		externalNodeBytesRecv = loader.getExternalNodeBytesRecv();
+		hopCount = loader.getHopCount();
 
-		histArray = new int[max+1];
-		for(int k=0; k<Array.getLength(histArray); k++){
-			histArray[k] = 0;
-		}
-
-		int index;
-		for(int k=0; k<histogram.size(); k++){
-			index = (histogram.get(k)).intValue();
-			//System.out.println("index = "+ index);
-			histArray[index] += 1;
-		}
+		// Combine histograms from all processors
+		histArray = loader.getMessageSizeCounts();
 	}
 
 	// NOTE: This is a torus-based Manhattan distance computation!
@@ -1,24 +1,26 @@
 package projections.Tools.EntryMethodProfile;
 
-import java.io.IOException;
 import java.util.*;
 
-import projections.analysis.EndOfLogSuccess;
-import projections.analysis.GenericLogReader;
+import projections.Tools.ThreadedFileReaderBase;
+import projections.analysis.LogEventVisitor;
 import projections.analysis.ProjDefs;
-import projections.gui.MainWindow;
 import projections.misc.LogEntry;
 
-class ThreadedFileReader implements Runnable {
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable, LogEventVisitor {
 
     private int pe;
-    private int myRun;
     private int lastIndex;
     private long startTime;
     private long endTime;
 
     private Map<Integer, Long> load;
 
+    /** The entry and time of each BEGIN_PROCESSING event not ended yet, the innermost last */
+    private int[] stackEntry;
+    private long[] stackTime;
+    private int depth;
+
     /**
      * Construct a file reading thread that will determine the load for each entry function
      * <p>
@@ -29,57 +31,69 @@ class ThreadedFileReader implements Runnable {
         this.myRun = myRun;
         this.startTime = startTime;
         this.endTime = endTime;
+
+        attach(pe, this);
     }
 
     public void run() {
-        GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+        // Possibly shared with the readers of other tools
+        readLog();
+    }
 
+    public void beginLog() {
         // First take data and put it into intervals.
         load = new TreeMap<Integer, Long>();
-        Deque<LogEntry> stack = new ArrayDeque<LogEntry>();
+        stackEntry = new int[16];
+        stackTime = new long[16];
+        depth = 0;
         lastIndex = -1;
+    }
 
-        try {
-            while (true) {
-                LogEntry data = reader.nextProcessingEvent();
+    public boolean visit(LogEntry data) {
+        if (data.type != ProjDefs.BEGIN_PROCESSING && data.type != ProjDefs.END_PROCESSING)
+            return true;
 
-                if (data.time > endTime)
-                    break;
+        if (data.time > endTime)
+            return false;
 
-                switch (data.type) {
-                    case ProjDefs.BEGIN_PROCESSING:
-                        stack.push(data);
-                        break;
-                    case ProjDefs.END_PROCESSING:
-                        if (stack.isEmpty()) {
-                            break;
-                        }
-                        LogEntry beginData = stack.pop();
-                        if (beginData.entry != data.entry) {
-                            break;
-                        } else if ((data.time - beginData.time) > 0 && data.time < endTime && beginData.time >= startTime) {
-                            if (!load.containsKey(beginData.entry))
-                                load.put(beginData.entry, data.time - beginData.time);
-                            else
-                                load.put(beginData.entry, load.get(beginData.entry) + (data.time - beginData.time));
-                        }
-                        lastIndex = Math.max(lastIndex, beginData.entry);
-                        break;
-                    default:
-                        break;
+        switch (data.type) {
+            case ProjDefs.BEGIN_PROCESSING:
+                if (depth == stackEntry.length) {
+                    stackEntry = Arrays.copyOf(stackEntry, 2 * depth);
+                    stackTime = Arrays.copyOf(stackTime, 2 * depth);
                 }
-            }
-        } catch (EndOfLogSuccess e) {
-            // Done reading file
-        } catch (IOException e) {
-            // Error reading file
+                // The entries are refilled for every event, so keep copies of the fields
+                stackEntry[depth] = data.entry;
+                stackTime[depth] = data.time;
+                depth++;
+                break;
+            case ProjDefs.END_PROCESSING:
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+                int beginEntry = stackEntry[depth];
+                long beginTime = stackTime[depth];
+                if (beginEntry != data.entry) {
+                    break;
+                } else if ((data.time - beginTime) > 0 && data.time < endTime && beginTime >= startTime) {
+                    if (!load.containsKey(beginEntry))
+                        load.put(beginEntry, data.time - beginTime);
+                    else
+                        load.put(beginEntry, load.get(beginEntry) + (data.time - beginTime));
+                }
+                lastIndex = Math.max(lastIndex, beginEntry);
+                break;
+            default:
+                break;
         }
+        return true;
+    }
 
-        try {
-            reader.close();
-        } catch (IOException e1) {
-            System.err.println("Error: could not close log file reader for processor " + pe);
-        }
+    public void endOfLog() {
+        // Done reading file
+        stackEntry = null;
+        stackTime = null;
     }
 
     public Map<Integer, Long> getData() {
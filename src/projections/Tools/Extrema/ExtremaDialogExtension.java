@@ -5,6 +5,7 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -34,6 +35,7 @@ class ExtremaDialogExtension extends RangeDialogExtensionPanel
 	private JComboBox activityList;
 	private JIntTextField thresholdField;
 	private JIntTextField kField;
+	private JCheckBox reduceBox;
 	private JTextArea errorText;
 
 	private JLabel attributeLabel;
@@ -78,6 +80,8 @@ class ExtremaDialogExtension extends RangeDialogExtensionPanel
 		JLabel kLabel = new JLabel("Number of Clusters: ", JLabel.RIGHT);
 		// initialize k-means choice of k to be default to number of processors
 		kField = new JIntTextField(MainWindow.runObject[myRun].getNumProcessors(), 3);
+		// clustering on fewer metrics is faster for many entry methods, but approximate
+		reduceBox = new JCheckBox("Cluster only on the metrics with 99% of the variance");
 
 		errorText = new JTextArea();
 		errorText.setRows(3);
@@ -99,7 +103,8 @@ class ExtremaDialogExtension extends RangeDialogExtensionPanel
 		Util.gblAdd(outlierPanel, thresholdPost,  gbc, 2,2, 1,1, 0,1);
 		Util.gblAdd(outlierPanel, kLabel,         gbc, 0,3, 1,1, 0,1);
 		Util.gblAdd(outlierPanel, kField,         gbc, 1,3, 2,1, 0,1);
-		Util.gblAdd(outlierPanel, scrollText,     gbc, 0,4, 3,3, 0,1);
+		Util.gblAdd(outlierPanel, reduceBox,      gbc, 1,4, 2,1, 0,1);
+		Util.gblAdd(outlierPanel, scrollText,     gbc, 0,5, 3,3, 0,1);
 
 	}
 		
@@ -175,5 +180,9 @@ class ExtremaDialogExtension extends RangeDialogExtensionPanel
 		return kField.getValue(); 
 	}
 
+	boolean reduceMetrics(){
+		return reduceBox.isSelected();
+	}
+
 	
 }
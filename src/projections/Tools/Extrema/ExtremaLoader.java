@@ -0,0 +1,57 @@
+package projections.Tools.Extrema;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import projections.analysis.TimedProgressThreadExecutor;
+import projections.gui.MainWindow;
+
+/**
+ *  Reads the per-PE values that the Extrema tool looks for outliers in,
+ *  without any of the window. Used by ExtremaWindow and by the batch
+ *  analysis.
+ */
+public class ExtremaLoader {
+
+	/** Time in each activity, as a percent of the range */
+	public static final int ATTR_LEASTIDLE = ExtremaWindow.ATTR_LEASTIDLE;
+	public static final int ATTR_MOSTIDLE = ExtremaWindow.ATTR_MOSTIDLE;
+	/** Messages sent by each activity */
+	public static final int ATTR_MSGSSENT = ExtremaWindow.ATTR_MSGSSENT;
+	/** Bytes sent by each activity */
+	public static final int ATTR_BYTESSENT = ExtremaWindow.ATTR_BYTESSENT;
+
+	private final List<Runnable> readers = new ArrayList<Runnable>();
+
+	/** Set up the readers for activities of the given type, one of the Analysis activity types */
+	public ExtremaLoader(SortedSet<Integer> pes, long startTime, long endTime, int selectedActivity, int selectedAttribute) {
+		int numActivities = MainWindow.runObject[0].getNumActivity(selectedActivity);
+		for (Integer pe : pes) {
+			readers.add(new ThreadedFileReader(pe, startTime, endTime,
+					numActivities, numActivities+2, selectedActivity, selectedAttribute));
+		}
+	}
+
+	/** The readers, to be run before getData() is called */
+	public List<Runnable> getReaders() {
+		return readers;
+	}
+
+	/** Run the readers on the shared worker pool, showing progress over guiRoot if it is not null */
+	public void load(Component guiRoot) {
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Extrema in Parallel", readers, guiRoot, true);
+		threadManager.runAll();
+	}
+
+	/** data[pe index][activity], with idle time in column numActivities and overhead in column numActivities+1 */
+	public double[][] getData() {
+		double[][] data = new double[readers.size()][];
+		for (int pIdx = 0; pIdx < data.length; pIdx++) {
+			data[pIdx] = ((ThreadedFileReader) readers.get(pIdx)).myData;
+		}
+		return data;
+	}
+
+}
@@ -15,7 +15,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.text.DecimalFormat;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.ListIterator;
 import java.util.StringTokenizer;
@@ -34,7 +33,6 @@ import projections.analysis.GenericLogReader;
 import projections.analysis.KMeansClustering;
 import projections.analysis.ProjDefs;
 import projections.analysis.ProjMain;
-import projections.analysis.TimedProgressThreadExecutor;
 import projections.gui.Clickable;
 import projections.gui.GenericGraphColorer;
 import projections.gui.GenericGraphWindow;
@@ -65,6 +63,7 @@ Clickable
 	// private dialog data
 	private int threshold;
 	private int k;
+	private boolean reduceMetrics;
 
 	// Record which activity was chosen and is currently loaded
 	private int selectedActivity;
@@ -217,6 +216,7 @@ Clickable
 			}
 			else
 				k = outlierDialogPanel.getK();
+			reduceMetrics = outlierDialogPanel.reduceMetrics();
 			thisWindow.setVisible(false);
 
 			final SwingWorker worker =  new SwingWorker() {
@@ -299,20 +299,13 @@ Clickable
 		numSpecials = 2;
 		colorer = new NormalColorer(numActivities,numSpecials);
 		
-		int numActivityPlusSpecial = numActivities+numSpecials;
-
 		SortedSet<Integer> selectedPEs = new TreeSet<Integer>(dialog.getSelectedProcessors());
 		int numPEs = selectedPEs.size();
 		tempData = new double[numPEs][];
 
 		if (MainWindow.runObject[myRun].hasLogData()) {
-			// Create a list of worker threads
-			LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
-
-			for (Integer pe : selectedPEs) {
-				readyReaders.add(new ThreadedFileReader(pe, startTime, endTime,
-						numActivities, numActivityPlusSpecial, selectedActivity, selectedAttribute));
-			}
+			ExtremaLoader loader = new ExtremaLoader(selectedPEs, startTime, endTime,
+					selectedActivity, selectedAttribute);
 
 			// Determine a component to show the progress bar with
 			Component guiRootForProgressBar = null;
@@ -322,18 +315,8 @@ Clickable
 				guiRootForProgressBar = MainWindow.runObject[myRun].guiRoot;
 			}
 
-			// Pass this list of threads to a class that manages/runs the threads nicely
-			TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Extrema in Parallel", readyReaders, guiRootForProgressBar, true);
-			threadManager.runAll();
-
-			// Retrieve results from each thread, storing them into tempData
-			int pIdx = 0;
-			Iterator<Runnable> iter = readyReaders.iterator();
-			while (iter.hasNext()) {
-				ThreadedFileReader r = (ThreadedFileReader) iter.next();
-				tempData[pIdx] = r.myData;
-				pIdx++;
-			}
+			loader.load(guiRootForProgressBar);
+			tempData = loader.getData();
 		} else if (MainWindow.runObject[myRun].hasSumDetailData()) {
 			int intervalSize = (int) MainWindow.runObject[myRun].getSumDetailIntervalSize();
 			int startInterval = (int) ((float) startTime / intervalSize);
@@ -498,7 +481,8 @@ Clickable
 
 	    double distanceFromClusterMean[] = new double[numPEs];
 	    KMeansClustering.kMeans(data, k, clusterMap, 
-				    distanceFromClusterMean);
+				    distanceFromClusterMean,
+				    reduceMetrics ? KMeansClustering.REDUCED_VARIANCE : 1.0);
 	    selectRepresentatives(clusterMap, distanceFromClusterMean,
 				  sortedMap);
 	    break;
@@ -513,7 +497,7 @@ Clickable
 	    for (int i=0; i<numPEs; i++) {
 		fullMap[i] = i;
 	    }
-	    bubbleSort(processorDiffs, fullMap);
+	    sortMap(processorDiffs, fullMap);
 	    // trim to threshold
 	    for (int i=0; i<threshold; i++) {
 		sortedMap[i] = fullMap[i+offset];
@@ -530,7 +514,7 @@ Clickable
 	    for (int i=0; i<numPEs; i++) {
 		fullMap[i] = i;
 	    }
-	    bubbleSort(processorDiffs, fullMap);
+	    sortMap(processorDiffs, fullMap);
 	    // trim to threshold
 	    for (int i=0; i<threshold; i++) {
 		sortedMap[i] = fullMap[i+offset];
@@ -550,7 +534,7 @@ Clickable
 	    for (int i=0; i<numPEs; i++) {
 		fullMap[i] = i;
 	    }
-	    bubbleSort(processorDiffs, fullMap);
+	    sortMap(processorDiffs, fullMap);
 	    // trim to threshold
 	    for (int i=0; i<threshold; i++) {
 		sortedMap[i] = fullMap[i+offset];
@@ -567,7 +551,7 @@ Clickable
 	    for (int i=0; i<numPEs; i++) {
 		fullMap[i] = i;
 	    }
-	    bubbleSort(processorDiffs, fullMap);
+	    sortMap(processorDiffs, fullMap);
 	    // trim to threshold
 	    for (int i=0; i<threshold; i++) {
 		sortedMap[i] = fullMap[i+offset];
@@ -590,7 +574,7 @@ Clickable
 	    for (int i=0; i<numPEs; i++) {
 		fullMap[i] = i;
 	    }
-	    bubbleSort(grainSize, fullMap);
+	    sortMap(grainSize, fullMap);
 	    // trim to threshold
 	    for (int i=0; i<threshold; i++) {
 		sortedMap[i] = fullMap[i+offset];
@@ -610,7 +594,7 @@ Clickable
 	    for (int i=0; i<numPEs; i++) {
 		fullMap[i] = i;
 	    }
-	    bubbleSort(processorDiffs, fullMap);
+	    sortMap(processorDiffs, fullMap);
 	    // trim to threshold
 	    for (int i=0; i<threshold; i++) {
 		sortedMap[i] = fullMap[i+offset];
@@ -700,14 +684,14 @@ Clickable
 	    }
 	}
 	
-	// Now (bubble) sort the distances
+	// Now sort the distances
 	double distances[] = new double[numElements];
 	int distancePeMap[] = new int[numElements];
 	for (int p=0; p<numElements; p++) {
 	    distances[p] = distanceFromClusterMean[p];
 	    distancePeMap[p] = p;
 	}
-	bubbleSort(distances, distancePeMap);
+	sortMap(distances, distancePeMap);
 
 	// Pick out the representatives from the sorted distances
 	int sortedMapIdx = 0;
@@ -736,9 +720,10 @@ Clickable
 	*/
     }
 
-    // data remains unchanged. map is modified.
+    // data remains unchanged. map is modified into the order of
+    // increasing data, keeping the order of equal values.
     // Both data and map must have been initialized prior to invocation.
-    private void bubbleSort(double data[], int map[]) {
+    private void sortMap(double data[], int map[]) {
 	int numElements = data.length;
 	if (numElements != map.length) {
 	    System.err.println("Error: Extrema Tool - attempt to sort " +
@@ -746,24 +731,46 @@ Clickable
 	    System.exit(-1);
 	}
 
-	// make a copy of the original data
-	double tmpData[] = new double[numElements];
+	// sort the positions of the data, then permute map the same way
+	int order[] = new int[numElements];
 	for (int i=0; i<numElements; i++) {
-	    tmpData[i] = data[i];
-	}
-
-	for (int elt=numElements-1; elt>0; elt--) {
-	    for (int i=0; i<elt; i++) {
-		if (tmpData[i+1] < tmpData[i]) {
-		    double temp = tmpData[i+1];
-		    tmpData[i+1] = tmpData[i];
-		    tmpData[i] = temp;
-		    int tempI = map[i+1];
-		    map[i+1] = map[i];
-		    map[i] = tempI;
-		}
+	    order[i] = i;
+	}
+	mergeSort(data, order, new int[numElements], 0, numElements);
+	int tmpMap[] = new int[numElements];
+	for (int i=0; i<numElements; i++) {
+	    tmpMap[i] = map[order[i]];
+	}
+	System.arraycopy(tmpMap, 0, map, 0, numElements);
+    }
+
+    // A stable merge sort of order[first..last-1] by data, using tmp.
+    private static void mergeSort(double data[], int order[], int tmp[],
+				  int first, int last) {
+	if (last - first < 2) {
+	    return;
+	}
+	int mid = (first + last) >>> 1;
+	mergeSort(data, order, tmp, first, mid);
+	mergeSort(data, order, tmp, mid, last);
+	int i = first;
+	int j = mid;
+	int out = first;
+	while (i < mid && j < last) {
+	    // only take from the right when strictly smaller, for stability
+	    if (data[order[j]] < data[order[i]]) {
+		tmp[out++] = order[j++];
+	    } else {
+		tmp[out++] = order[i++];
 	    }
 	}
+	while (i < mid) {
+	    tmp[out++] = order[i++];
+	}
+	while (j < last) {
+	    tmp[out++] = order[j++];
+	}
+	System.arraycopy(tmp, first, order, first, last - first);
     }
 
 	private void loadOnlineData(final long startTime, final long endTime) {
@@ -1,23 +1,16 @@
 package projections.Tools.Extrema;
 
 
-import java.io.IOException;
-
+import projections.Tools.ThreadedFileReaderBase;
 import projections.analysis.Analysis;
-import projections.analysis.EndOfLogSuccess;
-import projections.analysis.GenericLogReader;
+import projections.analysis.LogEventVisitor;
 import projections.analysis.ProjDefs;
 import projections.gui.MainWindow;
 import projections.misc.LogEntry;
 
 
 /** The reader threads for Extrema tool. */
-class ThreadedFileReader implements Runnable  {
-
-	// Temporary hardcode. This variable will be assigned appropriate
-	// meaning in future versions of Projections that support multiple
-	// runs.
-	private static int myRun = 0;
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable, LogEventVisitor  {
 
 	private int pe;
 	private long startTime;
@@ -30,6 +23,18 @@ class ThreadedFileReader implements Runnable  {
 
 	double[] myData;
 
+	// The open begin events, while the log is scanned
+	private boolean isProcessing;
+	private long prevBeginProcTime;
+	private int prevBeginProcEntry;
+	private boolean hasPrevBeginIdle;
+	private long prevBeginIdleTime;
+
+	// The first half of the current pair of user events, and whether a pair in range has been seen
+	private boolean hasPairBegin;
+	private long pairBeginTime;
+	private int pairUserEventID;
+	private boolean inRange;
 
 	protected ThreadedFileReader(int pe, long startTime2, long endTime2, int numActivities, int numActivityPlusSpecial, int selectedActivity, int selectedAttribute){
 		this.pe = pe;
@@ -39,173 +44,159 @@ class ThreadedFileReader implements Runnable  {
 		this.numActivityPlusSpecial = numActivityPlusSpecial;
 		this.selectedActivity = selectedActivity;
 		this.selectedAttribute = selectedAttribute;
+
+		attach(pe, this);
 	}
 
 
 	public void run() { 
+		// Possibly shared with the readers of other tools
+		readLog();
+	}
 
-		myData = new double[numActivityPlusSpecial];
-
-
-		// Construct tempData (read) array hereColorSelectable
-		//
-		// **NOTE** We really need a generic interface to a "data"
-		// object. Re-writing the reading code each time for each
-		// tool is starting to get really painful.
-		//
-		// Right now, we restrict ourselves to reading logs (since
-		// we wanna support User Events, the nature of which 
-		// unfortunately requires us to write a different read loop
-		// for it.
-		GenericLogReader reader = 
-			new GenericLogReader( pe, MainWindow.runObject[myRun].getVersion());
 
+	public void beginLog() {
+		myData = new double[numActivityPlusSpecial];
+		isProcessing = false;
+		hasPrevBeginIdle = false;
+		hasPairBegin = false;
+		inRange = false;
+	}
 
-		try {
-			if (selectedActivity == Analysis.USER_EVENTS) {
-				LogEntry logData;
-				LogEntry logDataEnd;
 
-				logData = reader.nextEventOfType(ProjDefs.USER_EVENT_PAIR);
-				logDataEnd = reader.nextEventOfType(ProjDefs.USER_EVENT_PAIR );
+	public boolean visit(LogEntry logData) {
+		// We support User Events, the nature of which unfortunately
+		// requires a different read loop for it.
+		if (selectedActivity == Analysis.USER_EVENTS) {
+			return visitUserEvent(logData);
+		}
 
-				while (logData.time < startTime) {
-					logData = reader.nextEventOfType(ProjDefs.USER_EVENT_PAIR);
-					logDataEnd = reader.nextEventOfType(ProjDefs.USER_EVENT_PAIR );
+		// The entries are refilled for every event, so the begin events are kept as copies of their fields
+		switch (logData.type) {
+
+		case ProjDefs.CREATION:
+			int eventIndex = logData.entry;
+			if (selectedAttribute == ExtremaWindow.ATTR_MSGSSENT) {
+				myData[eventIndex]++;
+			} else if (selectedAttribute == ExtremaWindow.ATTR_BYTESSENT) {
+				myData[eventIndex] += logData.msglen;
+			}	
+			break;
+
+		case ProjDefs.BEGIN_PROCESSING:
+			if (isProcessing)
+			{
+			// We add a "pretend" end event to accomodate
+			// the prior begin processing event.
+			if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4 || selectedAttribute == 5 || selectedAttribute == 6 || selectedAttribute == 7)
+				{
+					if (logData.time <= endTime && logData.time >= startTime)
+					{
+						if (prevBeginProcTime < startTime) prevBeginProcTime = startTime;
+						myData[prevBeginProcEntry] += logData.time - prevBeginProcTime;
+					}
+				}
+			}
+			isProcessing = true;
+			prevBeginProcTime = logData.time;
+			prevBeginProcEntry = logData.entry;
+			break;
+
+		case ProjDefs.END_PROCESSING:
+			if(isProcessing){
+				if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4 || selectedAttribute == 5 || selectedAttribute == 6 || selectedAttribute == 7) {
+					if (logData.time <= endTime && logData.time >= startTime) {
+						if (prevBeginProcTime < startTime)
+							prevBeginProcTime = startTime;
+						myData[logData.entry] += logData.time - prevBeginProcTime;
+					}
 				}
-				int eventIndex = 0;
-				while (true) {
-					// process pair read previously
-					eventIndex = 
-						MainWindow.runObject[myRun].getUserDefinedEventIndex(logData.userEventID);
-					if (eventIndex != -1) {
-                        myData[eventIndex] += logDataEnd.time - logData.time;
-                    }
-					logData = reader.nextEventOfType(ProjDefs.USER_EVENT_PAIR);
-					logDataEnd = reader.nextEventOfType(ProjDefs.USER_EVENT_PAIR );
-					if (logDataEnd.time > endTime) {
-						break;
+			}
+			isProcessing = false;
+			break;
+
+		case ProjDefs.BEGIN_IDLE:
+			// Assume Idles are never nested
+			if (isProcessing)
+			{
+			// We add a "pretend" end event to accomodate
+			// the prior begin processing event.
+			if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4 || selectedAttribute == 5 || selectedAttribute == 6 || selectedAttribute == 7)
+				{
+					if (logData.time <= endTime && logData.time >= startTime)
+					{
+						if (prevBeginProcTime < startTime) prevBeginProcTime = startTime;
+						myData[prevBeginProcEntry] += logData.time - prevBeginProcTime;
 					}
+				}	
+			}
+			isProcessing = false;
+			hasPrevBeginIdle = true;
+			prevBeginIdleTime = logData.time;
+			break;
+
+		case ProjDefs.END_IDLE:
+			//selectedAttribute 2 and 3 are not yet implemented
+			if (hasPrevBeginIdle && (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4 || selectedAttribute == 5 || selectedAttribute == 6 || selectedAttribute == 7)) {
+				if (logData.time <= endTime && logData.time >= startTime) {
+					if (prevBeginIdleTime < startTime)
+						prevBeginIdleTime = startTime;
+					myData[numActivities] += logData.time - prevBeginIdleTime;
 				}
-			} else {
-
-				boolean isProcessing = false;
-				LogEntry prevBeginProc = null;
-				LogEntry prevBeginIdle = null;
-
-				while (true) {
-					LogEntry logData = reader.nextEvent();
-
-					switch (logData.type) {
-
-					case ProjDefs.CREATION:
-						int eventIndex = logData.entry;
-						if (selectedAttribute == ExtremaWindow.ATTR_MSGSSENT) {
-							myData[eventIndex]++;
-						} else if (selectedAttribute == ExtremaWindow.ATTR_BYTESSENT) {
-							myData[eventIndex] += logData.msglen;
-						}	
-						break;
-
-					case ProjDefs.BEGIN_PROCESSING:
-						if (isProcessing)
-						{
-						// We add a "pretend" end event to accomodate
-						// the prior begin processing event.
-						if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4 || selectedAttribute == 5 || selectedAttribute == 6 || selectedAttribute == 7)
-							{
-								if (logData.time <= endTime && logData.time >= startTime)
-								{
-									if (prevBeginProc.time < startTime) prevBeginProc.time = startTime;
-									myData[prevBeginProc.entry] += logData.time - prevBeginProc.time;
-								}
-							}
-						}
-						isProcessing = true;
-						prevBeginProc = logData;
-						break;
-
-					case ProjDefs.END_PROCESSING:
-						if(isProcessing){
-							if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4||  selectedAttribute == 5||selectedAttribute == 6|| selectedAttribute == 7) {
-								if (logData.time <= endTime && logData.time >= startTime) {
-									if (prevBeginProc.time < startTime)
-										prevBeginProc.time = startTime;
-									myData[logData.entry] += logData.time - prevBeginProc.time;
-								}
-							}
-							prevBeginProc = null;	
-						}
-						isProcessing = false;
-						break;
-
-					case ProjDefs.BEGIN_IDLE:
-						// Assume Idles are never nested
-						if (isProcessing)
-						{
-						// We add a "pretend" end event to accomodate
-						// the prior begin processing event.
-						if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4 || selectedAttribute == 5 || selectedAttribute == 6 || selectedAttribute == 7)
-							{
-								if (logData.time <= endTime && logData.time >= startTime)
-								{
-									if (prevBeginProc.time < startTime) prevBeginProc.time = startTime;
-									myData[prevBeginProc.entry] += logData.time - prevBeginProc.time;
-									prevBeginProc = null;
-									isProcessing = false;
-								}
-							}	
-						}
-						isProcessing = false;
-						prevBeginIdle = logData;
-						break;
-
-					case ProjDefs.END_IDLE:
-						//selectedAttribute 2 and 3 are not yet implemented
-						if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4||  selectedAttribute == 5||selectedAttribute == 6 || selectedAttribute == 7) {
-							if (logData.time <= endTime && logData.time >= startTime) {
-								if (prevBeginIdle.time < startTime)
-									prevBeginIdle.time = startTime;
-								myData[numActivities] += logData.time - prevBeginIdle.time;
-							}
-						}
-						prevBeginIdle = null;
-						break;
-
-					case ProjDefs.END_COMPUTATION:
-						if (isProcessing)
-						{
-							// If the last begin_processing has no end event,
-							// add a "pretend" end event.
-							if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4||  selectedAttribute == 5||selectedAttribute == 6|| selectedAttribute == 7) {
-								if (logData.time <= endTime && logData.time >= startTime) {
-									if (prevBeginProc.time < startTime)
-										prevBeginProc.time = startTime;
-									myData[prevBeginProc.entry] += logData.time - prevBeginProc.time;
-								}
-							}
-							prevBeginProc = null;
-						}
-						isProcessing = false;
-						break;
+			}
+			hasPrevBeginIdle = false;
+			break;
+
+		case ProjDefs.END_COMPUTATION:
+			if (isProcessing)
+			{
+				// If the last begin_processing has no end event,
+				// add a "pretend" end event.
+				if (selectedAttribute == 0 || selectedAttribute == 1 || selectedAttribute == 4 || selectedAttribute == 5 || selectedAttribute == 6 || selectedAttribute == 7) {
+					if (logData.time <= endTime && logData.time >= startTime) {
+						if (prevBeginProcTime < startTime)
+							prevBeginProcTime = startTime;
+						myData[prevBeginProcEntry] += logData.time - prevBeginProcTime;
 					}
 				}
-
 			}
-		} catch (EndOfLogSuccess e) {
-			// Successfully read the log file, attempt to close it
-		} catch (IOException e) {
-			System.err.println("Outlier Analysis: Error in reading log data for processor " + pe);
-			System.err.println(e);
+			isProcessing = false;
+			break;
 		}
+		return true;
+	}
 
-		try {
-			reader.close();
-		} catch (IOException e1) {
-			System.err.println("Error: could not close log file reader for processor " + pe );
+
+	/** Consecutive USER_EVENT_PAIR events are the begin and end of one pair */
+	private boolean visitUserEvent(LogEntry logData) {
+		if (logData.type != ProjDefs.USER_EVENT_PAIR)
+			return true;
+		if (!hasPairBegin) {
+			hasPairBegin = true;
+			pairBeginTime = logData.time;
+			pairUserEventID = logData.userEventID;
+			return true;
+		}
+		hasPairBegin = false;
+
+		if (!inRange) {
+			// Skip the pairs that begin before startTime; the first one after is counted whole
+			if (pairBeginTime < startTime)
+				return true;
+			inRange = true;
+		} else if (logData.time > endTime) {
+			return false;
+		}
+		int eventIndex = 
+			MainWindow.runObject[myRun].getUserDefinedEventIndex(pairUserEventID);
+		if (eventIndex != -1) {
+			myData[eventIndex] += logData.time - pairBeginTime;
 		}
-		
+		return true;
+	}
+
 
+	public void endOfLog() {
 		// compute overhead time
 		myData[numActivities+1] = endTime - startTime;
 		for(int e=0; e<numActivities+1; e++){
@@ -219,7 +210,6 @@ class ThreadedFileReader implements Runnable  {
 				myData[e] = myData[e] * 100.0 / (double)(endTime - startTime);
 			}
 		}
-
 	}
 
 
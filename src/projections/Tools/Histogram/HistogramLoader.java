@@ -0,0 +1,73 @@
+package projections.Tools.Histogram;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import projections.analysis.TimedProgressThreadExecutor;
+import projections.gui.MainWindow;
+
+/**
+ *  Computes the histograms of a set of PEs from their log files, without
+ *  any of the window. Used by HistogramWindow and by the batch analysis.
+ *
+ *  As with TimeProfileLoader, the readers join the shared scans of their
+ *  logs when the loader is constructed.
+ */
+public class HistogramLoader {
+
+	public static final int NUM_TYPES = HistogramWindow.NUM_TYPES;
+	public static final int TYPE_TIME = HistogramWindow.TYPE_TIME;
+	public static final int TYPE_MSG_SIZE = HistogramWindow.TYPE_MSG_SIZE;
+	public static final int TYPE_ACCTIME = HistogramWindow.TYPE_ACCTIME;
+	public static final int TYPE_IDLE_PERC = HistogramWindow.TYPE_IDLE_PERC;
+
+	private final double[][][] counts;
+	private final double[][] executionTime;
+	private final List<Runnable> readers = new ArrayList<Runnable>();
+
+	/** Set up the readers. Each type of histogram has numBins bins of binSize starting
+	 *  from minBinSize, and one more bin for the values past the last one. */
+	public HistogramLoader(SortedSet<Integer> pes, long startTime, long endTime,
+			int timeNumBins, long timeBinSize, long timeMinBinSize,
+			int msgNumBins, long msgBinSize, long msgMinBinSize,
+			int idleNumBins, long idleBinSize, long idleMinBinSize) {
+		// we create an extra bin to hold overflows.
+		int numEPs = MainWindow.runObject[0].getNumUserEntries()+1;
+		counts = new double[NUM_TYPES][][];
+		counts[TYPE_TIME] = new double[timeNumBins+1][numEPs];
+		counts[TYPE_ACCTIME] = new double[timeNumBins+1][numEPs];
+		counts[TYPE_MSG_SIZE] = new double[msgNumBins+1][numEPs];
+		counts[TYPE_IDLE_PERC] = new double[idleNumBins+1][numEPs];
+		executionTime = new double[4][numEPs];
+
+		for (Integer pe : pes) {
+			readers.add(new ThreadedFileReader(counts, pe, startTime, endTime, timeNumBins, timeBinSize, timeMinBinSize,
+					msgNumBins, msgBinSize, msgMinBinSize, idleNumBins, idleBinSize, idleMinBinSize, executionTime));
+		}
+	}
+
+	/** The readers, to be run before the results are asked for */
+	public List<Runnable> getReaders() {
+		return readers;
+	}
+
+	/** Run the readers on the shared worker pool, showing progress over guiRoot if it is not null */
+	public void load(Component guiRoot) {
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Histograms in Parallel", readers, guiRoot, true);
+		threadManager.runAll();
+	}
+
+	/** counts[type][bin][ep], summed over the PEs */
+	public double[][][] getCounts() {
+		return counts;
+	}
+
+	/** executionTime[0][ep] is the total time spent in ep, [1] its longest execution
+	 *  and [3] its number of executions. [2] is not filled in. */
+	public double[][] getExecutionTime() {
+		return executionTime;
+	}
+
+}
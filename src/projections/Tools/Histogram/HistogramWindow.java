@@ -7,7 +7,6 @@ import java.awt.GridBagLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.text.DecimalFormat;
-import java.util.LinkedList;
 
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
@@ -19,7 +18,6 @@ import javax.swing.JRadioButton;
 import javax.swing.SwingWorker;
 import javax.swing.JOptionPane;
 
-import projections.analysis.TimedProgressThreadExecutor;
 import projections.gui.ChooseEntriesWindow;
 import projections.gui.EntryMethodVisibility;
 import projections.gui.GenericGraphWindow;
@@ -172,16 +170,11 @@ implements ActionListener, EntryMethodVisibility
 						return null;
 					}
                                         binType = binpanel.getSelectedType();
-                                        counts = new double[HistogramWindow.NUM_TYPES][][];
                                         counts_display = new double[HistogramWindow.NUM_TYPES][][];
                                         // we create an extra bin to hold overflows.
                                         //YSun Changed
                                         //numEPs = MainWindow.runObject[myRun].getNumUserEntries();
                                         numEPs = MainWindow.runObject[myRun].getNumUserEntries()+1;
-                                        counts[HistogramWindow.TYPE_TIME] = new double[timeNumBins+1][numEPs];
-                                        counts[HistogramWindow.TYPE_ACCTIME] = new double[timeNumBins+1][numEPs];
-                                        counts[HistogramWindow.TYPE_MSG_SIZE] = new double[msgNumBins+1][numEPs];
-					counts[HistogramWindow.TYPE_IDLE_PERC] = new double[idleNumBins+1][numEPs];
 
                     			counts_display[HistogramWindow.TYPE_TIME] = new double[timeNumBins+1][numEPs];
                                         counts_display[HistogramWindow.TYPE_ACCTIME] = new double[timeNumBins+1][numEPs];
@@ -195,14 +188,11 @@ implements ActionListener, EntryMethodVisibility
                         			display_mask[_i] = true;
                     			}
 
-                    			executionTime = new double[4][numEPs];
-                                        // Create a list of worker threads
-                                        LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
-
-                                        for(Integer nextPe : dialog.getSelectedProcessors())
-					{
-                                                readyReaders.add( new ThreadedFileReader(counts, nextPe, dialog.getStartTime(), dialog.getEndTime(), timeNumBins, timeBinSize, timeMinBinSize, msgNumBins, msgBinSize, msgMinBinSize, idleNumBins, idleBinSize, idleMinBinSize, executionTime));
-                                        }
+                                        HistogramLoader loader = new HistogramLoader(dialog.getSelectedProcessors(), dialog.getStartTime(), dialog.getEndTime(),
+                                                        timeNumBins, timeBinSize, timeMinBinSize, msgNumBins, msgBinSize, msgMinBinSize,
+                                                        idleNumBins, idleBinSize, idleMinBinSize);
+                                        counts = loader.getCounts();
+                                        executionTime = loader.getExecutionTime();
 
                                         // Determine a component to show the progress bar with
                                         Component guiRootForProgressBar = null;
@@ -215,9 +205,7 @@ implements ActionListener, EntryMethodVisibility
                                                 guiRootForProgressBar = MainWindow.runObject[myRun].guiRoot;
                                         }
 
-                                        // Pass this list of threads to a class that manages/runs the threads nicely
-                                        TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Histograms in Parallel", readyReaders, guiRootForProgressBar, true);
-                                        threadManager.runAll();
+                                        loader.load(guiRootForProgressBar);
 
                                         return null;
                                 }
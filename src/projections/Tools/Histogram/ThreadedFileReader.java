@@ -2,10 +2,8 @@ package projections.Tools.Histogram;
 
 
 
-import java.io.IOException;
-
-import projections.analysis.EndOfLogSuccess;
-import projections.analysis.GenericLogReader;
+import projections.Tools.ThreadedFileReaderBase;
+import projections.analysis.LogEventVisitor;
 import projections.analysis.ProjDefs;
 import projections.gui.MainWindow;
 import projections.misc.LogEntry;
@@ -13,13 +11,12 @@ import projections.misc.LogEntry;
 
 
 
-/** The reader threads for Histogram tool. */
-class ThreadedFileReader implements Runnable  {
+/** The reader threads for Histogram tool. Both histograms are computed in a single pass over the log, possibly shared with other tools. */
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable  {
 
 	private int pe;
 	private long startTime;
 	private long endTime;
-	private int myRun = 0;
 
 	private int timeNumBins;
 	private long timeBinSize;
@@ -34,6 +31,10 @@ class ThreadedFileReader implements Runnable  {
 	private double [][][] outputCounts;
 
     	private double [][] executionTime;
+
+	private CountsVisitor counts = new CountsVisitor();
+	private TotalExecTimeVisitor totalExecTime = new TotalExecTimeVisitor();
+
 	/** Construct a file reading thread that will generate histogram data for one PE. */
 	protected ThreadedFileReader(double[][][] outputCounts, int pe, long startTime, long endTime, int timeNumBins, long timeBinSize, long timeMinBinSize, int msgNumBins, long msgBinSize, long msgMinBinSize)
 	{
@@ -50,6 +51,7 @@ class ThreadedFileReader implements Runnable  {
 		//this.idleBinSize = idleBinSize;
 		//this.idleMinBinSize = idleMinBinSize;
 		this.outputCounts = outputCounts;	
+		attach(pe, counts, totalExecTime);
 	}
 
     	protected ThreadedFileReader(double[][][] outputCounts, int pe, long startTime, long endTime, int timeNumBins, long timeBinSize, long timeMinBinSize, int msgNumBins, long msgBinSize, long msgMinBinSize, int idleNumBins, long idleBinSize, long idleMinBinSize, double[][] executionTime)
@@ -68,14 +70,16 @@ class ThreadedFileReader implements Runnable  {
 		this.idleMinBinSize = idleMinBinSize;
 		this.outputCounts = outputCounts;
         	this.executionTime = executionTime;
+		attach(pe, counts, totalExecTime);
     	}
 
 
 
 	public void run() 
 	{ 
-		double [][][] myCounts = getCounts();
-        	double [][] exec_time = getTotalExecTime(); 
+		readLog();
+		double [][][] myCounts = counts.countData;
+        	double [][] exec_time = totalExecTime._sun_execution_time; 
 		// in synchronized manner accumulate into global counts:
 		synchronized (outputCounts)
 		{
@@ -110,156 +114,126 @@ class ThreadedFileReader implements Runnable  {
             
         	}
 		myCounts = null;
+		counts = null;
+		totalExecTime = null;
 	}
 
 
 
-	private double[][][] getCounts()
+	/** Computes the histograms for one PE */
+	private class CountsVisitor implements LogEventVisitor
 	{
 		// Variables for use with the analysis
-		long executionTime;
-		long adjustedTime;
-		long adjustedSize;
-		long totalIdleTime = 0;
-		long totalStart = 0;
-		long totalStop = 0;
-		long idleStart = 0;
-
-		int numEPs = MainWindow.runObject[myRun].getNumUserEntries()+1;
+		private long executionTime;
+		private long adjustedTime;
+		private long adjustedSize;
+		private long totalIdleTime = 0;
+		private long totalStart = 0;
+		private long idleStart = 0;
+
+		private int numEPs;
+		private double[][][] countData;
         	/* YH Sun added */
-		double[][][] countData = new double[HistogramWindow.NUM_TYPES][][];
-        	double _sun_execution_time[] = new double[numEPs];
-        	for(int _i=0; _i<numEPs; _i++)
-            	_sun_execution_time[_i] = 0;
-
-		// we create an extra bin to hold overflows.
-		countData[HistogramWindow.TYPE_TIME] = new double[timeNumBins+1][numEPs];
-		countData[HistogramWindow.TYPE_ACCTIME] = new double[timeNumBins+1][numEPs];
-		countData[HistogramWindow.TYPE_MSG_SIZE] = new double[msgNumBins+1][numEPs];
-		countData[HistogramWindow.TYPE_IDLE_PERC] = new double[idleNumBins+1][numEPs];
-
-		int curPeCount = 0;
-
-		curPeCount++;
-		GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
-		try
+        	private double _sun_execution_time[];
+
+		private int nestingLevel = 0;
+		private boolean logEnd = false;
+		// Begin times clipped to the start of the range; entries are reused, so only copies are kept
+		private long prevBeginTime;
+		private long prevIdleBeginTime;
+
+		public void beginLog()
+		{
+			numEPs = MainWindow.runObject[myRun].getNumUserEntries()+1;
+			countData = new double[HistogramWindow.NUM_TYPES][][];
+			_sun_execution_time = new double[numEPs];
+
+			// we create an extra bin to hold overflows.
+			countData[HistogramWindow.TYPE_TIME] = new double[timeNumBins+1][numEPs];
+			countData[HistogramWindow.TYPE_ACCTIME] = new double[timeNumBins+1][numEPs];
+			countData[HistogramWindow.TYPE_MSG_SIZE] = new double[msgNumBins+1][numEPs];
+			countData[HistogramWindow.TYPE_IDLE_PERC] = new double[idleNumBins+1][numEPs];
+		}
+
+		// Scan through all events, hopefully there are no missing BEGIN_PROCESSING, or our nesting will be broken
+		public boolean visit(LogEntry logdata)
 		{
-			int nestingLevel = 0;
-			boolean logEnd = false;
-			LogEntry prevBegin = null;
-			LogEntry prevIdleBegin = null;
-			
-			while (true) 
-			{ // EndOfLogException will terminate loop when end of log file is reached
-
-				LogEntry logdata = reader.nextEvent(); // Scan through all events, hopefully there are no missing BEGIN_PROCESSING, or our nesting will be broken
-				
-				switch (logdata.type) 
+			switch (logdata.type) 
+			{
+			case ProjDefs.BEGIN_PROCESSING:
+				if (logEnd == true) break;
+				nestingLevel++;
+				if(nestingLevel == 1){
+					prevBeginTime = logdata.time;
+				}
+				if (logdata.time >= endTime)//stop and end before this processing session
 				{
-				case ProjDefs.BEGIN_PROCESSING:
-					if (logEnd == true) break;
-					nestingLevel++;
-					if(nestingLevel == 1){
-						prevBegin = logdata;
-					}
-					if (logdata.time >= endTime)//stop and end before this processing session
+					logEnd = true;
+					//since we're ending here we also need to calculate idle percentages
+					int idleTargetBin = (int)((totalIdleTime*100)/(endTime-totalStart));
+					idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
+					if (idleTargetBin >= 0)
 					{
-						logEnd = true;
-						//since we're ending here we also need to calculate idle percentages
-						int idleTargetBin = (int)((totalIdleTime*100)/(endTime-totalStart));
-						idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
-						if (idleTargetBin >= 0)
+						idleTargetBin = (int)(idleTargetBin/idleBinSize);
+						if (idleTargetBin >= idleNumBins)
 						{
-							idleTargetBin = (int)(idleTargetBin/idleBinSize);
-							if (idleTargetBin >= idleNumBins)
-							{
-								idleTargetBin = idleNumBins;
-							}
-							countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
-							break;
+							idleTargetBin = idleNumBins;
 						}
-						
+						countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
+						break;
 					}
-					break;
+					
+				}
+				break;
 
                 		case ProjDefs.END_PROCESSING:
-					if (logEnd == true) break;
-					nestingLevel--;
-					if(nestingLevel == 0)
+				if (logEnd == true) break;
+				nestingLevel--;
+				if(nestingLevel == 0)
+				{
+					if(logdata.time >= startTime && logdata.time <= endTime)//startTime <= endProcessing <= endTime
 					{
-						if(logdata.time >= startTime && logdata.time <= endTime)//startTime <= endProcessing <= endTime
+						if (prevBeginTime <= startTime)//beginProcessing <= startTime <= endProcessing <= endTime
 						{
-							if (prevBegin.time <= startTime)//beginProcessing <= startTime <= endProcessing <= endTime
-							{
-								prevBegin.time = startTime;//change prevBin.time to be startTime
-							}
-							executionTime = logdata.time - prevBegin.time;
-							adjustedTime = executionTime - timeMinBinSize;
-							// respect user threshold
-							if (adjustedTime >= 0)
-							{
-								int targetBin = (int)(adjustedTime/timeBinSize);
-								if (targetBin >= timeNumBins)
-								{
-									targetBin = timeNumBins;
-								}
-								countData[HistogramWindow.TYPE_TIME][targetBin][logdata.entry] += 1.0;
-								countData[HistogramWindow.TYPE_ACCTIME][targetBin][logdata.entry] += executionTime;
-							}
-                            				_sun_execution_time[logdata.entry] += executionTime;
+							prevBeginTime = startTime;//change prevBeginTime to be startTime
 						}
-						else if (logdata.time >= endTime)//startTime <= endTime <= endProcessing
+						executionTime = logdata.time - prevBeginTime;
+						adjustedTime = executionTime - timeMinBinSize;
+						// respect user threshold
+						if (adjustedTime >= 0)
 						{
-							if (startTime >= prevBegin.time)//beginProcessing <= startTime <= endTime <= endProcessing
-							{
-								prevBegin.time = startTime;
-							}
-							executionTime = endTime - prevBegin.time;
-							adjustedTime = executionTime - timeMinBinSize;
-							// respect user threshold
-							if (adjustedTime >= 0)
+							int targetBin = (int)(adjustedTime/timeBinSize);
+							if (targetBin >= timeNumBins)
 							{
-								int targetBin = (int)(adjustedTime/timeBinSize);
-								if (targetBin >= timeNumBins)
-								{
-									targetBin = timeNumBins;
-								}
-								countData[HistogramWindow.TYPE_TIME][targetBin][logdata.entry] += 1.0;
-								countData[HistogramWindow.TYPE_ACCTIME][targetBin][logdata.entry] += executionTime;
+								targetBin = timeNumBins;
 							}
+							countData[HistogramWindow.TYPE_TIME][targetBin][logdata.entry] += 1.0;
+							countData[HistogramWindow.TYPE_ACCTIME][targetBin][logdata.entry] += executionTime;
+						}
                             				_sun_execution_time[logdata.entry] += executionTime;
-							logEnd = true;
-							//since we're ending here we also have to calculate idle percentages
-							int idleTargetBin = (int)((totalIdleTime*100)/(endTime-totalStart));
-							idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
-							if (idleTargetBin >= 0)
+					}
+					else if (logdata.time >= endTime)//startTime <= endTime <= endProcessing
+					{
+						if (startTime >= prevBeginTime)//beginProcessing <= startTime <= endTime <= endProcessing
+						{
+							prevBeginTime = startTime;
+						}
+						executionTime = endTime - prevBeginTime;
+						adjustedTime = executionTime - timeMinBinSize;
+						// respect user threshold
+						if (adjustedTime >= 0)
+						{
+							int targetBin = (int)(adjustedTime/timeBinSize);
+							if (targetBin >= timeNumBins)
 							{
-								idleTargetBin = (int)(idleTargetBin/idleBinSize);
-								if (idleTargetBin >= idleNumBins)
-								{
-									idleTargetBin = idleNumBins;
-								}
-								countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
-								break;
+								targetBin = timeNumBins;
 							}
+							countData[HistogramWindow.TYPE_TIME][targetBin][logdata.entry] += 1.0;
+							countData[HistogramWindow.TYPE_ACCTIME][targetBin][logdata.entry] += executionTime;
 						}
-						prevBegin = null;	
-					} 
-					else if(nestingLevel < 0)
-					{
-						nestingLevel = 0; // Reset to 0 because we didn't get to see an appropriate matching BEGIN_PROCESSING.
-						prevBegin = null;
-					}
-					break;
-                
-				case ProjDefs.BEGIN_IDLE:
-					if (logEnd == true) break;
-					prevIdleBegin = logdata;
-					idleStart = prevIdleBegin.time;
-					if (logdata.time >= endTime)
-					{
+                            				_sun_execution_time[logdata.entry] += executionTime;
 						logEnd = true;
-						//stop before we begin this idle session
+						//since we're ending here we also have to calculate idle percentages
 						int idleTargetBin = (int)((totalIdleTime*100)/(endTime-totalStart));
 						idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
 						if (idleTargetBin >= 0)
@@ -273,263 +247,274 @@ class ThreadedFileReader implements Runnable  {
 							break;
 						}
 					}
-					break;
+				} 
+				else if(nestingLevel < 0)
+				{
+					nestingLevel = 0; // Reset to 0 because we didn't get to see an appropriate matching BEGIN_PROCESSING.
+				}
+				break;
                 
-
-				case ProjDefs.END_IDLE:
-					if (logEnd == true) break;
-                    			if (logdata.time >= startTime && logdata.time <= endTime)//startTime <= endIdle <= endTime
+			case ProjDefs.BEGIN_IDLE:
+				if (logEnd == true) break;
+				prevIdleBeginTime = logdata.time;
+				idleStart = prevIdleBeginTime;
+				if (logdata.time >= endTime)
+				{
+					logEnd = true;
+					//stop before we begin this idle session
+					int idleTargetBin = (int)((totalIdleTime*100)/(endTime-totalStart));
+					idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
+					if (idleTargetBin >= 0)
 					{
-						if (idleStart <= startTime)//idleStart <= startTime <= endIdle <= endTime
+						idleTargetBin = (int)(idleTargetBin/idleBinSize);
+						if (idleTargetBin >= idleNumBins)
 						{
-							prevIdleBegin.time = startTime;
+							idleTargetBin = idleNumBins;
 						}
-						executionTime = logdata.time - prevIdleBegin.time;
+						countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
+						break;
+					}
+				}
+				break;
+                
+
+			case ProjDefs.END_IDLE:
+				if (logEnd == true) break;
+                    			if (logdata.time >= startTime && logdata.time <= endTime)//startTime <= endIdle <= endTime
+				{
+					if (idleStart <= startTime)//idleStart <= startTime <= endIdle <= endTime
+					{
+						prevIdleBeginTime = startTime;
+					}
+					executionTime = logdata.time - prevIdleBeginTime;
                         			adjustedTime = executionTime - timeMinBinSize;
                         			// respect user threshold
                         			if (adjustedTime >= 0)
-						{
+					{
                             				int targetBin = (int)(adjustedTime/timeBinSize);
                             				if (targetBin >= timeNumBins)
-							{
+						{
                                 				targetBin = timeNumBins;
                             				}
                             				countData[HistogramWindow.TYPE_TIME][targetBin][numEPs-1] += 1.0;
                             				countData[HistogramWindow.TYPE_ACCTIME][targetBin][numEPs-1] += executionTime;
-						}
+					}
                         			_sun_execution_time[logdata.entry] += executionTime;
                         			//System.out.println("idle time is " + executionTime );
-						//now consider idle percentage calculations
-						if (idleStart <= startTime)//beginIdle <= startTime <= endIdle <= endTime
-						{
-							idleStart = startTime;
-							totalStart = startTime;
-						}
-						totalIdleTime += (logdata.time - idleStart);//startTime <= beginIdle <= endIdle <= endTime
+					//now consider idle percentage calculations
+					if (idleStart <= startTime)//beginIdle <= startTime <= endIdle <= endTime
+					{
+						idleStart = startTime;
+						totalStart = startTime;
 					}
-					else if (logdata.time >= endTime)//startTime <= endTime <= endIdle
+					totalIdleTime += (logdata.time - idleStart);//startTime <= beginIdle <= endIdle <= endTime
+				}
+				else if (logdata.time >= endTime)//startTime <= endTime <= endIdle
+				{
+					if (startTime >= idleStart)//beginIdle <= startTime <= endTime <= endIdle
 					{
-						if (startTime >= idleStart)//beginIdle <= startTime <= endTime <= endIdle
+						idleStart = startTime;
+						totalStart = startTime;
+					}
+					executionTime = endTime - idleStart;
+					adjustedTime = executionTime - timeMinBinSize;
+					// respect user threshold
+					if (adjustedTime >= 0)
+					{
+						int targetBin = (int)(adjustedTime/timeBinSize);
+						if (targetBin >= timeNumBins)
 						{
-							idleStart = startTime;
-							totalStart = startTime;
+							targetBin = timeNumBins;
+						}
+						countData[HistogramWindow.TYPE_TIME][targetBin][numEPs-1] += 1.0;
+						countData[HistogramWindow.TYPE_ACCTIME][targetBin][numEPs-1] += executionTime;
 						}
-						executionTime = endTime - idleStart;
-						adjustedTime = executionTime - timeMinBinSize;
-						// respect user threshold
-						if (adjustedTime >= 0)
-						{
-							int targetBin = (int)(adjustedTime/timeBinSize);
-							if (targetBin >= timeNumBins)
-							{
-								targetBin = timeNumBins;
-							}
-							countData[HistogramWindow.TYPE_TIME][targetBin][numEPs-1] += 1.0;
-							countData[HistogramWindow.TYPE_ACCTIME][targetBin][numEPs-1] += executionTime;
-							}
                             			_sun_execution_time[logdata.entry] += executionTime;
-						logEnd = true;
-						totalIdleTime += (endTime - idleStart);
-						int idleTargetBin = (int)((totalIdleTime*100)/(endTime - totalStart));
-						idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
-						if (idleTargetBin >= 0)
+					logEnd = true;
+					totalIdleTime += (endTime - idleStart);
+					int idleTargetBin = (int)((totalIdleTime*100)/(endTime - totalStart));
+					idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
+					if (idleTargetBin >= 0)
+					{
+						idleTargetBin = (int)(idleTargetBin/idleBinSize);
+						if (idleTargetBin >= idleNumBins)
 						{
-							idleTargetBin = (int)(idleTargetBin/idleBinSize);
-							if (idleTargetBin >= idleNumBins)
-							{
-								idleTargetBin = idleNumBins;
-							}
-							countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
-							break;
+							idleTargetBin = idleNumBins;
 						}
-					}
-					else //(startTime >= logdata.time)//endIdle <= startTime <= endTime
-					{
-						//nothing is added to idle times because OST hasnt started yet
-					}
-					prevIdleBegin = null;
-					break;	
-
-				case ProjDefs.CREATION:
-					//if (logEnd == true) break;
-					if (logdata.time < startTime || logdata.time > endTime) {
+						countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
 						break;
 					}
-					// respect the user threshold.
-					adjustedSize = logdata.msglen - msgMinBinSize;
-					if (adjustedSize >= 0)
+				}
+				else //(startTime >= logdata.time)//endIdle <= startTime <= endTime
+				{
+					//nothing is added to idle times because OST hasnt started yet
+				}
+				break;	
+
+			case ProjDefs.CREATION:
+				//if (logEnd == true) break;
+				if (logdata.time < startTime || logdata.time > endTime) {
+					break;
+				}
+				// respect the user threshold.
+				adjustedSize = logdata.msglen - msgMinBinSize;
+				if (adjustedSize >= 0)
+				{
+					int targetBin = (int)(adjustedSize/msgBinSize);
+					if (targetBin >= msgNumBins)
 					{
-						int targetBin = (int)(adjustedSize/msgBinSize);
-						if (targetBin >= msgNumBins)
-						{
-							targetBin = msgNumBins;
-						}
-						countData[HistogramWindow.TYPE_MSG_SIZE][targetBin][logdata.entry]+=1.0;
+						targetBin = msgNumBins;
 					}
-					break;
+					countData[HistogramWindow.TYPE_MSG_SIZE][targetBin][logdata.entry]+=1.0;
+				}
+				break;
 
-				case ProjDefs.END_COMPUTATION:
-					if (logEnd == true) break;
-					if (logdata.time >= endTime)
+			case ProjDefs.END_COMPUTATION:
+				if (logEnd == true) break;
+				if (logdata.time >= endTime)
+				{
+					//just change totalStop to optionalEndTime since processor was not idle at this line
+					int idleTargetBin = (int)((totalIdleTime*100)/(endTime-totalStart));
+					idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
+					if (idleTargetBin >= 0)
 					{
-						//just change totalStop to optionalEndTime since processor was not idle at this line
-						int idleTargetBin = (int)((totalIdleTime*100)/(endTime-totalStart));
-						idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
-						if (idleTargetBin >= 0)
+						idleTargetBin = (int)(idleTargetBin/idleBinSize);
+						if (idleTargetBin >= idleNumBins)
 						{
-							idleTargetBin = (int)(idleTargetBin/idleBinSize);
-							if (idleTargetBin >= idleNumBins)
-							{
-								idleTargetBin = idleNumBins;
-							}
-							countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
+							idleTargetBin = idleNumBins;
 						}
+						countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
 					}
-					else if (logdata.time <= startTime)
+				}
+				else if (logdata.time <= startTime)
+				{
+					//we were never able to start, so totalIdleTime is zero
+					int idleTargetBin = (int)(0-idleMinBinSize);
+					if (idleTargetBin >= 0)
 					{
-						//we were never able to start, so totalIdleTime is zero
-						int idleTargetBin = (int)(0-idleMinBinSize);
-						if (idleTargetBin >= 0)
+						idleTargetBin = (int)(idleTargetBin/idleBinSize);
+						if (idleTargetBin >= idleNumBins)
 						{
-							idleTargetBin = (int)(idleTargetBin/idleBinSize);
-							if (idleTargetBin >= idleNumBins)
-							{
-								idleTargetBin = idleNumBins;
-							}
-							countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
+							idleTargetBin = idleNumBins;
 						}
+						countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
 					}
-					else
+				}
+				else
+				{
+					int idleTargetBin = (int)((totalIdleTime*100)/(logdata.time-totalStart));
+					idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
+					if (idleTargetBin >= 0)
 					{
-						int idleTargetBin = (int)((totalIdleTime*100)/(logdata.time-totalStart));
-						idleTargetBin = (int)(idleTargetBin - idleMinBinSize);
-						if (idleTargetBin >= 0)
+						idleTargetBin = (int)(idleTargetBin/idleBinSize);
+						if (idleTargetBin >= idleNumBins)
 						{
-							idleTargetBin = (int)(idleTargetBin/idleBinSize);
-							if (idleTargetBin >= idleNumBins)
-							{
-								idleTargetBin = idleNumBins;
-							}
-							countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
+							idleTargetBin = idleNumBins;
 						}
+						countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
 					}
-					break;
+				}
+				break;
 
-				case ProjDefs.BEGIN_COMPUTATION:
-					if (logEnd == true) break;
-					totalStart = logdata.time;
-					if (logdata.time >= endTime)
+			case ProjDefs.BEGIN_COMPUTATION:
+				if (logEnd == true) break;
+				totalStart = logdata.time;
+				if (logdata.time >= endTime)
+				{
+					logEnd = true;
+					//since processor is starting after endtime, its total idle time must be zero
+					int idleTargetBin = (int)(0 - idleMinBinSize);
+					if (idleTargetBin >= 0)
 					{
-						logEnd = true;
-						//since processor is starting after endtime, its total idle time must be zero
-						int idleTargetBin = (int)(0 - idleMinBinSize);
-						if (idleTargetBin >= 0)
+						idleTargetBin = (int)(idleTargetBin/idleBinSize);
+						if (idleTargetBin >= idleNumBins)
 						{
-							idleTargetBin = (int)(idleTargetBin/idleBinSize);
-							if (idleTargetBin >= idleNumBins)
-							{
-								idleTargetBin = idleNumBins;
-							}
-							countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
-							break;
+							idleTargetBin = idleNumBins;
 						}
+						countData[HistogramWindow.TYPE_IDLE_PERC][idleTargetBin][0] += 1.0;
+						break;
 					}
-					else if (logdata.time <= startTime)
-					{
-						totalStart = startTime;
-					}					
-					break;
-				}//end switch			
-			}
-		} 
-		catch(EndOfLogSuccess e)
-		{
-			// successfully reached end of log file
-		} 
-		catch(Exception e) 
-		{
-			System.err.println("Exception " + e);
-			e.printStackTrace();
-			System.exit(-1);
+				}
+				else if (logdata.time <= startTime)
+				{
+					totalStart = startTime;
+				}					
+				break;
+			}//end switch
+			return true;
 		}
 
-		try
+		public void endOfLog()
 		{
-			reader.close();
-		} 
-		catch (IOException e1)
-		{
-			System.err.println("Error: could not close log file reader for processor " + pe );
+			// successfully reached end of log file
 		}
-
-		return countData;
 	}
 
-    	private double[][] getTotalExecTime()
+	/** Computes the total, maximum and minimum execution time and count of each entry method for one PE */
+	private class TotalExecTimeVisitor implements LogEventVisitor
 	{
 		// Variables for use with the analysis
-		long executionTime;
+		private long executionTime;
 
-		int numEPs = MainWindow.runObject[myRun].getNumUserEntries()+1;
+		private int numEPs;
         	/* YH Sun added */
-        	double _sun_execution_time[][] = new double[4][numEPs];
+        	private double _sun_execution_time[][];
 
-		int curPeCount = 0;
+		private int nestingLevel = 0;
+		// Entries are reused, so only the begin times are kept
+		private long prevBeginTime;
+		private long prevIdleBeginTime;
+		private boolean inIdle = false;
 
-		curPeCount++;
-		GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
-		try
+		public void beginLog()
 		{
-			int nestingLevel = 0;
-			LogEntry prevBegin = null;
-			LogEntry prevIdleBegin = null;
-			
-			while (true)
-			{ // EndOfLogException will terminate loop when end of log file is reached
-
-				LogEntry logdata = reader.nextEvent(); // Scan through all events, hopefully there are no missing BEGIN_PROCESSING, or our nesting will be broken
-
-				switch (logdata.type) {
-				case ProjDefs.BEGIN_PROCESSING:
-					nestingLevel++;
-					if(nestingLevel == 1)
-					{
-						prevBegin = logdata;
-					}
-					break;
+			numEPs = MainWindow.runObject[myRun].getNumUserEntries()+1;
+			_sun_execution_time = new double[4][numEPs];
+		}
 
-				case ProjDefs.END_PROCESSING:
-					nestingLevel--;
-					if(nestingLevel == 0)
+		// Scan through all events, hopefully there are no missing BEGIN_PROCESSING, or our nesting will be broken
+		public boolean visit(LogEntry logdata)
+		{
+			switch (logdata.type) {
+			case ProjDefs.BEGIN_PROCESSING:
+				nestingLevel++;
+				if(nestingLevel == 1)
+				{
+					prevBeginTime = logdata.time;
+				}
+				break;
+
+			case ProjDefs.END_PROCESSING:
+				nestingLevel--;
+				if(nestingLevel == 0)
+				{
+					if(logdata.time >= startTime && logdata.time <= endTime)
 					{
-						if(logdata.time >= startTime && logdata.time <= endTime)
-						{
-							executionTime = logdata.time - prevBegin.time;
+						executionTime = logdata.time - prevBeginTime;
                             				_sun_execution_time[0][logdata.entry] += executionTime;
                             				if(_sun_execution_time[1][logdata.entry] < executionTime)
                                 			_sun_execution_time[1][logdata.entry] = executionTime;
-							if(_sun_execution_time[2][logdata.entry] > executionTime)
+						if(_sun_execution_time[2][logdata.entry] > executionTime)
                                 			_sun_execution_time[2][logdata.entry] = executionTime;
                             				_sun_execution_time[3][logdata.entry]++;
-						}
-						prevBegin = null;	
-					} 
-					else if(nestingLevel < 0)
-					{
-						nestingLevel = 0; // Reset to 0 because we didn't get to see an appropriate matching BEGIN_PROCESSING.
-						prevBegin = null;
 					}
-					break;
+				} 
+				else if(nestingLevel < 0)
+				{
+					nestingLevel = 0; // Reset to 0 because we didn't get to see an appropriate matching BEGIN_PROCESSING.
+				}
+				break;
 
                 		case ProjDefs.BEGIN_IDLE:
-					prevIdleBegin = logdata;
-					break;
+				prevIdleBeginTime = logdata.time;
+				inIdle = true;
+				break;
 
                 		case ProjDefs.END_IDLE:
-					if (prevIdleBegin == null) break;
+				if (!inIdle) break;
                     			if(logdata.time >= startTime && logdata.time <= endTime)
-					{
-                        			executionTime = logdata.time - prevIdleBegin.time;
+				{
+                        			executionTime = logdata.time - prevIdleBeginTime;
                         			_sun_execution_time[0][numEPs-1] += executionTime;
                         			if(_sun_execution_time[1][numEPs-1] < executionTime)
                             			_sun_execution_time[1][numEPs-1] = executionTime;
@@ -538,45 +523,24 @@ class ThreadedFileReader implements Runnable  {
                         			_sun_execution_time[3][numEPs-1]++;
                         			//System.out.println("idle time is " + executionTime );
                     			}
-                    			prevIdleBegin = null;
-					break;
+                    			inIdle = false;
+				break;
 
 
-				case ProjDefs.CREATION:
-					if (logdata.time > endTime)
-					{
-						break;
-                    			}
+			case ProjDefs.CREATION:
+				if (logdata.time > endTime)
+				{
 					break;
-				}
+                    			}
+				break;
 			}
-		} 
-		catch(EndOfLogSuccess e)
-		{
-			// successfully reached end of log file
-		}
-		catch(Exception e)
-		{
-			System.err.println("Exception " + e);
-			e.printStackTrace();
-			System.exit(-1);
+			return true;
 		}
 
-		try
-		{
-			reader.close();
-		} 
-		catch (IOException e1) 
+		public void endOfLog()
 		{
-			System.err.println("Error: could not close log file reader for processor " + pe );
+			// successfully reached end of log file
 		}
-	    
-		return _sun_execution_time;
 	}
 
 }
-
-
-
-
-
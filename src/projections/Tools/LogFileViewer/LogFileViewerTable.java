@@ -0,0 +1,194 @@
+package projections.Tools.LogFileViewer;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.text.DecimalFormat;
+
+import javax.swing.JComboBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
+import projections.analysis.ProjDefs;
+import projections.gui.MainWindow;
+
+
+/** This class displays the events in a log file as a table inside a JPanel
+ *
+ *   Above the table are a choice of the types of events to show and a field
+ *   for text that the names of the entry methods shown must contain. The
+ *   table is updated as the filters are changed, and as the log is read.
+ *
+ *   The rows come from a LogTableModel, which reads them a page at a time as
+ *   they are scrolled to, so that a long range of a busy log can be viewed
+ *   without holding all of its events. The log is only read once the panel
+ *   is first shown.
+ *
+ */
+
+
+class LogFileViewerTable extends JPanel
+{
+
+	private static final long serialVersionUID = 1L;
+
+	private static int myRun = 0;
+
+	/** How long typing in the entry method field must pause before the table is filtered */
+	private static final int FILTER_DELAY_MILLIS = 300;
+
+	/** The choices of event types to show, and the types each one shows */
+	private static final String[] typeNames = {
+		"All events",
+		"Creations",
+		"Begin processing",
+		"End processing",
+		"Enqueues",
+		"Idle",
+		"User events",
+		"User stats",
+		"User notes",
+		"Begin and end computation"
+	};
+	private static final int[][] typeChoices = {
+		null,
+		{ProjDefs.CREATION, ProjDefs.CREATION_BCAST, ProjDefs.CREATION_MULTICAST},
+		{ProjDefs.BEGIN_PROCESSING},
+		{ProjDefs.END_PROCESSING},
+		{ProjDefs.ENQUEUE},
+		{ProjDefs.BEGIN_IDLE, ProjDefs.END_IDLE},
+		{ProjDefs.USER_EVENT, ProjDefs.USER_EVENT_PAIR},
+		{ProjDefs.USER_STAT},
+		{ProjDefs.USER_SUPPLIED_NOTE},
+		{ProjDefs.BEGIN_COMPUTATION, ProjDefs.END_COMPUTATION}
+	};
+
+	private LogTableModel model;
+	private JComboBox<String> typeBox;
+	private JTextField entryField;
+	private JLabel status;
+	private Timer filterTimer;
+
+	private DecimalFormat format = new DecimalFormat();
+
+	private int pe;
+	private long startTime;
+	private long endTime;
+
+
+	public LogFileViewerTable(int PE, long startTime, long endTime) {
+		this.pe = PE;
+		this.startTime = startTime;
+		this.endTime = endTime;
+
+		// Set the layout for this JPanel.
+		setLayout(new BorderLayout());
+		this.setPreferredSize(new Dimension(800,500));
+
+		if (!(MainWindow.runObject[myRun].hasLogData())){
+			add(new JLabel("<html><body><h1>ERROR: Don't have any log data</h1></body></html>"), BorderLayout.CENTER);
+			return;
+		}
+
+		// The filters, above the table
+		typeBox = new JComboBox<String>(typeNames);
+		typeBox.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				applyFilter();
+			}
+		});
+
+		entryField = new JTextField(20);
+		filterTimer = new Timer(FILTER_DELAY_MILLIS, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				applyFilter();
+			}
+		});
+		filterTimer.setRepeats(false);
+		entryField.getDocument().addDocumentListener(new DocumentListener() {
+			public void insertUpdate(DocumentEvent e) {
+				filterTimer.restart();
+			}
+			public void removeUpdate(DocumentEvent e) {
+				filterTimer.restart();
+			}
+			public void changedUpdate(DocumentEvent e) {
+				filterTimer.restart();
+			}
+		});
+
+		JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		filterPanel.add(new JLabel("Show:"));
+		filterPanel.add(typeBox);
+		filterPanel.add(new JLabel("Entry method containing:"));
+		filterPanel.add(entryField);
+
+		// The table, in a JScrollPane that provides a scrollbar
+		model = new LogTableModel(pe, startTime, endTime, currentFilter());
+		JTable table = new JTable(model);
+		table.setRowHeight(table.getRowHeight() + 8);
+		table.getColumnModel().getColumn(0).setPreferredWidth(120);
+		table.getColumnModel().getColumn(0).setMaxWidth(200);
+		table.getColumnModel().getColumn(1).setPreferredWidth(680);
+		JScrollPane scrollPane = new JScrollPane(table);
+
+		status = new JLabel(" ");
+		model.addTableModelListener(new TableModelListener() {
+			public void tableChanged(TableModelEvent e) {
+				updateStatus();
+			}
+		});
+		updateStatus();
+
+		this.add(filterPanel, BorderLayout.NORTH);
+		this.add(scrollPane, BorderLayout.CENTER);
+		this.add(status, BorderLayout.SOUTH);
+
+		// Only read the log once the tab for this PE is shown
+		addHierarchyListener(new HierarchyListener() {
+			public void hierarchyChanged(HierarchyEvent e) {
+				if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing())
+					model.start();
+			}
+		});
+	}
+
+
+	private LogTableModel.Filter currentFilter() {
+		return new LogTableModel.Filter(typeChoices[typeBox.getSelectedIndex()], entryField.getText());
+	}
+
+	private void applyFilter() {
+		filterTimer.stop();
+		model.setFilter(currentFilter());
+	}
+
+	private void updateStatus() {
+		String events = format.format(model.getRowCount()) + " events in log for PE " + pe + " with times between " + startTime + " and " + endTime;
+		if (model.isScanDone())
+			status.setText(events);
+		else
+			status.setText("Reading log ... " + events + " so far");
+	}
+
+
+	/** Stop reading the log once this panel is removed from its window */
+	public void removeNotify() {
+		super.removeNotify();
+		if (model != null)
+			model.stop();
+	}
+
+}
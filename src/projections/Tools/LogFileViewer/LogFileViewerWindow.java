@@ -108,12 +108,11 @@ public class LogFileViewerWindow extends ProjectionsWindow implements ActionList
 			// Access the list of PEs chosen by the user:
 			for(Integer pe : validPEs){
 				
-				// Create a text area to put in the tab for this PE 
-				LogFileViewerTextArea textArea = new LogFileViewerTextArea();
-				// Have the text area load the logfile data
-				textArea.setPE(pe,startTime,endTime);		
+				// Create a table to put in the tab for this PE. It
+				// reads the logfile data once its tab is first shown
+				LogFileViewerTable table = new LogFileViewerTable(pe,startTime,endTime);
 				// Add a tab for the PE
-				tabbedPane.add("PE " + pe, textArea);
+				tabbedPane.add("PE " + pe, table);
 				
 			}
 			
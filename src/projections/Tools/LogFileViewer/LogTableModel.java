@@ -0,0 +1,370 @@
+package projections.Tools.LogFileViewer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+import projections.analysis.EndOfLogSuccess;
+import projections.analysis.GenericLogReader;
+import projections.analysis.ProjDefs;
+import projections.analysis.TimedProgressThreadExecutor;
+import projections.gui.MainWindow;
+import projections.misc.LogEntry;
+
+
+/** The events in one PE's log between two times that pass a filter, as rows
+ *  of a table, read in pages as they are scrolled to.
+ *
+ *  When started, the log is scanned once in the background from the start
+ *  time, which is found through the log's index if it has one. The scan
+ *  does not keep the events; it only counts the rows, adding them to the
+ *  table as it goes, and remembers where each page of rows starts. When a
+ *  row is shown whose page is not loaded, the page is read again from that
+ *  point in the background, and the least recently used pages are dropped
+ *  once there are more than MAX_PAGES of them.
+ *
+ *  Changing the filter starts a new scan. Scans and page reads started for
+ *  an earlier filter are told apart by their generation and thrown away.
+ *
+ *  The pages and the rows shown are only touched on the event dispatch
+ *  thread, while the page starts are shared with the scan under the lock
+ *  of this object.
+ */
+class LogTableModel extends AbstractTableModel
+{
+
+	private static final long serialVersionUID = 1L;
+
+	private int myRun = 0;
+
+	/** The number of rows read at a time */
+	static final int PAGE_SIZE = 500;
+	/** The number of pages kept loaded */
+	private static final int MAX_PAGES = 40;
+	/** How many events are read between checks for whether a read has been thrown away */
+	private static final int CANCEL_CHECK_EVENTS = 1024;
+	/** How often the rows found so far are added to the table during a scan */
+	private static final long PUBLISH_MILLIS = 200;
+
+	private static final String[] columnNames = {"Time", "Event type and description"};
+
+	/** Which events are shown */
+	static final class Filter {
+		private int myRun = 0;
+		/** The event types shown, or null for all of them */
+		private final Set<Integer> types;
+		/** Text the name of an event's entry method must contain, in lower case, or "" for any */
+		private final String entryText;
+		/** Whether each entry method's name contains entryText, filled in as they are seen */
+		private final Map<Integer, Boolean> entryMatches = new ConcurrentHashMap<Integer, Boolean>();
+
+		Filter(int[] types, String entryText) {
+			if (types == null) {
+				this.types = null;
+			} else {
+				this.types = new HashSet<Integer>();
+				for (int t : types)
+					this.types.add(t);
+			}
+			this.entryText = entryText.trim().toLowerCase();
+		}
+
+		boolean matches(LogEntry data) {
+			if (data.type == -1)
+				return false;
+			if (types != null && !types.contains(data.type))
+				return false;
+			if (entryText.length() == 0)
+				return true;
+			switch (data.type) {
+			case ProjDefs.CREATION:
+			case ProjDefs.BEGIN_PROCESSING:
+			case ProjDefs.END_PROCESSING:
+			case ProjDefs.ENQUEUE:
+				Boolean m = entryMatches.get(data.entry);
+				if (m == null) {
+					String name = MainWindow.runObject[myRun].getEntryFullNameByID(data.entry);
+					m = name != null && name.toLowerCase().contains(entryText);
+					entryMatches.put(data.entry, m);
+				}
+				return m;
+			default:
+				// Only events for entry methods are shown when filtering by entry method
+				return false;
+			}
+		}
+	}
+
+	/** Where a page of rows starts: at the skip+1'th row at the given time */
+	private static final class PageStart {
+		final long time;
+		final int skip;
+
+		PageStart(long time, int skip) {
+			this.time = time;
+			this.skip = skip;
+		}
+	}
+
+	private final int pe;
+	private final long startTime;
+	private final long endTime;
+
+	private Filter filter;
+	private int generation = 0;
+	private boolean started = false;
+
+	/** The start of each page found by the scan so far */
+	private final ArrayList<PageStart> pageStarts = new ArrayList<PageStart>();
+
+	/** The rows in the table, which trail the scan */
+	private int numRows = 0;
+	private boolean scanDone = false;
+
+	/** The loaded pages, least recently used first */
+	private final LinkedHashMap<Integer, LogEntry[]> pages = new LinkedHashMap<Integer, LogEntry[]>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<Integer, LogEntry[]> eldest) {
+			return size() > MAX_PAGES;
+		}
+	};
+	/** The pages being read */
+	private final Set<Integer> loading = new HashSet<Integer>();
+
+	LogTableModel(int pe, long startTime, long endTime, Filter filter) {
+		this.pe = pe;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.filter = filter;
+	}
+
+	/** Start the first scan, unless it has already been started */
+	void start() {
+		if (started)
+			return;
+		started = true;
+		startScan();
+	}
+
+	/** Stop any scan or page reads in progress */
+	void stop() {
+		synchronized (this) {
+			generation++;
+		}
+	}
+
+	/** Show just the events that pass the filter, which starts a new scan */
+	void setFilter(Filter filter) {
+		this.filter = filter;
+		if (started)
+			startScan();
+	}
+
+	/** Whether the scan has found all the rows */
+	boolean isScanDone() {
+		return scanDone;
+	}
+
+	private void startScan() {
+		final int gen;
+		synchronized (this) {
+			gen = ++generation;
+			pageStarts.clear();
+		}
+		pages.clear();
+		loading.clear();
+		numRows = 0;
+		scanDone = false;
+		fireTableDataChanged();
+
+		final Filter f = filter;
+		TimedProgressThreadExecutor.submit(new Runnable() {
+			public void run() {
+				scan(gen, f);
+			}
+		});
+	}
+
+	private synchronized boolean isCurrent(int gen) {
+		return gen == generation;
+	}
+
+	/** Count the rows that pass the filter, and find where each page starts */
+	private void scan(int gen, Filter f) {
+		GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+		int rows = 0;
+		long runTime = Long.MIN_VALUE;
+		int runCount = 0;
+		long lastPublished = System.currentTimeMillis();
+		int events = 0;
+		try {
+			LogEntry data = reader.nextEventOnOrAfter(startTime);
+			while (data.time <= endTime) {
+				if (++events % CANCEL_CHECK_EVENTS == 0 && !isCurrent(gen))
+					return;
+				if (f.matches(data)) {
+					// Count the rows at the same time, to find a page starting part way through them
+					if (data.time != runTime) {
+						runTime = data.time;
+						runCount = 0;
+					}
+					if (rows % PAGE_SIZE == 0) {
+						synchronized (this) {
+							if (gen != generation)
+								return;
+							pageStarts.add(new PageStart(runTime, runCount));
+						}
+					}
+					runCount++;
+					rows++;
+					if (rows % PAGE_SIZE == 0 && System.currentTimeMillis() - lastPublished > PUBLISH_MILLIS) {
+						if (!isCurrent(gen))
+							return;
+						publish(gen, rows, false);
+						lastPublished = System.currentTimeMillis();
+					}
+				}
+				data = reader.nextEvent(data);
+			}
+		} catch (EndOfLogSuccess e) {
+			// Reached end of the log file successfully
+		} catch (IOException e) {
+			System.err.println("Error reading log data for processor " + pe);
+			System.err.println(e);
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				System.err.println("Error: could not close log file reader for processor " + pe);
+			}
+		}
+		publish(gen, rows, true);
+	}
+
+	/** Add the rows found so far by the scan to the table */
+	private void publish(final int gen, final int rows, final boolean done) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				if (!isCurrent(gen))
+					return;
+				int oldRows = numRows;
+				numRows = rows;
+				scanDone = done;
+				if (rows > oldRows)
+					fireTableRowsInserted(oldRows, rows - 1);
+				else
+					fireTableDataChanged();
+			}
+		});
+	}
+
+	/** Read a page of rows in the background, unless it is already being read */
+	private void requestPage(final int page) {
+		if (!loading.add(page))
+			return;
+		final PageStart pageStart;
+		final int gen;
+		synchronized (this) {
+			pageStart = pageStarts.get(page);
+			gen = generation;
+		}
+		final Filter f = filter;
+		TimedProgressThreadExecutor.submit(new Runnable() {
+			public void run() {
+				final LogEntry[] rows = readPage(gen, pageStart, f);
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if (!isCurrent(gen))
+							return;
+						loading.remove(page);
+						if (rows == null)
+							return;
+						pages.put(page, rows);
+						int first = page * PAGE_SIZE;
+						int last = Math.min(first + PAGE_SIZE, numRows) - 1;
+						if (last >= first)
+							fireTableRowsUpdated(first, last);
+					}
+				});
+			}
+		});
+	}
+
+	/** Read the rows of the page starting at pageStart, or return null if the filter has changed */
+	private LogEntry[] readPage(int gen, PageStart pageStart, Filter f) {
+		ArrayList<LogEntry> rows = new ArrayList<LogEntry>(PAGE_SIZE);
+		GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+		try {
+			LogEntry data = reader.nextEventOnOrAfter(pageStart.time);
+			int skip = pageStart.skip;
+			int events = 0;
+			while (data.time <= endTime && rows.size() < PAGE_SIZE) {
+				if (++events % CANCEL_CHECK_EVENTS == 0 && !isCurrent(gen))
+					return null;
+				if (f.matches(data)) {
+					if (skip > 0)
+						skip--;
+					else
+						rows.add(data);
+				}
+				data = reader.nextEvent();
+			}
+		} catch (EndOfLogSuccess e) {
+			// Reached end of the log file successfully
+		} catch (IOException e) {
+			System.err.println("Error reading log data for processor " + pe);
+			System.err.println(e);
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				System.err.println("Error: could not close log file reader for processor " + pe);
+			}
+		}
+		return rows.toArray(new LogEntry[rows.size()]);
+	}
+
+	/** The event in a row, or null if its page is not loaded yet, in which case it is read */
+	LogEntry getEntry(int row) {
+		int page = row / PAGE_SIZE;
+		LogEntry[] rows = pages.get(page);
+		if (rows == null) {
+			requestPage(page);
+			return null;
+		}
+		int i = row % PAGE_SIZE;
+		return i < rows.length ? rows[i] : null;
+	}
+
+	public int getRowCount() {
+		return numRows;
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public String getColumnName(int col) {
+		return columnNames[col];
+	}
+
+	public Class<?> getColumnClass(int col) {
+		return String.class;
+	}
+
+	public Object getValueAt(int row, int col) {
+		LogEntry data = getEntry(row);
+		if (data == null)
+			return col == 0 ? "" : "Loading...";
+		if (col == 0)
+			return Long.toString(data.time);
+		return "<html>" + data.htmlFormattedDescription() + "</html>";
+	}
+
+}
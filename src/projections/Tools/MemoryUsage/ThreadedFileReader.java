@@ -1,26 +1,23 @@
 package projections.Tools.MemoryUsage;
 
-import java.io.IOException;
-
 import org.jfree.data.xy.XYSeries;
 
-import projections.analysis.EndOfLogSuccess;
-import projections.analysis.GenericLogReader;
+import projections.Tools.ThreadedFileReaderBase;
+import projections.analysis.LogEventVisitor;
 import projections.analysis.ProjDefs;
-import projections.gui.MainWindow;
 import projections.misc.LogEntry;
 
 
-class ThreadedFileReader implements Runnable  {
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable, LogEventVisitor  {
 
 	private int pe;
-	private int myRun;
 	private XYSeries series;
 	private long intervalSize;
 	private long startInterval;
 	private long endInterval;
 	private double timeScalingFactor;
 
+	private int numIntervals;
 	private double maxUsage[];
 	
 	/** Construct a file reading thread that will determine the best EP representative for each interval
@@ -36,47 +33,37 @@ class ThreadedFileReader implements Runnable  {
 		this.startInterval = startInterval;
 		this.endInterval = endInterval;
 		this.timeScalingFactor = timeScalingFactor;
+
+		attach(pe, this);
 	}
 
 	public void run() { 
-		GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+		// Possibly shared with the readers of other tools
+		readLog();
+	}
 
-		int numIntervals = (int) (endInterval - startInterval);
+	public void beginLog() {
+		numIntervals = (int) (endInterval - startInterval);
 
 		// First take data and put it into intervals.
 		maxUsage = new double[numIntervals];
+	}
 
-		int count = 0;
-		try {
-			while (true) {
-//				System.out.println("c before " + (count));
-				LogEntry data = reader.nextEvent();
-//				System.out.println("c after " + (count));
-				count++;
-
-				double memMB = (double)data.memoryUsage / 1048576.0;
-				int interval = (int) (data.time / intervalSize);			
+	public boolean visit(LogEntry data) {
+		if (data.type != ProjDefs.MEMORY_USAGE)
+			return true;
 
-				if(interval < endInterval && interval >= startInterval && data.type == ProjDefs.MEMORY_USAGE){
-					if(memMB > maxUsage[interval])
-						maxUsage[interval] = memMB;
-				}
+		double memMB = (double)data.memoryUsage / 1048576.0;
+		int interval = (int) (data.time / intervalSize);			
 
-			}
+		if(interval < endInterval && interval >= startInterval){
+			if(memMB > maxUsage[(int) (interval - startInterval)])
+				maxUsage[(int) (interval - startInterval)] = memMB;
 		}
-		catch (EndOfLogSuccess e) {
-			// Done reading file
-		} catch (IOException e) {
-			// Error reading file
-		}
-
+		return true;
+	}
 
-		try {
-			reader.close();
-		} catch (IOException e1) {
-			System.err.println("Error: could not close log file reader for processor " + pe );
-		}
-		
+	public void endOfLog() {
 		// Put data from intervals into a time series
 		series = new XYSeries("PE " + pe);
 
@@ -88,8 +75,6 @@ class ThreadedFileReader implements Runnable  {
 				series.add(time * timeScalingFactor,null);
 			}
 		}
-
-
 	}
 
 	public double[] getData(){
@@ -4,9 +4,13 @@ import java.awt.Component;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.SortedSet;
 
@@ -16,6 +20,7 @@ import projections.analysis.ProjDefs;
 import projections.analysis.TimedProgressThreadExecutor;
 import projections.analysis.TimelineEvent;
 import projections.gui.MainWindow;
+import projections.gui.Util;
 import projections.misc.MiscUtil;
 
 
@@ -31,6 +36,13 @@ import projections.misc.MiscUtil;
  *  In order to be fast we will use little memory, and only take a single pass through the
  *  provided data window.
  *
+ *  Each PE is mined by a NoiseMinerThread on the shared pool of threads. The durations of
+ *  each entry method are counted in a histogram whose bins are linear up to a few
+ *  milliseconds and then spaced on a log scale, each of which keeps a small random sample
+ *  of its events as exemplars, so the memory used does not grow with the number of events
+ *  or with the longest duration. The results for the PEs are then merged pairwise in
+ *  a tree, in the order of the PEs, by the threads as they finish.
+ *
  */
 
 class NoiseMiner extends ProjDefs
@@ -57,10 +69,17 @@ class NoiseMiner extends ProjDefs
 	private double importanceCutoff = 0.8;
 
 
+	/** temporal width of each of the linear histogram bins (microseconds)*/
+	private static final long BIN_WIDTH = 100;
+	/** Above the linear bins, each doubling of the duration is split into 2^SUB_BIN_BITS bins */
+	private static final int SUB_BIN_BITS = 4;
+	/** The number of linear bins, which are as narrow as the first of the log scale bins */
+	private static final int LINEAR_BINS = 2 << SUB_BIN_BITS;
+	/** Durations of 2^MAX_EXPONENT bin widths, about 5 days, or more share the last bin */
+	private static final int MAX_EXPONENT = 32;
+
 	/** Number of bins in each histogram */
-	private int nbins = 1001;
-	/** temporal width of each histogram bin (microseconds)*/
-	private Duration binWidth = new Duration(100);
+	private int nbins = LINEAR_BINS + ((MAX_EXPONENT - SUB_BIN_BITS - 1) << SUB_BIN_BITS);
 	
 	protected int numDisplayBins = 200;
 	
@@ -70,6 +89,13 @@ class NoiseMiner extends ProjDefs
 	 *  */
 	private LinkedList<NoiseResult> finalResults;
 	protected long[] histogramToDisplay;
+
+	/** The number of PEs whose results are merged */
+	private int numLeaves;
+	/** Results waiting for their sibling in the tree of merges, by level and index */
+	private TreeMap<Long, PartialResults> pendingMerges;
+	/** The results for all the PEs, once they are merged */
+	private PartialResults mergedResults;
 	
 	private class Time {
 
@@ -191,16 +217,7 @@ class NoiseMiner extends ProjDefs
 		}
 
 		private String pe_toString(){
-			String s = "";
-			Iterator<Integer> itr = pes.iterator();
-			while(itr.hasNext()){
-				Integer v = itr.next();
-				s = s + v;
-				if(itr.hasNext()){
-					s = s + ", ";
-				}
-			}
-			return s;
+			return Util.listToString(pes);
 		}
 
 		/** A distance measure between this and another NoiseResult. Incorporates the duration */
@@ -233,20 +250,16 @@ class NoiseMiner extends ProjDefs
 
 	}
 
-	/** cluster the results across all processors by merging similar ones 
+	/** cluster the results from more processors into those so far by merging similar ones 
 	 * 
 	 * */
-	private LinkedList<NoiseResult> clusterResultsAcrossProcs(LinkedList<NoiseResult> results){
-		System.out.println("clusterResultsAcrossProcs() input size="+results.size());
-		
-		LinkedList<NoiseResult> newResults = new LinkedList<NoiseResult>();
-
-		Iterator<NoiseResult> itr = results.iterator();
+	private void clusterResultsAcrossProcs(LinkedList<NoiseResult> results, List<NoiseResult> moreResults){
+		Iterator<NoiseResult> itr = moreResults.iterator();
 		while(itr.hasNext()){
 			NoiseResult v = itr.next();
 
 			// Iterate through the clusters we've created so far and merge this one if similar
-			Iterator<NoiseResult> itr2 = newResults.iterator();
+			Iterator<NoiseResult> itr2 = results.iterator();
 			boolean inserted = false;
 			while(itr2.hasNext() && inserted==false){
 				NoiseResult c = itr2.next();
@@ -257,64 +270,180 @@ class NoiseMiner extends ProjDefs
 			}
 			// If the cluster is unique, add it
 			if(inserted == false)
-				newResults.add(v);
+				results.add(v);
 		}
-		
-		System.out.println("Merged "+results.size() + " clusters across all processors into " + newResults.size() + " resulting clusters");
-		
-		return newResults;
 	}
 
 
+	/** The results of some of the PEs, which are merged pairwise into those of all the PEs */
+	class PartialResults {
+		private LinkedList<NoiseResult> results;
+		private long[] histogram;
 
-	/** A class which keeps up to a maximum number of events in a queue.
-	 * Upon request, it can produce data about the frequencies of the events.
-	 *
-	 */
-	public class EventWindow{
-		public TreeSet<TimelineEvent> occurrences; // essentially a sorted list or heap
-		private int max;
-
-		private EventWindow(int maxSize){
-			occurrences = new TreeSet<TimelineEvent>();
-			max = maxSize;
+		protected PartialResults(LinkedList<NoiseResult> results, long[] histogram){
+			this.results = results;
+			this.histogram = histogram;
 		}
 
-		/** Need to keep track of the time, duration, and event id, PE of the event, not just the time */
-		private void insert(TimelineEvent e){
-			occurrences.add(e);
-			if(occurrences.size() > max){
-				occurrences.remove(occurrences.first());
+		/** Add in the results for the PEs that follow these */
+		private void merge(PartialResults p){
+			clusterResultsAcrossProcs(results, p.results);
+			for(int i=0;i<numDisplayBins;i++){
+				histogram[i] += p.histogram[i];
 			}
 		}
+	}
 
-		private void merge(EventWindow ew){
-			Iterator<TimelineEvent> itr = ew.occurrences.iterator();
-			while(itr.hasNext()){
-				TimelineEvent v =  itr.next();
-				occurrences.add(v);
-				if(occurrences.size() > max){
-					occurrences.remove(occurrences.first());
+
+	/** Add the results for the PE at position leaf in peList to the tree of merges. The
+	 *  node at level l and index i of the tree holds the results for leaves i*2^l to
+	 *  (i+1)*2^l-1. Whichever of two siblings finishes last merges them, so the PEs are
+	 *  always merged in the same order, whichever order they finish in.
+	 */
+	protected void addResults(int leaf, PartialResults p){
+		int level = 0;
+		int index = leaf;
+		while(true){
+			PartialResults sibling;
+			synchronized(pendingMerges){
+				int nodesAtLevel = (int)(((long)numLeaves + (1L<<level) - 1) >> level);
+				if(nodesAtLevel == 1){
+					mergedResults = p;
+					return;
+				}
+				int siblingIndex = index ^ 1;
+				if(siblingIndex >= nodesAtLevel){
+					// The last node of an odd level moves up on its own
+					sibling = null;
+				} else {
+					sibling = pendingMerges.remove(mergeKey(level, siblingIndex));
+					if(sibling == null){
+						pendingMerges.put(mergeKey(level, index), p);
+						return;
+					}
+				}
+			}
+			if(sibling != null){
+				if((index & 1) == 0){
+					p.merge(sibling);
+				} else {
+					sibling.merge(p);
+					p = sibling;
 				}
 			}
+			level++;
+			index >>= 1;
 		}
+	}
 
-		public int size(){
-			return occurrences.size();
+	private static long mergeKey(int level, int index){
+		return ((long)level << 32) | index;
+	}
+
+	/** A seed for the random sample of a window, derived from that of its histogram or cluster */
+	static long seed(long parent, long part){
+		return parent * 0x9E3779B97F4A7C15L + part;
+	}
+
+
+	/** A class which keeps a random sample of up to a maximum number of events.
+	 * Upon request, it can produce data about the frequencies of the events.
+	 * The sample is drawn with a generator seeded from the PE, event and bin,
+	 * so the same run always gives the same samples.
+	 */
+	public class EventWindow{
+		private final long seed;
+		private final Random random;
+		private TimelineEvent[] sample;
+		private int size;
+		/** The number of events seen, of which sample holds a uniform random selection */
+		private long seen;
+		private long firstBeginTime = Long.MAX_VALUE;
+		private long lastBeginTime = Long.MIN_VALUE;
+
+		private EventWindow(int maxSize, long seed){
+			this.seed = seed;
+			random = new Random(seed);
+			sample = new TimelineEvent[maxSize];
+		}
+
+		/** Need to keep track of the time, duration, and event id, PE of the event, not just the time.
+		 *  The event is only created if it is kept in the sample. */
+		private void insert(long beginTime, long endTime, int pe){
+			firstBeginTime = Math.min(firstBeginTime, beginTime);
+			lastBeginTime = Math.max(lastBeginTime, beginTime);
+			seen++;
+			int slot;
+			if(size < sample.length){
+				slot = size++;
+			} else {
+				long r = (seen <= Integer.MAX_VALUE) ? random.nextInt((int)seen) : (long)(random.nextDouble() * seen);
+				if(r >= sample.length)
+					return;
+				slot = (int)r;
+			}
+			sample[slot] = new TimelineEvent(beginTime, endTime, -1, pe);
 		}
 
-		public TimelineEvent getFirst(){
-			return  occurrences.first();
+		/** Keep a random sample of the events of both windows, taking from each in proportion to the events it has seen */
+		private void merge(EventWindow ew){
+			if(ew == null || ew.seen == 0)
+				return;
+			firstBeginTime = Math.min(firstBeginTime, ew.firstBeginTime);
+			lastBeginTime = Math.max(lastBeginTime, ew.lastBeginTime);
+
+			ArrayList<TimelineEvent> mine = new ArrayList<TimelineEvent>(size);
+			for(int i=0;i<size;i++)
+				mine.add(sample[i]);
+			ArrayList<TimelineEvent> theirs = new ArrayList<TimelineEvent>(ew.size);
+			for(int i=0;i<ew.size;i++)
+				theirs.add(ew.sample[i]);
+
+			long mineLeft = seen;
+			long theirsLeft = ew.seen;
+			size = 0;
+			while(size < sample.length && (mine.size() > 0 || theirs.size() > 0)){
+				boolean fromMine;
+				if(theirs.size() == 0)
+					fromMine = true;
+				else if(mine.size() == 0)
+					fromMine = false;
+				else
+					fromMine = random.nextDouble() * (mineLeft + theirsLeft) < mineLeft;
+				ArrayList<TimelineEvent> from = fromMine ? mine : theirs;
+				int i = random.nextInt(from.size());
+				sample[size++] = from.get(i);
+				from.set(i, from.get(from.size()-1));
+				from.remove(from.size()-1);
+				if(fromMine)
+					mineLeft--;
+				else
+					theirsLeft--;
+			}
+			seen += ew.seen;
 		}
 
-		public TimelineEvent getLast(){
-			return occurrences.last();
+		public int size(){
+			return size;
+		}
+
+		/** The events in the sample, in order of their begin times */
+		public List<TimelineEvent> occurrences(){
+			List<TimelineEvent> occurrences = new ArrayList<TimelineEvent>(size);
+			for(int i=0;i<size;i++)
+				occurrences.add(sample[i]);
+			Collections.sort(occurrences, new Comparator<TimelineEvent>() {
+				public int compare(TimelineEvent a, TimelineEvent b) {
+					return Long.compare(a.BeginTime, b.BeginTime);
+				}
+			});
+			return occurrences;
 		}
 
-		/** find the average period between the events in the window */
+		/** find the average period between the events seen by the window */
 		private Duration period(){
 			Duration d = new Duration();
-			d.set_us((getLast().BeginTime-getFirst().BeginTime) / occurrences.size());
+			d.set_us((lastBeginTime-firstBeginTime) / seen);
 			return d;
 		}
 		
@@ -342,7 +471,6 @@ class NoiseMiner extends ProjDefs
 			if(v.occurrences > 5 ){ 
 				// determine the importance of this cluster
 				double importance = v.duration.us() / v.period().us() * Math.log(v.duration.us()) ;
-				System.out.println("importance="+importance + " occurrences="+v.occurrences);	
 
 				if(importance > importanceCutoff){
 					newResults.add(v);
@@ -357,7 +485,7 @@ class NoiseMiner extends ProjDefs
 			
 		}
 		
-		System.out.println("Filtering out "+dropCount+" of "+ (dropCount+keepCount) + " results");
+		loggingText = loggingText + "Filtered out " + dropCount + " of " + (dropCount+keepCount) + " results\n";
 
 		return newResults;			
 	}
@@ -367,14 +495,15 @@ class NoiseMiner extends ProjDefs
 
 
 
+	/** A histogram of durations, with linear bins followed by bins spaced on a log scale */
 	class Histogram{
 		protected long bin_count[]; //< The number of values that fall in each bin
-		private Duration bin_sum[]; //< The sum of all values that fall in each bin
+		private double bin_sum[]; //< The sum of all values that fall in each bin
 
-		private EventWindow bin_window[]; //< A list of recent events in each bin
+		private EventWindow bin_window[]; //< A sample of the events in each bin, created once the bin is used
 		
 		/** The sum of the durations of all events seen so far */
-		private Duration cummulativeEventDurations;
+		private double cummulativeEventDurations;
 
 		/** The number of events that this histogram has seen */
 		private long eventsSeenSoFar;
@@ -387,7 +516,8 @@ class NoiseMiner extends ProjDefs
 		public int countEvents(){
 			int c=0;
 			for(int i=0;i<getNbins();i++){
-				c+=bin_window[i].size();
+				if(bin_window[i] != null)
+					c+=bin_window[i].size();
 			}
 			return c;
 		}
@@ -430,31 +560,47 @@ class NoiseMiner extends ProjDefs
 		}
 
 
-		public Histogram(){
-			cummulativeEventDurations = new Duration(0);
-			
+		/** Seed for the samples of the bins */
+		private final long seed;
+
+		/** A histogram whose samples are drawn with the given seed, e.g. from the PE and event */
+		public Histogram(long seed){
+			this.seed = seed;
 			bin_count = new long[getNbins()];
-			bin_sum = new Duration[getNbins()];
+			bin_sum = new double[getNbins()];
 			bin_window = new EventWindow[getNbins()];
-			for(int i=0;i<getNbins();i++){
-				bin_count[i] = 0;
-				bin_sum[i] = new Duration(0.0);
-				bin_window[i] = new EventWindow(eventsInBinWindow);
-			}
 		}
 
-		protected void insert(TimelineEvent event) {
-			Duration duration = new Duration(event.EndTime-event.BeginTime);
+		/** The bin for a duration in microseconds, or -1 if it is negative. The first
+		 *  LINEAR_BINS bins are BIN_WIDTH wide, then each doubling is split into
+		 *  2^SUB_BIN_BITS bins by the bits after the leading one. */
+		private int whichBin(long us){
+			if(us < 0)
+				return -1;
+			long widths = us / BIN_WIDTH;
+			if(widths < LINEAR_BINS)
+				return (int)widths;
+			int exponent = 63 - Long.numberOfLeadingZeros(widths);
+			int sub = (int)(widths >>> (exponent - SUB_BIN_BITS)) & ((1 << SUB_BIN_BITS) - 1);
+			int bin = LINEAR_BINS + ((exponent - SUB_BIN_BITS - 1) << SUB_BIN_BITS) + sub;
+			return Math.min(bin, getNbins()-1);
+		}
+
+		private EventWindow window(int bin){
+			if(bin_window[bin] == null)
+				bin_window[bin] = new EventWindow(eventsInBinWindow, seed(seed, bin));
+			return bin_window[bin];
+		}
+
+		protected void insert(long beginTime, long endTime, int pe) {
+			long duration = endTime-beginTime;
 			eventsSeenSoFar ++;
-			cummulativeEventDurations.add(duration);
-			int which_bin = (int)(duration.us() / binWidth.us());
-			if(which_bin > getNbins()-1){
-				which_bin = getNbins()-1;
-			}
+			cummulativeEventDurations += duration;
+			int which_bin = whichBin(duration);
 			if(which_bin >= 0){
 				bin_count[which_bin] ++;
-				bin_sum[which_bin].add(duration);
-				bin_window[which_bin].insert(event);
+				bin_sum[which_bin] += duration;
+				window(which_bin).insert(beginTime, endTime, pe);
 			}
 		}
 
@@ -465,15 +611,12 @@ class NoiseMiner extends ProjDefs
 		protected void insert(Cluster c){
 			if(c.count() > 0){
 				eventsSeenSoFar += c.count();
-				cummulativeEventDurations.add(c.sum());
-				int which_bin = (int)(c.mean().us() / binWidth.us());
-				if(which_bin > getNbins()-1){
-					which_bin = getNbins()-1;
-				}
+				cummulativeEventDurations += c.sum().us();
+				int which_bin = whichBin((long)c.mean().us());
 				if(which_bin >= 0){
 					bin_count[which_bin] += c.count();
-					bin_sum[which_bin].add(c.sum());
-					bin_window[which_bin].merge(c.events);
+					bin_sum[which_bin] += c.sum().us();
+					window(which_bin).merge(c.events);
 				}
 			}
 		}
@@ -495,11 +638,11 @@ class NoiseMiner extends ProjDefs
 
 		/** Does this histogram has any data in it? */
 		private boolean used() {
-			return cummulativeEventDurations.us()>0;
+			return cummulativeEventDurations>0;
 		}
 
 		public boolean isUsed(){
-			return cummulativeEventDurations.us()>0;
+			return cummulativeEventDurations>0;
 		}
 
 	
@@ -601,17 +744,21 @@ class NoiseMiner extends ProjDefs
 
 		@SuppressWarnings("ucd")
 		public Duration binCenter(int whichBin){
-			return new Duration((whichBin+0.5)*binWidth.us());
+			return new Duration((binLowerBound(whichBin).us()+binUpperBound(whichBin).us())/2.0);
 		}
 
 		@SuppressWarnings("ucd")
 		public Duration binLowerBound(int whichBin){
-			return new Duration(whichBin*binWidth.us());
+			if(whichBin < LINEAR_BINS)
+				return new Duration(whichBin*BIN_WIDTH);
+			int exponent = ((whichBin - LINEAR_BINS) >> SUB_BIN_BITS) + SUB_BIN_BITS + 1;
+			int sub = (whichBin - LINEAR_BINS) & ((1 << SUB_BIN_BITS) - 1);
+			return new Duration((((long)(1 << SUB_BIN_BITS) + sub) << (exponent - SUB_BIN_BITS)) * BIN_WIDTH);
 		}
 
 		@SuppressWarnings("ucd")
 		public Duration binUpperBound(int whichBin){
-			return new Duration((whichBin+0.5)*binWidth.us());
+			return binLowerBound(whichBin+1);
 		}
 
 		@SuppressWarnings("ucd")
@@ -690,9 +837,13 @@ class NoiseMiner extends ProjDefs
 		// Create a list of worker threads	
 		LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
 		
+		int leaf = 0;
 		for(Integer pe : peList) {
-			readyReaders.add(new NoiseMinerThread(pe, MainWindow.runObject[myRun], this));
+			readyReaders.add(new NoiseMinerThread(pe, leaf++, MainWindow.runObject[myRun], this));
 		}	
+		numLeaves = leaf;
+		pendingMerges = new TreeMap<Long, PartialResults>();
+		mergedResults = null;
 		
 		// Determine a component to show the progress bar with
 		Component guiRootForProgressBar = null;
@@ -705,29 +856,31 @@ class NoiseMiner extends ProjDefs
 		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Noise Miner in Parallel", readyReaders, guiRootForProgressBar, true);
 		threadManager.runAll();
 
-		// Retrieve results for each PE
-				
-		histogramToDisplay = new long[numDisplayBins];
-
-		for(int i=0;i<numDisplayBins;i++){
-			histogramToDisplay[i] = 0;
-		}
-		LinkedList<NoiseResult> results = new LinkedList<NoiseResult>();
-		
-		
-		Iterator<Runnable> iter = readyReaders.iterator();
-		while(iter.hasNext()) {
-			NoiseMinerThread thread = (NoiseMinerThread) iter.next();
-			results.addAll(thread.results);
-			for(int i=0;i<numDisplayBins;i++){
-				histogramToDisplay[i] += thread.histogramToDisplay[i];
+		// The threads have merged the results for all the PEs, unless some were
+		// cancelled, in which case the rest are merged here in the order of their PEs
+		PartialResults results = mergedResults;
+		if(results == null){
+			TreeMap<Long, PartialResults> byFirstLeaf = new TreeMap<Long, PartialResults>();
+			for(Map.Entry<Long, PartialResults> e : pendingMerges.entrySet()){
+				long level = e.getKey() >> 32;
+				long index = e.getKey() & 0xffffffffL;
+				byFirstLeaf.put(index << level, e.getValue());
 			}
+			for(PartialResults p : byFirstLeaf.values()){
+				if(results == null)
+					results = p;
+				else
+					results.merge(p);
+			}
+			if(results == null)
+				results = new PartialResults(new LinkedList<NoiseResult>(), new long[numDisplayBins]);
 		}
-		
-		// cluster all result records across all processors
-		finalResults = clusterResultsAcrossProcs(results);
-		results = null;
-		finalResults = filterResults(finalResults);
+		pendingMerges = null;
+		mergedResults = null;
+
+		histogramToDisplay = results.histogram;
+		loggingText = loggingText + "Merged the results across all processors into " + results.results.size() + " resulting clusters\n";
+		finalResults = filterResults(results.results);
 	
 	}
 
@@ -770,26 +923,18 @@ class NoiseMiner extends ProjDefs
 		private long count;
 		EventWindow events;
 	
-		private Cluster(Duration s, long c, EventWindow ew){
-			sum = new Duration(s);
-			count=c;
-//			assert(c>=0);
-			events = new EventWindow(eventsInBinWindow);
-			events.merge(ew);
-		}
-		
 		private Cluster(double s_us, long c, EventWindow ew){
 //			assert s_us>=0 : ("s_us=" + s_us);
 			sum= new Duration(s_us);
 			count=c;
 //			assert(c>=0);
-			events = new EventWindow(eventsInBinWindow);
+			events = new EventWindow(eventsInBinWindow, (ew == null) ? 0 : seed(ew.seed, 1));
 			events.merge(ew);
 		}
 		
 		
-		private void merge(Duration s, long c, EventWindow ew){
-			sum.add(s);
+		private void merge(double s_us, long c, EventWindow ew){
+			sum.add(new Duration(s_us));
 			count += c;
 //			assert(c>=0);
 			events.merge(ew);
@@ -896,10 +1041,5 @@ class NoiseMiner extends ProjDefs
 	public int getNbins() {
 		return nbins;
 	}
-
-	@SuppressWarnings("ucd")
-	public Duration binWidth(){
-		return binWidth;
-	}
 	
 }
@@ -55,7 +55,7 @@ class NoiseMinerExemplarTimelineWindow extends JFrame {
 		contents.setLayout(new GridLayout(numRows,numCols));
 		
 		int eventsSoFar=0;
-		for (Iterator itr = ew.occurrences.iterator(); itr.hasNext();){
+		for (Iterator itr = ew.occurrences().iterator(); itr.hasNext();){
 
 			TimelineEvent e =  (TimelineEvent) itr.next();
 			
@@ -11,28 +11,25 @@ import projections.Tools.NoiseMiner.NoiseMiner.Duration;
 import projections.Tools.NoiseMiner.NoiseMiner.Event;
 import projections.Tools.NoiseMiner.NoiseMiner.EventWindow;
 import projections.Tools.NoiseMiner.NoiseMiner.Histogram;
+import projections.Tools.NoiseMiner.NoiseMiner.NoiseResult;
 import projections.analysis.Analysis;
 import projections.analysis.EndOfLogSuccess;
 import projections.analysis.GenericLogReader;
 import projections.analysis.ProjDefs;
-import projections.analysis.TimelineEvent;
 import projections.misc.LogEntry;
 
+/** Mines one PE, then hands its results to the NoiseMiner to be merged with those of the other PEs */
 class NoiseMinerThread implements Runnable {
 	private int pe;
-	private TreeMap h;
+	/** The position of this PE among those being mined */
+	private int leaf;
 	private Analysis analysis;
 	private NoiseMiner parent;
-		
-	private	Histogram h_pe;
-	
-	/** The results for one PE. After this thread has run, this should be merged together with those from other PEs */
-	protected LinkedList results;
-	protected long [] histogramToDisplay;
 	
 	
-	protected NoiseMinerThread(int pe, Analysis analysis, NoiseMiner parent){
+	protected NoiseMinerThread(int pe, int leaf, Analysis analysis, NoiseMiner parent){
 		this.setPe(pe);
+		this.leaf = leaf;
 		this.analysis = analysis;
 		this.parent = parent;
 	}
@@ -60,8 +57,8 @@ class NoiseMinerThread implements Runnable {
 		 */ 
 
 
-		/** Histograms for each type of event. Each entry is of type "Event" */
-		h = new TreeMap();
+		/** Histograms for each type of event */
+		TreeMap<Event, Histogram> h = new TreeMap<Event, Histogram>();
 			
 		
 		GenericLogReader reader = new GenericLogReader(getPe(), analysis.getVersion());
@@ -81,10 +78,12 @@ class NoiseMinerThread implements Runnable {
 					// if we have seen the matching BEGIN_PROCESSING
 					if(previous_begin_entry == logdata.entry){
 						Event e = parent.new Event(logdata.entry, encountered_user_event);
-						if(! h.containsKey(e)){
-							h.put(e, parent.new Histogram());
+						Histogram hist = h.get(e);
+						if(hist == null){
+							hist = parent.new Histogram(NoiseMiner.seed(NoiseMiner.seed(getPe(), logdata.entry), encountered_user_event));
+							h.put(e, hist);
 						}							
-						((Histogram)h.get(e)).insert(new TimelineEvent(previous_begin_time,logdata.time,-1,getPe()));
+						hist.insert(previous_begin_time, logdata.time, getPe());
 						encountered_user_event = -1;
 					}
 				} else if(logdata.type == ProjDefs.USER_EVENT || logdata.type == ProjDefs.USER_EVENT_PAIR){
@@ -106,17 +105,19 @@ class NoiseMinerThread implements Runnable {
 					if(previous_black_time != -1){
 
 						Event e = parent.new Event(blackPartIdx, -1);
-						if(! h.containsKey(e)){
-							h.put(e, parent.new Histogram());
+						Histogram hist = h.get(e);
+						if(hist == null){
+							hist = parent.new Histogram(NoiseMiner.seed(NoiseMiner.seed(getPe(), blackPartIdx), -1));
+							h.put(e, hist);
 						}							
-						((Histogram)h.get(e)).insert(new TimelineEvent(previous_black_time, logdata.time, -1, getPe()));
+						hist.insert(previous_black_time, logdata.time, getPe());
 
 					}
 				}else{
 					//other events
 					previous_black_time = -1;
 				}
-				logdata = reader.nextEvent();				
+				logdata = reader.nextEvent(logdata);				
 			}
 		}
 		catch (EndOfLogSuccess e) {
@@ -137,16 +138,16 @@ class NoiseMinerThread implements Runnable {
 		// Generate clusters from each histogram
 		// Merge all the normalized clusters for this pe
 		// i.e. merge clusters from all entry methods
-		h_pe = parent.new Histogram();
+		Histogram h_pe = parent.new Histogram(NoiseMiner.seed(getPe(), blackPartIdx - 1));
 
-		Iterator iter = h.values().iterator();
+		Iterator<Histogram> iter = h.values().iterator();
 		while(iter.hasNext()){
-			Histogram hist = (Histogram) iter.next();
+			Histogram hist = iter.next();
 			hist.cluster();
 
-			ListIterator itr = hist.clustersNormalized().listIterator();
+			ListIterator<Cluster> itr = hist.clustersNormalized().listIterator();
 			while(itr.hasNext()){
-				Cluster c = (Cluster) itr.next();
+				Cluster c = itr.next();
 				h_pe.insert(c);
 			}
 		}
@@ -155,9 +156,7 @@ class NoiseMinerThread implements Runnable {
 		// Generate clusters for the processor
 		h_pe.cluster();
 		
-		System.out.println("PE " + pe + " loaded");
-		
-		results = new LinkedList();
+		LinkedList<NoiseResult> results = new LinkedList<NoiseResult>();
 		
 		int n = 1;
 		while(h_pe.hasNthNoiseComponent(n)) {
@@ -172,16 +171,13 @@ class NoiseMinerThread implements Runnable {
 		}
 		
 		
-		histogramToDisplay = new long[parent.numDisplayBins];
-		for(int i=0;i<parent.numDisplayBins;i++){
-			histogramToDisplay[i] = 0;
-		}
+		long[] histogramToDisplay = new long[parent.numDisplayBins];
 		
 		int numOldBinsPerNewBin = parent.numOldBinsPerNewBin();
 				
-		Iterator eventTypeIter = h.keySet().iterator();
-		while(eventTypeIter.hasNext()){
-			Histogram hist = (Histogram) h.get(eventTypeIter.next());
+		Iterator<Histogram> histIter = h.values().iterator();
+		while(histIter.hasNext()){
+			Histogram hist = histIter.next();
 
 			for(int i=0;i<parent.getNbins() ;i++){
 				int newbin =  i / numOldBinsPerNewBin;
@@ -191,9 +187,7 @@ class NoiseMinerThread implements Runnable {
 			
 		}
 			
-		h=null;
-		h_pe = null;
-//		System.out.println("PE " + pe + " done");
+		parent.addResults(leaf, parent.new PartialResults(results, histogramToDisplay));
 	}
 
 	public void setPe(int pe) {
@@ -156,13 +156,12 @@ implements ItemListener
         for(int i=0;i<data.length;i++){
         	if(data[i] > 0){
         		s.add(i, data[i]);
-        		System.out.println("data["+i+"]="+data[i]);
         	}
         }
         
         dataset.addSeries(s);
 
-        NumberAxis domainAxis = new NumberAxis("Event Duration (not in Microseconds)");
+        NumberAxis domainAxis = new NumberAxis("Event Duration (log scale above 3.2ms, not in Microseconds)");
         domainAxis.setStandardTickUnits(NumberAxis.createIntegerTickUnits());
 
 //        LogAxis rangeAxis = new LogAxis("Number of Events");
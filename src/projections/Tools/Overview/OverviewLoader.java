@@ -0,0 +1,115 @@
+package projections.Tools.Overview;
+
+import java.awt.Component;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import projections.analysis.TimedProgressThreadExecutor;
+import projections.gui.ColorMap;
+
+/**
+ *  Computes the Overview of a set of PEs from their log files, without any
+ *  of the window: for each PE and interval, the utilization, the idle time
+ *  and the most prominent entry method. Used by OverviewPanel and by the
+ *  batch analysis.
+ */
+public class OverviewLoader {
+
+	private final int[][] entryData;        // [pe idx][interval]
+	private final float[][] utilizationData; // [pe idx][interval], 0 to 1
+	private final float[][] idleData;        // [pe idx][interval], 0 to 1
+	private final List<Runnable> readers = new ArrayList<Runnable>();
+
+	/** Set up the readers for the intervals from startInterval up to but not including endInterval */
+	public OverviewLoader(SortedSet<Integer> pes, long intervalSize, int startInterval, int endInterval) {
+		int numIntervals = endInterval - startInterval;
+		entryData = new int[pes.size()][numIntervals];
+		utilizationData = new float[pes.size()][numIntervals];
+		idleData = new float[pes.size()][numIntervals];
+		int pIdx = 0;
+		for (Integer pe : pes) {
+			readers.add(new ThreadedFileReader(pe, intervalSize, 0,
+					startInterval, endInterval, entryData[pIdx], utilizationData[pIdx], idleData[pIdx]));
+			pIdx++;
+		}
+	}
+
+	/** The readers, to be run before the results are asked for */
+	public List<Runnable> getReaders() {
+		return readers;
+	}
+
+	/** Run the readers on the shared worker pool, showing progress over guiRoot if it is not null */
+	public void load(Component guiRoot) {
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Overview in Parallel", readers, guiRoot, true);
+		threadManager.runAll();
+	}
+
+	/** The most prominent entry method in each [pe idx][interval], numEPs for overhead and numEPs+1 for idle */
+	public int[][] getEntryData() {
+		return entryData;
+	}
+
+	/** The utilization of each [pe idx][interval], from 0 to 100 */
+	public int[][] getUtilizationPercent() {
+		// For historical reasons, we use a utilization range of 0 to 100
+		int[][] utilizationDataNormalized = new int[utilizationData.length][];
+		for (int i = 0; i < utilizationData.length; i++) {
+			utilizationDataNormalized[i] = new int[utilizationData[i].length];
+			for (int j = 0; j < utilizationData[i].length; j++) {
+				utilizationDataNormalized[i][j] = (int) (100.0f * utilizationData[i][j]);
+			}
+		}
+		return utilizationDataNormalized;
+	}
+
+	/** The idle time of each [pe idx][interval], from 0 to 100 */
+	public byte[][] getIdlePercent() {
+		byte[][] idleDataNormalized = new byte[idleData.length][];
+		for (int i = 0; i < idleData.length; i++) {
+			idleDataNormalized[i] = new byte[idleData[i].length];
+			for (int j = 0; j < idleData[i].length; j++) {
+				idleDataNormalized[i][j] = (byte) (100.0f * idleData[i][j]);
+			}
+		}
+		return idleDataNormalized;
+	}
+
+	/** The color map for utilizations from 0 to 100, and idle "usage" from 101 to 201 */
+	public static ColorMap utilizationColorMap() {
+		ColorMap utilColorMap = new ColorMap();
+		// sets bluish background for zero values and range to bright Red
+		// for value 70.
+		// WAY TO READ THIS:  VAL  RED  GRN  BLU
+		utilColorMap.addBreak(0,   0,   0,   55,
+				70,  255, 0,   0);
+		// Range from bright Red to White from 70 to 100
+		utilColorMap.addBreak(70,  255, 0,   0,
+				100, 255, 255, 255);
+		// 12/9/2004 - new semantics. Anything that's not a valid utilization
+		//             is blue (200 shades to indicate intensity) for
+		//             Idle time.
+		utilColorMap.addBreak(101, 0,   0,   55,
+				201, 0,   0,   255);
+		// everything else is green (should not happen).
+		utilColorMap.addBreak(202, 0,   255, 0,
+				255, 0,   255, 0);
+		return utilColorMap;
+	}
+
+	/** An image with one pixel per [pe idx][interval] of the given RGB colors, one row per PE */
+	public static BufferedImage toImage(int[][] colors) {
+		int numPE = colors.length;
+		int numIntervals = numPE > 0 ? colors[numPE-1].length : 0;
+		BufferedImage image = new BufferedImage(Math.max(numIntervals, 1), Math.max(numPE, 1), BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < numPE; y++) {
+			for (int x = 0; x < numIntervals && x < colors[y].length; x++) {
+				image.setRGB(x, y, colors[y][x]);
+			}
+		}
+		return image;
+	}
+
+}
@@ -13,16 +13,13 @@ value is the integer percent CPU utilization from 0..100.
 Orion Sky Lawlor, olawlor@acm.org, 2/12/2001
  */
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.awt.image.MemoryImageSource;
-import java.util.LinkedList;
 import java.util.SortedSet;
 
 import javax.swing.JOptionPane;
 
-import projections.analysis.TimedProgressThreadExecutor;
 import projections.gui.ColorMap;
 import projections.gui.JPanelToImage;
 import projections.gui.MainWindow;
@@ -285,18 +282,7 @@ class OverviewPanel extends ScalePanel.Child
 		
 		// If desired, save the full image to a file
 		if(saveImage){
-			int numPE = colors.length;
-			int numIntervals = colors[numPE-1].length;
-			BufferedImage image = new BufferedImage(numIntervals, numPE, BufferedImage.TYPE_INT_RGB);
-			Graphics2D g = image.createGraphics();
-			for(int y=0;y<numPE;y++) {
-				for(int x=0;x<numIntervals;x++) {
-					Color c = new Color(colors[y][x]);
-					g.setColor(c);
-					g.fillRect(x, y, 1,1);
-				}
-			}
-			g.dispose();
+			BufferedImage image = OverviewLoader.toImage(colors);
 			JPanelToImage.saveToFileChooserSelection(image, "Save Overview to PNG or JPG",  "Overview.png");
 		}
 				
@@ -348,35 +334,14 @@ class OverviewPanel extends ScalePanel.Child
 	protected void loadData(boolean saveImage) {
 		this.saveImage = saveImage;
 		if (MainWindow.runObject[myRun].hasLogData()) {
-			int numIntervals = endInterval - startInterval;
 			mode = OverviewWindow.MODE_EP;
 
-			// Create a list of worker threads
-			LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
-
-			entryData = new int[selectedPEs.size()][numIntervals];
-			int pIdx = 0;
-			float[][] idleData = new float[selectedPEs.size()][numIntervals];
-			float[][] utilizationData = new float[selectedPEs.size()][numIntervals];
-			for (Integer pe : selectedPEs) {
-				readyReaders.add(new ThreadedFileReader(pe, intervalSize, myRun,
-						startInterval, endInterval, entryData[pIdx], utilizationData[pIdx], idleData[pIdx]));
-				pIdx++;
-			}
+			OverviewLoader loader = new OverviewLoader(selectedPEs, intervalSize, startInterval, endInterval);
+			loader.load(this);
 
-			// Pass this list of threads to a class that manages/runs the threads nicely
-			TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Overview in Parallel", readyReaders, this, true);
-			threadManager.runAll();
-
-			// For historical reasons, we use a utilization range of 0 to 100
-			utilizationDataNormalized = new int[utilizationData.length][utilizationData[0].length];
-			idleDataNormalized = new byte[idleData.length][idleData[0].length];
-			for (int i = 0; i < utilizationData.length; i++) {
-				for (int j = 0; j < utilizationData[i].length; j++) {
-					utilizationDataNormalized[i][j] = (int) (100.0f * utilizationData[i][j]);
-					idleDataNormalized[i][j] = (byte) (100.0f * idleData[i][j]);
-				}
-			}
+			entryData = loader.getEntryData();
+			utilizationDataNormalized = loader.getUtilizationPercent();
+			idleDataNormalized = loader.getIdlePercent();
 			// We default to coloring by entry method for log files
 			colorByEntry();
 		} else if (MainWindow.runObject[myRun].hasSumDetailData()) {
@@ -1,5 +1,6 @@
 package projections.Tools.Overview;
 
+import projections.analysis.EntryIntervalData;
 import projections.analysis.LogReader;
 import projections.gui.MainWindow;
 
@@ -18,7 +19,7 @@ class ThreadedFileReader implements Runnable  {
 
 	private int[][][] mySystemUsageData;   // [type][pe list index][interval]
 //	int[][][][] mySystemMsgsData;  // [categoryIdx][type][][]
-	private int[][][][] myUserEntryData;   // [ep idx][type][pe][]
+	private EntryIntervalData myUserEntryData;   // time of each [ep idx][interval]
 	
 //	long logReaderIntervalSize;
 	
@@ -85,26 +86,27 @@ class ThreadedFileReader implements Runnable  {
 					byEntryPoint, processorList, false, null);
 			mySystemUsageData = logReader.getSystemUsageData();
 //			mySystemMsgsData = logReader.getSystemMsgs();
-			myUserEntryData = logReader.getUserEntries();
+			myUserEntryData = logReader.getUserEntryData(LogReader.TIME, 0);
 //			logReaderIntervalSize = logReader.getIntervalSize();
 		} else {
 			System.err.println("Error: No data Files found!!");
 		}
 		
 		
-		int numEPs = MainWindow.runObject[myRun].getNumUserEntries();
-		int numIntervals = endInterval-startInterval;
+		final int numEPs = MainWindow.runObject[myRun].getNumUserEntries();
+		final int numIntervals = endInterval-startInterval;
 		
-		double[][] utilData = new double[numIntervals][numEPs+2];
+		final double[][] utilData = new double[numIntervals][numEPs+2];
 	
-		// Extract data and put it into the graph
-		for (int ep=0; ep<numEPs; ep++) {
-			int[][] entryData = myUserEntryData[ep][LogReader.TIME];
-			for (int interval=0; interval<numIntervals; interval++) {
-				utilData[interval][ep] += entryData[0][interval];
-				utilData[interval][numEPs] -= entryData[0][interval]; // overhead -= work time
+		// Extract data and put it into the graph. Only the non-zero cells are stored.
+		myUserEntryData.forEach(new EntryIntervalData.CellVisitor() {
+			public void visit(int ep, int interval, int value) {
+				if (interval < numIntervals) {
+					utilData[interval][ep] += value;
+					utilData[interval][numEPs] -= value; // overhead -= work time
+				}
 			}
-		}
+		});
 
 		// Idle time SYS_IDLE=2
 		int[][] sysIdleData = mySystemUsageData[2]; //percent
@@ -140,7 +142,6 @@ class ThreadedFileReader implements Runnable  {
 		}
 
 		// Release any unneeded memory	
-		utilData = null;
 		mySystemUsageData = null; 
 //		mySystemMsgsData = null;
 		myUserEntryData = null;
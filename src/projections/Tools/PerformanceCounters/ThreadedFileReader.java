@@ -1,26 +1,29 @@
 package projections.Tools.PerformanceCounters;
 
 
-import projections.analysis.EndOfLogSuccess;
-import projections.analysis.GenericLogReader;
+import projections.Tools.ThreadedFileReaderBase;
+import projections.analysis.LogEventVisitor;
 import projections.analysis.ProjDefs;
 import projections.gui.MainWindow;
 import projections.misc.LogEntry;
 
-import java.io.IOException;
-import java.util.ArrayList;
-
 /** The reader threads for Communication Per PE Tool. */
-class ThreadedFileReader implements Runnable  {
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable, LogEventVisitor  {
 
 	private int pe;
 	private int pIdx;
 	private long startTime;
 	private long endTime;
-	private int myRun = 0;
 	private int numPerfCounts = 0;
 	private double[][][] perfCounters;
 
+	// Filled in while the log is scanned
+	private int numEPs;
+	private boolean inRange = false;
+	/** The counts of the last BEGIN_PROCESSING event, if hasLastBegin */
+	private long[] lastBegin;
+	private boolean hasLastBegin = false;
+
 	/** Construct a file reading thread that will generate data for one PE. */
 	protected ThreadedFileReader(int pe, int pIdx, int numPerfCounts, long startTime, long endTime, double[][][] perfCounters) {
 		this.pe = pe;
@@ -29,59 +32,72 @@ class ThreadedFileReader implements Runnable  {
 		this.startTime = startTime;
 		this.endTime = endTime;
 		this.perfCounters = perfCounters;
+
+		attach(pe, startTime, this);
 	}
 
 	public void run() {
-		GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+		// Possibly shared with the readers of other tools
+		readLog();
+	}
 
-		int numEPs = MainWindow.runObject[myRun].getNumUserEntries();
-		try {
-			synchronized (perfCounters) {
-				for (int i = 0; i < numPerfCounts; ++i) {
-					perfCounters[i][pIdx] = new double[numEPs];
-				}
+	public void beginLog() {
+		numEPs = MainWindow.runObject[myRun].getNumUserEntries();
+		synchronized (perfCounters) {
+			for (int i = 0; i < numPerfCounts; ++i) {
+				perfCounters[i][pIdx] = new double[numEPs];
 			}
+		}
+		lastBegin = new long[numPerfCounts];
+	}
 
-			LogEntry logdata = reader.nextEventOnOrAfter(startTime);
-			// Get the last open begin event if it's of type BEGIN_PROCESSING
-			LogEntry lastBegin = reader.getLastOpenBE();
-			if (lastBegin != null && lastBegin.type != ProjDefs.BEGIN_PROCESSING) {
-				lastBegin = null;
+	public boolean visit(LogEntry logdata) {
+		if (!inRange) {
+			// Keep the last open begin event as the reader does, up to the first event on or after startTime
+			switch (logdata.type) {
+			case ProjDefs.BEGIN_PROCESSING:
+				setLastBegin(logdata);
+				break;
+			case ProjDefs.BEGIN_IDLE:
+			case ProjDefs.END_IDLE:
+			case ProjDefs.END_PROCESSING:
+			case ProjDefs.BEGIN_TRACE:
+				hasLastBegin = false;
+				break;
 			}
-			// we'll just use the EndOfLogException to break us out of
-			// this loop :)
-			while (true) {
-				if (logdata.time > endTime) {
-					if ((logdata.type == ProjDefs.CREATION) ||
-							(logdata.type == ProjDefs.BEGIN_PROCESSING)) {
-						// past endtime. no more to do.
-						break;
-					}
-				}
-				if (logdata.type == ProjDefs.END_PROCESSING) {
-					int EPid = MainWindow.runObject[myRun].getEntryIndex(logdata.entry);
-					for (int i = 0; i < numPerfCounts; ++i) {
-						// Note that reader.getLastOpenBE() cannot be used here because when an END_PROCESSING event is
-						// read, it closes the last BEGIN_PROCESSING event, so that function will return null since
-						// no open event exists anymore. Thus, we track it using lastBegin instead.
-						perfCounters[i][pIdx][EPid] += logdata.perfCounts[i] - lastBegin.perfCounts[i];
-					}
-				} else if (logdata.type == ProjDefs.BEGIN_PROCESSING) {
-					lastBegin = logdata;
+			if (logdata.type == -1 || logdata.time < startTime)
+				return true;
+			inRange = true;
+		}
+		if (logdata.time > endTime) {
+			if ((logdata.type == ProjDefs.CREATION) ||
+					(logdata.type == ProjDefs.BEGIN_PROCESSING)) {
+				// past endtime. no more to do.
+				return false;
+			}
+		}
+		if (logdata.type == ProjDefs.END_PROCESSING) {
+			// An END_PROCESSING event closes the last BEGIN_PROCESSING event, so it is tracked
+			// here rather than taken from the reader. Without one there is nothing to measure from.
+			if (hasLastBegin) {
+				int EPid = MainWindow.runObject[myRun].getEntryIndex(logdata.entry);
+				for (int i = 0; i < numPerfCounts; ++i) {
+					perfCounters[i][pIdx][EPid] += logdata.perfCounts[i] - lastBegin[i];
 				}
-				logdata = reader.nextEvent();
 			}
-		} catch (EndOfLogSuccess e) {
-			// Successfully reached end of log file
-		} catch (IOException e) {
-			System.out.println("Exception: " + e);
-			e.printStackTrace();
+		} else if (logdata.type == ProjDefs.BEGIN_PROCESSING) {
+			setLastBegin(logdata);
 		}
+		return true;
+	}
 
-		try {
-			reader.close();
-		} catch (IOException e1) {
-			System.err.println("Error: could not close log file reader for processor " + pe);
-		}
+	/** The entries are refilled for every event, so copy the counts */
+	private void setLastBegin(LogEntry logdata) {
+		System.arraycopy(logdata.perfCounts, 0, lastBegin, 0, numPerfCounts);
+		hasLastBegin = true;
+	}
+
+	public void endOfLog() {
+		// Successfully reached end of log file
 	}
 }
@@ -1,15 +1,61 @@
 package projections.Tools;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+import projections.analysis.EndOfLogSuccess;
+import projections.analysis.GenericLogReader;
+import projections.analysis.LogEventVisitor;
 import projections.analysis.StsReader;
+import projections.analysis.TimedProgressThreadExecutor;
 import projections.gui.MainWindow;
+import projections.misc.LogEntry;
 
-public class ThreadedFileReaderBase {
+/**
+ *  Base class for the per-PE reader threads of the tools.
+ *
+ *  Besides some common helpers it provides a shared scan of each PE's log.
+ *  A reader registers its LogEventVisitors with attach() when it is
+ *  constructed, and calls readLog() from its run() method. All visitors
+ *  attached to the same PE of the same run are fed by one pass over the
+ *  log, whichever tool they belong to:
+ *
+ *  - Visitors attached before the scan starts are fed from its first event.
+ *  - Visitors attached while it is running join it between two events. The
+ *    scan then first feeds them the events they missed, read again by a
+ *    second reader, so only the part of the log already read is read twice.
+ *    Readers of a window opened while another window is still loading thus
+ *    share its remaining I/O.
+ *  - Once the scan has finished, a visitor attached for the same PE starts
+ *    a new scan.
+ *
+ *  A visitor attached with a start time only needs the events from that
+ *  time on, and a scan whose visitors all have one seeks to the earliest
+ *  of them if the log is indexed. A visitor that returns false from visit()
+ *  is fed no more events, and the scan stops early once none of its
+ *  visitors want more.
+ *
+ *  A scan stays in the table only while more visitors may join it: it
+ *  leaves when it finishes, and a scan that has not started leaves once a
+ *  cancelled TimedProgressThreadExecutor has dropped every reader attached
+ *  to it, so a later tool never joins a scan left over from an earlier run.
+ */
+public class ThreadedFileReaderBase implements TimedProgressThreadExecutor.Skippable {
     protected int myRun = 0;
     StsReader sts = MainWindow.runObject[myRun].getSts();
     final int totalPes = sts.getProcessorCount();
     final int totalNodes = sts.getSMPNodeCount();
     final int nodesize = sts.getNodeSize();
 
+    /** Scans that have not finished yet, by run and PE. Lock this before any scan. */
+    private static final HashMap<Long, SharedScan> scans = new HashMap<Long, SharedScan>();
+
+    /** The scan this reader's visitors are attached to, and those visitors */
+    private SharedScan scan;
+    private LogEventVisitor[] attached;
+
     protected boolean isSameNode(int pe1, int pe2) {
         int n1 = pe1 / nodesize;
         if (pe1 >= totalNodes * nodesize && pe1 < totalPes) n1 = pe1 - totalNodes * nodesize;
@@ -17,4 +63,291 @@ public class ThreadedFileReaderBase {
         if (pe2 >= totalNodes * nodesize && pe2 < totalPes) n2 = pe2 - totalNodes * nodesize;
         return n1 == n2;
     }
+
+    /** Have the visitors fed every event of the given PE's log, joining a scan of it if there is one */
+    protected void attach(int pe, LogEventVisitor... visitors) {
+        attach(pe, Long.MIN_VALUE, visitors);
+    }
+
+    /**
+     * Have the visitors fed the events of the given PE's log from startTime on,
+     * joining a scan of it if there is one. Events before startTime may be
+     * fed as well, and the visitors must skip them, but the begin event still
+     * open at startTime always is.
+     */
+    protected void attach(int pe, long startTime, LogEventVisitor... visitors) {
+        Long key = Long.valueOf(((long) myRun << 32) | pe);
+        synchronized (scans) {
+            SharedScan s = scans.get(key);
+            if (s == null || !s.add(startTime, visitors)) {
+                s = new SharedScan(key, pe, myRun);
+                s.add(startTime, visitors);
+                scans.put(key, s);
+            }
+            scan = s;
+            attached = visitors;
+        }
+    }
+
+    /** Read the log for the attached visitors, or wait for the reader that already does */
+    protected void readLog() {
+        scan.runOrAwait();
+        scan = null;
+        attached = null;
+    }
+
+    /** Called instead of run() when the reader is dropped after a cancel: detach its visitors */
+    public void skipped() {
+        if (scan == null)
+            return;
+        synchronized (scans) {
+            if (scan.remove(attached) && scans.get(scan.key) == scan)
+                scans.remove(scan.key);
+        }
+        scan = null;
+        attached = null;
+    }
+
+
+    /** One pass over a PE's log, feeding every attached visitor */
+    private static class SharedScan {
+        private final Long key;
+        private final int pe;
+        private final int myRun;
+        /** The earliest start time of the visitors, fixed once the scan starts */
+        private long from = Long.MAX_VALUE;
+
+        /** Visitors attached before the scan started */
+        private ArrayList<LogEventVisitor> visitors = new ArrayList<LogEventVisitor>();
+        /** Visitors attached since, waiting to be fed the events they missed */
+        private ArrayList<LogEventVisitor> joining = new ArrayList<LogEventVisitor>();
+        private volatile boolean hasJoiners = false;
+        private boolean started = false;
+        /** Set once no more visitors may join */
+        private boolean closed = false;
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        /** Only used by the thread running the scan: the visitors still fed, in the first live entries */
+        private LogEventVisitor[] active;
+        private int live;
+        /** Every visitor begun, to be ended */
+        private ArrayList<LogEventVisitor> begun = new ArrayList<LogEventVisitor>();
+        /** How many events have been fed so far */
+        private long delivered = 0;
+
+        private SharedScan(Long key, int pe, int myRun) {
+            this.key = key;
+            this.pe = pe;
+            this.myRun = myRun;
+        }
+
+        /** Returns false if the visitors can no longer see every event they need from this scan */
+        private synchronized boolean add(long startTime, LogEventVisitor... v) {
+            if (closed)
+                return false;
+            if (!started) {
+                from = Math.min(from, startTime);
+                for (LogEventVisitor visitor : v)
+                    visitors.add(visitor);
+                return true;
+            }
+            if (startTime < from)
+                return false;
+            for (LogEventVisitor visitor : v)
+                joining.add(visitor);
+            hasJoiners = true;
+            return true;
+        }
+
+        /** Returns true if the scan has not started and no visitors are left */
+        private synchronized boolean remove(LogEventVisitor... v) {
+            if (closed)
+                return false;
+            for (LogEventVisitor visitor : v) {
+                if (started)
+                    joining.remove(visitor);
+                else
+                    visitors.remove(visitor);
+            }
+            hasJoiners = !joining.isEmpty();
+            return !started && visitors.isEmpty();
+        }
+
+        private void runOrAwait() {
+            boolean mine;
+            synchronized (this) {
+                mine = !started;
+                started = true;
+            }
+            if (mine) {
+                try {
+                    run();
+                } finally {
+                    close(true);
+                    visitors = null;
+                    joining = null;
+                    active = null;
+                    begun = null;
+                    finished.countDown();
+                }
+            } else {
+                try {
+                    // The scan is running on another thread; all of its actions happen-before this returns
+                    finished.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException("Thread was interrupted. This should not ever occur");
+                }
+            }
+        }
+
+        private void run() {
+            active = visitors.toArray(new LogEventVisitor[visitors.size()]);
+            live = active.length;
+            for (LogEventVisitor v : active) {
+                v.beginLog();
+                begun.add(v);
+            }
+
+            GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+            // One entry is refilled for every event, so visitors copy whatever they keep
+            LogEntry data = new LogEntry();
+            try {
+                if (from != Long.MIN_VALUE) {
+                    reader.skipToBefore(from);
+                    if (reader.getLastOpenBE() != null)
+                        feed(reader.getLastOpenBE());
+                }
+                while (true) {
+                    if (hasJoiners)
+                        catchUp();
+                    if (live == 0 && close(false))
+                        break;
+                    reader.nextEvent(data);
+                    feed(data);
+                }
+            } catch (EndOfLogSuccess e) {
+                // Reached the end of the log
+            } catch (IOException e) {
+                // Let the visitors finish with the events read so far
+                System.err.println("Error: could not read log file for processor " + pe + ": " + e.getMessage());
+            } finally {
+                try {
+                    reader.close();
+                } catch (IOException e1) {
+                    System.err.println("Error: could not close log file reader for processor " + pe );
+                }
+            }
+
+            // Feed whoever joined meanwhile the events they missed, which are now all of them
+            close(true);
+            catchUp();
+
+            for (LogEventVisitor v : begun) {
+                try {
+                    v.endOfLog();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        /** Feed one event to a visitor. One that fails is fed no more, so that it cannot spoil the scan for the others. */
+        private static boolean visit(LogEventVisitor v, LogEntry data) {
+            try {
+                return v.visit(data);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                return false;
+            }
+        }
+
+        /** Feed one event to the live visitors, dropping those that want no more */
+        private void feed(LogEntry data) {
+            for (int i = 0; i < live; i++) {
+                if (!visit(active[i], data)) {
+                    active[i--] = active[--live];
+                    active[live] = null;
+                }
+            }
+            delivered++;
+        }
+
+        /** Let no more visitors join, unless some are waiting to and force is false; returns whether it closed */
+        private boolean close(boolean force) {
+            synchronized (scans) {
+                synchronized (this) {
+                    if (hasJoiners && !force)
+                        return false;
+                    closed = true;
+                }
+                if (scans.get(key) == this)
+                    scans.remove(key);
+            }
+            return true;
+        }
+
+        /** Feed the visitors waiting to join the events fed so far, then make them live */
+        private void catchUp() {
+            LogEventVisitor[] batch;
+            synchronized (this) {
+                batch = joining.toArray(new LogEventVisitor[joining.size()]);
+                joining.clear();
+                hasJoiners = false;
+            }
+            if (batch.length == 0)
+                return;
+
+            int wanting = batch.length;
+            for (LogEventVisitor v : batch) {
+                v.beginLog();
+                begun.add(v);
+            }
+
+            // A second reader repeats the same events, from the same starting point
+            GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+            LogEntry data = new LogEntry();
+            long replayed = 0;
+            try {
+                if (from != Long.MIN_VALUE) {
+                    reader.skipToBefore(from);
+                    if (reader.getLastOpenBE() != null && replayed++ < delivered)
+                        wanting = feed(batch, wanting, reader.getLastOpenBE());
+                }
+                while (wanting > 0 && replayed++ < delivered) {
+                    reader.nextEvent(data);
+                    wanting = feed(batch, wanting, data);
+                }
+            } catch (EndOfLogSuccess e) {
+                // Cannot happen before the events already fed
+            } catch (IOException e) {
+                System.err.println("Error: could not read log file for processor " + pe + ": " + e.getMessage());
+            } finally {
+                try {
+                    reader.close();
+                } catch (IOException e1) {
+                    System.err.println("Error: could not close log file reader for processor " + pe );
+                }
+            }
+
+            if (live + wanting > active.length) {
+                LogEventVisitor[] grown = new LogEventVisitor[live + wanting];
+                System.arraycopy(active, 0, grown, 0, live);
+                active = grown;
+            }
+            for (int i = 0; i < wanting; i++)
+                active[live++] = batch[i];
+        }
+
+        /** Feed one event to the first wanting visitors of batch, returning how many still want more */
+        private static int feed(LogEventVisitor[] batch, int wanting, LogEntry data) {
+            for (int i = 0; i < wanting; i++) {
+                if (!visit(batch[i], data)) {
+                    LogEventVisitor done = batch[i];
+                    batch[i--] = batch[--wanting];
+                    batch[wanting] = done;
+                }
+            }
+            return wanting;
+        }
+    }
 }
@@ -1,25 +1,25 @@
 package projections.Tools.TimeProfile;
 
-import java.util.SortedSet;
 import java.util.TreeMap;
-import java.util.TreeSet;
 
+import projections.Tools.ThreadedFileReaderBase;
+import projections.analysis.EntryIntervalData;
 import projections.analysis.LogReader;
 import projections.gui.MainWindow;
 
-/** The reader threads for Time Profile tool. This class ought to be generalized for all the other tools needing similar functionality. */
- class ThreadedFileReader implements Runnable  {
+/** The reader threads for Time Profile tool. The log is read through ThreadedFileReaderBase, possibly in the same pass as for other tools. */
+ class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable  {
 
 	private int pe;
+	private LogReader logReader;
 //	int p;  // Which index am I into the flattened array of potentially sparse pe's
 	private long intervalSize;
-	private int myRun;
 	private int startInterval;
 	private int endInterval;
 
 	private int[][][] mySystemUsageData;   // [type][pe list index][interval]
 //	int[][][][] mySystemMsgsData; // [categoryIdx][type][][]
-	private int[][][][] myUserEntryData; // [ep idx][type][pe][]
+	private EntryIntervalData myUserEntryData; // time of each [ep idx][interval]
 	
 	private double[][] graphData;
 	
@@ -47,6 +47,11 @@ import projections.gui.MainWindow;
 		this.startInterval = startInterval;
 		this.endInterval = endInterval;
 		this.graphData = graphData;
+
+		if( MainWindow.runObject[myRun].hasLogFiles()) { // .log files
+			logReader = new LogReader();
+			attach(pe, logReader.visitor(intervalSize, startInterval, endInterval, true, phaseMarkers));
+		}
 	}
 
 
@@ -80,17 +85,11 @@ import projections.gui.MainWindow;
 			boolean byEntryPoint, 
 			int pe) 
 	{
-		LogReader logReader = new LogReader();
-		SortedSet<Integer> processorList = new TreeSet<Integer>();
-		processorList.add(pe);
-
-		if( MainWindow.runObject[myRun].hasLogFiles()) { // .log files
-			logReader.read(intervalSize,
-					intervalStart, intervalEnd,
-					byEntryPoint, processorList, false, phaseMarkers);
+		if( logReader != null) { // .log files
+			readLog();
 			mySystemUsageData = logReader.getSystemUsageData();
 //			mySystemMsgsData = logReader.getSystemMsgs();
-			myUserEntryData = logReader.getUserEntries();
+			myUserEntryData = logReader.getUserEntryData(LogReader.TIME, 0);
 //			logReaderIntervalSize = logReader.getIntervalSize();
 		} else {
 			System.err.println("Error: No log data files found!");
@@ -103,26 +102,28 @@ import projections.gui.MainWindow;
 		mySystemUsageData = null; 
 //		mySystemMsgsData = null;
 		myUserEntryData = null;
+		logReader = null;
 	}
 	
 	
 	/** A threadsafe way for accumulating results into graphData. */
 	private void accumulateIntoShared(){
 
-		int numEPs = MainWindow.runObject[myRun].getNumUserEntries();
-		int numIntervals = endInterval-startInterval+1;
+		final int numEPs = MainWindow.runObject[myRun].getNumUserEntries();
+		final int numIntervals = endInterval-startInterval+1;
 
 		// Accumulate results into the shared array "graphData"
 		synchronized (graphData) {
 			
-			// Extract data and put it into the graph
-			for (int ep=0; ep<numEPs; ep++) {
-				int[][] entryData = myUserEntryData[ep][LogReader.TIME];
-				for (int interval=0; interval<numIntervals; interval++) {
-					graphData[interval][ep] += entryData[0][interval];
-					graphData[interval][numEPs] -= entryData[0][interval]; // overhead = -work time										
+			// Extract data and put it into the graph. Only the non-zero cells are stored.
+			myUserEntryData.forEach(new EntryIntervalData.CellVisitor() {
+				public void visit(int ep, int interval, int value) {
+					if (interval < numIntervals) {
+						graphData[interval][ep] += value;
+						graphData[interval][numEPs] -= value; // overhead = -work time
+					}
 				}
-			}
+			});
 
 			// Idle time SYS_IDLE=2
 			int[][] idleData = mySystemUsageData[2]; //percent
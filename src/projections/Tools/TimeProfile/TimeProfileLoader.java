@@ -0,0 +1,104 @@
+package projections.Tools.TimeProfile;
+
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeMap;
+
+import projections.analysis.TimedProgressThreadExecutor;
+import projections.gui.MainWindow;
+
+/**
+ *  Computes the Time Profile of a set of PEs from their log files, without
+ *  any of the window. Used by TimeProfileWindow and by the batch analysis.
+ *
+ *  The readers are created, and attached to the shared scans of their logs,
+ *  when the loader is constructed. So if the readers of several tools are
+ *  collected with getReaders() and run together, each log is read once.
+ */
+public class TimeProfileLoader {
+
+	/** Number of result arrays to spread the readers over, to reduce contention for accumulating */
+	private static final int numResultAccumulators = 8;
+
+	private final int numIntervals;
+	private final int numColumns;
+	private final double[][][] graphDataAccumulators;
+	private final List<Runnable> readers = new ArrayList<Runnable>();
+
+	/** Set up the readers for the intervals from startInterval to endInterval inclusive.
+	 *  Phase markers found in the logs are added to phaseMarkers if it is not null. */
+	public TimeProfileLoader(SortedSet<Integer> pes, long intervalSize, int startInterval, int endInterval,
+			TreeMap<Double, String> phaseMarkers) {
+		numIntervals = endInterval - startInterval + 1;
+		numColumns = MainWindow.runObject[0].getNumUserEntries() + 2;
+		graphDataAccumulators = new double[Math.min(numResultAccumulators, Math.max(pes.size(), 1))][numIntervals][numColumns];
+		int pIdx = 0;
+		for (Integer pe : pes) {
+			readers.add(new ThreadedFileReader(pe, intervalSize, 0, startInterval, endInterval, phaseMarkers,
+					graphDataAccumulators[pIdx % graphDataAccumulators.length]));
+			pIdx++;
+		}
+	}
+
+	/** The readers, to be run before getGraphData() is called */
+	public List<Runnable> getReaders() {
+		return readers;
+	}
+
+	/** Run the readers on the shared worker pool, showing progress over guiRoot if it is not null */
+	public void load(Component guiRoot) {
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Time Profile in Parallel", readers, guiRoot, true);
+		threadManager.runAll();
+	}
+
+	/** graphData[interval][ep] is the time spent in ep summed over the PEs, with
+	 *  overhead in column numEPs and idle time in column numEPs+1 */
+	public double[][] getGraphData() {
+		double[][] graphData = new double[numIntervals][numColumns];
+		// Merge resulting graphData structures together.
+		for (double[][] accumulator : graphDataAccumulators) {
+			for (int i = 0; i < numIntervals; i++) {
+				for (int j = 0; j < numColumns; j++) {
+					graphData[i][j] += accumulator[i][j];
+				}
+			}
+		}
+		return graphData;
+	}
+
+	/** Scale times summed over numProcessors PEs into percents of the interval */
+	public static void scaleToPercent(double[][] graphData, long intervalSize, int numProcessors) {
+		for (int interval=0; interval<graphData.length; interval++) {
+			for(int e=0; e< graphData[interval].length; e++){
+				graphData[interval][e] = graphData[interval][e] * 100.0 / ((double)intervalSize * (double)numProcessors);
+			}
+		}
+	}
+
+	/** Zero out the intervals that have a negative percent, or add up to more than 105% */
+	public static void filterBadData(double[][] graphData) {
+		for (int interval=0; interval<graphData.length; interval++) {
+			boolean valid = true;
+			double sumForInterval = 0.0;
+			for(int e=0; e< graphData[interval].length; e++){
+				sumForInterval += graphData[interval][e];
+				if(graphData[interval][e] < 0.0){
+					valid = false;
+				}
+			}
+			if(sumForInterval > 105.0){
+				valid = false;
+			}
+
+			if(!valid){
+				System.err.println("Time Profile found bad data for interval " + interval + ". The data for bad intervals will be zero-ed out. This problem is either a log file corruption issue, or a bug in Projections.");
+				for(int e=0; e< graphData[interval].length; e++){
+					graphData[interval][e] = 0.0;
+				}
+			}
+		}
+	}
+
+}
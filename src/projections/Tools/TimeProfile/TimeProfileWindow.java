@@ -21,7 +21,6 @@ import javax.swing.SwingWorker;
 
 import projections.analysis.LogReader;
 import projections.analysis.ProjMain;
-import projections.analysis.TimedProgressThreadExecutor;
 import projections.gui.Clickable;
 import projections.gui.GenericGraphColorer;
 import projections.gui.GenericGraphWindow;
@@ -310,22 +309,8 @@ implements ActionListener, Clickable
 
 					if(MainWindow.runObject[myRun].hasLogFiles()) { //Bilge
 						// Do parallel loading because we have full logs
-
-						// Create a list of worker threads
-						LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
-
-						// Create multiple result arrays to reduce contention for accumulating
-						int numResultAccumulators = 8;
-						double[][][] graphDataAccumulators = new double[numResultAccumulators][numIntervals][numEPs+special];
-
-
-						int pIdx=0;		
-						for(Integer pe : processorList){
-							readyReaders.add( new ThreadedFileReader(pe, intervalSize, myRun, 
-									startInterval, endInterval, phaseMarkers, 
-									graphDataAccumulators[pIdx%numResultAccumulators]) );
-							pIdx++;
-						}
+						TimeProfileLoader loader = new TimeProfileLoader(processorList, intervalSize,
+								startInterval, endInterval, phaseMarkers);
 
 						// Determine a component to show the progress bar with
 						Component guiRootForProgressBar = null;
@@ -337,20 +322,8 @@ implements ActionListener, Clickable
 							guiRootForProgressBar = MainWindow.runObject[myRun].guiRoot;
 						}
 
-						// Pass this list of threads to a class that manages/runs the threads nicely
-						TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Time Profile in Parallel", readyReaders, guiRootForProgressBar, true);
-						threadManager.runAll();
-
-
-						// Merge resulting graphData structures together.
-						for(int a=0; a< numResultAccumulators; a++){
-							for(int i=0;i<numIntervals;i++){
-								for(int j=0;j<numEPs+special;j++){
-									graphData[i][j] += graphDataAccumulators[a][i][j];
-								}
-							}	
-						}
-
+						loader.load(guiRootForProgressBar);
+						graphData = loader.getGraphData();
 
 					}
                     else if( MainWindow.runObject[myRun].hasSumDetailFiles()) //Bilge
@@ -437,11 +410,7 @@ implements ActionListener, Clickable
 					}//end of summary
 
 					// Scale raw data into percents
-					for (int interval=0; interval<graphData.length; interval++) {
-						for(int e=0; e< graphData[interval].length; e++){
-							graphData[interval][e] = graphData[interval][e] * 100.0 / ((double)intervalSize * (double)numProcessors);
-						}
-					}
+					TimeProfileLoader.scaleToPercent(graphData, intervalSize, numProcessors);
                     //Bilge
                     if( MainWindow.runObject[myRun].hasSumDetailFiles()){
                         //idle time calculation for sum detail
@@ -461,27 +430,8 @@ implements ActionListener, Clickable
                     }
 
 					// Filter Out any bad data
-					for (int interval=0; interval<graphData.length; interval++) {
-						boolean valid = true;
-						double sumForInterval = 0.0;
-						for(int e=0; e< graphData[interval].length; e++){
-							sumForInterval += graphData[interval][e];
-							if(graphData[interval][e] < 0.0){
-								valid = false;
-							}
-						}
-						if(sumForInterval > 105.0){
-							valid = false;
-						}
+					TimeProfileLoader.filterBadData(graphData);
 
-						if(!valid){
-							System.err.println("Time Profile found bad data for interval " + interval + ". The data for bad intervals will be zero-ed out. This problem is either a log file corruption issue, or a bug in Projections.");
-							for(int e=0; e< graphData[interval].length; e++){
-								graphData[interval][e] = 0.0;
-							}
-						}
-
-					}
 					// set the exists array to accept non-zero
 					// entries only have initial state also 
 					// display all existing data. Only do this 
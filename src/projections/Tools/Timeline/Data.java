@@ -29,10 +29,12 @@ import javax.swing.JOptionPane;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
 
 import projections.Tools.Timeline.RangeQueries.Query1D;
-import projections.Tools.Timeline.RangeQueries.RangeQueryTree;
+import projections.Tools.Timeline.RangeQueries.RangeQuerySortedArray;
 import projections.analysis.Analysis;
+import projections.analysis.ObjectId;
 import projections.analysis.PackTime;
 import projections.analysis.TachyonShifts;
 import projections.analysis.TimedProgressThreadExecutor;
@@ -181,7 +183,7 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 	private Set<Integer> hiddenUserEvents;
 
 	/** A synchronized collection of the Entry Methods for each PE */ 
-	protected Map<Integer, Query1D<EntryMethodObject>> allEntryMethodObjects = Collections.synchronizedMap(new TreeMap<Integer,Query1D<EntryMethodObject> >());
+	protected Map<Integer, EntryMethodStore> allEntryMethodObjects = Collections.synchronizedMap(new TreeMap<Integer,EntryMethodStore>());
 
 	/** A synchronized collection of the User Events for each PE  */
 	protected Map<Integer, Query1D<UserEventObject>> allUserEventObjects = Collections.synchronizedMap(new TreeMap<Integer, Query1D <UserEventObject> >());
@@ -235,6 +237,12 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 	/** Stores various lookup tables for messages and associated entry points */
 	MessageStructures messageStructures;
 
+	/** Which PE rows are loaded, and the memory budget for them */
+	final RowCache rowCache = new RowCache();
+
+	/** If true, only the rows on screen are loaded before the Timeline is displayed */
+	private boolean loadRowsOnDemand = false;
+
 	/** Determine whether pack times, idle regions, or message send ticks should be displayed */		
 	private boolean showPacks, showIdle, showMsgs, showUserEvents;
 
@@ -486,15 +494,33 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 	 *        data will be retrieved using getData()
 	 *        which calls createTL() 
 	 *        
-	 * If the message send lines are needed immediately, no helper threads should be used(race condition)
+	 * The message lookup tables are filled in as each PE is read, so the
+	 * message send lines are available as soon as this returns.
 	 *        
 	 *  @note caller synchronizes on this
 	 */
-	protected void createTLOArray(boolean useHelperThreads, Component rootWindow, boolean showProgress)
+	protected void createTLOArray(Component rootWindow, boolean showProgress)
 	{
 
-		// Kill off the secondary processing threads if needed
-		messageStructures.kill();
+		// Every PE is reindexed as it is reloaded, and any rows still being
+		// reloaded in the background for the old range are thrown away
+		int generation;
+		synchronized(rowCache) {
+			rowCache.clear();
+			messageStructures.clear();
+			generation = rowCache.generation();
+		}
+
+		// The per-PE statistics are added up as each PE is loaded for the
+		// first time, so they cover the rows that are evicted later on
+		synchronized(rowCache) {
+			for (int e=0; e<MainWindow.runObject[myRun].getNumUserEntries(); e++) {
+				entries[e] = 0;
+			}
+			processorUsage = new float[numPEs()];
+			idleUsage  = new float[numPEs()];
+			packUsage  = new float[numPEs()];
+		}
 
 		synchronized(this) {
 			// Can we reuse our already loaded data?
@@ -502,9 +528,9 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 				// Remove any unused objects from our data structures 
 
 				// scan through oldEntryMethodObjects, cleaning as we go
-				Iterator<Entry<Integer, Query1D<EntryMethodObject>>> iter = allEntryMethodObjects.entrySet().iterator();
+				Iterator<Entry<Integer, EntryMethodStore>> iter = allEntryMethodObjects.entrySet().iterator();
 				while(iter.hasNext()){
-					Entry<Integer, Query1D<EntryMethodObject>> e = iter.next();
+					Entry<Integer, EntryMethodStore> e = iter.next();
 					Integer pe = e.getKey();
 					Query1D<EntryMethodObject> objs = e.getValue();
 
@@ -546,17 +572,33 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 		LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
 
 		for(Integer pe : peToLine){
-			if(!allEntryMethodObjects.containsKey(pe)) {
-				// No data exist for the pe, so load it
-				readyReaders.add(new TimelineRunnableFileReader(pe,this));
-			} else {
+			if(allEntryMethodObjects.containsKey(pe)) {
 				// data exists for this pe already, but reload it from scratch
 				allEntryMethodObjects.remove(pe);
 				allUserEventObjects.remove(pe);
-				readyReaders.add(new TimelineRunnableFileReader(pe,this));
 			}
 		}
 
+		// When loading on demand, only the rows on screen are read now, and the
+		// rest are streamed in once the Timeline is displayed. The top times
+		// are found over all the rows, so they need every row up front.
+		List<Integer> loadNow = peToLine;
+		boolean streamRest = loadRowsOnDemand && !displayTopTimes();
+		if(streamRest){
+			loadNow = rowCache.rowsToLoadFirst(peToLine);
+			Set<Integer> first = new HashSet<Integer>(loadNow);
+			List<Integer> deferred = new ArrayList<Integer>();
+			for(Integer pe : peToLine){
+				if(!first.contains(pe))
+					deferred.add(pe);
+			}
+			rowCache.defer(deferred);
+		}
+
+		for(Integer pe : loadNow){
+			readyReaders.add(new TimelineRunnableFileReader(pe,this));
+		}
+
 		// Determine a component to show the progress bar with
 		Component guiRootForProgressBar = null;
 		if(rootWindow!=null && rootWindow.isVisible()) {
@@ -582,44 +624,23 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 			if (n > 0)
 				numNestedIDs = n;
 
-			for (int e=0; e<MainWindow.runObject[myRun].getNumUserEntries(); e++) {
-				entries[e] = 0;
-			}
-
-			processorUsage = new float[numPEs()];
-			float[] entryUsageArray = new float[MainWindow.runObject[myRun].getNumUserEntries()];
-			idleUsage  = new float[numPEs()];
-			packUsage  = new float[numPEs()];
-
-			for (int i=0; i<MainWindow.runObject[myRun].getNumUserEntries(); i++) {
-				entryUsageArray[i] = 0;
-			}
-
-
-			for (int p=0; p<numPEs(); p++) {
-				processorUsage[p] = 0;
-				idleUsage[p] = 0;
-				packUsage[p] = 0;
-			}
-
 			EntryMethodObject[] idleArray = new EntryMethodObject[amountTopTimes()];
 			EntryMethodObject[] entryArray = new EntryMethodObject[amountTopTimes()];
 			long[] objEndTimes = new long[amountTopTimes()];
 			//long[] idleEndTimes = new long[amountTopTimes()];
-			for(Integer pe : allEntryMethodObjects.keySet()) {	
-				for(EntryMethodObject obj : allEntryMethodObjects.get(pe))
+			// The top times are found among the rows that are still loaded
+			List<EntryMethodStore> loadedRows = new ArrayList<EntryMethodStore>();
+			if (displayTopTimes())
+				loadedRows.addAll(allEntryMethodObjects.values());
+			for(EntryMethodStore objs : loadedRows) {
+				for(EntryMethodObject obj : objs)
 				{
 
-					float usage = obj.getUsage();
 					int entryIndex = obj.getEntryIndex();
 
 
 					if (entryIndex >=0)
 					{
-						entries[entryIndex]++;
-						processorUsage[pe.intValue()] += usage;
-						packUsage[pe.intValue()] += obj.getPackUsage();
-						entryUsageArray[entryIndex] += obj.getNonPackUsage();
 						if (displayTopTimes())
 						{
 							for (int i = 0; i < amountTopTimes(); i++)//Finds the top X longest entry methods
@@ -638,7 +659,6 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 					}
 					else
 					{
-						idleUsage[pe.intValue()] += usage;
 						if (displayTopTimes())
 						{
 							long objEndTimeLong = obj.getEndTime();//prevents bug where end time >= Long.MAX_VALUE
@@ -696,29 +716,87 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 				highlightObjects(longestObjectsSet);
 			}
 
-			// Spawn a thread that computes some secondary message related data structures
-			messageStructures.create(useHelperThreads);
-
+			printNumLoadedObjects();
+		}
 
+		if(streamRest)
+			streamRows(generation);
+	}
 
-			printNumLoadedObjects();
+	/** Start streaming in the deferred rows in the background, a few at a time
+	 *  so that rows scrolled to are not queued behind all of them */
+	private void streamRows(int generation) {
+		for(int i = 0; i < TimedProgressThreadExecutor.getParallelism(); i++){
+			Integer pe = rowCache.nextToStream(generation);
+			if(pe == null)
+				break;
+			streamRow(pe, generation);
 		}
 	}
 
+	private void streamRow(final Integer pe, final int generation) {
+		TimedProgressThreadExecutor.submit(new Runnable() {
+			public void run() {
+				loadRow(pe, generation);
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						displayMustBeRepainted();
+					}
+				});
+
+				// Claim the next row before this one is counted as done
+				Integer next = rowCache.nextToStream(generation);
+				if(next != null)
+					streamRow(next, generation);
+				if(rowCache.streamed(generation))
+					finishedStreaming();
+			}
+		});
+	}
+
+	/** Redo the post processing that depends on all the rows, once they are streamed in */
+	private void finishedStreaming() {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				synchronized(Data.this) {
+					int n = determineNumNestedIDs();
+					if (n > 0)
+						numNestedIDs = n;
+					printNumLoadedObjects();
+				}
+				displayMustBeRepainted();
+			}
+		});
+	}
+
+	/** Whether the usage of a PE is known yet, as it is not until its row is first loaded */
+	boolean usageKnown(int pe) {
+		return rowCache.everLoaded(pe);
+	}
+
+	/** Load only the rows on screen up front, and stream in the rest in the background */
+	public void setLoadRowsOnDemand(boolean b) {
+		loadRowsOnDemand = b;
+	}
+
 	public int getNumNestedIDs() {
 		return numNestedIDs;
 	}
 
 	private void printNumLoadedObjects(){
 		int objCount = 0;
-		for(Query1D<EntryMethodObject> e : allEntryMethodObjects.values()){
-			objCount += e.size();
+		synchronized(allEntryMethodObjects) {
+			for(EntryMethodStore e : allEntryMethodObjects.values()){
+				objCount += e.size();
+			}
 		}
 		MainWindow.performanceLogger.log(Level.INFO, "Displaying " + objCount + " entry method invocations in the timeline visualization");
 
 		objCount = 0;
-		for(Collection<UserEventObject> e : allUserEventObjects.values()){
-			objCount += e.size();
+		synchronized(allUserEventObjects) {
+			for(Collection<UserEventObject> e : allUserEventObjects.values()){
+				objCount += e.size();
+			}
 		}
 		MainWindow.performanceLogger.log(Level.INFO, "Displaying " + objCount + " user events in the timeline visualization");
 
@@ -924,8 +1002,10 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 	 *  
 	 *  Note: This function must be thread safe.
 	 *  
+	 *  @return false if the log could not be read; a row that is read after
+	 *  the range changed is thrown away, but still counts as read
 	 * */
-	void getData(Integer pe)
+	boolean getData(Integer pe)
 	{
 		// Sanity checks first
 		if(pe >= MainWindow.runObject[myRun].getSts().getProcessorCount()){
@@ -934,14 +1014,17 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 		}
 
 
+		// A load that finishes after the range has changed is thrown away
+		int generation = rowCache.generation();
+
 		Deque<TimelineEvent> tl = new ArrayDeque<TimelineEvent>();
 
 		/** Stores all user events from the currently loaded PE/time range. It must be sorted,
 		 *  so the nesting of bracketed user events can be efficiently processed.
 		 *  */
-		Query1D<UserEventObject> userEvents= new RangeQueryTree<UserEventObject>();
+		Query1D<UserEventObject> userEvents= new RangeQuerySortedArray<UserEventObject>();
 
-		Query1D<EntryMethodObject> perPEObjects = new RangeQueryTree<EntryMethodObject>();
+		EntryMethodStore perPEObjects = new EntryMethodStore(this, pe);
 
 
 		try {
@@ -949,12 +1032,12 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 				MainWindow.runObject[myRun].logLoader.createtimeline(pe, startTime, endTime, tl, userEvents, minEntryDuration);
 			} else {
 				System.err.println("Error loading log files!");
-				return;
+				return false;
 			}
 		} catch (LogLoadException e) {
 			System.err.println("LOG LOAD EXCEPTION");
 			e.printStackTrace();
-			return;
+			return false;
 		}
 
 
@@ -962,11 +1045,6 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 			userEvents.clear();
 		}
 
-		// Save perPEObjects and userEvents
-
-		allUserEventObjects.put(pe,userEvents);
-		allEntryMethodObjects.put(pe,perPEObjects);
-		
 		//System.out.println("on pe "+pe+": "+tl.size()+" timeline objects");
 
 
@@ -991,11 +1069,10 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 				packs = tle.PackTimes;
 			}
 
-			EntryMethodObject obj = new EntryMethodObject(this, tle, msgs, packs, pe.intValue());
-			if((obj.isIdleEvent() || obj.isUnaccountedTime() ) && skipLoadingIdleRegions()){
+			if((tle.EntryPoint == Analysis.IDLE_ENTRY_POINT || tle.EntryPoint == Analysis.OVERHEAD_ENTRY_POINT) && skipLoadingIdleRegions()){
 				// don't load this idle event because we are skipping them
 			} else {
-				perPEObjects.add(obj);
+				perPEObjects.add(tle, msgs, packs);
 			}
 
 
@@ -1016,9 +1093,142 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 
 		}
 
+		perPEObjects.finish();
+
+		// Add up the statistics for this PE, which are kept after its rows are evicted
+		float usageThisPE = 0, packThisPE = 0, idleThisPE = 0;
+		int[] entriesThisPE = new int[entries.length];
+		for(EntryMethodObject obj : perPEObjects) {
+			int entryIndex = obj.getEntryIndex();
+			if (entryIndex >= 0) {
+				entriesThisPE[entryIndex]++;
+				usageThisPE += obj.getUsage();
+				packThisPE += obj.getPackUsage();
+			} else {
+				idleThisPE += obj.getUsage();
+			}
+		}
+
+		// Save perPEObjects and userEvents
+		synchronized(rowCache) {
+			if (generation != rowCache.generation())
+				return true;
+
+			// A row loaded again while it is still loaded replaces the old one
+			if (allEntryMethodObjects.containsKey(pe))
+				dropRow(pe);
+
+			allUserEventObjects.put(pe,userEvents);
+			allEntryMethodObjects.put(pe,perPEObjects);
+			messageStructures.index(pe, perPEObjects);
+
+			if (rowCache.loaded(pe, perPEObjects.estimatedBytes())) {
+				for (int e = 0; e < entries.length; e++)
+					entries[e] += entriesThisPE[e];
+				processorUsage[pe] += usageThisPE;
+				packUsage[pe] += packThisPE;
+				idleUsage[pe] += idleThisPE;
+			}
+
+			for (Integer victim : rowCache.chooseEvictions(peToLine))
+				dropRow(victim);
+		}
+
 		// Thread-safe merge of the min/max values
 		getDataSyncSaveMemUsage(minMemThisPE, maxMemThisPE, minUserSuppliedThisPE, maxUserSuppliedThisPE);
 
+		return true;
+	}
+
+	/** Forget the loaded rows of a PE, which are re-read if they are needed again.
+	 *  The caller holds the lock of rowCache. */
+	private void dropRow(Integer pe) {
+		EntryMethodStore store = allEntryMethodObjects.remove(pe);
+		allUserEventObjects.remove(pe);
+		if (store != null)
+			messageStructures.evict(pe, store);
+	}
+
+	/** Reload in the background the rows of the given PEs that were evicted,
+	 *  and repaint as each arrives */
+	void requestRows(Collection<Integer> pes) {
+		for (final Integer pe : pes) {
+			if (!rowCache.startReload(pe))
+				continue;
+			final int generation = rowCache.generation();
+			TimedProgressThreadExecutor.submit(new Runnable() {
+				public void run() {
+					loadRow(pe, generation);
+					if (allEntryMethodObjects.containsKey(pe) || rowCache.hasFailed(pe)) {
+						SwingUtilities.invokeLater(new Runnable() {
+							public void run() {
+								displayMustBeRepainted();
+							}
+						});
+					}
+				}
+			});
+		}
+	}
+
+	/** Load a row in the background, marking it as failed if its log cannot
+	 *  be read, so that a corrupt log is not read over and over */
+	private void loadRow(Integer pe, int generation) {
+		try {
+			if (!getData(pe))
+				rowCache.loadFailed(pe, generation);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			rowCache.loadFailed(pe, generation);
+		}
+	}
+
+	/** Evict rows until those loaded fit within the memory budget */
+	void enforceMemoryBudget() {
+		synchronized(rowCache) {
+			for (Integer victim : rowCache.chooseEvictions(peToLine))
+				dropRow(victim);
+		}
+	}
+
+	/** Set the memory budget for the loaded rows, in bytes, evicting rows if they no longer fit */
+	public void setMemoryBudget(long bytes) {
+		rowCache.setBudget(bytes);
+		enforceMemoryBudget();
+	}
+
+	public long getMemoryBudget() {
+		return rowCache.getBudget();
+	}
+
+	/** Load all of the rows that were evicted, and keep them loaded until
+	 *  resumeEviction() is called, for things that need every row at once */
+	void loadAllRows(Component rootWindow) {
+		rowCache.setSuspended(true);
+		LinkedList<Runnable> readers = new LinkedList<Runnable>();
+		for (Integer pe : rowCache.notResident()) {
+			if (peToLine.contains(pe))
+				readers.add(new TimelineRunnableFileReader(pe, this));
+		}
+		if (readers.isEmpty())
+			return;
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading Evicted Timeline Rows", readers, rootWindow, true);
+		threadManager.runAll();
+	}
+
+	void resumeEviction() {
+		rowCache.setSuspended(false);
+		enforceMemoryBudget();
+	}
+
+	/** A short description of the heap in use and of the rows loaded, for the status area */
+	String memoryStatus() {
+		Runtime rt = Runtime.getRuntime();
+		long mb = 1024 * 1024;
+		long used = (rt.totalMemory() - rt.freeMemory()) / mb;
+		String budget = rowCache.getBudget() == Long.MAX_VALUE ? "unlimited" : (rowCache.getBudget() / mb) + " MB";
+		return "Heap " + used + " / " + (rt.maxMemory() / mb) + " MB, rows " + (rowCache.getResidentBytes() / mb) + " MB for " +
+				rowCache.getNumResident() + " of " + peToLine.size() + " PEs (budget " + budget + "), " + rowCache.getEvictions() + " evicted";
 	}
 
 
@@ -1518,6 +1728,16 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 		highlightedObjects.clear();
 	}
 
+	/** Find the loaded entry method invocations for the given chare array element */
+	protected List<EntryMethodObject> entryMethodsWithObjectId(ObjectId id) {
+		List<EntryMethodObject> found = new ArrayList<EntryMethodObject>();
+		synchronized(allEntryMethodObjects) {
+			for (EntryMethodStore objs : allEntryMethodObjects.values())
+				objs.findObjectId(id, found);
+		}
+		return found;
+	}
+
 	/** Highlight the given set of timeline objects */
 	protected void highlightObjects(Collection<EntryMethodObject> objects) {
 		highlightedObjects.addAll(objects);
@@ -1766,7 +1986,7 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 			for(int iteration = 0; iteration < numIterations; iteration++) {
 				long largestShift = 0;
                 long largePe = -1;
-				for(Entry<Integer, Query1D<EntryMethodObject> > e: allEntryMethodObjects.entrySet()){
+				for(Entry<Integer, EntryMethodStore> e: allEntryMethodObjects.entrySet()){
 					// For all PEs
 					Integer pe = e.getKey();
 					Query1D<EntryMethodObject> objs = e.getValue();
@@ -1818,7 +2038,7 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 	public long findLargestTachyon(){
 		long minLatency = Integer.MAX_VALUE;
 
-		for(Entry<Integer, Query1D<EntryMethodObject> > e: allEntryMethodObjects.entrySet()){
+		for(Entry<Integer, EntryMethodStore> e: allEntryMethodObjects.entrySet()){
 			// For all PEs
 			Integer pe = e.getKey();
 			Query1D<EntryMethodObject> objs = e.getValue();
@@ -2002,9 +2222,11 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 	private int determineNumNestedIDs(){
 		int numNestedIDs = 0;
 
-		for (Collection<UserEventObject> c : allUserEventObjects.values()) {
-			for (UserEventObject obj : c)
-				numNestedIDs = Math.max(obj.getNestedID(), numNestedIDs);
+		synchronized(allUserEventObjects) {
+			for (Collection<UserEventObject> c : allUserEventObjects.values()) {
+				for (UserEventObject obj : c)
+					numNestedIDs = Math.max(obj.getNestedID(), numNestedIDs);
+			}
 		}
 		return numNestedIDs+1;
 	}
@@ -2318,6 +2540,11 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 		return ! hiddenEntryPoints.contains(id);
 	}
 
+	/** Whether no entry methods are hidden, in which case zoomed out views may be drawn from a summary */
+	protected boolean allEntriesVisible() {
+		return hiddenEntryPoints.isEmpty();
+	}
+
 	protected boolean userEventIsHiddenID(Integer id) {
 		return hiddenUserEvents.contains(id);
 	}
@@ -2380,16 +2607,10 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 		Iterator<Integer> iter = allEntryMethodObjects.keySet().iterator();
 		while(iter.hasNext()){
 			Integer pe = iter.next();
-			Query1D<EntryMethodObject> list = allEntryMethodObjects.get(pe);
-
-			Iterator<EntryMethodObject> iter2 = list.iterator();
-			while(iter2.hasNext()){
-				EntryMethodObject o = iter2.next();
-				o.messages = null;
-			}
+			allEntryMethodObjects.get(pe).clearMessages();
 
 		}
-		messageStructures.clearAll();
+		messageStructures.clear();
 
 		clearMessageSendLines();
 
@@ -2500,26 +2721,9 @@ public class Data implements ColorUpdateNotifier, EntryMethodVisibility
 	}
 
     public  EntryMethodObject   getPreviousEntry(EntryMethodObject currentObj, int currentPe) {
-        Query1D<EntryMethodObject> objs=null;    
-        EntryMethodObject       previous = null;
-        Iterator<Entry<Integer, Query1D<EntryMethodObject>>> iter = allEntryMethodObjects.entrySet().iterator();
-        while(iter.hasNext()){
-            Entry<Integer, Query1D<EntryMethodObject>> e = iter.next();
-            Integer pe = e.getKey();
-            if( pe.intValue() == currentPe)
-            {
-                objs = e.getValue();
-                for(EntryMethodObject obj : objs) {
-                    if(obj.equals(currentObj))
-                    {
-                        break;
-                    }
-                    previous = obj;
-                }
-
-                break;
-            }
-        }
-        return previous;
+        EntryMethodStore objs = allEntryMethodObjects.get(currentPe);
+        if (objs == null || currentObj.store != objs || currentObj.row == 0)
+            return null;
+        return objs.get(currentObj.row - 1);
     }
 }
@@ -9,7 +9,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -24,27 +23,21 @@ import projections.Tools.Timeline.RangeQueries.Range1D;
 import projections.analysis.Analysis;
 import projections.analysis.ObjectId;
 import projections.analysis.PackTime;
-import projections.analysis.TimelineEvent;
 import projections.gui.ColorManager;
 import projections.gui.MainWindow;
 import projections.gui.U;
 import projections.misc.MiscUtil;
 
+/** A view of one entry method invocation in an EntryMethodStore. Views are created
+ *  as they are needed, e.g. while painting or for the object under the mouse; two
+ *  views of the same invocation are equal. */
 class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPanel.SpecialMouseHandler
 {
 
-	private long beginTime;
-	private int elapsedTime, recvTimeOffset;
-	private long cpuBegin;
-	private int cpuElapsed;
-	// entryPoint is an unsigned short on the tracing side, so use short here to
-	// save space. Take care to convert to an unsigned int when using, as Java
-	// has no unsigned short type.
-	private short entryPoint;
-	int EventID;
-	private ObjectId tid; 
-	int pe;
-	int pCreation;
+	final EntryMethodStore store;
+	final int row;
+	final int pe;
+	final int pCreation;
 	
 	private final static String popupChangeColor = "Change Entry Point Color";
 	private final static String popupShowDetails = "Show details";
@@ -54,120 +47,34 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 	private final static String popupDropPEsForPE = "Drop all PEs unrelated to entry methods on this PE";
     private final static String loadNeighbors = "Load neighbors";
 
-	private class Extra
-	{
-		final Integer userSuppliedData;
-		final String tleUserEventName;
-		final long papiCounts[];
-		final long memoryUsage;
-
-		public Extra(TimelineEvent tle) {
-			userSuppliedData = tle.UserSpecifiedData;
-			memoryUsage = tle.memoryUsage;
-			tleUserEventName = tle.userEventName;
-
-			if (tle.numPapiCounts > 0)
-				papiCounts = tle.papiCounts;
-			else
-				papiCounts = null;
-		}
-	}
-
-	private Extra extraFields;
-
-	/** Total time spent packing in this event */
-	private int packtime;
-
-	private Data data = null;
-	
-	/** A set of TimelineMessage's */
-	protected ArrayList<TimelineMessage> messages;
-	
-	private ArrayList<PackTime> packs;
+	private final Data data;
 
 	private static DecimalFormat format_ = new DecimalFormat();
+	static {
+		format_.setGroupingUsed(true);
+	}
 
-	private final byte epFlags;
-
-	private static final byte IS_IDLE_EP = 0x1;
-	private static final byte IS_OVERHEAD_EP = 0x2;
-	private static final byte IS_COMM_THD_RECV = 0x4;
-
-	// Specifies which flag bits represent the type of the EP (e.g. idle, overhead)
-	private static final byte EP_TYPE_MASK = 0x3;
-
-	protected EntryMethodObject(Data data,  TimelineEvent tle, 
-			ArrayList<TimelineMessage> msgs, ArrayList<PackTime> packs,
-			int p1)
+	protected EntryMethodObject(EntryMethodStore store, int row)
 	{
-	
-		this.data = data;
-
-		pe = p1;
-		pCreation = tle.SrcPe;
-
-		byte flags = 0;
-		if(data.isCommThd(pe)) {
-			final int myNode = data.getNodeID(pe);
-			final int creationNode = data.getNodeID(pCreation);
-			if (myNode != creationNode)
-				flags |= IS_COMM_THD_RECV;
-		}
-
-		switch (tle.EntryPoint) {
-			case Analysis.IDLE_ENTRY_POINT:
-				flags |= IS_IDLE_EP;
-				break;
-			case Analysis.OVERHEAD_ENTRY_POINT:
-				flags |= IS_OVERHEAD_EP;
-				break;
-			default:
-				entryPoint = (short)tle.EntryPoint;
-		}
-
-		epFlags = flags;
-
-		beginTime = tle.BeginTime;
-		elapsedTime = (int)(tle.EndTime - tle.BeginTime);
-		if (tle.EndTime - tle.BeginTime != elapsedTime) {
-			throw new IllegalArgumentException("Total time of entry method does not fit in type int");
-		}
-		// If the incoming RecvTime is 0, then it is invalid, so use MIN_VALUE to represent it in the offset
-		recvTimeOffset = (tle.RecvTime == 0) ? Integer.MIN_VALUE : (int)(tle.RecvTime - tle.BeginTime);
-		if (tle.RecvTime != 0 && tle.RecvTime - tle.BeginTime != recvTimeOffset) {
-			throw new IllegalArgumentException("Difference between receive time and begin time for entry method does not fit in type int");
-		}
-		cpuBegin = tle.cpuBegin;
-		if (cpuBegin > 0) {
-			cpuElapsed = (int) (tle.cpuEnd - tle.cpuBegin);
-			if (tle.cpuEnd - tle.cpuBegin != cpuElapsed) {
-				throw new IllegalArgumentException("Total CPU time of entry method does not fit in type int");
-			}
-		}
-		messages  = msgs; // Set of TimelineMessage
-		if (messages != null) {
-			for (TimelineMessage msg : messages) {
-				msg.setSender(this);
-			}
-		}
-		this.packs= packs;
-
-		EventID = tle.EventID;
-		if (tle.id != null) {
-			tid = ObjectId.createObjectId(tle.id);
-		} else {
-			tid = ObjectId.createObjectId();
-		}
-		
-		if (tle.UserSpecifiedData != null || tle.memoryUsage > 0 ||
-				tle.userEventName != null || tle.numPapiCounts > 0) {
-			extraFields = new Extra(tle);
-		}
+		this.store = store;
+		this.row = row;
+		data = store.data;
+		pe = store.pe;
+		pCreation = store.pCreation(row);
+	} 
 
-		format_.setGroupingUsed(true);
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof EntryMethodObject))
+			return false;
+		EntryMethodObject obj = (EntryMethodObject) o;
+		return store == obj.store && row == obj.row;
+	}
 
-		setPackUsage();		
-	} 
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(store) * 31 + row;
+	}
 	
 	/** Dynamically generate the tooltip mouseover text when needed */
 	public String getToolTipText(){
@@ -176,6 +83,16 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 
 		StringBuilder infoString = new StringBuilder(5000);
 
+		final long beginTime = getBeginTime();
+		final int elapsedTime = store.elapsedTime(row);
+		final int recvTimeOffset = store.recvTimeOffset(row);
+		final long cpuBegin = store.cpuBegin(row);
+		final int cpuElapsed = store.cpuElapsed(row);
+		final EntryMethodStore.Extra extraFields = store.extra(row);
+		final int packtime = (extraFields == null) ? 0 : extraFields.packtime;
+		final List<TimelineMessage> messages = getMessages();
+		final ObjectId tid = getTid();
+
 		final int entry = getEntry();
 		if (entry >= 0) {
 
@@ -368,20 +285,20 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 
 	public long getBeginTime()
 	{
-		return beginTime;
+		return store.beginTime(row);
 	}   
 
 	public long getEndTime()
 	{
-		return beginTime + elapsedTime;
+		return store.beginTime(row) + store.elapsedTime(row);
 	}   
 
 	public final int getEntry()
 	{
-		switch (epFlags & EP_TYPE_MASK) {
-			case IS_IDLE_EP: return Analysis.IDLE_ENTRY_POINT;
-			case IS_OVERHEAD_EP: return Analysis.OVERHEAD_ENTRY_POINT;
-			default: return Short.toUnsignedInt(entryPoint);
+		switch (store.flags(row) & EntryMethodStore.EP_TYPE_MASK) {
+			case EntryMethodStore.IS_IDLE_EP: return Analysis.IDLE_ENTRY_POINT;
+			case EntryMethodStore.IS_OVERHEAD_EP: return Analysis.OVERHEAD_ENTRY_POINT;
+			default: return store.entryPoint(row);
 		}
 	}   
 
@@ -390,10 +307,10 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 		return MainWindow.runObject[data.myRun].getEntryIndex(getEntry());
 	}
 	
-	/** Return a set of messages for this entry method */
-	public ArrayList<TimelineMessage> getMessages()
+	/** Return the messages sent by this entry method, or null if there are none */
+	public List<TimelineMessage> getMessages()
 	{
-		return messages;
+		return store.messages(row);
 	}   
 	
 //
@@ -410,14 +327,13 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 
 	public int getNumMsgs()
 	{
-		if(messages == null)
-			return 0;
-		else
-			return messages.size();
+		return store.numMessages(row);
 	}   
 
 	public float getPackUsage()
 	{
+		final EntryMethodStore.Extra extraFields = store.extra(row);
+		final int packtime = (extraFields == null) ? 0 : extraFields.packtime;
 		return packtime * 100.0f / (data.endTime() - data.startTime());
 	}   
 
@@ -439,6 +355,8 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 			return 0;
 		}
 
+		final long beginTime = getBeginTime();
+		final int elapsedTime = store.elapsedTime(row);
 		float usage = elapsedTime;
 
 		if (beginTime < data.startTime()) {
@@ -539,93 +457,89 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 	 * 
 	 */
 	protected Set<EntryMethodObject> traceBackwardDependencies(){
-		synchronized(data.messageStructures){
-            int length = 0;
-			HashSet<EntryMethodObject> v = new HashSet<EntryMethodObject>();
-			if(data.traceMessagesBackOnHover()){
-				EntryMethodObject obj = this;
-				boolean done;
-                long max_time = 0;
-                long begin_max = 0;
-				do{
-                    length++;
-					done = true;
-					v.add(obj);
-                    System.out.println("backward pe " + obj.pe + ", msg time=" + obj.beginTime + ", entry=" + obj.getEntry());
-					if (!obj.isIdleEvent() && obj.pCreation <= data.numPEs() && obj.beginTime + obj.elapsedTime > data.leftSelectionTime()  ){
-						// Find message that created the object
-                        data.addProcessor(obj.pCreation);
-						TimelineMessage created_message = obj.creationMessage();
-						if(created_message != null){
-							if ( obj.beginTime - created_message.Time > max_time) { max_time = obj.beginTime - created_message.Time; begin_max = created_message.Time;}
-                            // Find object that created the message
-							obj = created_message.getSender();
-							if(obj != null){
-								done = false;
-							}else
-                                System.out.println(" create object null");
-
-						}else 
-                        {
-                            System.out.println(" pcreation create_msg=null");
-                            obj = data.getPreviousEntry(obj, obj.pe);
-							if(obj != null){
-								done = false;
-							}
-                        }
-					}
-				}while(!done && length < 8);
-			}
-			return v;
+        int length = 0;
+		HashSet<EntryMethodObject> v = new HashSet<EntryMethodObject>();
+		if(data.traceMessagesBackOnHover()){
+			EntryMethodObject obj = this;
+			boolean done;
+            long max_time = 0;
+            long begin_max = 0;
+			do{
+                length++;
+				done = true;
+				v.add(obj);
+                System.out.println("backward pe " + obj.pe + ", msg time=" + obj.getBeginTime() + ", entry=" + obj.getEntry());
+				if (!obj.isIdleEvent() && obj.pCreation <= data.numPEs() && obj.getEndTime() > data.leftSelectionTime()  ){
+					// Find message that created the object
+                    data.addProcessor(obj.pCreation);
+					TimelineMessage created_message = obj.creationMessage();
+					if(created_message != null){
+						if ( obj.getBeginTime() - created_message.Time > max_time) { max_time = obj.getBeginTime() - created_message.Time; begin_max = created_message.Time;}
+                        // Find object that created the message
+						obj = created_message.getSender();
+						if(obj != null){
+							done = false;
+						}else
+                            System.out.println(" create object null");
+
+					}else 
+                    {
+                        System.out.println(" pcreation create_msg=null");
+                        obj = data.getPreviousEntry(obj, obj.pe);
+						if(obj != null){
+							done = false;
+						}
+                    }
+				}
+			}while(!done && length < 8);
 		}
+		return v;
 	}
 
 
 	/** Trace one level of message sends forward from this object */
 	protected Set<EntryMethodObject> traceForwardDependencies(){
-		synchronized(data.messageStructures){
-			HashSet<EntryMethodObject> v = new HashSet<EntryMethodObject>();
-			if(data.traceMessagesForwardOnHover()){
-				EntryMethodObject obj = this;
-				ArrayList<TimelineMessage> tleMsg = messages;
-				
-				boolean done = false;
-                v.add(obj); //add this object to the set that is returned
-				do{
-					done = true;
-                    System.out.println(" forward pe " + obj.pe + ", msg time=" + obj.beginTime + ", entry=" + obj.getEntry() + "forwarding msgs:" + tleMsg.size());
-					if (!obj.isIdleEvent() && obj.pCreation <= data.numPEs() && tleMsg != null && !tleMsg.isEmpty()){
-						for(int j=0; j<tleMsg.size(); j++)
-                        {
-                        // Find messages called by current entry method
-						TimelineMessage msgToCalledEntryMethod = tleMsg.get(j);
-						if(msgToCalledEntryMethod != null){
-							//if there is a mapping for this message, find objects that are called by this message.
-							//if this object isn't null or equal to this, go through while loop again
-                            //data.addProcessor( mm); 
-							List<EntryMethodObject> objset = msgToCalledEntryMethod.getRecipients();
-                            //System.out.println("fowarding  " + j + "; obj ");
-                            //msgToCalledEntryMethod.printMe();
-
-							if (objset!=null && !objset.isEmpty()) {
-								Iterator<EntryMethodObject> i = objset.iterator();
-								obj = i.next();
-                                //System.out.println("not empty fowarding  " + j );
-								if(obj != null && obj!=this){
-									//done = false;
-									//tleMsg=obj.TLmsgs;
-                                    v.add(obj);
-                                    //System.out.println("finally not empty fowarding  " + j );
-								}
+		HashSet<EntryMethodObject> v = new HashSet<EntryMethodObject>();
+		if(data.traceMessagesForwardOnHover()){
+			EntryMethodObject obj = this;
+			List<TimelineMessage> tleMsg = getMessages();
+			
+			boolean done = false;
+            v.add(obj); //add this object to the set that is returned
+			do{
+				done = true;
+                System.out.println(" forward pe " + obj.pe + ", msg time=" + obj.getBeginTime() + ", entry=" + obj.getEntry() + "forwarding msgs:" + tleMsg.size());
+				if (!obj.isIdleEvent() && obj.pCreation <= data.numPEs() && tleMsg != null && !tleMsg.isEmpty()){
+					for(int j=0; j<tleMsg.size(); j++)
+                    {
+                    // Find messages called by current entry method
+					TimelineMessage msgToCalledEntryMethod = tleMsg.get(j);
+					if(msgToCalledEntryMethod != null){
+						//if there is a mapping for this message, find objects that are called by this message.
+						//if this object isn't null or equal to this, go through while loop again
+                        //data.addProcessor( mm); 
+						List<EntryMethodObject> objset = msgToCalledEntryMethod.getRecipients();
+                        //System.out.println("fowarding  " + j + "; obj ");
+                        //msgToCalledEntryMethod.printMe();
+
+						if (objset!=null && !objset.isEmpty()) {
+							Iterator<EntryMethodObject> i = objset.iterator();
+							obj = i.next();
+                            //System.out.println("not empty fowarding  " + j );
+							if(obj != null && obj!=this){
+								//done = false;
+								//tleMsg=obj.TLmsgs;
+                                v.add(obj);
+                                //System.out.println("finally not empty fowarding  " + j );
 							}
 						}
-                        }
+					}
                     }
-				}while(!done);
-			}
-			v.remove(this);
-			return v;
+                }
+			}while(!done);
 		}
+		v.remove(this);
+		return v;
 	}
 
 	
@@ -639,81 +553,55 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 	 * 
 	 */
 	protected Set<EntryMethodObject> traceCriticalPathDependencies(){
-		synchronized(data.messageStructures){
-            int length = 0;
-			HashSet<EntryMethodObject> v = new HashSet<EntryMethodObject>();
-			if(data.traceCriticalPathOnHover()){
-				EntryMethodObject obj = this;
-				EntryMethodObject previous_obj = null;
-				boolean done;
-				do{
-                    length++;
-					done = true;
-					v.add(obj);
-                    System.out.println(" pe " + obj.pe + ", msg time=" + obj.beginTime + ", entry=" + obj.getEntry());
-					if (!obj.isIdleEvent() && obj.pe <= data.numPEs() && obj.beginTime + obj.elapsedTime > data.leftSelectionTime()  ){
-						// Find message that created the object
-                        previous_obj = data.getPreviousEntry(obj, obj.pe);
-                        if( previous_obj!= null && !previous_obj.isIdleEvent()){
-                            System.out.println("It has previous entry");
-                            obj = previous_obj; 
-                            done = false;
-                        }else
-                        {
-                            data.addProcessor(obj.pCreation);
-						    TimelineMessage created_message = obj.creationMessage();
-                            if(created_message != null) {
-                                obj = created_message.getSender();
-                                if(obj != null){
-                                    System.out.println("Switch to other processor");
-                                    done = false;
-                                }
+        int length = 0;
+		HashSet<EntryMethodObject> v = new HashSet<EntryMethodObject>();
+		if(data.traceCriticalPathOnHover()){
+			EntryMethodObject obj = this;
+			EntryMethodObject previous_obj = null;
+			boolean done;
+			do{
+                length++;
+				done = true;
+				v.add(obj);
+                System.out.println(" pe " + obj.pe + ", msg time=" + obj.getBeginTime() + ", entry=" + obj.getEntry());
+				if (!obj.isIdleEvent() && obj.pe <= data.numPEs() && obj.getEndTime() > data.leftSelectionTime()  ){
+					// Find message that created the object
+                    previous_obj = data.getPreviousEntry(obj, obj.pe);
+                    if( previous_obj!= null && !previous_obj.isIdleEvent()){
+                        System.out.println("It has previous entry");
+                        obj = previous_obj; 
+                        done = false;
+                    }else
+                    {
+                        data.addProcessor(obj.pCreation);
+					    TimelineMessage created_message = obj.creationMessage();
+                        if(created_message != null) {
+                            obj = created_message.getSender();
+                            if(obj != null){
+                                System.out.println("Switch to other processor");
+                                done = false;
                             }
                         }
                     }
-				}while(!done && length < 20);
-			}
-			return v;
+                }
+			}while(!done && length < 20);
 		}
+		return v;
 	}
 
 
 	
 	/** Return the message that caused the entry method to execute. Complexity=O(1) time */
 	protected TimelineMessage creationMessage(){
-		synchronized(data.messageStructures){
-			if(data == null)
-				return null;
-			else if(pCreation<0)
-				return null;
-			else if(data.messageStructures.getEventIDToMessageMap() == null)
-				return null;
-			else if(pCreation >= data.messageStructures.getEventIDToMessageMap().length)
-				return null;
-			else if(data.messageStructures.getEventIDToMessageMap()[pCreation] == null)
-				return null;
-			else
-				return (TimelineMessage) data.messageStructures.getEventIDToMessageMap()[pCreation].get(Integer.valueOf(EventID));
-
-		}
+		if(data == null)
+			return null;
+		return data.messageStructures.getMessage(pCreation, store.eventID(row));
 	}
 	
 	protected TimelineMessage currentMessage() {
-		synchronized(data.messageStructures){
-			if(data == null)
-				return null;
-			else if(pe<0)
-				return null;
-			else if(data.messageStructures.getEventIDToMessageMap() == null)
-				return null;
-			else if(pe >= data.messageStructures.getEventIDToMessageMap().length)
-				return null;
-			else if(data.messageStructures.getEventIDToMessageMap()[pe] == null)
-				return null;
-			else
-				return (TimelineMessage) data.messageStructures.getEventIDToMessageMap()[pe].get(Integer.valueOf(EventID));
-
-		}
+		if(data == null)
+			return null;
+		return data.messageStructures.getMessage(pe, store.eventID(row));
 	}
 	
 	
@@ -748,11 +636,8 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 		*/
 		// Highlight any Entry Method invocations for the same chare array element
 		if(data.traceOIDOnHover()){
-			synchronized(data.messageStructures){
-			List<EntryMethodObject> allWithSameId = data.messageStructures.getOidToEntryMethodObjectsMap().get(tid);
-			data.highlightObjects(allWithSameId);
+			data.highlightObjects(data.entryMethodsWithObjectId(getTid()));
 			needRepaint=true;
-			}
 		}	
 
 		
@@ -803,11 +688,11 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 	
 	/** Is this an idle event */
 	public final boolean isIdleEvent(){
-		return getFlag(IS_IDLE_EP);
+		return getFlag(EntryMethodStore.IS_IDLE_EP);
 	}
 	
 	public final boolean isUnaccountedTime(){
-		return getFlag(IS_OVERHEAD_EP);
+		return getFlag(EntryMethodStore.IS_OVERHEAD_EP);
 	}
 	
 	
@@ -840,7 +725,8 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 			return false;
 		}
 
-		final long endTime = beginTime + elapsedTime;
+		final long beginTime = getBeginTime();
+		final long endTime = beginTime + store.elapsedTime(row);
 		int leftCoord = data.timeToScreenPixel(beginTime, actualDisplayWidth);
 		int rightCoord = data.timeToScreenPixel(endTime, actualDisplayWidth);
 
@@ -945,10 +831,11 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 
 		 */
 
-		if(packs != null && data.showPacks())
+		final EntryMethodStore.Extra extraFields = store.extra(row);
+		if(extraFields != null && extraFields.packs != null && data.showPacks())
 		{
 			g2d.setColor(Color.pink);
-			for(PackTime pt : packs){
+			for(PackTime pt : extraFields.packs){
 				long packBeginTime = pt.BeginTime;
 				long packEndTime = pt.EndTime;
 
@@ -972,6 +859,7 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 
 		// Show the message sends. See note above for the message packing areas
 		// Don't change this without changing MainPanel's paintComponent which draws message send lines
+		final List<TimelineMessage> messages = getMessages();
 		if(messages != null && data.showMsgs())
 		{
 			g2d.setColor(data.getForegroundColor());
@@ -999,6 +887,7 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 	/**  Determine the color of the object */	
 	private Paint determineColor() {
 		Color colToSave = null;
+		final EntryMethodStore.Extra extraFields = store.extra(row);
 		
 		// First handle the simple cases of idle, unknown and function events
 		if (isIdleEvent()) { 	
@@ -1120,22 +1009,6 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 //	}
 	
 
-	private void setPackUsage()
-	{
-		packtime = 0;
-		if(packs != null)
-		{   
-			for(PackTime pt : packs){
-				// packtime += packs[p].EndTime - packs[p].BeginTime + 1;
-				packtime += (int)(pt.EndTime - pt.BeginTime);
-				if(pt.BeginTime < data.startTime())
-					packtime -= (data.startTime() - pt.BeginTime);
-				if(pt.EndTime > data.endTime())
-					packtime -= (pt.EndTime - data.endTime());
-			}
-		}
-	}   
-	
 	@Override
 	public int compareTo(Object o) {
 		EntryMethodObject obj = (EntryMethodObject) o;
@@ -1144,29 +1017,22 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 		else if(pe != obj.pe)
 			return MiscUtil.sign(pe - obj.pe);
 		else
-			return MiscUtil.sign(EventID - obj.EventID);
+			return MiscUtil.sign(store.eventID(row) - obj.store.eventID(obj.row));
 	}
 
 	public ObjectId getTid() {
-		return tid;
+		return store.tid(row);
 	}
 
 	public boolean isCommThreadMsgRecv(){
-		return getFlag(IS_COMM_THD_RECV);
+		return getFlag(EntryMethodStore.IS_COMM_THD_RECV);
 	}
 
-	/** Shift all the times associated with this entry method by given amount */
+	/** Shift all the times associated with this entry method by given amount. Shifting
+	 *  all rows of a store at once is quicker with EntryMethodStore.shiftAllEntriesBy(). */
 	@Override
 	public void shiftTimesBy(long s){
-		beginTime += s;
-		cpuBegin += s;
-
-		if(messages != null){
-			for(TimelineMessage msg : messages){
-				msg.shiftTimesBy(s);
-			}
-		}
-		
+		store.shiftEntryBy(row, s);
 	}
 
 
@@ -1209,18 +1075,18 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 
 	}
 
-	public ArrayList<TimelineMessage> getTLmsgs() {
-		return messages;
+	public List<TimelineMessage> getTLmsgs() {
+		return getMessages();
 	}
 
 	@Override
 	public long lowerBound() {
-		return beginTime;
+		return getBeginTime();
 	}	
 
 	@Override
 	public long upperBound() {
-		return beginTime + elapsedTime;
+		return getEndTime();
 	}
 
 	@Override
@@ -1231,11 +1097,12 @@ class EntryMethodObject implements Comparable, Range1D, ActionListener, MainPane
 
 	/** Data specified by the user, likely a timestep. Null if nonspecified */
 	public Integer getUserSuppliedData() {
+		final EntryMethodStore.Extra extraFields = store.extra(row);
 		return (extraFields == null) ? null :  extraFields.userSuppliedData;
 	}
 
 	private boolean getFlag(final byte mask)
 	{
-		return (epFlags & mask) != 0;
+		return (store.flags(row) & mask) != 0;
 	}
 }
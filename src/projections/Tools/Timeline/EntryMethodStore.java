@@ -0,0 +1,746 @@
+package projections.Tools.Timeline;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import projections.Tools.Timeline.RangeQueries.Query1D;
+import projections.analysis.Analysis;
+import projections.analysis.ObjectId;
+import projections.analysis.PackTime;
+import projections.analysis.TimelineEvent;
+
+/** The entry method invocations loaded for one PE.
+ *
+ *  Rather than one object per invocation, the fields of all invocations are
+ *  kept in parallel primitive arrays (one array per field, one row per
+ *  invocation), which takes about 35 bytes per invocation. Fields that only
+ *  some logs or some invocations have are kept apart: the CPU times are only
+ *  allocated once an invocation has them, and the packing times, memory usage,
+ *  user supplied data, etc. are kept for just the rows that have them.
+ *  The messages sent by all invocations are kept in one array, in row order.
+ *
+ *  The EntryMethodObjects returned by the iterators are lightweight views of a
+ *  single row, created as they are needed. Two views of the same row are equal,
+ *  so they may be kept in sets and compared, but they are only valid until
+ *  the store is next modified.
+ *
+ *  Rows are appended with add(), after which finish() must be called before the
+ *  store is queried. The rows are kept sorted by begin time, and for each block
+ *  of rows the latest end time of it and all earlier rows is recorded, so a range
+ *  query is a binary search followed by a scan of the overlapping rows.
+ *  A single row may still be shifted through its view, as the generic Query1D
+ *  classes do for each of their objects; the rows are then re-sorted before
+ *  the next query.
+ *
+ *  For drawing zoomed out views, finish() also builds a summary of the rows:
+ *  the time span of the PE is split into buckets, each holding about
+ *  ROWS_PER_BUCKET rows, and the row that covers the most of each bucket is
+ *  recorded. Pairs of buckets are then merged into coarser levels, up to a
+ *  single bucket for the whole span. When a pixel spans at least two buckets,
+ *  iterator(lowerBound, upperBound, timePerPixel) visits only the recorded
+ *  rows of the coarsest level whose buckets are at most half a pixel wide.
+ *  Every pixel then contains a whole bucket, and so a row to be drawn in it,
+ *  and the number of rows drawn depends on the screen width rather than on
+ *  the number of rows in the range. Rows that are wider than a pixel cover
+ *  a whole bucket, of which they are the recorded row even when other rows
+ *  are nested in them (unless they are idle, and work is nested in that
+ *  bucket), so they are still drawn in full; only rows narrower than a
+ *  pixel are left out.
+ */
+class EntryMethodStore extends AbstractCollection<EntryMethodObject> implements Query1D<EntryMethodObject>
+{
+	/** Rows per entry of the block index */
+	private static final int BLOCK_SIZE = 64;
+
+	/** Rows per bucket, on average, in the finest level of the summary */
+	private static final int ROWS_PER_BUCKET = 16;
+
+	// Values of the flags column
+	static final byte IS_IDLE_EP = 0x1;
+	static final byte IS_OVERHEAD_EP = 0x2;
+	static final byte IS_COMM_THD_RECV = 0x4;
+
+	// Specifies which flag bits represent the type of the EP (e.g. idle, overhead)
+	static final byte EP_TYPE_MASK = 0x3;
+
+	/** The fields that only a few invocations have */
+	static class Extra
+	{
+		Integer userSuppliedData;
+		String tleUserEventName;
+		long papiCounts[];
+		long memoryUsage;
+		ArrayList<PackTime> packs;
+		/** Total time spent packing in this event */
+		int packtime;
+	}
+
+	final Data data;
+	final int pe;
+
+	private int size = 0;
+
+	private long[] beginTime;
+	private int[] elapsedTime;
+	/** Offset of the receive time from the begin time, or Integer.MIN_VALUE if unknown */
+	private int[] recvTimeOffset;
+	// entryPoint is an unsigned short on the tracing side, so use short here to
+	// save space. Take care to convert to an unsigned int when using, as Java
+	// has no unsigned short type.
+	private short[] entryPoint;
+	private byte[] flags;
+	private int[] eventID;
+	private int[] pCreation;
+	/** ObjectIds are canonical, so rows of the same chare share one */
+	private ObjectId[] tid;
+
+	/** Null until a row with CPU times is added */
+	private long[] cpuBegin;
+	private int[] cpuElapsed;
+
+	/** The messages sent by row r are messages[firstMessage[r]] to messages[firstMessage[r+1]-1] */
+	private int[] firstMessage;
+	private TimelineMessage[] messages;
+	private int numMessages = 0;
+
+	/** Sorted rows that have an Extra */
+	private int[] extraRows;
+	private Extra[] extras;
+	private int numExtras = 0;
+
+	/** blockMaxEnd[b] is the latest end time of rows 0 through (b+1)*BLOCK_SIZE-1 */
+	private long[] blockMaxEnd;
+
+	/** summaryRows[level][b] is the row drawn for bucket b of the level, or -1 if there is none.
+	 *  Buckets of level l are summaryBucketTime << l long, starting at summaryStart.
+	 *  Null if there are too few rows for a summary to be of use. */
+	private int[][] summaryRows;
+	private long summaryStart;
+	private long summaryBucketTime;
+
+	/** Set when single rows have been shifted, after which the rows are re-sorted before the next query */
+	private boolean indexStale = false;
+
+	protected EntryMethodStore(Data data, int pe)
+	{
+		this.data = data;
+		this.pe = pe;
+		allocate(16, 16, 0);
+		blockMaxEnd = new long[0];
+	}
+
+	private void allocate(int rows, int msgs, int extraCount)
+	{
+		beginTime = new long[rows];
+		elapsedTime = new int[rows];
+		recvTimeOffset = new int[rows];
+		entryPoint = new short[rows];
+		flags = new byte[rows];
+		eventID = new int[rows];
+		pCreation = new int[rows];
+		tid = new ObjectId[rows];
+		cpuBegin = null;
+		cpuElapsed = null;
+		firstMessage = new int[rows + 1];
+		messages = new TimelineMessage[msgs];
+		extraRows = new int[extraCount];
+		extras = new Extra[extraCount];
+	}
+
+	private void grow()
+	{
+		int n = Math.max(16, beginTime.length * 2);
+		beginTime = Arrays.copyOf(beginTime, n);
+		elapsedTime = Arrays.copyOf(elapsedTime, n);
+		recvTimeOffset = Arrays.copyOf(recvTimeOffset, n);
+		entryPoint = Arrays.copyOf(entryPoint, n);
+		flags = Arrays.copyOf(flags, n);
+		eventID = Arrays.copyOf(eventID, n);
+		pCreation = Arrays.copyOf(pCreation, n);
+		tid = Arrays.copyOf(tid, n);
+		if (cpuBegin != null) {
+			cpuBegin = Arrays.copyOf(cpuBegin, n);
+			cpuElapsed = Arrays.copyOf(cpuElapsed, n);
+		}
+		firstMessage = Arrays.copyOf(firstMessage, n + 1);
+	}
+
+	/** Append an entry method invocation. msgs and packs may be null. */
+	protected void add(TimelineEvent tle, List<TimelineMessage> msgs, ArrayList<PackTime> packs)
+	{
+		if (size == beginTime.length)
+			grow();
+		final int row = size;
+
+		byte f = 0;
+		if(data.isCommThd(pe)) {
+			final int myNode = data.getNodeID(pe);
+			final int creationNode = data.getNodeID(tle.SrcPe);
+			if (myNode != creationNode)
+				f |= IS_COMM_THD_RECV;
+		}
+
+		short ep = 0;
+		switch (tle.EntryPoint) {
+			case Analysis.IDLE_ENTRY_POINT:
+				f |= IS_IDLE_EP;
+				break;
+			case Analysis.OVERHEAD_ENTRY_POINT:
+				f |= IS_OVERHEAD_EP;
+				break;
+			default:
+				ep = (short)tle.EntryPoint;
+		}
+
+		final int elapsed = (int)(tle.EndTime - tle.BeginTime);
+		if (tle.EndTime - tle.BeginTime != elapsed) {
+			throw new IllegalArgumentException("Total time of entry method does not fit in type int");
+		}
+		// If the incoming RecvTime is 0, then it is invalid, so use MIN_VALUE to represent it in the offset
+		final int recv = (tle.RecvTime == 0) ? Integer.MIN_VALUE : (int)(tle.RecvTime - tle.BeginTime);
+		if (tle.RecvTime != 0 && tle.RecvTime - tle.BeginTime != recv) {
+			throw new IllegalArgumentException("Difference between receive time and begin time for entry method does not fit in type int");
+		}
+		if (tle.cpuBegin > 0) {
+			final int cpu = (int) (tle.cpuEnd - tle.cpuBegin);
+			if (tle.cpuEnd - tle.cpuBegin != cpu) {
+				throw new IllegalArgumentException("Total CPU time of entry method does not fit in type int");
+			}
+			if (cpuBegin == null) {
+				cpuBegin = new long[beginTime.length];
+				cpuElapsed = new int[beginTime.length];
+			}
+			cpuBegin[row] = tle.cpuBegin;
+			cpuElapsed[row] = cpu;
+		}
+
+		beginTime[row] = tle.BeginTime;
+		elapsedTime[row] = elapsed;
+		recvTimeOffset[row] = recv;
+		entryPoint[row] = ep;
+		flags[row] = f;
+		eventID[row] = tle.EventID;
+		pCreation[row] = tle.SrcPe;
+		tid[row] = ObjectId.createObjectId(tle.id);
+
+		if (msgs != null) {
+			if (numMessages + msgs.size() > messages.length)
+				messages = Arrays.copyOf(messages, Math.max(numMessages + msgs.size(), messages.length * 2));
+			for (TimelineMessage msg : msgs)
+				messages[numMessages++] = msg;
+		}
+		firstMessage[row + 1] = numMessages;
+
+		if (tle.UserSpecifiedData != null || tle.memoryUsage > 0 ||
+				tle.userEventName != null || tle.numPapiCounts > 0 || packs != null) {
+			Extra e = new Extra();
+			e.userSuppliedData = tle.UserSpecifiedData;
+			e.memoryUsage = tle.memoryUsage;
+			e.tleUserEventName = tle.userEventName;
+			if (tle.numPapiCounts > 0)
+				e.papiCounts = tle.papiCounts;
+			if (packs != null) {
+				e.packs = packs;
+				e.packtime = packTime(packs);
+			}
+			if (numExtras == extras.length) {
+				extraRows = Arrays.copyOf(extraRows, Math.max(4, numExtras * 2));
+				extras = Arrays.copyOf(extras, Math.max(4, numExtras * 2));
+			}
+			extraRows[numExtras] = row;
+			extras[numExtras++] = e;
+		}
+
+		size++;
+	}
+
+	/** The time spent packing messages within the loaded time range */
+	private int packTime(ArrayList<PackTime> packs)
+	{
+		int packtime = 0;
+		for(PackTime pt : packs){
+			packtime += (int)(pt.EndTime - pt.BeginTime);
+			if(pt.BeginTime < data.startTime())
+				packtime -= (data.startTime() - pt.BeginTime);
+			if(pt.EndTime > data.endTime())
+				packtime -= (pt.EndTime - data.endTime());
+		}
+		return packtime;
+	}
+
+	/** Sort the rows, drop unused capacity and build the index. Call once all rows have been added. */
+	protected void finish()
+	{
+		boolean sorted = true;
+		for (int r = 1; r < size && sorted; r++)
+			sorted = beginTime[r-1] <= beginTime[r];
+
+		int[] order = new int[size];
+		if (sorted) {
+			for (int r = 0; r < size; r++)
+				order[r] = r;
+		} else {
+			// Rarely needed, so a boxed sort will do. It is stable, keeping the original order of equal begin times.
+			Integer[] boxed = new Integer[size];
+			for (int r = 0; r < size; r++)
+				boxed[r] = r;
+			Arrays.sort(boxed, (a, b) -> Long.compare(beginTime[a], beginTime[b]));
+			for (int r = 0; r < size; r++)
+				order[r] = boxed[r];
+		}
+		keepRows(order, size);
+	}
+
+	/** Replace the contents with the given rows, in the given order, and rebuild the index */
+	private void keepRows(int[] order, int n)
+	{
+		long[] oldBegin = beginTime;
+		int[] oldElapsed = elapsedTime;
+		int[] oldRecv = recvTimeOffset;
+		short[] oldEntry = entryPoint;
+		byte[] oldFlags = flags;
+		int[] oldEventID = eventID;
+		int[] oldPCreation = pCreation;
+		ObjectId[] oldTid = tid;
+		long[] oldCpuBegin = cpuBegin;
+		int[] oldCpuElapsed = cpuElapsed;
+		int[] oldFirstMessage = firstMessage;
+		TimelineMessage[] oldMessages = messages;
+		int[] oldExtraRows = extraRows;
+		Extra[] oldExtras = extras;
+		int oldNumExtras = numExtras;
+
+		int msgCount = 0;
+		int extraCount = 0;
+		for (int i = 0; i < n; i++) {
+			int r = order[i];
+			msgCount += oldFirstMessage[r + 1] - oldFirstMessage[r];
+			if (Arrays.binarySearch(oldExtraRows, 0, oldNumExtras, r) >= 0)
+				extraCount++;
+		}
+
+		allocate(n, msgCount, extraCount);
+		if (oldCpuBegin != null) {
+			cpuBegin = new long[n];
+			cpuElapsed = new int[n];
+		}
+		numMessages = 0;
+		numExtras = 0;
+		for (int i = 0; i < n; i++) {
+			int r = order[i];
+			beginTime[i] = oldBegin[r];
+			elapsedTime[i] = oldElapsed[r];
+			recvTimeOffset[i] = oldRecv[r];
+			entryPoint[i] = oldEntry[r];
+			flags[i] = oldFlags[r];
+			eventID[i] = oldEventID[r];
+			pCreation[i] = oldPCreation[r];
+			tid[i] = oldTid[r];
+			if (cpuBegin != null) {
+				cpuBegin[i] = oldCpuBegin[r];
+				cpuElapsed[i] = oldCpuElapsed[r];
+			}
+			for (int m = oldFirstMessage[r]; m < oldFirstMessage[r + 1]; m++) {
+				TimelineMessage msg = oldMessages[m];
+				msg.setSender(this, i);
+				messages[numMessages++] = msg;
+			}
+			firstMessage[i + 1] = numMessages;
+			int e = Arrays.binarySearch(oldExtraRows, 0, oldNumExtras, r);
+			if (e >= 0) {
+				extraRows[numExtras] = i;
+				extras[numExtras++] = oldExtras[e];
+			}
+		}
+		size = n;
+		buildIndex();
+	}
+
+	/** Re-sort the rows and rebuild the index if single rows have been shifted since it was built */
+	private void checkIndex()
+	{
+		if (indexStale) {
+			indexStale = false;
+			finish();
+		}
+	}
+
+	private void buildIndex()
+	{
+		long[] index = new long[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+		long maxEnd = Long.MIN_VALUE;
+		for (int r = 0; r < size; r++) {
+			maxEnd = Math.max(maxEnd, beginTime[r] + elapsedTime[r]);
+			if (r % BLOCK_SIZE == BLOCK_SIZE - 1 || r == size - 1)
+				index[r / BLOCK_SIZE] = maxEnd;
+		}
+		blockMaxEnd = index;
+		buildSummary();
+	}
+
+	private void buildSummary()
+	{
+		summaryRows = null;
+		if (size < 2 * ROWS_PER_BUCKET)
+			return;
+
+		final long start = beginTime[0];
+		final long span = blockMaxEnd[blockMaxEnd.length - 1] - start + 1;
+		int buckets = Integer.highestOneBit(size / ROWS_PER_BUCKET);
+		final long width = Math.max(1, (span + buckets - 1) / buckets);
+		buckets = (int) ((span + width - 1) / width);
+
+		// The finest level, from the time each row covers in each bucket
+		int[] rows = new int[buckets];
+		float[] cover = new float[buckets];
+		Arrays.fill(rows, -1);
+		for (int r = 0; r < size; r++) {
+			final long begin = beginTime[r];
+			final long end = begin + elapsedTime[r];
+			final int last = (int) ((end - start) / width);
+			for (int b = (int) ((begin - start) / width); b <= last; b++) {
+				final long bucketStart = start + b * width;
+				final float c = Math.min(end, bucketStart + width) - Math.max(begin, bucketStart);
+				if (isBetterSummary(r, c, rows[b], cover[b])) {
+					rows[b] = r;
+					cover[b] = c;
+				}
+			}
+		}
+
+		ArrayList<int[]> levels = new ArrayList<int[]>();
+		levels.add(rows);
+		while (rows.length > 1) {
+			final int n = (rows.length + 1) / 2;
+			int[] coarseRows = new int[n];
+			float[] coarseCover = new float[n];
+			for (int b = 0; b < n; b++) {
+				int row = rows[2 * b];
+				float c = cover[2 * b];
+				if (2 * b + 1 < rows.length) {
+					final int right = rows[2 * b + 1];
+					if (right == row)
+						c += cover[2 * b + 1];
+					else if (isBetterSummary(right, cover[2 * b + 1], row, c)) {
+						row = right;
+						c = cover[2 * b + 1];
+					}
+				}
+				coarseRows[b] = row;
+				coarseCover[b] = c;
+			}
+			rows = coarseRows;
+			cover = coarseCover;
+			levels.add(rows);
+		}
+
+		summaryRows = levels.toArray(new int[levels.size()][]);
+		summaryStart = start;
+		summaryBucketTime = width;
+	}
+
+	/** Whether row, covering the given time of a bucket, should be drawn for it rather than
+	 *  other. Any work is preferred to idle time, as when drawing overlapping rows. */
+	private boolean isBetterSummary(int row, float cover, int other, float otherCover)
+	{
+		if (other < 0)
+			return row >= 0;
+		if (row < 0)
+			return false;
+		final boolean idle = (flags[row] & IS_IDLE_EP) != 0;
+		final boolean otherIdle = (flags[other] & IS_IDLE_EP) != 0;
+		if (idle != otherIdle)
+			return otherIdle;
+		return cover > otherCover;
+	}
+
+	/** The first row that could end at or after the given time */
+	private int firstCandidateRow(long lowerBound)
+	{
+		int lo = 0;
+		int hi = blockMaxEnd.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (blockMaxEnd[mid] < lowerBound)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo * BLOCK_SIZE;
+	}
+
+
+	/** The view of a row */
+	protected EntryMethodObject get(int row)
+	{
+		return new EntryMethodObject(this, row);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<EntryMethodObject> iterator() {
+		return iterator(Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	@Override
+	public Iterator<EntryMethodObject> iterator(final long lowerBound, final long upperBound) {
+		checkIndex();
+		return new Iterator<EntryMethodObject>() {
+			// Fixed at creation, like the bounds
+			private final int end = size;
+			private int next = findNext(firstCandidateRow(lowerBound));
+
+			private int findNext(int row) {
+				for (; row < end && beginTime[row] <= upperBound; row++) {
+					if (beginTime[row] + elapsedTime[row] >= lowerBound)
+						return row;
+				}
+				return end;
+			}
+
+			public boolean hasNext() {
+				return next < end;
+			}
+
+			public EntryMethodObject next() {
+				if (next >= end)
+					throw new NoSuchElementException();
+				EntryMethodObject o = get(next);
+				next = findNext(next + 1);
+				return o;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * The rows to draw for the given range when each pixel is timePerPixel long.
+	 * If a pixel spans at least two buckets of the summary, only the rows recorded
+	 * for the buckets of the coarsest level with buckets of at most half a pixel
+	 * are returned, each once and in row order; otherwise all rows in the range
+	 * are returned, as by iterator(lowerBound, upperBound).
+	 */
+	protected Iterator<EntryMethodObject> iterator(final long lowerBound, final long upperBound, long timePerPixel) {
+		checkIndex();
+		if (summaryRows == null || timePerPixel < 2 * summaryBucketTime)
+			return iterator(lowerBound, upperBound);
+
+		int level = 0;
+		while (level + 1 < summaryRows.length && (summaryBucketTime << (level + 2)) <= timePerPixel)
+			level++;
+		final int[] rows = summaryRows[level];
+		final long width = summaryBucketTime << level;
+		final int first = (int) Math.max(0, Math.min(rows.length, Math.floorDiv(lowerBound - summaryStart, width)));
+		final int last = (int) Math.max(-1, Math.min(rows.length - 1, Math.floorDiv(upperBound - summaryStart, width)));
+
+		// A row spanning several buckets is returned once. The recorded rows are
+		// not in row order where rows are nested, e.g. a row nested in a wide one
+		// can be recorded for the bucket in which the wide one starts.
+		int[] found = new int[Math.max(0, last - first + 1)];
+		int n = 0;
+		for (int b = first; b <= last; b++) {
+			if (rows[b] >= 0)
+				found[n++] = rows[b];
+		}
+		Arrays.sort(found, 0, n);
+		int distinct = 0;
+		for (int i = 0; i < n; i++) {
+			if (distinct == 0 || found[i] != found[distinct - 1])
+				found[distinct++] = found[i];
+		}
+		final int[] toDraw = found;
+		final int count = distinct;
+
+		return new Iterator<EntryMethodObject>() {
+			private int next = 0;
+
+			public boolean hasNext() {
+				return next < count;
+			}
+
+			public EntryMethodObject next() {
+				if (next >= count)
+					throw new NoSuchElementException();
+				return get(toDraw[next++]);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (o instanceof EntryMethodObject) {
+			EntryMethodObject obj = (EntryMethodObject) o;
+			return obj.store == this && obj.row < size;
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		allocate(16, 16, 0);
+		size = 0;
+		numMessages = 0;
+		numExtras = 0;
+		blockMaxEnd = new long[0];
+		summaryRows = null;
+		indexStale = false;
+	}
+
+	@Override
+	public void removeEntriesOutsideRange(long startTime, long endTime) {
+		checkIndex();
+		int[] keep = new int[size];
+		int n = 0;
+		for (int r = 0; r < size; r++) {
+			if (beginTime[r] + elapsedTime[r] >= startTime && beginTime[r] <= endTime)
+				keep[n++] = r;
+		}
+		if (n < size)
+			keepRows(keep, n);
+	}
+
+	@Override
+	public void shiftAllEntriesBy(long shift) {
+		for (int r = 0; r < size; r++) {
+			beginTime[r] += shift;
+			if (cpuBegin != null)
+				cpuBegin[r] += shift;
+		}
+		for (int m = 0; m < numMessages; m++)
+			messages[m].shiftTimesBy(shift);
+		for (int b = 0; b < blockMaxEnd.length; b++)
+			blockMaxEnd[b] += shift;
+		summaryStart += shift;
+	}
+
+	/** Shift the times of one row and of the messages it sent. The rows are re-sorted
+	 *  and the index rebuilt before the next query, which invalidates existing views. */
+	protected void shiftEntryBy(int row, long shift) {
+		beginTime[row] += shift;
+		if (cpuBegin != null)
+			cpuBegin[row] += shift;
+		for (int m = firstMessage[row]; m < firstMessage[row + 1]; m++)
+			messages[m].shiftTimesBy(shift);
+		indexStale = true;
+	}
+
+	/** Forget the messages sent by all rows */
+	protected void clearMessages() {
+		Arrays.fill(firstMessage, 0);
+		messages = new TimelineMessage[0];
+		numMessages = 0;
+	}
+
+	/** Add views of all rows for the given chare to the collection */
+	protected void findObjectId(ObjectId id, Collection<EntryMethodObject> found) {
+		for (int r = 0; r < size; r++) {
+			if (tid[r] == id || tid[r].equals(id))
+				found.add(get(r));
+		}
+	}
+
+
+	// Accessors for the views
+
+	long beginTime(int row) {
+		return beginTime[row];
+	}
+
+	int elapsedTime(int row) {
+		return elapsedTime[row];
+	}
+
+	int recvTimeOffset(int row) {
+		return recvTimeOffset[row];
+	}
+
+	int entryPoint(int row) {
+		return Short.toUnsignedInt(entryPoint[row]);
+	}
+
+	byte flags(int row) {
+		return flags[row];
+	}
+
+	int eventID(int row) {
+		return eventID[row];
+	}
+
+	int pCreation(int row) {
+		return pCreation[row];
+	}
+
+	ObjectId tid(int row) {
+		return tid[row];
+	}
+
+	long cpuBegin(int row) {
+		return cpuBegin == null ? 0 : cpuBegin[row];
+	}
+
+	int cpuElapsed(int row) {
+		return cpuElapsed == null ? 0 : cpuElapsed[row];
+	}
+
+	/** The number of messages sent by all rows */
+	int messageCount() {
+		return numMessages;
+	}
+
+	/** The m'th message sent, in row order */
+	TimelineMessage message(int m) {
+		return messages[m];
+	}
+
+	int numMessages(int row) {
+		return firstMessage[row + 1] - firstMessage[row];
+	}
+
+	/** The messages sent by a row, or null if there are none */
+	List<TimelineMessage> messages(int row) {
+		if (numMessages(row) == 0)
+			return null;
+		return Arrays.asList(messages).subList(firstMessage[row], firstMessage[row + 1]);
+	}
+
+	/** The uncommon fields of a row, or null if it has none */
+	Extra extra(int row) {
+		int e = Arrays.binarySearch(extraRows, 0, numExtras, row);
+		return e >= 0 ? extras[e] : null;
+	}
+
+	/** A rough estimate of the heap used by this store and the messages it holds */
+	long estimatedBytes() {
+		long bytes = 64;
+		bytes += 8L * beginTime.length + 4L * elapsedTime.length + 4L * recvTimeOffset.length;
+		bytes += 2L * entryPoint.length + flags.length + 4L * eventID.length + 4L * pCreation.length;
+		bytes += 4L * tid.length;
+		if (cpuBegin != null)
+			bytes += 12L * cpuBegin.length;
+		bytes += 4L * firstMessage.length + 4L * messages.length + 56L * numMessages;
+		bytes += 8L * extraRows.length + 48L * numExtras;
+		bytes += 8L * blockMaxEnd.length;
+		if (summaryRows != null) {
+			for (int[] level : summaryRows)
+				bytes += 4L * level.length;
+		}
+		return bytes;
+	}
+
+}
@@ -131,7 +131,7 @@ class LabelPanel extends JPanel implements MouseListener, MouseMotionListener {
 							g.drawString(peString, 10, data.singleTimelineHeight()/2 + verticalPosition*data.singleTimelineHeight());
 
 							String percentString = "(?,?)";
-							if(data.idleUsage.length > pe && data.processorUsage.length>pe){
+							if(data.idleUsage.length > pe && data.processorUsage.length>pe && data.usageKnown(pe)){
 								percentString = "(" + (int)(100 - data.idleUsage[pe]) + ", " + (int)(data.processorUsage[pe]) + ")";
 							}
 							g.drawString(percentString, 15, data.singleTimelineHeight()/2 + verticalPosition*data.singleTimelineHeight() + fm.getHeight() + 2);
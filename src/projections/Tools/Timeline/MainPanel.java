@@ -115,6 +115,11 @@ public class MainPanel extends JPanel  implements Scrollable, MouseListener, Mou
 	/** Paint the entire opaque panel*/
 	public void paintComponent(Graphics g) {
 		synchronized(data){
+			// Keep the rows on screen, and a screen's worth above and below, from being evicted
+			Rectangle visible = getVisibleRect();
+			if(visible.height > 0)
+				data.rowCache.pin(data.processorsInPixelYRange(Math.max(0, visible.y - visible.height), visible.y + 2*visible.height));
+
 			Graphics2D g2 = (Graphics2D)g;
 			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 			if(RenderInParallel && data.numPs()>1){
@@ -122,6 +127,8 @@ public class MainPanel extends JPanel  implements Scrollable, MouseListener, Mou
 			} else {
 				paintSequentially(g2);
 			}
+
+			data.enforceMemoryBudget();
 		}
 	}
 
@@ -235,6 +242,8 @@ public class MainPanel extends JPanel  implements Scrollable, MouseListener, Mou
 		// Find time ranges to draw
 		long leftClipTime = data.screenToTime(clip.x-5);
 		long rightClipTime = data.screenToTime(clip.x+clip.width+5);
+		// When zoomed out far enough, only one entry method per pixel is drawn, see EntryMethodStore
+		long timePerPixel = data.allEntriesVisible() ? (rightClipTime - leftClipTime) / (clip.width+10) : 0;
 
 		// Draw entry method invocations
 		int count1 = -1;
@@ -242,22 +251,31 @@ public class MainPanel extends JPanel  implements Scrollable, MouseListener, Mou
 		// Determine which PEs are within the clip range:
 		Collection<Integer> pesToRender = data.processorsInPixelYRange(clip.y, clip.y+clip.height-1);
 
+		// Rows that were evicted are reloaded in the background, and repainted when they arrive
+		data.rowCache.painted(pesToRender);
+		data.requestRows(pesToRender);
+
 		for(Integer pe : pesToRender){
-			Query1D<EntryMethodObject> l = data.allEntryMethodObjects.get(pe);
+			EntryMethodStore l = data.allEntryMethodObjects.get(pe);
 
-			if(l != null){ // FIXME: this shouldn't be here but is to fix a race condition with reloading ranges once something is displayed
-				Iterator<EntryMethodObject> iter = l.iterator(leftClipTime, rightClipTime);
+			if(l == null){
+				g.setColor(data.getForegroundColor());
+				String status = data.rowCache.hasFailed(pe) ? "Could not read the log of this PE" : "Loading...";
+				g.drawString(status, getVisibleRect().x + 10, data.entryMethodLocationTop(pe) + data.barheight());
+				continue;
+			}
 
-				// Saves the furthest right position EPs and msg lines have been drawn in
-				// order to optimize performance by only drawing when new pixels will be colored in
-				MaxFilledX maxFilledX = new MaxFilledX();
-				final int topCoord = data.entryMethodLocationTop(pe);
+			Iterator<EntryMethodObject> iter = l.iterator(leftClipTime, rightClipTime, timePerPixel);
 
-				while(iter.hasNext()){
-					EntryMethodObject o = iter.next();
-					if(o.paintMe((Graphics2D) g, getWidth(), topCoord, maxFilledX)) {
-						count1++;
-					}
+			// Saves the furthest right position EPs and msg lines have been drawn in
+			// order to optimize performance by only drawing when new pixels will be colored in
+			MaxFilledX maxFilledX = new MaxFilledX();
+			final int topCoord = data.entryMethodLocationTop(pe);
+
+			while(iter.hasNext()){
+				EntryMethodObject o = iter.next();
+				if(o.paintMe((Graphics2D) g, getWidth(), topCoord, maxFilledX)) {
+					count1++;
 				}
 			}
 		}
@@ -453,19 +471,15 @@ public class MainPanel extends JPanel  implements Scrollable, MouseListener, Mou
 	/** 
 	 * Load or Reload the timeline objects from the data object's tloArray.
 	 *  
-	 *  if useHelperThreads is true, the information about messages sent will be offloaded to a separate thread. 
-	 *  This will allow the results to be returned faster, but if the message information is needed immedeately, 
-	 *  this should be set to false.
-	 *  
 	 * @note caller must synchronize on data to prevent race conditions between rendering and modifying data
 	 */
-	public void loadTimelineObjects(boolean useHelperThreads, Component rootWindow, boolean showProgress) {
+	public void loadTimelineObjects(Component rootWindow, boolean showProgress) {
 
 		// keeplines describes if the lines from message creation
 		// to execution are to be retained or not.
 		//		setCursor(new Cursor(Cursor.WAIT_CURSOR));
 
-		data.createTLOArray(useHelperThreads, rootWindow, showProgress);
+		data.createTLOArray(rootWindow, showProgress);
 
 		handler.setData(data);
 		//		handler.refreshDisplay(true);
@@ -669,12 +683,12 @@ public class MainPanel extends JPanel  implements Scrollable, MouseListener, Mou
 		}
 
 		// Cursor still on same object
-		else if(underCursor != null && underCursor == currentMouseTrackedObject){
+		else if(underCursor != null && underCursor.equals(currentMouseTrackedObject)){
 			currentMouseTrackedObject.mouseMoved(evt);
 		}
 
 		// Cursor left object for another one
-		else if(underCursor != null && underCursor != currentMouseTrackedObject){		
+		else if(underCursor != null && !underCursor.equals(currentMouseTrackedObject)){		
 			currentMouseTrackedObject.mouseExited(evt);
 			underCursor.mouseEntered(evt);
 			currentMouseTrackedObject = underCursor;
@@ -0,0 +1,46 @@
+package projections.Tools.Timeline;
+
+/** The messages sent on one PE, keyed by their EventID.
+ *
+ *  An open addressing table over primitive ints, built once from the messages
+ *  of an EntryMethodStore and never modified afterwards, so that it can be read
+ *  by any thread without locking. When two messages share an EventID, the one
+ *  sent last wins.
+ */
+final class MessageIndex {
+
+	private final int[] keys;
+	private final TimelineMessage[] values;
+	private final int mask;
+
+	MessageIndex(EntryMethodStore store) {
+		int n = store.messageCount();
+		int capacity = 16;
+		while (capacity < n * 2)
+			capacity <<= 1;
+		keys = new int[capacity];
+		values = new TimelineMessage[capacity];
+		mask = capacity - 1;
+		for (int m = 0; m < n; m++) {
+			TimelineMessage msg = store.message(m);
+			int slot = slot(msg.EventID);
+			keys[slot] = msg.EventID;
+			values[slot] = msg;
+		}
+	}
+
+	/** The slot holding eventID, or the empty slot where it belongs */
+	private int slot(int eventID) {
+		int h = eventID * 0x9E3779B9;
+		int i = (h ^ h >>> 16) & mask;
+		while (values[i] != null && keys[i] != eventID)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	/** The message with the given EventID, or null if there is none */
+	TimelineMessage get(int eventID) {
+		return values[slot(eventID)];
+	}
+
+}
@@ -3,8 +3,8 @@ package projections.Tools.Timeline;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import javax.swing.BoxLayout;
 import javax.swing.JLabel;
@@ -38,7 +38,7 @@ class MessagePanel extends JPanel {
 
     // Data objects
     private EntryMethodObject obj;
-    private ArrayList messages;
+    private List<TimelineMessage> messages;
     private Object tableData[][];
     private Object columnNames[];
 
@@ -69,12 +69,12 @@ class MessagePanel extends JPanel {
 
     	// setting the data
     	if(messages!=null){
-    		Iterator iter = messages.iterator();	
+    		Iterator<TimelineMessage> iter = messages.iterator();	
     		int row =0;
     		TimelineMessage msg=null, prev=null;
     		while(iter.hasNext()){
     			prev = msg;
-    			msg = (TimelineMessage) iter.next();
+    			msg = iter.next();
 
     			// fill in the NUM_FIELDS columns
     			tableData[row][0] = Integer.valueOf(row);
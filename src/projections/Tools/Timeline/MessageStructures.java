@@ -1,192 +1,200 @@
 package projections.Tools.Timeline;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
-
-import projections.Tools.Timeline.RangeQueries.Query1D;
-import projections.analysis.ObjectId;
-
-/** this class is used to hold some data structures that are initialized by a separate thread 
- * 
- * @note anyone using the data members in this class should synchronize on this object.
- *              This will cause threads to wait while the data structures are first being computed
- * 
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/** Lookup tables from the EventIDs of each PE to the messages sent with them,
+ *  and from each message to the entry methods it invoked.
+ *
+ *  The tables are filled in one PE at a time, as each PE is loaded by the
+ *  Timeline's reader threads, so only the newly loaded PEs are ever indexed.
+ *  Each PE's table is immutable once it is published, so the lookups made
+ *  while tracing messages on hover never lock or wait for other PEs.
+ *
  * @author idooley2
- * 
+ *
  * */
 class MessageStructures {
 
-	private Data data;
-
-	// TODO update each of these first two members to make them not require space proportional to PE.
-
-	/** A Map for each PE, key = eventID value = Message */
-	private Map<Integer, TimelineMessage> []eventIDToMessageMap;
+	/** The number of locks guarding the lists of entry methods waiting for their creator PE */
+	private static final int NUM_LOCKS = 64;
 
-	/** Map from Chare Array element id's to the corresponding known entry method invocations */
-	private Map<ObjectId, List<EntryMethodObject> > oidToEntryMethodObjectsMap;
+	private Data data;
 
-	/** A worker thread that creates those data structures */
-	private ThreadMessageStructures secondaryWorkers;
+	/** The tables for the currently loaded PEs, replaced wholesale when they are cleared */
+	private volatile Tables tables;
+
+	private static final class Tables {
+		/** The MessageIndex of each PE, or null if the PE is not loaded */
+		final AtomicReferenceArray<MessageIndex> indexes;
+		/** For each PE that is not loaded yet, the entry methods it created. Guarded by locks */
+		final Pending[] pending;
+		final Object[] locks = new Object[NUM_LOCKS];
+
+		Tables(int numPEs) {
+			indexes = new AtomicReferenceArray<MessageIndex>(numPEs);
+			pending = new Pending[numPEs];
+			for (int i = 0; i < NUM_LOCKS; i++)
+				locks[i] = new Object();
+		}
 
-	protected MessageStructures(Data data){
-		this.data = data;
-		init();
+		Object lock(int pe) {
+			return locks[pe % NUM_LOCKS];
+		}
 	}
 
+	/** Rows of EntryMethodStores, waiting for the PE that created them to be indexed */
+	private static final class Pending {
+		EntryMethodStore[] stores = new EntryMethodStore[4];
+		int[] rows = new int[4];
+		int size = 0;
 
-	/** Delete all old references by initializing each data structure */
-	private void init(){
-		synchronized(this){
-			int pe = data.numPEs();
-
-			eventIDToMessageMap = new HashMap[pe];
-			for(int i=0;i<pe;i++)
-				eventIDToMessageMap[i] = new HashMap();
-			
-			oidToEntryMethodObjectsMap = new TreeMap<>();
-		}		
-	}
-
-	/** Spawn a thread that will fill in the data structures. It is unlikely in the visualization that these 
-	 * structures will be needed early on. Due to the mutual exclusion synchronization on this object,
-	 *  all threads that eventually need the data will block until the data has been produced */
-	protected void create(boolean useSeparateThread){
-		// Create the secondary structures for efficient accessing of messages
-		init();
-		secondaryWorkers = new ThreadMessageStructures(this);
-		if(useSeparateThread){
-			secondaryWorkers.setPriority(Thread.MIN_PRIORITY);
-			secondaryWorkers.start();
-		} else {
-			generate(null);
+		void add(EntryMethodStore store, int row) {
+			if (size == rows.length) {
+				stores = Arrays.copyOf(stores, size * 2);
+				rows = Arrays.copyOf(rows, size * 2);
+			}
+			stores[size] = store;
+			rows[size++] = row;
 		}
-	}
 
-	public void setEventIDToMessageMap(Map [] eventIDToMessageMap) {
-		this.eventIDToMessageMap = eventIDToMessageMap;
-	}
-
-	public Map [] getEventIDToMessageMap() {
-		return eventIDToMessageMap;
+		void removeStore(EntryMethodStore store) {
+			int n = 0;
+			for (int i = 0; i < size; i++) {
+				if (stores[i] != store) {
+					stores[n] = stores[i];
+					rows[n++] = rows[i];
+				}
+			}
+			Arrays.fill(stores, n, size, null);
+			size = n;
+		}
 	}
 
-	public void setOidToEntryMethodObjectsMap(Map oidToEntryMethodObjectsMap) {
-		this.oidToEntryMethodObjectsMap = oidToEntryMethodObjectsMap;
+	protected MessageStructures(Data data){
+		this.data = data;
+		clear();
 	}
 
-	public Map<ObjectId, List<EntryMethodObject>> getOidToEntryMethodObjectsMap() {
-		return oidToEntryMethodObjectsMap;
+	/** Forget all PEs, so that each must be indexed again when it is reloaded */
+	protected void clear(){
+		tables = new Tables(data.numPEs());
 	}
 
-	protected void kill() {
-		if(secondaryWorkers != null){
-			secondaryWorkers.stopThread();
-			secondaryWorkers = null;
+	/** Index the messages sent on a newly loaded PE, and record which of its
+	 *  entry methods were invoked by the messages of the PEs indexed so far.
+	 *  Entry methods created on PEs that are not indexed yet are recorded when
+	 *  those PEs are.
+	 *
+	 *  Note: This function must be thread safe, as it is called by each reader thread. */
+	protected void index(int pe, EntryMethodStore store){
+		Tables t = tables;
+		if(pe < 0 || pe >= t.pending.length)
+			return;
+
+		MessageIndex index = new MessageIndex(store);
+		Pending waiting;
+		synchronized(t.lock(pe)){
+			t.indexes.set(pe, index);
+			waiting = t.pending[pe];
+			t.pending[pe] = null;
 		}
-		init();
-	}
 
-	protected void generate(ThreadMessageStructures structures){
-
-		// TODO These are computed anytime a new range or pe is loaded. Make faster by just adding in the new PEs portion
-		/** Create a mapping from EventIDs on each pe to messages */
-		Iterator<Integer> pe_iter = data.allEntryMethodObjects.keySet().iterator();
-		while(pe_iter.hasNext()){
-			
-			// Need to syncrhonize or the value structures.stop may never be updated
-			if(structures!=null) {
-				synchronized(structures){
-					if(structures.stop)
-						return;					
-				}
-			}			
+		if(waiting != null){
+			for(int i = 0; i < waiting.size; i++)
+				addRecipient(index, waiting.stores[i], waiting.rows[i]);
+		}
 
-			Integer pe =  pe_iter.next();
-			for (EntryMethodObject obj : data.allEntryMethodObjects.get(pe)) { // For each EntryMethod Object
-				if(obj.messages != null){
-					for (TimelineMessage msg : obj.messages){  // For each message sent by the object
-						getEventIDToMessageMap()[pe.intValue()].put(Integer.valueOf(msg.EventID), msg);
+		for(int row = 0; row < store.size(); row++){
+			int creator = store.pCreation(row);
+			if(creator < 0 || creator >= t.pending.length)
+				continue;
+			MessageIndex creatorIndex = t.indexes.get(creator);
+			if(creatorIndex == null){
+				// Check again under the lock, so the row is not missed if the creator is being published now
+				synchronized(t.lock(creator)){
+					creatorIndex = t.indexes.get(creator);
+					if(creatorIndex == null){
+						if(t.pending[creator] == null)
+							t.pending[creator] = new Pending();
+						t.pending[creator].add(store, row);
+						continue;
 					}
 				}
 			}
+			addRecipient(creatorIndex, store, row);
 		}
+	}
 
-		/** Create a mapping from TimelineMessage objects to a set of the resulting execution EntryMethod objects */
-
-		pe_iter = data.allEntryMethodObjects.keySet().iterator();
-		while(pe_iter.hasNext()){
-
-			if(structures!=null) {
-				synchronized(structures){
-					if(structures.stop)
-						return;					
-				}
-			}	
-			
-			Integer pe =  pe_iter.next();
-			Query1D<EntryMethodObject> objs = data.allEntryMethodObjects.get(pe);
-			Iterator<EntryMethodObject> obj_iter = objs.iterator();
-			while(obj_iter.hasNext()){
-				EntryMethodObject obj = obj_iter.next();
-
-				TimelineMessage msg = obj.creationMessage();
-				if(msg!=null){
-					msg.addRecipient(obj);
-				}
-
+	/** Forget a PE whose rows are being dropped from memory. Its rows are no
+	 *  longer recipients of the messages of other PEs, and the rows of other PEs
+	 *  that its messages invoked wait for it to be indexed again when it is
+	 *  reloaded, just as if it had not been loaded yet. */
+	protected void evict(int pe, EntryMethodStore store){
+		Tables t = tables;
+		if(pe < 0 || pe >= t.pending.length)
+			return;
+
+		Pending waiting = new Pending();
+		for(int m = 0; m < store.messageCount(); m++){
+			List<EntryMethodObject> recipients = store.message(m).getRecipients();
+			if(recipients == null)
+				continue;
+			for(EntryMethodObject r : recipients){
+				if(r.store != store)
+					waiting.add(r.store, r.row);
 			}
 		}
+		synchronized(t.lock(pe)){
+			if(t.indexes.get(pe) == null)
+				return; // Not indexed for these tables
+			t.indexes.set(pe, null);
+			if(t.pending[pe] != null){
+				for(int i = 0; i < t.pending[pe].size; i++)
+					waiting.add(t.pending[pe].stores[i], t.pending[pe].rows[i]);
+			}
+			t.pending[pe] = (waiting.size > 0) ? waiting : null;
+		}
 
-		/** Create a mapping from Chare array element indices to their EntryMethodObject's */
-
-		pe_iter = data.allEntryMethodObjects.keySet().iterator();
-		while(pe_iter.hasNext()){
-
-			if(structures!=null) {
-				synchronized(structures){
-					if(structures.stop)
-						return;					
-				}
-			}	
-			
-			Integer pe =  pe_iter.next();
-			Query1D<EntryMethodObject> objs = data.allEntryMethodObjects.get(pe);
-			Iterator<EntryMethodObject> obj_iter = objs.iterator();
-			while(obj_iter.hasNext()){
-				EntryMethodObject obj = obj_iter.next();
-
-				if(obj != null){
-					ObjectId id = obj.getTid();
-
-					if(getOidToEntryMethodObjectsMap().containsKey(id)){
-						// add obj to the existing set
-						List<EntryMethodObject> s = getOidToEntryMethodObjectsMap().get(id);
-						s.add(obj);
-					} else {
-						// create a set for the id
-						ArrayList<EntryMethodObject> s = new ArrayList<EntryMethodObject>();
-						s.add(obj);
-						getOidToEntryMethodObjectsMap().put(id, s);
-					}
-
-				}
-			}				
+		Set<Integer> unloadedCreators = new HashSet<Integer>();
+		for(int row = 0; row < store.size(); row++){
+			int creator = store.pCreation(row);
+			if(creator < 0 || creator >= t.pending.length)
+				continue;
+			MessageIndex creatorIndex = t.indexes.get(creator);
+			if(creatorIndex == null){
+				unloadedCreators.add(creator);
+				continue;
+			}
+			TimelineMessage msg = creatorIndex.get(store.eventID(row));
+			if(msg != null)
+				msg.removeRecipients(store);
+		}
+		// Rows still waiting for their creator to be indexed
+		for(int creator : unloadedCreators){
+			synchronized(t.lock(creator)){
+				if(t.pending[creator] != null)
+					t.pending[creator].removeStore(store);
+			}
 		}
 	}
 
-	
-	protected void clearAll(){
-		synchronized(this){
-			int pe = eventIDToMessageMap.length;
-			for(int i=0;i<pe;i++)
-				eventIDToMessageMap[i].clear();
-			oidToEntryMethodObjectsMap.clear();
-		}		
+	private static void addRecipient(MessageIndex creatorIndex, EntryMethodStore store, int row){
+		TimelineMessage msg = creatorIndex.get(store.eventID(row));
+		if(msg != null)
+			msg.addRecipient(store.get(row));
 	}
-	
+
+	/** The message sent on pe with the given EventID, or null if there is none or pe is not loaded */
+	protected TimelineMessage getMessage(int pe, int eventID){
+		Tables t = tables;
+		if(pe < 0 || pe >= t.pending.length)
+			return null;
+		MessageIndex index = t.indexes.get(pe);
+		return index == null ? null : index.get(eventID);
+	}
+
 }
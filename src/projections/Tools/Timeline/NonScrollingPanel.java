@@ -60,7 +60,7 @@ public class NonScrollingPanel extends JPanel implements MainHandler{
 		
 		// create a MainPanel for it	
 		displayPanel = new MainPanel(data, this);
-		displayPanel.loadTimelineObjects(true, null, true);
+		displayPanel.loadTimelineObjects(null, true);
 
 		labelPanel = new LabelPanel(data);
 		
@@ -0,0 +1,96 @@
+package projections.Tools.Timeline.RangeQueries;
+
+import java.util.Iterator;
+import java.util.Random;
+
+/** Compares the time to build and query each Query1D implementation with
+ *  entries like those of a Timeline PE: almost sorted and not overlapping.
+ *
+ *  Usage: Benchmark [entries] [queries]
+ */
+public class Benchmark {
+
+	static class Event implements Range1D {
+		long lb, ub;
+
+		Event(long l, long u){
+			lb = l;
+			ub = u;
+		}
+
+		public long lowerBound() {
+			return lb;
+		}
+
+		public long upperBound() {
+			return ub;
+		}
+
+		public void shiftTimesBy(long s) {
+			lb += s;
+			ub += s;
+		}
+	}
+
+	public static void main(String[] args){
+		int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+		Event[] events = makeEvents(n, new Random(1));
+		long span = events[n-1].ub;
+
+		// Warm up, then measure
+		for(int round=0; round<2; round++){
+			boolean report = round == 1;
+			run("RangeQuerySortedArray", new RangeQuerySortedArray<Event>(), events, queries, span, report);
+			run("RangeQueryTree", new RangeQueryTree<Event>(), events, queries, span, report);
+			// A linear scan per query, so only a few
+			run("RangeQueryArrayList", new RangeQueryArrayList<Event>(), events, Math.max(1, queries/100), span, report);
+		}
+	}
+
+	/** Events of random lengths separated by random gaps, a few of them swapped out of order */
+	static Event[] makeEvents(int n, Random random){
+		Event[] events = new Event[n];
+		long time = 0;
+		for(int i=0; i<n; i++){
+			time += random.nextInt(20);
+			long length = 1 + (long) (Math.pow(random.nextDouble(), 3) * 200.0);
+			events[i] = new Event(time, time + length);
+			time += length;
+		}
+		for(int i=1; i<n; i+=1000){
+			Event e = events[i];
+			events[i] = events[i-1];
+			events[i-1] = e;
+		}
+		return events;
+	}
+
+	private static void run(String name, Query1D<Event> db, Event[] events, int queries, long span, boolean report){
+		long t0 = System.nanoTime();
+		for(Event e : events)
+			db.add(e);
+		// Includes any sorting or rebalancing done on the first query
+		db.iterator(0, 0).hasNext();
+		long t1 = System.nanoTime();
+
+		Random random = new Random(2);
+		long found = 0;
+		for(int q=0; q<queries; q++){
+			// Queries of the sizes seen when zoomed in or scrolling
+			long width = (long) (Math.pow(random.nextDouble(), 2) * span / 100);
+			long lb = (long) (random.nextDouble() * (span - width));
+			Iterator<Event> iter = db.iterator(lb, lb + width);
+			while(iter.hasNext()){
+				iter.next();
+				found++;
+			}
+		}
+		long t2 = System.nanoTime();
+
+		if(report)
+			System.out.println(name + ": build " + (t1-t0)/1000000 + " ms, " + queries + " queries " + (t2-t1)/1000000 + " ms (" + (t2-t1)/queries/1000 + " us per query, " + found/queries + " entries per query)");
+	}
+
+}
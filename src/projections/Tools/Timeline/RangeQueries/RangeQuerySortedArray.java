@@ -0,0 +1,286 @@
+package projections.Tools.Timeline.RangeQueries;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/** Provides a collection interface that provides efficient range queries via iterators.
+ *  Does not allow insertion of null objects.
+ *
+ * The entries are kept in an array sorted by lower bound, alongside primitive
+ * arrays of their bounds and, for each position, the largest upper bound of
+ * it and all earlier entries. A range query is a binary search of the latter
+ * for the first entry that could overlap the range, followed by a scan that
+ * stops at the first entry starting after the range. This suits collections
+ * that are filled once and then queried many times, like the events of a PE,
+ * which are almost sorted and rarely overlap.
+ *
+ * Entries added out of order are sorted on the next query. Queries may be
+ * made concurrently. If modifications are made to the collection, the
+ * subsequent values returned by all iterators are undefined. The bounds of
+ * the entries must not be changed other than by shiftAllEntriesBy().
+ *
+ * The remove() method on the iterators is unsupported, but the remove methods
+ * of the collection are.
+ */
+public class RangeQuerySortedArray <T extends Range1D> extends AbstractCollection<T> implements Query1D<T>{
+
+	private static final Comparator<Range1D> BY_LOWER_BOUND = new Comparator<Range1D>() {
+		public int compare(Range1D a, Range1D b) {
+			return Long.compare(a.lowerBound(), b.lowerBound());
+		}
+	};
+
+	private Range1D[] entries;
+	private long[] lowerBounds;
+	private long[] upperBounds;
+	/** maxUpperBound[i] is the largest upper bound of entries 0 through i */
+	private long[] maxUpperBound;
+	private int size = 0;
+	private boolean sorted = true;
+
+	public RangeQuerySortedArray(){
+		allocate(16);
+	}
+
+	/** Create a new RangeQuerySortedArray that is initially populated with the objects from the specified collection. */
+	public RangeQuerySortedArray(Collection<? extends T> c){
+		allocate(Math.max(16, c.size()));
+		addAll(c);
+	}
+
+	private void allocate(int capacity) {
+		entries = new Range1D[capacity];
+		lowerBounds = new long[capacity];
+		upperBounds = new long[capacity];
+		maxUpperBound = new long[capacity];
+	}
+
+	@Override
+	public synchronized boolean add(T e) {
+		if(e == null)
+			throw new NullPointerException();
+		if(size == entries.length){
+			int n = entries.length * 2;
+			entries = Arrays.copyOf(entries, n);
+			lowerBounds = Arrays.copyOf(lowerBounds, n);
+			upperBounds = Arrays.copyOf(upperBounds, n);
+			maxUpperBound = Arrays.copyOf(maxUpperBound, n);
+		}
+		final long lb = e.lowerBound();
+		final long ub = e.upperBound();
+		if(size > 0 && lb < lowerBounds[size-1])
+			sorted = false;
+		entries[size] = e;
+		lowerBounds[size] = lb;
+		upperBounds[size] = ub;
+		maxUpperBound[size] = (size > 0) ? Math.max(maxUpperBound[size-1], ub) : ub;
+		size++;
+		return true;
+	}
+
+	/** Sort the entries if any were added out of order. Called before every query, which also
+	 *  makes the arrays written by add() visible to the querying thread. */
+	private synchronized int ensureSorted() {
+		if(! sorted){
+			// Stable and fast for almost sorted input
+			Arrays.sort(entries, 0, size, BY_LOWER_BOUND);
+			rebuildBounds();
+			sorted = true;
+		}
+		return size;
+	}
+
+	private void rebuildBounds() {
+		long max = Long.MIN_VALUE;
+		for(int i=0; i<size; i++){
+			lowerBounds[i] = entries[i].lowerBound();
+			upperBounds[i] = entries[i].upperBound();
+			max = Math.max(max, upperBounds[i]);
+			maxUpperBound[i] = max;
+		}
+	}
+
+	/** The first position whose entry could end at or after the given time */
+	private int firstCandidate(long lowerBound, int end) {
+		int lo = 0;
+		int hi = end;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(maxUpperBound[mid] < lowerBound)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return iterator(Long.MIN_VALUE, Long.MAX_VALUE);
+	}
+
+	/** For thread-safety, multiple iterators can be constructed using explicit bounds with this method */
+	public Iterator<T> iterator(final long lowerBound, final long upperBound) {
+		final int end = ensureSorted();
+		final Range1D[] e = entries;
+		final long[] lbs = lowerBounds;
+		final long[] ubs = upperBounds;
+		final int first = firstCandidate(lowerBound, end);
+
+		return new Iterator<T>() {
+			private int next = findNext(first);
+
+			private int findNext(int i) {
+				for(; i < end && lbs[i] <= upperBound; i++){
+					if(ubs[i] >= lowerBound)
+						return i;
+				}
+				return end;
+			}
+
+			public boolean hasNext() {
+				return next < end;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if(next >= end)
+					throw new NoSuchElementException();
+				T o = (T) e[next];
+				next = findNext(next + 1);
+				return o;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized void clear() {
+		allocate(16);
+		size = 0;
+		sorted = true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if(! (o instanceof Range1D))
+			return false;
+		final Range1D r = (Range1D) o;
+		final int end = ensureSorted();
+		// The entries starting at the same time as o are contiguous
+		int lo = 0;
+		int hi = end;
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+			if(lowerBounds[mid] < r.lowerBound())
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		for(int i = lo; i < end && lowerBounds[i] == r.lowerBound(); i++){
+			if(entries[i].equals(o))
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean remove(final Object o) {
+		return removeFirst(o);
+	}
+
+	private synchronized boolean removeFirst(Object o) {
+		for(int i=0; i<size; i++){
+			if(entries[i].equals(o)){
+				final int n = size - i - 1;
+				System.arraycopy(entries, i+1, entries, i, n);
+				System.arraycopy(lowerBounds, i+1, lowerBounds, i, n);
+				System.arraycopy(upperBounds, i+1, upperBounds, i, n);
+				size--;
+				entries[size] = null;
+				rebuildMaxUpperBound(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean removeAll(final Collection<?> c) {
+		return removeIf(new Predicate<T>() {
+			public boolean test(T o) {
+				return c.contains(o);
+			}
+		});
+	}
+
+	@Override
+	public boolean retainAll(final Collection<?> c) {
+		return removeIf(new Predicate<T>() {
+			public boolean test(T o) {
+				return ! c.contains(o);
+			}
+		});
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public synchronized boolean removeIf(Predicate<? super T> filter) {
+		int n = 0;
+		for(int i=0; i<size; i++){
+			if(! filter.test((T) entries[i])){
+				entries[n] = entries[i];
+				lowerBounds[n] = lowerBounds[i];
+				upperBounds[n] = upperBounds[i];
+				n++;
+			}
+		}
+		if(n == size)
+			return false;
+		Arrays.fill(entries, n, size, null);
+		size = n;
+		rebuildMaxUpperBound(0);
+		return true;
+	}
+
+	private void rebuildMaxUpperBound(int from) {
+		long max = (from > 0) ? maxUpperBound[from-1] : Long.MIN_VALUE;
+		for(int i=from; i<size; i++){
+			max = Math.max(max, upperBounds[i]);
+			maxUpperBound[i] = max;
+		}
+	}
+
+	@Override
+	public void removeEntriesOutsideRange(final long startTime, final long endTime) {
+		removeIf(new Predicate<T>() {
+			public boolean test(T n) {
+				return n.upperBound() < startTime || n.lowerBound() > endTime;
+			}
+		});
+	}
+
+	@Override
+	public synchronized void shiftAllEntriesBy(long shift) {
+		for(int i=0; i<size; i++){
+			entries[i].shiftTimesBy(shift);
+			lowerBounds[i] += shift;
+			upperBounds[i] += shift;
+			maxUpperBound[i] += shift;
+		}
+	}
+
+}
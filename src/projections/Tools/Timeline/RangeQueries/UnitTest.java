@@ -62,15 +62,17 @@ public class UnitTest {
 		RangeQueryTree.MAX_ENTRIES_PER_NODE = (int) (2+random.nextDouble()*500);
 
 		
-		RangeQueryArrayList db = new RangeQueryArrayList();
+		RangeQueryArrayList<TestRange1DObject> db = new RangeQueryArrayList<TestRange1DObject>();
 				
-		RangeQueryTree db2 = new RangeQueryTree();
+		RangeQueryTree<TestRange1DObject> db2 = new RangeQueryTree<TestRange1DObject>();
 
-		return testQuery1D(db) && testQuery1D(db2);
+		RangeQuerySortedArray<TestRange1DObject> db3 = new RangeQuerySortedArray<TestRange1DObject>();
+
+		return testQuery1D(db) && testQuery1D(db2) && testQuery1D(db3) && testOverlapping(db3);
 	}
 	
 
-	public boolean testQuery1D(Query1D db){
+	public boolean testQuery1D(Query1D<TestRange1DObject> db){
 		System.out.println("Starting test for " + db);
 
 		
@@ -118,7 +120,7 @@ public class UnitTest {
 			return false;
 		
 	
-		Iterator<Range1D> iter = db.iterator(35, 95);
+		Iterator<TestRange1DObject> iter = db.iterator(35, 95);
 		count = 0;
 		while(iter.hasNext()){
 			iter.next();
@@ -544,7 +546,7 @@ public class UnitTest {
 		int m = (int) (random.nextDouble() * n);   // max entries to remove
 		int l = (int) (random.nextDouble() * n);   // starting location to start removing
 		
-		LinkedList<TestRange1DObject> toRemove = new LinkedList();
+		LinkedList<TestRange1DObject> toRemove = new LinkedList<TestRange1DObject>();
 		
 		for(int i=0; i<n; i++){
 			long lb = (long) ( Math.pow(random.nextDouble()*5.0-3.0, 3)*100.0 + 3000.0);
@@ -557,7 +559,7 @@ public class UnitTest {
 
 		
 		// remove nothing 
-		if(db.removeAll(new LinkedList()) != false){
+		if(db.removeAll(new LinkedList<TestRange1DObject>()) != false){
 			System.out.println("FAILURE: removeAll() should have returned false for " + db);
 		}
 				
@@ -627,6 +629,66 @@ public class UnitTest {
 		System.out.println("\n\n");
 		return true;
 	}
-	
+
+
+	/** Compare range queries on randomly overlapping entries with a brute force count */
+	public boolean testOverlapping(Query1D<TestRange1DObject> db){
+		db.clear();
+		LinkedList<TestRange1DObject> all = new LinkedList<TestRange1DObject>();
+		for(int i=0; i<2000; i++){
+			long lb = (long) (random.nextDouble()*10000.0);
+			long ub = lb + (long) (Math.pow(random.nextDouble(), 4)*3000.0);
+			TestRange1DObject o = new TestRange1DObject(lb, ub);
+			all.add(o);
+			db.add(o);
+		}
+		if(! compareQueries(db, all))
+			return false;
+
+		db.shiftAllEntriesBy(-500);
+		db.removeEntriesOutsideRange(0, 5000);
+		Iterator<TestRange1DObject> iter = all.iterator();
+		while(iter.hasNext()){
+			TestRange1DObject o = iter.next();
+			if(o.ub < 0 || o.lb > 5000)
+				iter.remove();
+		}
+		if(db.size() != all.size())
+			return false;
+		if(! compareQueries(db, all))
+			return false;
+
+		System.out.println("Overlapping test passed for " + db);
+		return true;
+	}
+
+	private boolean compareQueries(Query1D<TestRange1DObject> db, LinkedList<TestRange1DObject> all){
+		for(int j=0; j<1000; j++){
+			long lb = (long) (random.nextDouble()*12000.0) - 1000;
+			long ub = (long) (lb + random.nextDouble()*500.0);
+
+			int expectedCount = 0;
+			for(TestRange1DObject o : all){
+				if(o.lb <= ub && o.ub >= lb)
+					expectedCount++;
+			}
+
+			Iterator<TestRange1DObject> iter = db.iterator(lb, ub);
+			int count = 0;
+			while(iter.hasNext()){
+				TestRange1DObject o = iter.next();
+				if(o.lowerBound() > ub || o.upperBound() < lb){
+					System.out.println("FAILURE: " + o + " is outside of the range " + lb + "," + ub);
+					return false;
+				}
+				count++;
+			}
+			if(count != expectedCount){
+				System.out.println("FAILURE: range " + lb + "," + ub + " produced " + count + " entries instead of " + expectedCount);
+				return false;
+			}
+		}
+		return true;
+	}
 	
 }
@@ -0,0 +1,230 @@
+package projections.Tools.Timeline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Keeps track of which PE rows of a Timeline are loaded, and how much memory
+ *  they take, so that the total can be kept within a budget.
+ *
+ *  When the rows take more than the budget, the rows painted least recently
+ *  are evicted, except for the pinned rows on and near the screen. An evicted
+ *  row is simply dropped; the next time it is painted it is re-read from its
+ *  log in the background, which seeks straight to the range through the log's
+ *  index.
+ *
+ *  Rows can also be deferred when a range is loaded, so that only the rows on
+ *  screen are read up front. The deferred rows are then streamed in, in
+ *  order, until they are all loaded or fill the budget, and any that are
+ *  painted before their turn are loaded right away.
+ *
+ *  A row whose log cannot be read is marked as failed, and is not read again
+ *  until the next range is loaded.
+ *
+ *  The rows loaded for an earlier range are told apart by their generation,
+ *  which changes each time all the rows are reloaded, so a background load
+ *  that finishes after the range has changed is thrown away.
+ *
+ *  Data makes its changes to the loaded rows while holding the lock of this
+ *  object, so that they are consistent with its bookkeeping.
+ */
+class RowCache {
+
+	/** Rows to pin before anything has been painted, enough to fill a screen */
+	private static final int INITIAL_PINNED_ROWS = 64;
+
+	private long budget = Long.MAX_VALUE;
+	private int generation = 0;
+
+	/** The estimated bytes used by each loaded PE row, least recently painted first */
+	private final LinkedHashMap<Integer, Long> resident = new LinkedHashMap<Integer, Long>(16, 0.75f, true);
+	private long residentBytes = 0;
+
+	/** Rows that have been loaded in this generation, so their statistics are known */
+	private final Set<Integer> seen = new HashSet<Integer>();
+	/** Rows that were evicted or deferred, and are not being loaded */
+	private final Set<Integer> unloaded = new HashSet<Integer>();
+	/** Rows being reloaded in the background */
+	private final Set<Integer> reloading = new HashSet<Integer>();
+	/** Rows whose loads failed, which are not tried again in this generation */
+	private final Set<Integer> failed = new HashSet<Integer>();
+	/** Deferred rows, in the order they are to be streamed in */
+	private final ArrayDeque<Integer> toStream = new ArrayDeque<Integer>();
+	/** The number of rows being streamed in */
+	private int streaming = 0;
+	/** The rows that must stay loaded, or null if nothing has been painted yet */
+	private Set<Integer> pinned;
+	/** While suspended, nothing is evicted */
+	private boolean suspended = false;
+
+	private long evictions = 0;
+
+	/** Forget all the rows, which are about to be reloaded */
+	synchronized void clear() {
+		generation++;
+		resident.clear();
+		residentBytes = 0;
+		seen.clear();
+		unloaded.clear();
+		reloading.clear();
+		failed.clear();
+		toStream.clear();
+		streaming = 0;
+	}
+
+	synchronized int generation() {
+		return generation;
+	}
+
+	synchronized void setBudget(long bytes) {
+		budget = bytes;
+	}
+
+	synchronized long getBudget() {
+		return budget;
+	}
+
+	synchronized long getResidentBytes() {
+		return residentBytes;
+	}
+
+	synchronized int getNumResident() {
+		return resident.size();
+	}
+
+	synchronized long getEvictions() {
+		return evictions;
+	}
+
+	synchronized void setSuspended(boolean suspended) {
+		this.suspended = suspended;
+	}
+
+	/** Record that pe was loaded, taking about the given number of bytes.
+	 *  @return true if it was loaded for the first time in this generation */
+	synchronized boolean loaded(int pe, long bytes) {
+		Long old = resident.put(pe, bytes);
+		if (old != null)
+			residentBytes -= old;
+		residentBytes += bytes;
+		unloaded.remove(pe);
+		reloading.remove(pe);
+		return seen.add(pe);
+	}
+
+	/** Whether pe has been loaded in this generation, so its statistics are known */
+	synchronized boolean everLoaded(int pe) {
+		return seen.contains(pe);
+	}
+
+	/** Record that the rows were just painted */
+	synchronized void painted(Collection<Integer> pes) {
+		for (Integer pe : pes)
+			resident.get(pe);
+	}
+
+	/** Pin the rows on or near the screen, which are never evicted */
+	synchronized void pin(Collection<Integer> pes) {
+		pinned = new HashSet<Integer>(pes);
+	}
+
+	/** The rows to evict to get back within the budget, which are forgotten here.
+	 *  Before anything is painted, the first rows of the display are pinned. */
+	synchronized List<Integer> chooseEvictions(List<Integer> peToLine) {
+		List<Integer> victims = new ArrayList<Integer>();
+		if (suspended || residentBytes <= budget)
+			return victims;
+		Set<Integer> keep = pinned;
+		if (keep == null)
+			keep = new HashSet<Integer>(peToLine.subList(0, Math.min(INITIAL_PINNED_ROWS, peToLine.size())));
+		Iterator<Map.Entry<Integer, Long>> iter = resident.entrySet().iterator();
+		while (residentBytes > budget && iter.hasNext()) {
+			Map.Entry<Integer, Long> e = iter.next();
+			if (keep.contains(e.getKey()))
+				continue;
+			residentBytes -= e.getValue();
+			unloaded.add(e.getKey());
+			victims.add(e.getKey());
+			iter.remove();
+			evictions++;
+		}
+		return victims;
+	}
+
+	/** Whether pe should be loaded now because it was evicted or deferred; if
+	 *  so, it is marked as being reloaded, so it is only asked for once */
+	synchronized boolean startReload(int pe) {
+		if (!unloaded.remove(pe))
+			return false;
+		reloading.add(pe);
+		return true;
+	}
+
+	/** A reload of pe for the given generation failed, so it is not asked for again */
+	synchronized void loadFailed(int pe, int gen) {
+		if (gen == generation && reloading.remove(pe))
+			failed.add(pe);
+	}
+
+	/** Whether the last load of pe failed */
+	synchronized boolean hasFailed(int pe) {
+		return failed.contains(pe);
+	}
+
+	/** The rows to load before anything else when a range is loaded: those
+	 *  pinned when the last range was painted, or else the first rows */
+	synchronized List<Integer> rowsToLoadFirst(List<Integer> peToLine) {
+		List<Integer> first = new ArrayList<Integer>();
+		if (pinned != null) {
+			for (Integer pe : peToLine) {
+				if (pinned.contains(pe))
+					first.add(pe);
+			}
+		}
+		if (first.isEmpty())
+			first.addAll(peToLine.subList(0, Math.min(INITIAL_PINNED_ROWS, peToLine.size())));
+		return first;
+	}
+
+	/** Defer loading the rows, which are streamed in this order */
+	synchronized void defer(List<Integer> pes) {
+		unloaded.addAll(pes);
+		toStream.addAll(pes);
+	}
+
+	/** The next deferred row to stream in for the given generation, or null
+	 *  if there are none left or the loaded rows fill the budget */
+	synchronized Integer nextToStream(int gen) {
+		if (gen != generation || residentBytes >= budget)
+			return null;
+		while (!toStream.isEmpty()) {
+			Integer pe = toStream.poll();
+			if (unloaded.remove(pe)) {
+				reloading.add(pe);
+				streaming++;
+				return pe;
+			}
+		}
+		return null;
+	}
+
+	/** Record that a row streamed in for the given generation is done.
+	 *  @return true if it was the last row being streamed in */
+	synchronized boolean streamed(int gen) {
+		return gen == generation && --streaming == 0;
+	}
+
+	/** The rows that were evicted or deferred, or are being reloaded */
+	synchronized Set<Integer> notResident() {
+		Set<Integer> missing = new HashSet<Integer>(unloaded);
+		missing.addAll(reloading);
+		return missing;
+	}
+
+}
@@ -0,0 +1,134 @@
+package projections.Tools.Timeline;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+
+import projections.analysis.Analysis;
+import projections.analysis.ProjMain;
+import projections.analysis.TimelineEvent;
+import projections.gui.MainWindow;
+
+/** Checks that the zoomed out view of an EntryMethodStore draws every row wider than a pixel,
+ *  including rows that have shorter rows nested in them. A row of work nested in an idle row
+ *  is drawn in preference to it, so the idle row is only drawn where nothing is nested.
+ *
+ *  Run with the sts file of any run, e.g. test/hello.sts, which is only used to set up Data.
+ */
+public class SummaryUnitTest {
+
+	/** Rows nested in an idle row all fall within this much of its start */
+	private static final long NESTED_IN_IDLE = 100;
+
+	Random random;
+
+	public static void main(String[] args) throws IOException {
+		MainWindow.CUR_VERSION = ProjMain.CUR_VERSION;
+		MainWindow.runObject = new Analysis[1];
+		MainWindow.runObject[0] = new Analysis();
+		MainWindow.runObject[0].initAnalysis(args.length > 0 ? args[0] : "test/hello.sts", null);
+		Data data = new Data(null);
+
+		SummaryUnitTest t = new SummaryUnitTest();
+		boolean success = t.testNested(data);
+		int count = 0;
+		while(success && count++ < 50){
+			success = t.doTest(data, count);
+		}
+
+		if(success){
+			System.out.println("Unit Test Passed for projections.Tools.Timeline.EntryMethodStore");
+		} else {
+			System.out.println("Unit Test Failed for projections.Tools.Timeline.EntryMethodStore");
+		}
+		System.exit(success ? 0 : 1);
+	}
+
+	/** A wide idle row that starts partway into a bucket, where a row of work nested in it is
+	 *  drawn instead, so that the idle row is first drawn for a later bucket */
+	public boolean testNested(Data data){
+		EntryMethodStore store = new EntryMethodStore(data, 0);
+		// 807 short rows over 9996 us, so that the 32 buckets are 313 us long
+		for(long t = 0; t < 10000; t += 10){
+			if(t < 1050 || t >= 3000)
+				store.add(new TimelineEvent(t, t + 5, 0, 0), null, null);
+		}
+		// The idle row starts at 1050, and the row nested in it is drawn for the bucket from 939 to 1252
+		store.add(new TimelineEvent(1050, 3000, Analysis.IDLE_ENTRY_POINT, 0), null, null);
+		store.add(new TimelineEvent(1060, 1190, 0, 0), null, null);
+		store.finish();
+
+		if(!check(store, 0, 10000, 700))
+			return false;
+		System.out.println("Nested test passed");
+		return true;
+	}
+
+	public boolean doTest(Data data, int seed){
+		random = new Random(seed);
+
+		// Short rows with gaps, some of them wide, idle or not, with short rows nested in them
+		EntryMethodStore store = new EntryMethodStore(data, 0);
+		long t = 0;
+		for(int i = 0; i < 5000; i++){
+			if(random.nextInt(50) == 0){
+				long end = t + 500 + random.nextInt(5000);
+				boolean idle = random.nextBoolean();
+				store.add(new TimelineEvent(t, end, idle ? Analysis.IDLE_ENTRY_POINT : 0, 0), null, null);
+				long nestedUntil = idle ? t + NESTED_IN_IDLE : end - 50;
+				for(long n = t + 1 + random.nextInt(50); n < nestedUntil; n += 20 + random.nextInt(200)){
+					long nestedEnd = Math.min(nestedUntil, n + 1 + random.nextInt(300));
+					store.add(new TimelineEvent(n, nestedEnd, 0, 0), null, null);
+					n = nestedEnd;
+				}
+				t = end + random.nextInt(20);
+			} else {
+				long end = t + 1 + random.nextInt(20);
+				store.add(new TimelineEvent(t, end, 0, 0), null, null);
+				t = end + random.nextInt(20);
+			}
+		}
+		store.finish();
+
+		for(int q = 0; q < 20; q++){
+			long lowerBound = (long) (random.nextDouble() * t / 2);
+			long upperBound = lowerBound + 1 + (long) (random.nextDouble() * t / 2);
+			long timePerPixel = 1 + (upperBound - lowerBound) / (50 + random.nextInt(2000));
+			if(!check(store, lowerBound, upperBound, timePerPixel)){
+				System.out.println("Failed for seed " + seed);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Whether the rows drawn for the range are in row order, each once, and include every row
+	 *  wider than a pixel, not counting the part of an idle row that has rows nested in it */
+	private boolean check(EntryMethodStore store, long lowerBound, long upperBound, long timePerPixel){
+		boolean[] drawn = new boolean[store.size()];
+		int previous = -1;
+		Iterator<EntryMethodObject> iter = store.iterator(lowerBound, upperBound, timePerPixel);
+		while(iter.hasNext()){
+			int row = iter.next().row;
+			if(row <= previous){
+				System.out.println("Row " + row + " was drawn after row " + previous);
+				return false;
+			}
+			drawn[row] = true;
+			previous = row;
+		}
+
+		for(int row = 0; row < store.size(); row++){
+			long begin = store.beginTime(row);
+			long end = begin + store.elapsedTime(row);
+			long nested = (store.flags(row) & EntryMethodStore.IS_IDLE_EP) != 0 ? NESTED_IN_IDLE : 0;
+			if(end - begin - nested >= timePerPixel && end >= lowerBound && begin <= upperBound && !drawn[row]){
+				System.out.println("Row " + row + " from " + begin + " to " + end + " was not drawn in " +
+						lowerBound + " to " + upperBound + " with " + timePerPixel + " per pixel");
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
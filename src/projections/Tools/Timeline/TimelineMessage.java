@@ -25,11 +25,17 @@ public class TimelineMessage implements Comparable
 
 	private int srcPE;
 
-	// The sending EntryMethodObject will set this field via setSender when it is
-	// created. If this is null, then there is no known sender (which can happen
-	// for dummy sends, for example)
-	private EntryMethodObject sender;
-	private List<EntryMethodObject> recipients;
+	// The EntryMethodStore holding the sending entry method sets these fields via
+	// setSender. If senderStore is null, then there is no known sender (which can
+	// happen for dummy sends, for example)
+	private EntryMethodStore senderStore;
+	private int senderRow;
+
+	// The first recipient is kept as its store and row, further ones (of
+	// multicasts and broadcasts) in moreRecipients
+	private EntryMethodStore recipientStore;
+	private int recipientRow;
+	private List<EntryMethodObject> moreRecipients;
 
 	/** A messages sent from srcPE, with eventid EventID */
 
@@ -116,26 +122,64 @@ public class TimelineMessage implements Comparable
 		Time += shift;
 	}
 	
-	protected void setSender(EntryMethodObject obj) {
-		sender = obj;
+	protected void setSender(EntryMethodStore store, int row) {
+		senderStore = store;
+		senderRow = row;
 	}
 
 	protected EntryMethodObject getSender() {
-		return sender;
+		return (senderStore == null) ? null : senderStore.get(senderRow);
 	}
 
 	protected void addRecipient(EntryMethodObject obj) {
 		synchronized (this) {
-			if (recipients == null) {
-				// Set initialCapacity to 1 to prevent recipients from allocating more memory than needed
-				recipients = new ArrayList<>(1);
+			if (recipientStore == null) {
+				recipientStore = obj.store;
+				recipientRow = obj.row;
+			} else if (!(recipientStore == obj.store && recipientRow == obj.row)) {
+				if (moreRecipients == null) {
+					// Set initialCapacity to 1 to prevent recipients from allocating more memory than needed
+					moreRecipients = new ArrayList<>(1);
+				}
+				if (!moreRecipients.contains(obj))
+					moreRecipients.add(obj);
 			}
-			recipients.add(obj);
 		}
 	}
 
+	/** Forget the recipients in a store whose rows are being dropped */
+	protected void removeRecipients(EntryMethodStore store) {
+		synchronized (this) {
+			if (moreRecipients != null) {
+				for (int i = moreRecipients.size() - 1; i >= 0; i--) {
+					if (moreRecipients.get(i).store == store)
+						moreRecipients.remove(i);
+				}
+			}
+			if (recipientStore == store) {
+				recipientStore = null;
+				if (moreRecipients != null && !moreRecipients.isEmpty()) {
+					EntryMethodObject first = moreRecipients.remove(0);
+					recipientStore = first.store;
+					recipientRow = first.row;
+				}
+			}
+			if (moreRecipients != null && moreRecipients.isEmpty())
+				moreRecipients = null;
+		}
+	}
+
+	/** The entry methods known to have been invoked by this message, or null if there are none */
 	protected List<EntryMethodObject> getRecipients() {
-		return recipients;
+		synchronized (this) {
+			if (recipientStore == null)
+				return null;
+			List<EntryMethodObject> recipients = new ArrayList<>(1 + (moreRecipients == null ? 0 : moreRecipients.size()));
+			recipients.add(recipientStore.get(recipientRow));
+			if (moreRecipients != null)
+				recipients.addAll(moreRecipients);
+			return recipients;
+		}
 	}
 
 	protected int getEntry() {
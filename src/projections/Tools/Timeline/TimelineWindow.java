@@ -87,6 +87,10 @@ public class TimelineWindow extends ProjectionsWindow implements MainHandler {
         thisWindow = this;
 		
 		data = new Data(this);
+		// Off-screen rows are evicted once the loaded rows take half of the heap
+		data.setMemoryBudget(Runtime.getRuntime().maxMemory() / 2);
+		// Show the rows on screen as soon as they are read, and stream in the rest
+		data.setLoadRowsOnDemand(true);
 		
 		labelPanel = new LabelPanel(data);
 		
@@ -134,7 +138,7 @@ public class TimelineWindow extends ProjectionsWindow implements MainHandler {
      *  @note Required for interface MainHandler 
      */
 	public void notifyProcessorListHasChanged() {
-			mainPanel.loadTimelineObjects(false, this, true);
+			mainPanel.loadTimelineObjects(this, true);
 	}
 
 	
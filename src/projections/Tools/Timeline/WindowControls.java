@@ -6,6 +6,8 @@ import java.awt.GridBagLayout;
 import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
 import java.io.File;
@@ -29,6 +31,7 @@ import javax.swing.JPanel;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JTextField;
 import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.JFileChooser;
 
 import projections.gui.ChooseEntriesWindow;
@@ -113,6 +116,11 @@ ItemListener {
 	private JMenuItem mShowHideUserEvents;
 	
 	private JCheckBoxMenuItem cbDontLoadMessages;
+	private JMenuItem mMemoryBudget;
+
+	/** Shows the heap in use, and how many rows are loaded and evicted */
+	private JLabel memoryStatus;
+	private Timer memoryStatusTimer;
 	
 
 	private JMenuItem mDisplayLegend;
@@ -202,7 +210,7 @@ ItemListener {
 						data.amountTopTimes(toolSpecificDialogPanel.dialogAmountTopTimes.getValue());	
 					}
 
-					parentWindow.mainPanel.loadTimelineObjects(true, parentWindow, true);
+					parentWindow.mainPanel.loadTimelineObjects(parentWindow, true);
 					cbUserTable.setText("View " + data.getNumUserEvents() + " User Events");
 					return null;
 				}
@@ -295,7 +303,7 @@ ItemListener {
 
 				scaleField.setText("" + 1.0);	
 
-				parentWindow.mainPanel.loadTimelineObjects(true, parentWindow, true);
+				parentWindow.mainPanel.loadTimelineObjects(parentWindow, true);
 
 				cbUserTable.setText("View User Events (" + data.getNumUserEvents() + ")");
 
@@ -326,12 +334,18 @@ ItemListener {
 			data.setViewType(Data.ViewType.VIEW_SUPERCOMPACT);
 		
 		else if(c == mSaveFullTimeline){
-			// Create a blank panel to put in the upper left position. The timeline tool currently only maintains the other three panels that are displayed.
-			SolidColorJPanel upperLeftPanel = new SolidColorJPanel(data.getBackgroundColor(), parentWindow.labelPanel.getWidth(), parentWindow.axisPanel.getHeight() );
-			// Create a panel that is rendered from the four panels we supply
-			Render2by2PanelGrid gridPanel = new Render2by2PanelGrid(upperLeftPanel, parentWindow.axisPanel, parentWindow.labelPanel, parentWindow.mainPanel);
-			// Save it to a file which is chosen by the user
-			JPanelToImage.saveToFileChooserSelection(gridPanel, "Save Timeline Image", "./TimelineScreenshot.png");		
+			// Every row is drawn, so bring back any that were evicted
+			data.loadAllRows(parentWindow);
+			try {
+				// Create a blank panel to put in the upper left position. The timeline tool currently only maintains the other three panels that are displayed.
+				SolidColorJPanel upperLeftPanel = new SolidColorJPanel(data.getBackgroundColor(), parentWindow.labelPanel.getWidth(), parentWindow.axisPanel.getHeight() );
+				// Create a panel that is rendered from the four panels we supply
+				Render2by2PanelGrid gridPanel = new Render2by2PanelGrid(upperLeftPanel, parentWindow.axisPanel, parentWindow.labelPanel, parentWindow.mainPanel);
+				// Save it to a file which is chosen by the user
+				JPanelToImage.saveToFileChooserSelection(gridPanel, "Save Timeline Image", "./TimelineScreenshot.png");		
+			} finally {
+				data.resumeEviction();
+			}
 		}
 
 		else if(c == mSaveFullTimelineWhiteBG){
@@ -339,18 +353,40 @@ ItemListener {
 			Color oldFG = data.getForegroundColor();
 			data.setForegroundColor(Color.black);
 			data.setBackgroundColor(Color.white);
-				
-			// Create a blank panel to put in the upper left position. The timeline tool currently only maintains the other three panels that are displayed.
-			SolidColorJPanel upperLeftPanel = new SolidColorJPanel(data.getBackgroundColor(), parentWindow.labelPanel.getWidth(), parentWindow.axisPanel.getHeight() );
-			// Create a panel that is rendered from the four panels we supply
-			Render2by2PanelGrid gridPanel = new Render2by2PanelGrid(upperLeftPanel, parentWindow.axisPanel, parentWindow.labelPanel, parentWindow.mainPanel);
-			// Save it to a file which is chosen by the user
-			JPanelToImage.saveToFileChooserSelection(gridPanel, "Save Timeline Image", "./TimelineScreenshot.png");
+
+			data.loadAllRows(parentWindow);
+			try {
+				// Create a blank panel to put in the upper left position. The timeline tool currently only maintains the other three panels that are displayed.
+				SolidColorJPanel upperLeftPanel = new SolidColorJPanel(data.getBackgroundColor(), parentWindow.labelPanel.getWidth(), parentWindow.axisPanel.getHeight() );
+				// Create a panel that is rendered from the four panels we supply
+				Render2by2PanelGrid gridPanel = new Render2by2PanelGrid(upperLeftPanel, parentWindow.axisPanel, parentWindow.labelPanel, parentWindow.mainPanel);
+				// Save it to a file which is chosen by the user
+				JPanelToImage.saveToFileChooserSelection(gridPanel, "Save Timeline Image", "./TimelineScreenshot.png");
+			} finally {
+				data.resumeEviction();
+			}
 
 			data.setForegroundColor(oldFG);
 			data.setBackgroundColor(oldBG);
 		
 		}
+
+		else if(c == mMemoryBudget){
+			long budget = data.getMemoryBudget();
+			String current = (budget == Long.MAX_VALUE) ? "" : Long.toString(budget / (1024 * 1024));
+			String input = JOptionPane.showInputDialog(parentWindow, "Memory budget for the loaded PE rows, in MB (leave empty for no limit).\n" +
+					"Rows scrolled off screen are evicted beyond it, and re-read from the logs when scrolled back to.", current);
+			if (input != null) {
+				input = input.trim();
+				try {
+					long mb = input.length() == 0 ? -1 : Long.parseLong(input);
+					data.setMemoryBudget(mb < 0 ? Long.MAX_VALUE : mb * 1024 * 1024);
+					memoryStatus.setText(data.memoryStatus());
+				} catch (NumberFormatException e) {
+					JOptionPane.showMessageDialog(parentWindow, "\"" + input + "\" is not a number of MB", "Invalid Memory Budget", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		}
 		
 
 		else if(c == mSaveScreenshot){
@@ -701,6 +737,9 @@ ItemListener {
 		cbDontLoadMessages.setSelected(false);
 		cbDontLoadMessages.addItemListener(this);
 		submenu.add(cbDontLoadMessages);
+		mMemoryBudget = new JMenuItem("Set Memory Budget...");
+		mMemoryBudget.addActionListener(this);
+		submenu.add(mMemoryBudget);
 		experimentalMenu.add(submenu);
 
 		
@@ -823,10 +862,32 @@ ItemListener {
 		Util.gblAdd(zoomPanel, new JLabel("Selection Length", JLabel.CENTER),     gbc, 5, 1, 1, 1, 1, 1);
 
 
+		// MEMORY STATUS
+
+		memoryStatus = new JLabel(" ", JLabel.CENTER);
+		memoryStatusTimer = new Timer(1000, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				memoryStatus.setText(data.memoryStatus());
+			}
+		});
+		// Only update the status while the window is showing
+		addHierarchyListener(new HierarchyListener() {
+			public void hierarchyChanged(HierarchyEvent e) {
+				if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0)
+					return;
+				if (isShowing())
+					memoryStatusTimer.start();
+				else
+					memoryStatusTimer.stop();
+			}
+		});
+
+
 		this.setLayout(gbl);
 		Util.gblAdd(this, cbPanel, gbc, 0, 1, 1, 1, 1, 1);
 		Util.gblAdd(this, buttonPanel, gbc, 0, 3, 1, 1, 1, 1);
 		Util.gblAdd(this, zoomPanel, gbc, 0, 4, 1, 1, 1, 1);
+		Util.gblAdd(this, memoryStatus, gbc, 0, 5, 1, 1, 1, 1);
 
 	}
 
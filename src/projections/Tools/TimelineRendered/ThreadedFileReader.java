@@ -46,7 +46,7 @@ class ThreadedFileReader implements MainHandler, Runnable {
 		// create a MainPanel for it	
 		MainPanel displayPanel = new MainPanel(data, this);
 		System.out.println("Calling loadTimelineObjects");
-		displayPanel.loadTimelineObjects(false, null, false);
+		displayPanel.loadTimelineObjects(null, false);
 
 		displayPanel.setSize(width,data.singleTimelineHeight());
 		displayPanel.revalidate();
@@ -0,0 +1,80 @@
+package projections.Tools.UserStatsOverTime;
+
+import java.util.Arrays;
+
+import projections.Tools.ThreadedFileReaderBase;
+import projections.analysis.LogEventVisitor;
+import projections.analysis.ProjDefs;
+import projections.gui.MainWindow;
+import projections.misc.LogEntry;
+
+/** The reader threads for the User Stats over Time tool. Each collects the values of one stat on one PE,
+ *  which the window then aggregates across the PEs in order. */
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable, LogEventVisitor {
+
+	private int statIndex;
+	private long startTime;
+	private long endTime;
+
+	private boolean inRange;
+
+	// The wall time, user specified time and value of each update of the stat, in the first count entries
+	long[] times;
+	double[] userTimes;
+	double[] stats;
+	int count;
+
+	protected ThreadedFileReader(int pe, int statIndex, long startTime, long endTime) {
+		this.statIndex = statIndex;
+		this.startTime = startTime;
+		this.endTime = endTime;
+
+		attach(pe, this);
+	}
+
+	public void run() {
+		// Possibly shared with the readers of other tools
+		readLog();
+	}
+
+	public void beginLog() {
+		inRange = false;
+		times = new long[64];
+		userTimes = new double[64];
+		stats = new double[64];
+		count = 0;
+	}
+
+	public boolean visit(LogEntry logData) {
+		if (logData.type != ProjDefs.USER_STAT)
+			return true;
+
+		if (!inRange) {
+			//Skip to the first entry in desired time frame
+			if (logData.time < startTime)
+				return true;
+			inRange = true;
+		} else if (logData.time > endTime) {
+			//Stop once we are over end time frame
+			return false;
+		}
+
+		//If this is the stat we are looking for, store the data.
+		if (MainWindow.runObject[myRun].getUserDefinedStatIndex(logData.userEventID) == statIndex) {
+			if (count == times.length) {
+				times = Arrays.copyOf(times, 2 * count);
+				userTimes = Arrays.copyOf(userTimes, 2 * count);
+				stats = Arrays.copyOf(stats, 2 * count);
+			}
+			times[count] = logData.time;
+			userTimes[count] = logData.userTime;
+			stats[count] = logData.stat;
+			count++;
+		}
+		return true;
+	}
+
+	public void endOfLog() {
+		// Done reading file
+	}
+}
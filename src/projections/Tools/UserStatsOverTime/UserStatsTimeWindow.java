@@ -31,10 +31,6 @@ import projections.gui.MainWindow;
 import projections.gui.StatDialog;
 import projections.gui.ColorManager;
 import projections.gui.JPanelToImage;
-import projections.misc.LogEntry;
-import projections.analysis.ProjDefs;
-import projections.analysis.GenericLogReader;
-import projections.analysis.EndOfLogSuccess;
 import projections.analysis.TimedProgressThreadExecutor;
 
 import org.jfree.data.xy.XYSeries;
@@ -397,97 +393,72 @@ implements ItemListener, ActionListener
 		//Get full string to print out for dumping this line
 		statInfo.add(seriesName + "   Aggregate: " + xAgg + "   StartTime: " + startTime + "  EndTime: " + endTime);
 
+		// Read the PEs in parallel, then aggregate their points in order
+		LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
+		for(Integer pe : processorList) {
+			readyReaders.add(new ThreadedFileReader(pe, curStat, startTime, endTime));
+		}
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading User Stats in Parallel", readyReaders, thisWindow, true);
+		threadManager.runAll();
+
 		int numPes = 0;
 		//Loop through every PE
-		for(Integer pe : processorList) {
+		for(Runnable r : readyReaders) {
+			ThreadedFileReader reader = (ThreadedFileReader) r;
 			numPes+=1;
 			int pointIndex = 0;
-			GenericLogReader reader = new GenericLogReader( pe,
-					MainWindow.runObject[myRun].getVersion());
-			LogEntry logData;
-
-			// Skip to the first begin.
-			try {
-				logData = reader.nextEventOfType(ProjDefs.USER_STAT);
-
-				//Loop until first entry in desired time fram
-				while (logData.time < startTime) {
-					logData = reader.nextEventOfType(ProjDefs.USER_STAT);
+			double time = 0;
+			for (int i = 0; i < reader.count; i++) {
+				long logTime = reader.times[i];
+				double userTime = reader.userTimes[i];
+				double stat = reader.stats[i];
+
+				//Determine what time to store based off user choices
+				if(xType.equals("User Specified"))
+					time = userTime;
+				else if (xType.equals("Ordered"))
+					time = pointIndex;
+				else time = logTime;
+
+				//If this is the first PE, just store the point
+				if(numPes==1) {
+					data.add(time,stat);
+					dumpedData.add(logTime,userTime);
 				}
-				int statIndex = 0;
-				double time = 0;
-				while (true) {
-
-					//find the statIndex for the current LogEntry
-					statIndex = MainWindow.runObject[myRun].getUserDefinedStatIndex(logData.userEventID);
-					//If this is the stat we are looking for, store the data.
-					if(curStat==statIndex){
-						//Determine what time to store based off user choices
-						if(xType.equals("User Specified"))
-							time = logData.userTime;
-						else if (xType.equals("Ordered"))
-							time = pointIndex;
-						else time = logData.time;
-
-						//If this is the first PE, just store the point
-						if(numPes==1) {
-							data.add(time,logData.stat);
-							dumpedData.add(logData.time,logData.userTime);
-						}
-
-						//Otherwise, we have to store according to our aggregating rules
-						else {
-							//Make sure this PE doesn't have more points than the 1st PE did.
-							if(pointIndex>=data.getItemCount()) {
-								System.out.println("Error: Uneven number of points per PE. Can not aggregate across PEs. Load 1 PE per plot");
-								return false;
-							}
-							//Aggregate data appropriately
-							if(xAgg.equals("Min")) {
-								if(logData.stat < data.getY(pointIndex).doubleValue())
-									data.updateByIndex(pointIndex,logData.stat);
-							}
-							else if (xAgg.equals("Max")) {
-								if(logData.stat > data.getY(pointIndex).doubleValue())
-									data.updateByIndex(pointIndex,logData.stat);
-							}
 
-							else data.updateByIndex(pointIndex, data.getY(pointIndex).doubleValue() + logData.stat);
-						}
-						//increase global stats, such as total calls, total sum, avg, max, min
-						nCalls=nCalls+1;
-						sum = sum + logData.stat;
-						if(nCalls==1){
-							min = logData.stat;
-							max = logData.stat;
-						}
-						else if (logData.stat<min)
-							min = logData.stat;
-						else if (logData.stat>max)
-							max =logData.stat;
-						/*Increment pointIndex, which indicates which numbered point we are on.
-						Useful for determining item count and for storing data as Ordered. */
-						pointIndex+=1;
+				//Otherwise, we have to store according to our aggregating rules
+				else {
+					//Make sure this PE doesn't have more points than the 1st PE did.
+					if(pointIndex>=data.getItemCount()) {
+						System.out.println("Error: Uneven number of points per PE. Can not aggregate across PEs. Load 1 PE per plot");
+						return false;
 					}
-
-					logData = reader.nextEventOfType(ProjDefs.USER_STAT);
-					//Stop once we are over end time frame
-					if (logData.time > endTime) {
-						break;
+					//Aggregate data appropriately
+					if(xAgg.equals("Min")) {
+						if(stat < data.getY(pointIndex).doubleValue())
+							data.updateByIndex(pointIndex,stat);
+					}
+					else if (xAgg.equals("Max")) {
+						if(stat > data.getY(pointIndex).doubleValue())
+							data.updateByIndex(pointIndex,stat);
 					}
-				}
-
-			}catch (EndOfLogSuccess e) {
-			// do nothing
-			} catch (IOException e) {
-				System.out.println("Exception while reading log file " + pe);
-			}
-
 
-			try {
-				reader.close();
-			} catch (IOException e1) {
-				System.err.println("Error: could not close log file reader for processor " + pe );
+					else data.updateByIndex(pointIndex, data.getY(pointIndex).doubleValue() + stat);
+				}
+				//increase global stats, such as total calls, total sum, avg, max, min
+				nCalls=nCalls+1;
+				sum = sum + stat;
+				if(nCalls==1){
+					min = stat;
+					max = stat;
+				}
+				else if (stat<min)
+					min = stat;
+				else if (stat>max)
+					max =stat;
+				/*Increment pointIndex, which indicates which numbered point we are on.
+				Useful for determining item count and for storing data as Ordered. */
+				pointIndex+=1;
 			}
 
 			//Make sure that this PE doesn't have LESS points than the 1st PE did.
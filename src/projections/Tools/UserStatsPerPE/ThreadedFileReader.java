@@ -0,0 +1,80 @@
+package projections.Tools.UserStatsPerPE;
+
+import projections.Tools.ThreadedFileReaderBase;
+import projections.analysis.LogEventVisitor;
+import projections.analysis.ProjDefs;
+import projections.gui.MainWindow;
+import projections.misc.LogEntry;
+
+/** The reader threads for the User Stats per PE tool. Each fills in the row of every array for one PE. */
+class ThreadedFileReader extends ThreadedFileReaderBase implements Runnable, LogEventVisitor {
+
+	private long startTime;
+	private long endTime;
+	private double[] avgValue;
+	private double[] maxValue;
+	private double[] minValue;
+	private int[] numCalls;
+	private double[] statRate;
+
+	private boolean inRange;
+
+	protected ThreadedFileReader(int pe, long startTime, long endTime, double[] avgValue, double[] maxValue,
+			double[] minValue, int[] numCalls, double[] statRate) {
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.avgValue = avgValue;
+		this.maxValue = maxValue;
+		this.minValue = minValue;
+		this.numCalls = numCalls;
+		this.statRate = statRate;
+
+		attach(pe, this);
+	}
+
+	public void run() {
+		// Possibly shared with the readers of other tools
+		readLog();
+	}
+
+	public void beginLog() {
+		inRange = false;
+	}
+
+	public boolean visit(LogEntry logData) {
+		if (logData.type != ProjDefs.USER_STAT)
+			return true;
+
+		if (!inRange) {
+			// Skip to the first stat in the time range
+			if (logData.time < startTime)
+				return true;
+			inRange = true;
+		} else if (logData.time > endTime) {
+			//continue until end time is reached
+			return false;
+		}
+
+		//Read in index of stat in current LogEntry
+		int statIndex = MainWindow.runObject[myRun].getUserDefinedStatIndex(logData.userEventID);
+		//Store the data accordingly
+		avgValue[statIndex] += logData.stat;
+		statRate[statIndex] += logData.stat;
+		//keeps track of how many times this specific stat was updated on this specific PE
+		numCalls[statIndex]+=1;
+		//Set min and max accordingly.
+		if(numCalls[statIndex]==1){
+			minValue[statIndex]=logData.stat;
+			maxValue[statIndex]= logData.stat;
+		}
+		else if (logData.stat<minValue[statIndex])
+			minValue[statIndex] =logData.stat;
+		else if (logData.stat>maxValue[statIndex])
+			maxValue[statIndex] =logData.stat;
+		return true;
+	}
+
+	public void endOfLog() {
+		// Done reading file
+	}
+}
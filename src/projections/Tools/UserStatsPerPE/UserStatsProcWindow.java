@@ -15,7 +15,6 @@ import java.text.DecimalFormat;
 import java.util.LinkedList;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.io.IOException;
 
 import javax.swing.*;
 
@@ -27,10 +26,6 @@ import projections.gui.RangeDialog;
 import projections.gui.U;
 import projections.gui.Util;
 import projections.gui.ColorManager;
-import projections.misc.LogEntry;
-import projections.analysis.ProjDefs;
-import projections.analysis.GenericLogReader;
-import projections.analysis.EndOfLogSuccess;
 import projections.analysis.TimedProgressThreadExecutor;
 
 /* UserStats Per PE Tool by Joshua lew 7/6/16. This tool plots every User Stat on a bar graph.
@@ -219,62 +214,16 @@ implements ItemListener, ActionListener
 		numCalls = new int[numPEs][numStats];
 		statRate = new double[numPEs][numStats];
 
+		// Read the PEs in parallel, each into its own row
+		LinkedList<Runnable> readyReaders = new LinkedList<Runnable>();
 		int peIdx = 0;
 		for(Integer pe : processorList) {
-
-			GenericLogReader reader = new GenericLogReader( pe,
-					MainWindow.runObject[myRun].getVersion());
-			LogEntry logData;
-
-			// Skip to the first begin.
-			try {
-				logData = reader.nextEventOfType(ProjDefs.USER_STAT);
-
-				while (logData.time < startTime) {
-					logData = reader.nextEventOfType(ProjDefs.USER_STAT);
-				}
-				int statIndex;
-				while (true) {
-
-					//Read in index of stat in current LogEntry
-					statIndex = MainWindow.runObject[myRun].getUserDefinedStatIndex(logData.userEventID);
-					//Store the data accordingly
-					avgValue[peIdx][statIndex] += logData.stat;
-					statRate[peIdx][statIndex] += logData.stat;
-					//keeps track of how many times this specific stat was updated on this specific PE
-					numCalls[peIdx][statIndex]+=1;
-					//Set min and max accordingly.
-					if(numCalls[peIdx][statIndex]==1){
-						minValue[peIdx][statIndex]=logData.stat;
-						maxValue[peIdx][statIndex]= logData.stat;
-					}
-					else if (logData.stat<minValue[peIdx][statIndex])
-						minValue[peIdx][statIndex] =logData.stat;
-					else if (logData.stat>maxValue[peIdx][statIndex])
-						maxValue[peIdx][statIndex] =logData.stat;
-
-					//continue until end time is reached
-					logData = reader.nextEventOfType(ProjDefs.USER_STAT);
-					if (logData.time > endTime) {
-						break;
-					}
-				}
-			}catch (EndOfLogSuccess e) {
-			// do nothing
-			} catch (IOException e) {
-				System.out.println("Exception while reading log file " + pe);
-			}
-
-
-			try {
-				reader.close();
-			} catch (IOException e1) {
-				System.err.println("Error: could not close log file reader for processor " + pe );
-			}
-			//increment peIdx and loop again
+			readyReaders.add(new ThreadedFileReader(pe, startTime, endTime, avgValue[peIdx], maxValue[peIdx],
+					minValue[peIdx], numCalls[peIdx], statRate[peIdx]));
 			peIdx+=1;
-
 		}
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Loading User Stats in Parallel", readyReaders, thisWindow, true);
+		threadManager.runAll();
 
 		double interval = (endTime - startTime)/1000.0;
 		/*To make avgValue, we must divide each element, which currently holds its sum,
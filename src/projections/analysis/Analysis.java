@@ -51,6 +51,7 @@ public class Analysis {
   private StsReader sts;
   
   public LogLoader logLoader;  //Only for .log files
+  private LogMetadata logMetadata; //Only for .log files
   
   public SumAnalyzer sumAnalyzer; //Only for .sum files
   
@@ -169,6 +170,7 @@ public class Analysis {
 		  // Initialize Log Data
 		  if (hasLogFiles()) {
 			  logLoader = new LogLoader();
+			  logMetadata = new LogMetadata(fileNameHandler.getLogMetadataName(), getVersion());
 		  }
 
 		  // Build POSE dop Data
@@ -198,6 +200,11 @@ public class Analysis {
 	  
     }
 
+  /** Cached per-PE times and counts from the log files */
+  protected LogMetadata getLogMetadata() {
+	  return logMetadata;
+  }
+
   public long findEarliestBeginEventTime(SortedSet<Integer> selectedPEs, SortedSet<Integer> validPEs) {
 	if (hasLogFiles()){
 		logLoader = new LogLoader();
@@ -466,11 +473,10 @@ public class Analysis {
 			// Otherwise, the best we can do is to use the utilization data without EP info
 			else {
 				long total = 0;
-				byte utilData[][] = sumAnalyzer.getProcessorUtilization();
 				int intervalStart = (int) (begintime / getSummaryIntervalSize());
 				int intervalEnd = (int) Math.ceil(endtime / getSummaryIntervalSize()) - 1;
 				for (int i = intervalStart; i <= intervalEnd; i++) {
-					total += utilData[pnum][i];
+					total += sumAnalyzer.getProcessorUtilization(pnum, i);
 				}
 				// Processor utilization data is already in terms of percent, so return it directly after averaging over the
 				// intervals rather than proceeding to the time -> percent conversion at the end of this function
@@ -12,7 +12,7 @@ import java.io.IOException;
 
 
 /** A little class that can pull integers and strings out of a String  */
-class AsciiLineParser {
+class AsciiLineParser implements LineTokenizer {
 	
 	/// The next position in the string
 	private int pos;
@@ -40,7 +40,7 @@ class AsciiLineParser {
 		}
 	}
 
-	final protected String nextString(int strlen) {
+	final public String nextString(int strlen) {
     		String ret = line.substring(pos, pos+strlen);
 		pos += strlen;
 		return ret;
@@ -48,7 +48,7 @@ class AsciiLineParser {
 
     // Checks whether there is another field available in the line, without
     // returning that field or modifying the line.
-    final protected boolean hasNextField() {
+    final public boolean hasNextField() {
         while (pos < lineLength && Character.isWhitespace(line.charAt(pos))) {
             pos++;
         }
@@ -59,7 +59,7 @@ class AsciiLineParser {
 	//Read a positive long from the current file 
 	//With version 7.0, negative numbers have to be
 	//  properly handled as well.
-	protected final long nextLong() throws IOException {
+	public final long nextLong() throws IOException {
 		if(line == null){
 			throw new IOException();
 		}
@@ -77,7 +77,7 @@ class AsciiLineParser {
 		return ret*multiplier;
 	}
 	//Reads in a double.
-        protected final double nextDouble() throws IOException {
+        public final double nextDouble() throws IOException {
 		if(line == null){
 			throw new IOException();
 		}
@@ -0,0 +1,888 @@
+package projections.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import javax.imageio.ImageIO;
+
+import projections.Tools.CommunicationPerPE.CommLoader;
+import projections.Tools.Extrema.ExtremaLoader;
+import projections.Tools.Histogram.HistogramLoader;
+import projections.Tools.Overview.OverviewLoader;
+import projections.Tools.TimeProfile.TimeProfileLoader;
+import projections.gui.ColorMap;
+import projections.gui.MainWindow;
+import projections.gui.Util;
+
+/**
+ *  Batch runs the analysis tools over the logs of a run without opening any
+ *  windows, and writes their results to files: CSV for the tables, a PNG for
+ *  the Overview, and summary.json describing what was computed and pointing
+ *  at the rest. It runs under -Djava.awt.headless=true.
+ *
+ *  The readers of all the selected tools are run together on the shared
+ *  worker pool, so the logs of the PEs are read in parallel and the tools
+ *  that share scans read each log once between them.
+ *
+ *  With -workers n, the PEs are instead split into n contiguous shards, each
+ *  read by a separate worker JVM running Batch -worker. The workers send
+ *  their results back as BatchResults over a socket, and this process, the
+ *  coordinator, merges them and writes the files. The critical path needs
+ *  the whole trace, so the coordinator reads it itself while the workers
+ *  run. With -listen, the coordinator starts no workers itself, but prints
+ *  the command line for each, to be run on any hosts that share the
+ *  coordinator's filesystem. Only then does it accept connections from
+ *  other hosts. Each command line carries a random token, and the
+ *  coordinator ignores connections that do not send it back.
+ *
+ *  Usage: java projections.analysis.Batch [options] sts-filename
+ */
+public class Batch {
+
+	private static final String TIME_PROFILE = "timeprofile";
+	private static final String HISTOGRAM = "histogram";
+	private static final String USAGE = "usage";
+	private static final String COMMUNICATION = "comm";
+	private static final String EXTREMA = "extrema";
+	private static final String OVERVIEW = "overview";
+	private static final String CRITICAL_PATH = "criticalpath";
+	private static final String[] ALL_TOOLS = {TIME_PROFILE, HISTOGRAM, USAGE, COMMUNICATION, EXTREMA, OVERVIEW, CRITICAL_PATH};
+
+	/** How often the coordinator checks on its workers while waiting for their results */
+	private static final int ACCEPT_TIMEOUT_MILLIS = 1000;
+	/** How long the coordinator waits on a connected worker that sends nothing */
+	private static final int READ_TIMEOUT_MILLIS = 60 * 1000;
+
+	// Histogram bins, the same defaults as the Histogram dialog
+	private static final int timeNumBins = 101;
+	private static final long timeBinSize = 1000;
+	private static final int msgNumBins = 201;
+	private static final long msgBinSize = 100;
+	private static final int idleNumBins = 101;
+	private static final long idleBinSize = 1;
+
+	private String stsFile;
+	private File outDir = new File(".");
+	private String peList;
+	private long beginTime = -1;
+	private long endTime = -1;
+	private long intervalSize = 0;
+	private final Set<String> tools = new LinkedHashSet<String>();
+
+	// Sharding across worker processes
+	private int numWorkers = 0;
+	private String workerHeap;
+	private int workerThreads = 0;
+	private int listenPort = -1;
+	/** host:port:shard:token of the coordinator, if this is a worker */
+	private String workerOf;
+
+	private Analysis run;
+	private SortedSet<Integer> pes;
+	private int startInterval;
+	private int endInterval;
+	private int numEPs;
+
+	/** The files written, in order, for summary.json */
+	private final List<String> written = new ArrayList<String>();
+	/** Non-null if the critical path was computed, for summary.json */
+	private CriticalPath criticalPath;
+
+	private static void help() {
+		System.out.println();
+		System.out.println("Usage: projections-batch [options] sts-filename");
+		System.out.println();
+		System.out.println("-o <dir>: write the results into this directory (default: .)");
+		System.out.println("-pes <list>: the PEs to analyze, e.g. 0-7,16,32-63:2 (default: all)");
+		System.out.println("-begin <us>, -end <us>: the time range (default: the whole run)");
+		System.out.println("-interval <us>: interval size for Time Profile and Overview " +
+				"(default: a thousandth of the range)");
+		System.out.println("-tools <list>: comma separated, from " + String.join(",", ALL_TOOLS) +
+				" (default: all)");
+		System.out.println("-threads <n>: number of threads used to read logs in parallel");
+		System.out.println("-binary-cache: record .projbin binary caches of large logs, to reopen them faster");
+		System.out.println("-workers <n>: split the PEs across n worker processes");
+		System.out.println("-worker-heap <size>: maximum heap of each worker, e.g. 4g (default: the JVM's)");
+		System.out.println("-worker-threads <n>: threads per worker (default: the cores divided by the workers)");
+		System.out.println("-listen <port>: start no workers, but wait on this port for workers " +
+				"started by hand, printing their command lines");
+		System.out.println();
+		System.exit(0);
+	}
+
+	public static void main(String[] args) {
+		Batch batch = new Batch();
+		try {
+			batch.parseArgs(args);
+			batch.init();
+			batch.analyze();
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		} catch (IllegalArgumentException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(2);
+		}
+		System.exit(0);
+	}
+
+	private void parseArgs(String[] args) {
+		for (int i = 0; i < args.length; i++) {
+			String a = args[i];
+			if (a.equals("-h") || a.equals("--help")) {
+				help();
+			} else if (a.equals("-o")) {
+				outDir = new File(nextArg(args, ++i));
+			} else if (a.equals("-pes")) {
+				peList = nextArg(args, ++i);
+			} else if (a.equals("-begin")) {
+				beginTime = Long.parseLong(nextArg(args, ++i));
+			} else if (a.equals("-end")) {
+				endTime = Long.parseLong(nextArg(args, ++i));
+			} else if (a.equals("-interval")) {
+				intervalSize = Long.parseLong(nextArg(args, ++i));
+			} else if (a.equals("-tools")) {
+				for (String t : nextArg(args, ++i).split(",")) {
+					if (!Arrays.asList(ALL_TOOLS).contains(t.trim()))
+						throw new IllegalArgumentException("unknown tool " + t);
+					tools.add(t.trim());
+				}
+			} else if (a.equals("-threads")) {
+				ProjMain.NUM_THREADS = Integer.parseInt(nextArg(args, ++i));
+			} else if (a.equals("-binary-cache")) {
+				ProjMain.WRITE_BINARY_LOG_CACHE = true;
+			} else if (a.equals("-workers")) {
+				numWorkers = Integer.parseInt(nextArg(args, ++i));
+			} else if (a.equals("-worker-heap")) {
+				workerHeap = nextArg(args, ++i);
+			} else if (a.equals("-worker-threads")) {
+				workerThreads = Integer.parseInt(nextArg(args, ++i));
+			} else if (a.equals("-listen")) {
+				listenPort = Integer.parseInt(nextArg(args, ++i));
+			} else if (a.equals("-worker")) {
+				workerOf = nextArg(args, ++i);
+			} else if (stsFile == null) {
+				stsFile = a;
+			} else {
+				throw new IllegalArgumentException("unexpected argument " + a);
+			}
+		}
+		if (stsFile == null)
+			help();
+		if (tools.isEmpty())
+			tools.addAll(Arrays.asList(ALL_TOOLS));
+		if (numWorkers < 0 || workerThreads < 0)
+			throw new IllegalArgumentException("the numbers of workers and threads cannot be negative");
+		if (listenPort >= 0 && numWorkers == 0)
+			throw new IllegalArgumentException("-listen needs -workers");
+		if (workerOf != null && tools.contains(CRITICAL_PATH))
+			throw new IllegalArgumentException("the critical path cannot be found by a worker");
+	}
+
+	private static String nextArg(String[] args, int i) {
+		if (i >= args.length)
+			throw new IllegalArgumentException(args[i - 1] + " needs a value");
+		return args[i];
+	}
+
+	/** Open the run the way the main window would, but without creating it */
+	private void init() throws IOException {
+		MainWindow.CUR_VERSION = ProjMain.CUR_VERSION;
+		MainWindow.IGNORE_IDLE = ProjMain.IGNORE_IDLE;
+		MainWindow.BLUEGENE = ProjMain.BLUEGENE;
+		MainWindow.BLUEGENE_SIZE = ProjMain.BLUEGENE_SIZE;
+		MainWindow.runObject = new Analysis[1];
+		MainWindow.runObject[0] = new Analysis();
+		run = MainWindow.runObject[0];
+		run.initAnalysis(stsFile, null);
+
+		if (!run.hasLogFiles())
+			throw new IOException("no log files found for " + stsFile + "; batch analysis needs the full logs");
+
+		SortedSet<Integer> valid = run.getValidProcessorList();
+		if (peList == null) {
+			pes = valid;
+		} else {
+			pes = parsePEs(peList);
+			pes.retainAll(valid);
+		}
+		if (pes.isEmpty())
+			throw new IllegalArgumentException("none of the PEs " + peList + " have logs");
+
+		if (beginTime < 0)
+			beginTime = 0;
+		if (endTime < 0)
+			endTime = run.getTotalTime();
+		if (endTime <= beginTime)
+			throw new IllegalArgumentException("the time range " + beginTime + " to " + endTime + " is empty");
+		if (intervalSize <= 0)
+			intervalSize = Math.max(1, (endTime - beginTime) / 1000);
+		startInterval = (int) (beginTime / intervalSize);
+		endInterval = (int) (endTime / intervalSize);
+		numEPs = run.getNumUserEntries();
+
+		if (!outDir.isDirectory() && !outDir.mkdirs())
+			throw new IOException("could not create " + outDir);
+	}
+
+	/** Parse a PE list in the syntax of the range dialogs, e.g. "0-7,16,32-63:2" */
+	static SortedSet<Integer> parsePEs(String list) {
+		SortedSet<Integer> result = new TreeSet<Integer>();
+		for (String part : list.split(",")) {
+			part = part.trim();
+			if (part.length() == 0)
+				continue;
+			try {
+				int stride = 1;
+				int colon = part.indexOf(':');
+				if (colon >= 0) {
+					stride = Integer.parseInt(part.substring(colon + 1));
+					part = part.substring(0, colon);
+				}
+				int dash = part.indexOf('-');
+				int low = Integer.parseInt(dash >= 0 ? part.substring(0, dash) : part);
+				int high = dash >= 0 ? Integer.parseInt(part.substring(dash + 1)) : low;
+				if (stride <= 0 || high < low)
+					throw new IllegalArgumentException("bad PE range " + part);
+				for (int pe = low; pe <= high; pe += stride)
+					result.add(pe);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("bad PE list " + list);
+			}
+		}
+		return result;
+	}
+
+	/** Read the logs, here or in the workers, then write out each tool's results */
+	private void analyze() throws IOException {
+		if (workerOf != null) {
+			sendResults(readLogs(pes, null));
+			return;
+		}
+
+		List<Runnable> pathReaders = null;
+		if (tools.contains(CRITICAL_PATH)) {
+			criticalPath = new CriticalPath(pes, beginTime, endTime);
+			pathReaders = criticalPath.getReaders();
+		}
+
+		try {
+			analyzeResults(pathReaders);
+		} finally {
+			if (criticalPath != null)
+				criticalPath.close();
+		}
+	}
+
+	/** Read the logs, along with those of the critical path, and write out the results */
+	private void analyzeResults(List<Runnable> pathReaders) throws IOException {
+		BatchResults results;
+		long t0 = System.currentTimeMillis();
+		if (numWorkers > 0 && !shardedTools().isEmpty())
+			results = readShards(pathReaders);
+		else
+			results = readLogs(pes, pathReaders);
+		System.out.println("Read the logs of " + pes.size() + " PEs in " + (System.currentTimeMillis() - t0) + " ms");
+
+		if (results.timeProfile != null)
+			writeTimeProfile(results.timeProfile);
+		if (results.histogram != null)
+			writeHistogram(results.histogram, results.executionTime);
+		if (results.usage != null)
+			writeUsage(results.usage);
+		if (results.comm != null)
+			writeCommunication(results.comm, results.messageSizes);
+		if (results.extrema != null)
+			writeExtrema(results.extrema);
+		if (results.overview != null)
+			writeOverview(results.overview);
+		if (criticalPath != null) {
+			t0 = System.currentTimeMillis();
+			criticalPath.compute();
+			System.out.println("Found the critical path in " + (System.currentTimeMillis() - t0) + " ms");
+			writeCriticalPath(criticalPath);
+		}
+		writeSummary();
+	}
+
+	/** Run the readers of all the selected tools but the critical path for the given PEs together,
+	 *  along with any other readers, and gather up their results */
+	private BatchResults readLogs(SortedSet<Integer> pes, List<Runnable> otherReaders) {
+		TimeProfileLoader timeProfile = null;
+		HistogramLoader histogram = null;
+		CommLoader comm = null;
+		ExtremaLoader extrema = null;
+		OverviewLoader overview = null;
+		float[][][] usage = null;
+
+		List<Runnable> readers = new ArrayList<Runnable>();
+		if (tools.contains(TIME_PROFILE)) {
+			timeProfile = new TimeProfileLoader(pes, intervalSize, startInterval, endInterval, null);
+			readers.addAll(timeProfile.getReaders());
+		}
+		if (tools.contains(HISTOGRAM)) {
+			histogram = new HistogramLoader(pes, beginTime, endTime,
+					timeNumBins, timeBinSize, 0, msgNumBins, msgBinSize, 0, idleNumBins, idleBinSize, 0);
+			readers.addAll(histogram.getReaders());
+		}
+		if (tools.contains(COMMUNICATION)) {
+			comm = new CommLoader(pes, beginTime, endTime);
+			readers.addAll(comm.getReaders());
+		}
+		if (tools.contains(EXTREMA)) {
+			extrema = new ExtremaLoader(pes, beginTime, endTime, Analysis.PROJECTIONS, ExtremaLoader.ATTR_MOSTIDLE);
+			readers.addAll(extrema.getReaders());
+		}
+		if (tools.contains(OVERVIEW)) {
+			overview = new OverviewLoader(pes, intervalSize, startInterval, endInterval + 1);
+			readers.addAll(overview.getReaders());
+		}
+		if (tools.contains(USAGE)) {
+			usage = new float[pes.size()][][];
+			int pIdx = 0;
+			for (Integer pe : pes) {
+				readers.add(usageReader(usage, pIdx, pe));
+				pIdx++;
+			}
+		}
+		if (otherReaders != null)
+			readers.addAll(otherReaders);
+
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Batch analysis", readers, null, true);
+		threadManager.runAll();
+
+		BatchResults results = new BatchResults();
+		if (timeProfile != null)
+			results.timeProfile = timeProfile.getGraphData();
+		if (histogram != null) {
+			results.histogram = histogram.getCounts();
+			results.executionTime = histogram.getExecutionTime();
+		}
+		if (comm != null) {
+			results.comm = new double[][][] {comm.getSentMsgCount(), comm.getSentByteCount(),
+					comm.getReceivedMsgCount(), comm.getReceivedByteCount(),
+					comm.getExternalRecv(), comm.getExternalBytesRecv(),
+					comm.getExternalNodeRecv(), comm.getExternalNodeBytesRecv()};
+			results.messageSizes = comm.getMessageSizeCounts();
+		}
+		if (extrema != null)
+			results.extrema = extrema.getData();
+		if (overview != null)
+			results.overview = overview.getUtilizationPercent();
+		if (usage != null) {
+			// Each row is the entry methods, then packing, unpacking and idle
+			results.usage = new double[usage.length][];
+			for (int p = 0; p < usage.length; p++) {
+				results.usage[p] = new double[numEPs + 3];
+				if (usage[p] != null) {
+					for (int i = 0; i < results.usage[p].length && i < usage[p][0].length; i++)
+						results.usage[p][i] = usage[p][0][i];
+				}
+			}
+		}
+		return results;
+	}
+
+	/** The selected tools that the workers run */
+	private List<String> shardedTools() {
+		List<String> sharded = new ArrayList<String>(tools);
+		sharded.remove(CRITICAL_PATH);
+		return sharded;
+	}
+
+	/** Start a worker for each shard of the PEs, or wait for them to be started if listening,
+	 *  run any other readers here meanwhile, then merge the results the workers send back */
+	private BatchResults readShards(List<Runnable> otherReaders) throws IOException {
+		int numShards = Math.min(numWorkers, pes.size());
+		Integer[] all = pes.toArray(new Integer[0]);
+		int[] firstPIdx = new int[numShards + 1];
+		for (int s = 0; s <= numShards; s++)
+			firstPIdx[s] = (int) ((long) s * all.length / numShards);
+
+		// The largest dimension of any table the workers send back: PEs, intervals, entries or bins
+		int maxLength = Math.max(all.length, endInterval - startInterval + 2);
+		maxLength = Math.max(maxLength, numEPs + 8);
+		maxLength = Math.max(maxLength, Math.max(timeNumBins, Math.max(msgNumBins, idleNumBins)) + 1);
+
+		byte[] tokenBytes = new byte[16];
+		new SecureRandom().nextBytes(tokenBytes);
+		StringBuilder token = new StringBuilder();
+		for (byte b : tokenBytes)
+			token.append(String.format("%02x", b));
+
+		ServerSocket server;
+		String host;
+		if (listenPort >= 0) {
+			server = new ServerSocket(listenPort, numShards);
+			host = InetAddress.getLocalHost().getHostName();
+		} else {
+			server = new ServerSocket(0, numShards, InetAddress.getLoopbackAddress());
+			host = server.getInetAddress().getHostAddress();
+		}
+		Process[] workers = new Process[numShards];
+		try {
+			for (int s = 0; s < numShards; s++) {
+				SortedSet<Integer> shard = new TreeSet<Integer>(Arrays.asList(all).subList(firstPIdx[s], firstPIdx[s + 1]));
+				List<String> command = workerCommand(shard, host + ":" + server.getLocalPort() + ":" + s + ":" + token, numShards);
+				if (listenPort >= 0) {
+					System.out.println("Worker " + s + ": " + String.join(" ", command));
+				} else {
+					ProcessBuilder builder = new ProcessBuilder(command);
+					builder.inheritIO();
+					workers[s] = builder.start();
+				}
+			}
+
+			if (otherReaders != null && !otherReaders.isEmpty()) {
+				TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Batch analysis", otherReaders, null, true);
+				threadManager.runAll();
+			}
+
+			BatchResults results = new BatchResults();
+			if (tools.contains(USAGE))
+				results.usage = new double[all.length][];
+			if (tools.contains(COMMUNICATION))
+				results.comm = new double[8][all.length][];
+			if (tools.contains(EXTREMA))
+				results.extrema = new double[all.length][];
+			if (tools.contains(OVERVIEW))
+				results.overview = new int[all.length][];
+
+			boolean[] received = new boolean[numShards];
+			boolean[] exited = new boolean[numShards];
+			server.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+			for (int n = 0; n < numShards; ) {
+				Socket socket;
+				try {
+					socket = server.accept();
+				} catch (SocketTimeoutException e) {
+					checkWorkers(workers, received, exited);
+					continue;
+				}
+				try {
+					// A worker connects once its results are ready, and sends them right away
+					socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+					DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+					String sent;
+					try {
+						sent = in.readUTF();
+					} catch (IOException e) {
+						sent = null;
+					}
+					if (sent == null || !MessageDigest.isEqual(sent.getBytes("UTF-8"), token.toString().getBytes("UTF-8"))) {
+						System.err.println("Warning: ignoring a connection from " + socket.getInetAddress() + " that is not one of the workers");
+						continue;
+					}
+					int s = in.readInt();
+					if (s < 0 || s >= numShards || received[s])
+						throw new IOException("unexpected results for shard " + s + " from " + socket.getInetAddress());
+					BatchResults shard = BatchResults.read(in, maxLength);
+					shard.checkPEs(firstPIdx[s + 1] - firstPIdx[s]);
+					results.merge(shard, firstPIdx[s]);
+					received[s] = true;
+					n++;
+				} finally {
+					socket.close();
+				}
+			}
+			return results;
+		} finally {
+			server.close();
+			for (Process p : workers) {
+				if (p != null)
+					p.destroy();
+			}
+		}
+	}
+
+	/** Fail if a worker has exited without sending its results. A worker that exits successfully
+	 *  may have connected just before, so it is given until the next check for its results to be accepted. */
+	private static void checkWorkers(Process[] workers, boolean[] received, boolean[] exited) throws IOException {
+		for (int s = 0; s < workers.length; s++) {
+			if (workers[s] == null || received[s] || workers[s].isAlive())
+				continue;
+			if (workers[s].exitValue() != 0)
+				throw new IOException("worker " + s + " failed with exit code " + workers[s].exitValue());
+			if (exited[s])
+				throw new IOException("worker " + s + " exited without sending its results");
+			exited[s] = true;
+		}
+	}
+
+	/** The command line running Batch as a worker for a shard of the PEs, with the same range and tools */
+	private List<String> workerCommand(SortedSet<Integer> shard, String coordinator, int numShards) {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		if (workerHeap != null)
+			command.add("-Xmx" + workerHeap);
+		command.add("-Djava.awt.headless=true");
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(Batch.class.getName());
+		command.add("-worker");
+		command.add(coordinator);
+		command.add("-pes");
+		command.add(Util.listToString(shard));
+		command.add("-begin");
+		command.add(Long.toString(beginTime));
+		command.add("-end");
+		command.add(Long.toString(endTime));
+		command.add("-interval");
+		command.add(Long.toString(intervalSize));
+		command.add("-tools");
+		command.add(String.join(",", shardedTools()));
+		command.add("-threads");
+		int threads = workerThreads;
+		if (threads <= 0)
+			threads = Math.max(1, Runtime.getRuntime().availableProcessors() / numShards);
+		command.add(Integer.toString(threads));
+		if (ProjMain.WRITE_BINARY_LOG_CACHE)
+			command.add("-binary-cache");
+		command.add(new File(stsFile).getAbsolutePath());
+		return command;
+	}
+
+	/** Send the results of this worker to its coordinator */
+	private void sendResults(BatchResults results) throws IOException {
+		String[] parts = workerOf.split(":");
+		if (parts.length != 4)
+			throw new IllegalArgumentException("bad coordinator address " + workerOf + "; expected host:port:shard:token");
+		Socket socket = new Socket(parts[0], Integer.parseInt(parts[1]));
+		try {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+			out.writeUTF(parts[3]);
+			out.writeInt(Integer.parseInt(parts[2]));
+			results.write(out);
+		} finally {
+			socket.close();
+		}
+	}
+
+	private Runnable usageReader(final float[][][] usage, final int pIdx, final int pe) {
+		return new Runnable() {
+			public void run() {
+				usage[pIdx] = run.GetUsageData(pe, beginTime, endTime, null);
+			}
+		};
+	}
+
+
+	private void writeTimeProfile(double[][] graphData) throws IOException {
+		TimeProfileLoader.scaleToPercent(graphData, intervalSize, pes.size());
+		TimeProfileLoader.filterBadData(graphData);
+
+		boolean[] used = usedColumns(graphData, numEPs);
+		PrintWriter out = open("timeprofile.csv");
+		out.print("interval,start");
+		printEntryHeader(out, used);
+		out.println(",Overhead,Idle");
+		for (int i = 0; i < graphData.length; i++) {
+			out.print((startInterval + i) + "," + (startInterval + i) * intervalSize);
+			for (int ep = 0; ep < numEPs; ep++) {
+				if (used[ep])
+					out.print("," + format(graphData[i][ep]));
+			}
+			out.println("," + format(graphData[i][numEPs]) + "," + format(graphData[i][numEPs + 1]));
+		}
+		close(out);
+	}
+
+	private void writeHistogram(double[][][] counts, double[][] executionTime) throws IOException {
+		PrintWriter out = open("histogram.csv");
+		out.println("histogram,from,to,entry,count");
+		writeBins(out, "execution_time", counts[HistogramLoader.TYPE_TIME], timeBinSize, true);
+		writeBins(out, "execution_time_total", counts[HistogramLoader.TYPE_ACCTIME], timeBinSize, true);
+		writeBins(out, "message_size", counts[HistogramLoader.TYPE_MSG_SIZE], msgBinSize, true);
+		// The idle histogram counts PEs, which are all kept in the first column
+		writeBins(out, "idle_percent", counts[HistogramLoader.TYPE_IDLE_PERC], idleBinSize, false);
+		close(out);
+
+		out = open("entries.csv");
+		out.println("entry,executions,total_time,max_time");
+		for (int ep = 0; ep < numEPs; ep++) {
+			if (executionTime[3][ep] > 0) {
+				out.println(quote(run.getEntryNameByIndex(ep)) + "," + format(executionTime[3][ep]) + ","
+						+ format(executionTime[0][ep]) + "," + format(executionTime[1][ep]));
+			}
+		}
+		close(out);
+	}
+
+	/** One row per non-zero [bin][entry]. The last bin holds everything past the others, so it has no upper bound. */
+	private void writeBins(PrintWriter out, String name, double[][] bins, long binSize, boolean byEntry) {
+		for (int bin = 0; bin < bins.length; bin++) {
+			String range = (bin * binSize) + "," + (bin == bins.length - 1 ? "" : Long.toString((bin + 1) * binSize));
+			int columns = byEntry ? Math.min(numEPs, bins[bin].length) : 1;
+			for (int ep = 0; ep < columns; ep++) {
+				if (bins[bin][ep] != 0)
+					out.println(name + "," + range + "," + (byEntry ? quote(run.getEntryNameByIndex(ep)) : "") + "," + format(bins[bin][ep]));
+			}
+		}
+	}
+
+	private void writeUsage(double[][] data) throws IOException {
+		boolean[] used = usedColumns(data, numEPs);
+		PrintWriter out = open("usage.csv");
+		out.print("pe");
+		printEntryHeader(out, used);
+		out.println(",Packing,Unpacking,Idle");
+		int pIdx = 0;
+		for (Integer pe : pes) {
+			out.print(pe);
+			for (int i = 0; i < data[pIdx].length; i++) {
+				if (i >= numEPs || used[i])
+					out.print("," + format(data[pIdx][i]));
+			}
+			out.println();
+			pIdx++;
+		}
+		close(out);
+	}
+
+	private void writeCommunication(double[][][] columns, int[] sizes) throws IOException {
+		// The loader gives rates per millisecond; write the totals over the range
+		double ms = (endTime - beginTime) / 1000.0;
+		PrintWriter out = open("comm.csv");
+		out.println("pe,entry,sent_msgs,sent_bytes,received_msgs,received_bytes," +
+				"external_received_msgs,external_received_bytes,external_node_received_msgs,external_node_received_bytes");
+		int pIdx = 0;
+		for (Integer pe : pes) {
+			for (int ep = 0; ep < numEPs; ep++) {
+				StringBuilder row = new StringBuilder();
+				boolean any = false;
+				for (double[][] c : columns) {
+					long total = (c[pIdx] == null) ? 0 : Math.round(c[pIdx][ep] * ms);
+					any |= total != 0;
+					row.append(',').append(total);
+				}
+				if (any)
+					out.println(pe + "," + quote(run.getEntryNameByIndex(ep)) + row);
+			}
+			pIdx++;
+		}
+		close(out);
+
+		out = open("message_sizes.csv");
+		out.println("bytes,count");
+		for (int size = 0; sizes != null && size < sizes.length; size++) {
+			if (sizes[size] != 0)
+				out.println(size + "," + sizes[size]);
+		}
+		close(out);
+	}
+
+	private void writeExtrema(final double[][] data) throws IOException {
+		// Percent of the range in each entry method, then idle, then overhead
+		final int idle = data.length > 0 ? data[0].length - 2 : 0;
+		Integer[] order = new Integer[data.length];
+		for (int p = 0; p < order.length; p++)
+			order[p] = p;
+		// Most idle first, as Extrema shows them
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Double.compare(data[b][idle], data[a][idle]);
+			}
+		});
+		Integer[] peOf = pes.toArray(new Integer[0]);
+
+		boolean[] used = usedColumns(data, idle);
+		PrintWriter out = open("extrema.csv");
+		out.print("rank,pe,Idle,Overhead");
+		printEntryHeader(out, used);
+		out.println();
+		for (int rank = 0; rank < order.length; rank++) {
+			double[] row = data[order[rank]];
+			out.print((rank + 1) + "," + peOf[order[rank]] + "," + format(row[idle]) + "," + format(row[idle + 1]));
+			for (int ep = 0; ep < idle; ep++) {
+				if (used[ep])
+					out.print("," + format(row[ep]));
+			}
+			out.println();
+		}
+		close(out);
+	}
+
+	private void writeOverview(int[][] utilization) throws IOException {
+		PrintWriter out = open("overview.csv");
+		out.print("pe");
+		for (int i = 0; i < endInterval - startInterval + 1; i++)
+			out.print("," + (startInterval + i) * intervalSize);
+		out.println();
+		int pIdx = 0;
+		for (Integer pe : pes) {
+			out.print(pe);
+			for (int u : utilization[pIdx])
+				out.print("," + u);
+			out.println();
+			pIdx++;
+		}
+		close(out);
+
+		// Color by utilization, as the Overview window does for summary data
+		ColorMap colorMap = OverviewLoader.utilizationColorMap();
+		int[][] colors = new int[utilization.length][];
+		for (int p = 0; p < utilization.length; p++) {
+			colors[p] = new int[utilization[p].length];
+			for (int i = 0; i < colors[p].length; i++) {
+				int u = utilization[p][i];
+				colors[p][i] = colorMap.apply((u < 0 || u > 255) ? 255 : u);
+			}
+		}
+		File png = new File(outDir, "overview.png");
+		ImageIO.write(OverviewLoader.toImage(colors), "png", png);
+		written.add(png.getName());
+	}
+
+	private void writeCriticalPath(CriticalPath path) throws IOException {
+		long[] entryTime = path.getEntryTime();
+		int[] entryCount = path.getEntryCount();
+		PrintWriter out = open("criticalpath_entries.csv");
+		out.println("entry,executions,time,percent");
+		for (int ep = 0; ep < entryTime.length; ep++) {
+			if (entryCount[ep] > 0) {
+				String name = (ep < numEPs) ? run.getEntryNameByIndex(ep) : "Unknown";
+				out.println(quote(name) + "," + entryCount[ep] + "," + entryTime[ep] + "," + format(percent(entryTime[ep], path.getLength())));
+			}
+		}
+		close(out);
+
+		long[] peTime = path.getPETime();
+		int[] peCount = path.getPECount();
+		out = open("criticalpath_pes.csv");
+		out.println("pe,executions,time,percent");
+		int pIdx = 0;
+		for (Integer pe : pes) {
+			if (peCount[pIdx] > 0)
+				out.println(pe + "," + peCount[pIdx] + "," + peTime[pIdx] + "," + format(percent(peTime[pIdx], path.getLength())));
+			pIdx++;
+		}
+		close(out);
+
+		int[] pathPE = path.getPathPE();
+		int[] pathEntry = path.getPathEntry();
+		long[] begin = path.getPathBegin();
+		long[] end = path.getPathEnd();
+		long[] counted = path.getPathCounted();
+		out = open("criticalpath.csv");
+		out.println("step,pe,entry,begin,end,counted");
+		for (int i = 0; i < pathPE.length; i++) {
+			String name = (pathEntry[i] < numEPs) ? run.getEntryNameByIndex(pathEntry[i]) : "Unknown";
+			out.println(i + "," + pathPE[i] + "," + quote(name) + "," + begin[i] + "," + end[i] + "," + counted[i]);
+		}
+		close(out);
+	}
+
+	private static double percent(long part, long whole) {
+		return whole == 0 ? 0 : 100.0 * part / whole;
+	}
+
+	private void writeSummary() throws IOException {
+		PrintWriter out = open("summary.json");
+		out.println("{");
+		out.println("  \"sts\": " + jsonString(new File(stsFile).getAbsolutePath()) + ",");
+		out.println("  \"version\": " + run.getVersion() + ",");
+		out.println("  \"pes\": " + jsonString(Util.listToString(pes)) + ",");
+		out.println("  \"numPEs\": " + pes.size() + ",");
+		out.println("  \"begin\": " + beginTime + ",");
+		out.println("  \"end\": " + endTime + ",");
+		out.println("  \"intervalSize\": " + intervalSize + ",");
+		out.println("  \"firstInterval\": " + startInterval + ",");
+		out.println("  \"lastInterval\": " + endInterval + ",");
+		out.println("  \"numEntries\": " + numEPs + ",");
+		out.print("  \"tools\": [");
+		int n = 0;
+		for (String t : tools)
+			out.print((n++ > 0 ? ", " : "") + jsonString(t));
+		out.println("],");
+		if (criticalPath != null) {
+			out.println("  \"criticalPath\": {\"length\": " + criticalPath.getLength() + ", \"span\": " + criticalPath.getSpan() +
+					", \"executions\": " + criticalPath.getNumExecutions() + "},");
+		}
+		out.print("  \"files\": [");
+		// summary.json itself is the last of the files written
+		for (int i = 0; i < written.size() - 1; i++)
+			out.print((i > 0 ? ", " : "") + jsonString(written.get(i)));
+		out.println("]");
+		out.println("}");
+		close(out);
+	}
+
+
+	/** Whether each of the first numColumns columns has any non-zero value */
+	private static boolean[] usedColumns(double[][] rows, int numColumns) {
+		boolean[] used = new boolean[numColumns];
+		for (double[] row : rows) {
+			for (int c = 0; c < numColumns; c++) {
+				if (row[c] != 0)
+					used[c] = true;
+			}
+		}
+		return used;
+	}
+
+	private void printEntryHeader(PrintWriter out, boolean[] used) {
+		for (int ep = 0; ep < used.length; ep++) {
+			if (used[ep])
+				out.print("," + quote(run.getEntryNameByIndex(ep)));
+		}
+	}
+
+	private PrintWriter open(String name) throws IOException {
+		written.add(name);
+		return new PrintWriter(new FileWriter(new File(outDir, name)));
+	}
+
+	private void close(PrintWriter out) throws IOException {
+		out.close();
+		if (out.checkError())
+			throw new IOException("could not write " + written.get(written.size() - 1) + " in " + outDir);
+	}
+
+	private static String format(double v) {
+		if (v == Math.rint(v) && Math.abs(v) < 1e15)
+			return Long.toString((long) v);
+		return String.format(Locale.ROOT, "%.4f", v);
+	}
+
+	/** Quote a CSV field if it needs it; entry names often contain commas */
+	private static String quote(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0)
+			return s;
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+
+	private static String jsonString(String s) {
+		StringBuilder b = new StringBuilder("\"");
+		for (char c : s.toCharArray()) {
+			if (c == '"' || c == '\\')
+				b.append('\\').append(c);
+			else if (c < ' ')
+				b.append(String.format("\\u%04x", (int) c));
+			else
+				b.append(c);
+		}
+		return b.append('"').toString();
+	}
+
+}
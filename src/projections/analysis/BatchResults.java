@@ -0,0 +1,240 @@
+package projections.analysis;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ *  The results of the Batch tools for some of the PEs, in the form they are
+ *  written out in. When Batch is sharded across worker processes, each
+ *  worker sends its BatchResults to the coordinator, which merges them
+ *  into the results for all the PEs.
+ *
+ *  The per-PE tables are indexed by the position of the PE within the
+ *  PEs the results are for, and the rest are totals over those PEs. A null
+ *  table means its tool was not run.
+ *
+ *  When read from a worker, no table may be longer than the largest
+ *  dimension the coordinator expects, and the arrays are grown as their
+ *  values arrive rather than allocated up front from the sizes sent.
+ */
+final class BatchResults {
+
+	/** The most values of an array allocated ahead of those read */
+	private static final int CHUNK = 1 << 16;
+
+	/** Time Profile: [interval][entry], then overhead and idle, summed over the PEs */
+	double[][] timeProfile;
+	/** Histogram: [type][bin][entry], summed over the PEs */
+	double[][][] histogram;
+	/** Histogram: [0] total time, [1] and [2] maxima, [3] number of executions of each entry */
+	double[][] executionTime;
+	/** Usage Profile: [pe idx][entry], then packing, unpacking and idle */
+	double[][] usage;
+	/** Communication: [column][pe idx][entry] as rates per millisecond, in the columns of comm.csv */
+	double[][][] comm;
+	/** Communication: the number of messages of each size in bytes */
+	int[] messageSizes;
+	/** Extrema: [pe idx][activity], then idle and overhead */
+	double[][] extrema;
+	/** Overview: [pe idx][interval] utilization from 0 to 100 */
+	int[][] overview;
+
+	/** Fail unless the per-PE tables have a row for each of the given number of PEs */
+	void checkPEs(int numPEs) throws IOException {
+		checkRows(usage, numPEs);
+		if (comm != null) {
+			for (double[][] c : comm)
+				checkRows(c, numPEs);
+		}
+		checkRows(extrema, numPEs);
+		checkRows(overview, numPEs);
+	}
+
+	private static void checkRows(Object[] table, int numPEs) throws IOException {
+		if (table != null && table.length != numPEs)
+			throw new IOException("bad results: " + table.length + " rows for " + numPEs + " PEs");
+	}
+
+	/** Add in the results for a contiguous shard of the PEs, which starts at PE index firstPIdx */
+	void merge(BatchResults shard, int firstPIdx) {
+		timeProfile = sum(timeProfile, shard.timeProfile);
+		if (shard.histogram != null) {
+			if (histogram == null)
+				histogram = new double[shard.histogram.length][][];
+			for (int type = 0; type < histogram.length; type++)
+				histogram[type] = sum(histogram[type], shard.histogram[type]);
+		}
+		if (shard.executionTime != null) {
+			if (executionTime == null) {
+				executionTime = shard.executionTime;
+			} else {
+				for (int ep = 0; ep < executionTime[0].length; ep++) {
+					executionTime[0][ep] += shard.executionTime[0][ep];
+					executionTime[1][ep] = Math.max(executionTime[1][ep], shard.executionTime[1][ep]);
+					executionTime[2][ep] = Math.max(executionTime[2][ep], shard.executionTime[2][ep]);
+					executionTime[3][ep] += shard.executionTime[3][ep];
+				}
+			}
+		}
+		copyRows(usage, shard.usage, firstPIdx);
+		if (comm != null && shard.comm != null) {
+			for (int c = 0; c < comm.length; c++)
+				copyRows(comm[c], shard.comm[c], firstPIdx);
+		}
+		if (shard.messageSizes != null) {
+			if (messageSizes == null || messageSizes.length < shard.messageSizes.length) {
+				int[] grown = new int[shard.messageSizes.length];
+				if (messageSizes != null)
+					System.arraycopy(messageSizes, 0, grown, 0, messageSizes.length);
+				messageSizes = grown;
+			}
+			for (int size = 0; size < shard.messageSizes.length; size++)
+				messageSizes[size] += shard.messageSizes[size];
+		}
+		copyRows(extrema, shard.extrema, firstPIdx);
+		copyRows(overview, shard.overview, firstPIdx);
+	}
+
+	private static double[][] sum(double[][] total, double[][] part) {
+		if (part == null)
+			return total;
+		if (total == null)
+			return part;
+		for (int i = 0; i < total.length; i++) {
+			for (int j = 0; j < total[i].length; j++)
+				total[i][j] += part[i][j];
+		}
+		return total;
+	}
+
+	private static void copyRows(Object[] all, Object[] shard, int first) {
+		if (all != null && shard != null)
+			System.arraycopy(shard, 0, all, first, shard.length);
+	}
+
+	void write(DataOutputStream out) throws IOException {
+		writeTable(out, timeProfile);
+		out.writeBoolean(histogram != null);
+		if (histogram != null) {
+			out.writeInt(histogram.length);
+			for (double[][] h : histogram)
+				writeTable(out, h);
+		}
+		writeTable(out, executionTime);
+		writeTable(out, usage);
+		out.writeBoolean(comm != null);
+		if (comm != null) {
+			out.writeInt(comm.length);
+			for (double[][] c : comm)
+				writeTable(out, c);
+		}
+		writeRow(out, messageSizes);
+		writeTable(out, extrema);
+		out.writeBoolean(overview != null);
+		if (overview != null) {
+			out.writeInt(overview.length);
+			for (int[] row : overview)
+				writeRow(out, row);
+		}
+		out.flush();
+	}
+
+	/** Read results in which no table is longer than maxLength. The message sizes go up to
+	 *  the largest message, so they are only bounded by the data actually sent. */
+	static BatchResults read(DataInputStream in, int maxLength) throws IOException {
+		BatchResults r = new BatchResults();
+		r.timeProfile = readTable(in, maxLength);
+		if (in.readBoolean()) {
+			r.histogram = new double[readLength(in, maxLength)][][];
+			for (int type = 0; type < r.histogram.length; type++)
+				r.histogram[type] = readTable(in, maxLength);
+		}
+		r.executionTime = readTable(in, maxLength);
+		r.usage = readTable(in, maxLength);
+		if (in.readBoolean()) {
+			r.comm = new double[readLength(in, maxLength)][][];
+			for (int c = 0; c < r.comm.length; c++)
+				r.comm[c] = readTable(in, maxLength);
+		}
+		r.messageSizes = readIntRow(in, Integer.MAX_VALUE);
+		r.extrema = readTable(in, maxLength);
+		if (in.readBoolean()) {
+			r.overview = new int[readLength(in, maxLength)][];
+			for (int p = 0; p < r.overview.length; p++)
+				r.overview[p] = readIntRow(in, maxLength);
+		}
+		return r;
+	}
+
+	/** Read a length, which is -1 for a null table or row */
+	private static int readLength(DataInputStream in, int maxLength) throws IOException {
+		int n = in.readInt();
+		if (n < -1 || n > maxLength)
+			throw new IOException("bad results: a length of " + n + " where at most " + maxLength + " is expected");
+		return n;
+	}
+
+	/** A table is its number of rows, -1 if it is null, then each row */
+	private static void writeTable(DataOutputStream out, double[][] table) throws IOException {
+		if (table == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(table.length);
+		for (double[] row : table) {
+			if (row == null) {
+				out.writeInt(-1);
+				continue;
+			}
+			out.writeInt(row.length);
+			for (double v : row)
+				out.writeDouble(v);
+		}
+	}
+
+	private static double[][] readTable(DataInputStream in, int maxLength) throws IOException {
+		int rows = readLength(in, maxLength);
+		if (rows < 0)
+			return null;
+		double[][] table = new double[rows][];
+		for (int i = 0; i < rows; i++) {
+			int n = readLength(in, maxLength);
+			if (n < 0)
+				continue;
+			double[] row = new double[Math.min(n, CHUNK)];
+			for (int j = 0; j < n; j++) {
+				if (j == row.length)
+					row = Arrays.copyOf(row, (int) Math.min(n, 2L * j));
+				row[j] = in.readDouble();
+			}
+			table[i] = row;
+		}
+		return table;
+	}
+
+	private static void writeRow(DataOutputStream out, int[] row) throws IOException {
+		if (row == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(row.length);
+		for (int v : row)
+			out.writeInt(v);
+	}
+
+	private static int[] readIntRow(DataInputStream in, int maxLength) throws IOException {
+		int n = readLength(in, maxLength);
+		if (n < 0)
+			return null;
+		int[] row = new int[Math.min(n, CHUNK)];
+		for (int j = 0; j < n; j++) {
+			if (j == row.length)
+				row = Arrays.copyOf(row, (int) Math.min(n, 2L * j));
+			row[j] = in.readInt();
+		}
+		return row;
+	}
+
+}
@@ -0,0 +1,183 @@
+package projections.analysis;
+
+import java.io.File;
+import java.io.IOException;
+
+import projections.misc.LogEntry;
+
+/**
+ *  BinaryLogParser reads the ".projbin" cache written by BinaryLogWriter.
+ *
+ *  Each record holds the fields of one log line exactly as GenericLogReader
+ *  consumed them: integers as zig-zag varints, decimals as 8 byte IEEE
+ *  doubles, strings as a varint length followed by their bytes. Since
+ *  GenericLogReader asks for the fields in the same order when replaying,
+ *  no type tags are needed, and the replayed LogEntry stream is identical
+ *  to the one produced from the text log.
+ *
+ *  The buffering, memory mapping and seeking are inherited from
+ *  ByteLogParser; only the record framing and field decoding differ.
+ */
+class BinaryLogParser extends ByteLogParser {
+
+	protected BinaryLogParser(File cache, int bufferSize) throws IOException {
+		super(cache, bufferSize);
+		if (!ensure(BinaryLogWriter.HEADER_LENGTH)) {
+			throw new IOException("Truncated binary log " + cache.getAbsolutePath());
+		}
+		next += BinaryLogWriter.HEADER_LENGTH;
+	}
+
+	/** Make at least n unread bytes available after next, unless the end of the file comes first */
+	private boolean ensure(int n) throws IOException {
+		while (limit - next < n) {
+			if (eof || !fill())
+				return false;
+		}
+		return true;
+	}
+
+	/** Move to the next record. Returns false at the end of the cache. */
+	@Override
+	protected boolean nextLine() throws IOException {
+		if (!ensure(1))
+			return false;
+		// record length, a varint of at most 5 bytes
+		ensure(5);
+		int p = next;
+		int length = 0;
+		int shift = 0;
+		int b;
+		do {
+			if (p >= limit)
+				throw new IOException("Truncated binary log record at offset " + (base + next));
+			b = bytes[p++];
+			length |= (b & 0x7f) << shift;
+			shift += 7;
+		} while (b < 0);
+		int headerLength = p - next;
+		if (!ensure(headerLength + length))
+			throw new IOException("Truncated binary log record at offset " + (base + next));
+		lineStart = pos = next + headerLength;
+		lineEnd = lineStart + length;
+		next = lineEnd;
+		return true;
+	}
+
+	/** Skipping a varint field takes as long as reading it, so the fields up to the time are all read */
+	@Override
+	protected boolean skimLine(byte[] timeFields, LogEntry data) throws IOException {
+		if (!nextLine())
+			return false;
+		skimFields(timeFields, data);
+		return true;
+	}
+
+	@Override
+	public final long nextLong() throws IOException {
+		final byte[] b = bytes;
+		int p = pos;
+		if (p >= lineEnd)
+			throw new IOException("Missing field in binary log record at offset " + (base + lineStart));
+		long raw = 0;
+		int shift = 0;
+		int c;
+		do {
+			c = b[p++];
+			raw |= (long) (c & 0x7f) << shift;
+			shift += 7;
+		} while (c < 0);
+		pos = p;
+		return (raw >>> 1) ^ -(raw & 1);
+	}
+
+	@Override
+	public final double nextDouble() throws IOException {
+		if (pos + 8 > lineEnd)
+			throw new IOException("Missing field in binary log record at offset " + (base + lineStart));
+		long bits = 0;
+		for (int i = 0; i < 8; i++)
+			bits = (bits << 8) | (bytes[pos++] & 0xff);
+		return Double.longBitsToDouble(bits);
+	}
+
+	@Override
+	public final String nextString(int strlen) {
+		try {
+			int len = (int) nextLong();
+			String ret = new String(bytes, pos, len);
+			pos += len;
+			return ret;
+		} catch (IOException e) {
+			return "";
+		}
+	}
+
+	@Override
+	public final boolean hasNextField() {
+		return pos < lineEnd;
+	}
+
+	@Override
+	protected byte[] currentRecord() {
+		byte[] record = new byte[lineEnd - lineStart];
+		System.arraycopy(bytes, lineStart, record, 0, record.length);
+		return record;
+	}
+
+	@Override
+	protected LineTokenizer tokenizerFor(byte[] record) {
+		return new Record(record);
+	}
+
+
+	/** A tokenizer over one record previously returned by currentRecord() */
+	private static class Record implements LineTokenizer {
+
+		private final byte[] b;
+		private int pos = 0;
+
+		private Record(byte[] record) {
+			b = record;
+		}
+
+		public long nextLong() throws IOException {
+			long raw = 0;
+			int shift = 0;
+			int c;
+			do {
+				if (pos >= b.length)
+					throw new IOException("Missing field in binary log record");
+				c = b[pos++];
+				raw |= (long) (c & 0x7f) << shift;
+				shift += 7;
+			} while (c < 0);
+			return (raw >>> 1) ^ -(raw & 1);
+		}
+
+		public double nextDouble() throws IOException {
+			if (pos + 8 > b.length)
+				throw new IOException("Missing field in binary log record");
+			long bits = 0;
+			for (int i = 0; i < 8; i++)
+				bits = (bits << 8) | (b[pos++] & 0xff);
+			return Double.longBitsToDouble(bits);
+		}
+
+		public String nextString(int strlen) {
+			try {
+				int len = (int) nextLong();
+				String ret = new String(b, pos, len);
+				pos += len;
+				return ret;
+			} catch (IOException e) {
+				return "";
+			}
+		}
+
+		public boolean hasNextField() {
+			return pos < b.length;
+		}
+	}
+
+}
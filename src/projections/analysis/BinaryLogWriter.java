@@ -0,0 +1,231 @@
+package projections.analysis;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ *  BinaryLogWriter records a ".projbin" cache of a text log while
+ *  GenericLogReader parses it, so that later runs of Projections can
+ *  replay the same events without parsing any ASCII. Caches are only
+ *  recorded when ProjMain.WRITE_BINARY_LOG_CACHE is set by -binary-cache,
+ *  as each one takes about as much disk as its log.
+ *
+ *  The writer sits between GenericLogReader and the tokenizer of the text
+ *  log: every field GenericLogReader asks for is passed through and also
+ *  appended, in binary, to the record for the current line. When the log
+ *  has been read to its end the cache is moved into place; a read that
+ *  stops early or seeks leaves no cache behind.
+ *
+ *  The cache is stored next to the log as "<name>.<pe>.log.projbin", or in
+ *  ~/.projections/cache when the log directory is not writable. It starts
+ *  with a header holding the length and modification time of the log and
+ *  the log version it was parsed with, and is only used while all three
+ *  still match. See BinaryLogParser for the record format.
+ */
+class BinaryLogWriter implements LineTokenizer {
+
+	protected static final String SUFFIX = ".projbin";
+
+	private static final int MAGIC = 0x504a424e; // "PJBN"
+	private static final int FORMAT_VERSION = 1;
+	protected static final int HEADER_LENGTH = 4 + 4 + 8 + 8 + 8;
+
+	/** Logs smaller than this parse quickly enough already */
+	protected static final long MIN_CACHED_LENGTH = 4L * 1024 * 1024;
+	/** Same threshold for ".gz" logs */
+	protected static final long MIN_CACHED_COMPRESSED_LENGTH = MIN_CACHED_LENGTH / 4;
+
+	private final File log;
+	private final File cache;
+	private File tmp;
+	private OutputStream out;
+
+	/** Tokenizer of the current line of the text log */
+	private LineTokenizer source;
+
+	/** The current record, less its length prefix */
+	private byte[] record = new byte[256];
+	private int length;
+
+	/** The varint length prefix of a record */
+	private final byte[] prefix = new byte[5];
+
+	private BinaryLogWriter(File log, File cache, double version) throws IOException {
+		this.log = log;
+		this.cache = cache;
+		File dir = cache.getAbsoluteFile().getParentFile();
+		dir.mkdirs();
+		tmp = File.createTempFile(cache.getName(), ".tmp", dir);
+		out = new BufferedOutputStream(new FileOutputStream(tmp), 256 * 1024);
+		DataOutputStream header = new DataOutputStream(out);
+		header.writeInt(MAGIC);
+		header.writeInt(FORMAT_VERSION);
+		header.writeLong(log.length());
+		header.writeLong(log.lastModified());
+		header.writeDouble(version);
+		header.flush();
+	}
+
+	/** Start writing a cache for the log, or return null if that is not possible */
+	protected static BinaryLogWriter create(File log, double version) {
+		File cache = cacheFileFor(log);
+		try {
+			return new BinaryLogWriter(log, cache, version);
+		} catch (IOException e) {
+			System.err.println("Warning: could not create binary log cache " + cache.getAbsolutePath());
+			return null;
+		}
+	}
+
+	/** Whether the log is big enough to be worth caching */
+	protected static boolean isCacheable(File log) {
+		if (log.getName().endsWith(".gz"))
+			return log.length() >= MIN_CACHED_COMPRESSED_LENGTH;
+		return log.length() >= MIN_CACHED_LENGTH;
+	}
+
+	/** Where a new cache for the log is written */
+	private static File cacheFileFor(File log) {
+		File dir = log.getAbsoluteFile().getParentFile();
+		if (dir != null && dir.canWrite())
+			return new File(log.getPath() + SUFFIX);
+		return userCacheFileFor(log);
+	}
+
+	/** The cache for a log in a directory that is not writable */
+	private static File userCacheFileFor(File log) {
+		String path = log.getAbsolutePath();
+		File dir = new File(System.getProperty("user.home"), ".projections" + File.separator + "cache");
+		return new File(dir, Integer.toHexString(path.hashCode()) + "-" + log.getName() + SUFFIX);
+	}
+
+	/** The up to date cache for the log, next to it or in the user cache directory, or null if there is none */
+	protected static File currentCacheFor(File log, double version) {
+		File cache = new File(log.getPath() + SUFFIX);
+		if (isCurrent(cache, log, version))
+			return cache;
+		cache = userCacheFileFor(log);
+		if (isCurrent(cache, log, version))
+			return cache;
+		return null;
+	}
+
+	private static boolean isCurrent(File cache, File log, double version) {
+		if (!cache.isFile() || cache.lastModified() < log.lastModified())
+			return false;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(cache))) {
+			return in.readInt() == MAGIC &&
+					in.readInt() == FORMAT_VERSION &&
+					in.readLong() == log.length() &&
+					in.readLong() == log.lastModified() &&
+					in.readDouble() == version;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/** Record the fields subsequently read from source as one record */
+	protected void startRecord(LineTokenizer source) {
+		this.source = source;
+		length = 0;
+	}
+
+	protected void endRecord() throws IOException {
+		int n = 0;
+		int v = length;
+		while ((v & ~0x7f) != 0) {
+			prefix[n++] = (byte) ((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		prefix[n++] = (byte) v;
+		out.write(prefix, 0, n);
+		out.write(record, 0, length);
+	}
+
+	private void ensure(int n) {
+		if (length + n > record.length) {
+			byte[] larger = new byte[Math.max(record.length * 2, length + n)];
+			System.arraycopy(record, 0, larger, 0, length);
+			record = larger;
+		}
+	}
+
+	private void putVarLong(long value) {
+		ensure(10);
+		// zig-zag, so that small negative values stay short
+		long v = (value << 1) ^ (value >> 63);
+		while ((v & ~0x7fL) != 0) {
+			record[length++] = (byte) ((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		record[length++] = (byte) v;
+	}
+
+	public long nextLong() throws IOException {
+		long value = source.nextLong();
+		putVarLong(value);
+		return value;
+	}
+
+	public double nextDouble() throws IOException {
+		double value = source.nextDouble();
+		long bits = Double.doubleToRawLongBits(value);
+		ensure(8);
+		for (int shift = 56; shift >= 0; shift -= 8)
+			record[length++] = (byte) (bits >>> shift);
+		return value;
+	}
+
+	public String nextString(int strlen) {
+		String value = source.nextString(strlen);
+		byte[] b = value.getBytes();
+		putVarLong(b.length);
+		ensure(b.length);
+		System.arraycopy(b, 0, record, length, b.length);
+		length += b.length;
+		return value;
+	}
+
+	public boolean hasNextField() {
+		// Whether a field follows is implied by the length of the record
+		return source.hasNextField();
+	}
+
+	/** The whole log has been recorded: move the cache into place */
+	protected void finish() {
+		try {
+			out.close();
+			out = null;
+			if (!tmp.renameTo(cache)) {
+				cache.delete();
+				if (!tmp.renameTo(cache))
+					throw new IOException("rename failed");
+			}
+			// The cache must look newer than the log even on coarse grained file systems
+			if (cache.lastModified() < log.lastModified())
+				cache.setLastModified(log.lastModified());
+		} catch (IOException e) {
+			System.err.println("Warning: could not write binary log cache " + cache.getAbsolutePath());
+			abort();
+		}
+	}
+
+	/** Discard a partially written cache */
+	protected void abort() {
+		try {
+			if (out != null)
+				out.close();
+		} catch (IOException e) {
+			// nothing more to be done
+		}
+		out = null;
+		tmp.delete();
+	}
+
+}
@@ -0,0 +1,411 @@
+package projections.analysis;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+
+import projections.misc.LogEntry;
+
+/**
+ *  ByteLogParser tokenizes a log file in place, without creating a String
+ *  per line or an AsciiLineParser per line.
+ *
+ *  An uncompressed log is memory mapped a window at a time and copied in
+ *  bulk into one reusable byte array; a compressed log ending in ".gz" is
+ *  inflated into the same array. nextLine() makes sure the whole of the
+ *  current line is in the array, and the LineTokenizer methods then decode
+ *  ASCII digits straight out of it. In the steady state nothing is
+ *  allocated. (Parsing out of the array rather than the MappedByteBuffer
+ *  itself avoids a bounds check per byte, which is most of the cost.)
+ *
+ *  Like LogLineReader, the parser knows the offset of each line in the
+ *  (uncompressed) log so GenericLogReader can build and use a LogIndex.
+ *
+ *  Most of the time of a full scan goes into decoding the digits
+ *  themselves (see AnalysisBenchmarks.decodeDigitsOnly). Scans that only
+ *  need the type and time of each event use skimLine(), which decodes just
+ *  those two fields, and repeated full scans replay the binary cache
+ *  instead (see BinaryLogParser).
+ */
+class ByteLogParser implements LineTokenizer {
+
+	/** Size of each memory mapped window of an uncompressed log */
+	private static final int MAP_WINDOW = 64 * 1024 * 1024;
+
+	private final File file;
+	private final boolean compressed;
+
+	/** Source for an uncompressed log */
+	private FileChannel channel;
+	private long fileLength;
+	private MappedByteBuffer window;
+
+	/** Source for a compressed log */
+	private InputStream in;
+
+	protected boolean eof;
+
+	protected byte[] bytes;
+	/** bytes, for reading eight of them at once */
+	private ByteBuffer words;
+	/** Offset in the uncompressed log of bytes[0] */
+	protected long base;
+	/** Number of valid bytes in bytes */
+	protected int limit;
+	/** Just past the last '\n' in bytes, so that every line starting before it is complete */
+	protected int complete;
+
+	/** Start of the next unread line */
+	protected int next;
+	/** Current read position within the current line */
+	protected int pos;
+	/** Start and end (position of its '\n', or limit) of the current line */
+	protected int lineStart;
+	protected int lineEnd;
+
+	protected ByteLogParser(File file, int bufferSize) throws IOException {
+		this.file = file;
+		this.compressed = file.getName().endsWith(".gz");
+		bytes = new byte[bufferSize];
+		words = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		if (!compressed) {
+			@SuppressWarnings("resource")
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			channel = raf.getChannel();
+			fileLength = channel.size();
+		}
+		open(0);
+	}
+
+	/** Position the source so that the next bytes read come from the given offset */
+	private void open(long offset) throws IOException {
+		if (compressed) {
+			if (in != null)
+				in.close();
+			in = new GZIPInputStream(new FileInputStream(file), bytes.length);
+			long remaining = offset;
+			while (remaining > 0) {
+				long skipped = in.skip(remaining);
+				if (skipped <= 0) {
+					throw new IOException("Could not seek to offset " + offset + " in " + file.getAbsolutePath());
+				}
+				remaining -= skipped;
+			}
+		} else {
+			map(offset);
+		}
+		base = offset;
+		limit = complete = next = pos = lineStart = lineEnd = 0;
+		eof = false;
+	}
+
+	private void map(long offset) throws IOException {
+		long size = Math.min(MAP_WINDOW, fileLength - offset);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.max(0, size));
+	}
+
+	/** Read up to len bytes from the source into bytes[off], returning -1 at the end of the log */
+	private int read(int off, int len) throws IOException {
+		if (compressed)
+			return in.read(bytes, off, len);
+		if (!window.hasRemaining()) {
+			// The window ends where the bytes read so far end
+			long offset = base + off;
+			if (offset >= fileLength)
+				return -1;
+			map(offset);
+		}
+		int n = Math.min(len, window.remaining());
+		window.get(bytes, off, n);
+		return n;
+	}
+
+	/** The offset in the uncompressed log of the next line nextLine() will move to */
+	protected long position() {
+		return base + next;
+	}
+
+	/** Continue reading from the line beginning at the given offset in the uncompressed log */
+	protected void seek(long offset) throws IOException {
+		if (offset >= base && offset <= base + limit) {
+			next = (int) (offset - base);
+			return;
+		}
+		open(offset);
+	}
+
+	/** Move to the next line of the log. Returns false at the end of the log. */
+	protected boolean nextLine() throws IOException {
+		int scan = next;
+		while (true) {
+			final byte[] b = bytes;
+			final int l = limit;
+			while (scan < l && b[scan] != '\n')
+				scan++;
+			if (scan < l) {
+				lineStart = pos = next;
+				lineEnd = scan;
+				next = scan + 1;
+				return true;
+			}
+			int scanned = scan - next;
+			if (eof || !fill()) {
+				if (next >= limit)
+					return false;
+				// last line of the log has no terminator
+				lineStart = pos = next;
+				lineEnd = next = limit;
+				return true;
+			}
+			scan = next + scanned;
+		}
+	}
+
+	/** Move the unread bytes to the front of the buffer and read more. Returns false at the end of the log. */
+	protected boolean fill() throws IOException {
+		int unread = limit - next;
+		if (next > 0) {
+			System.arraycopy(bytes, next, bytes, 0, unread);
+			base += next;
+			complete = Math.max(0, complete - next);
+			next = 0;
+			limit = unread;
+		} else if (limit == bytes.length) {
+			// a single line longer than the whole buffer
+			byte[] larger = new byte[bytes.length * 2];
+			System.arraycopy(bytes, 0, larger, 0, limit);
+			bytes = larger;
+			words = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		int n = read(limit, bytes.length - limit);
+		if (n <= 0) {
+			eof = true;
+			return false;
+		}
+		for (int p = limit + n - 1; p >= limit; p--) {
+			if (bytes[p] == '\n') {
+				complete = p + 1;
+				break;
+			}
+		}
+		limit += n;
+		return true;
+	}
+
+	/**
+	 * Move to the next line, reading only its type, the first field, into
+	 * data.type and the timeFields[type]-th field after that into data.time.
+	 * data.time is left alone if that is negative or the type is not in
+	 * timeFields. Returns false at the end of the log.
+	 *
+	 * The rest of the line is not decoded, and the line is only read once:
+	 * a line starting before the last '\n' in the buffer is known to be
+	 * complete, so its '\n' serves to stop the field loops and is only
+	 * looked for after the fields.
+	 */
+	protected boolean skimLine(byte[] timeFields, LogEntry data) throws IOException {
+		if (next >= complete && !fillLine()) {
+			// no more lines, or a last line without a terminator
+			if (!nextLine())
+				return false;
+			skimFields(timeFields, data);
+			return true;
+		}
+
+		// Bytes are taken as unsigned, so that only those at or below ' ' separate fields
+		final byte[] b = bytes;
+		int p = lineStart = next;
+		int c;
+		while ((c = b[p] & 0xff) <= ' ' && c != '\n')
+			p++;
+		if (c == '\n')
+			throw missingField(p);
+		// A negative type is decoded as some other negative number, which is just as unknown
+		int type = 0;
+		while (c > ' ') {
+			type = 10 * type + (c - '0');
+			c = b[++p] & 0xff;
+		}
+		data.type = type;
+
+		int field = type >= 0 && type < timeFields.length ? timeFields[type] : -1;
+		if (field >= 0) {
+			while (true) {
+				while (c <= ' ' && c != '\n')
+					c = b[++p] & 0xff;
+				if (c == '\n')
+					throw missingField(p);
+				if (field-- == 0)
+					break;
+				while (c > ' ')
+					c = b[++p] & 0xff;
+			}
+			boolean negative = false;
+			if (c == '-') {
+				negative = true;
+				c = b[++p] & 0xff;
+			}
+			long time = 0;
+			if (p <= b.length - 8) {
+				// The digits among the next eight bytes, which have 0x10 set unlike ' ', '\t', '\r' and '\n'
+				long x = words.getLong(p);
+				int digits = Long.numberOfTrailingZeros(~x & 0x1010101010101010L) >> 3;
+				if (digits > 0) {
+					// Leading zeros in place of the bytes after the digits, then pairs, fours and eights of digits
+					x = (x & 0x0f0f0f0f0f0f0f0fL) << ((8 - digits) << 3);
+					x = (x * 2561) >>> 8 & 0x00ff00ff00ff00ffL;
+					x = (x * 6553601) >>> 16 & 0x0000ffff0000ffffL;
+					time = (x * 42949672960001L) >>> 32;
+					p += digits;
+					c = b[p] & 0xff;
+				}
+			}
+			while (c > ' ') {
+				time = 10 * time + (c - '0');
+				c = b[++p] & 0xff;
+			}
+			data.time = negative ? -time : time;
+		}
+
+		while (c != '\n')
+			c = b[++p];
+		lineEnd = p;
+		pos = next = p + 1;
+		return true;
+	}
+
+	/** Read until a complete line follows next. Returns false if there is none. */
+	private boolean fillLine() throws IOException {
+		while (next >= complete) {
+			if (eof || !fill())
+				return false;
+		}
+		return true;
+	}
+
+	/** What skimLine() reads, read from the current line with nextLong() */
+	protected final void skimFields(byte[] timeFields, LogEntry data) throws IOException {
+		int type = (int) nextLong();
+		data.type = type;
+		int field = type >= 0 && type < timeFields.length ? timeFields[type] : -1;
+		if (field >= 0) {
+			for (; field > 0; field--)
+				nextLong();
+			data.time = nextLong();
+		}
+	}
+
+	/** A copy of the current line. Allocates, so only for rarely needed lines. */
+	protected byte[] currentRecord() {
+		int end = lineEnd;
+		if (end > lineStart && bytes[end - 1] == '\r')
+			end--;
+		byte[] record = new byte[end - lineStart];
+		System.arraycopy(bytes, lineStart, record, 0, record.length);
+		return record;
+	}
+
+	/** A tokenizer over a line previously returned by currentRecord() */
+	protected LineTokenizer tokenizerFor(byte[] record) {
+		return new AsciiLineParser(new String(record));
+	}
+
+	/** Within a line, every ASCII byte at or below ' ' separates fields */
+	private static boolean isSpace(int c) {
+		return c <= ' ' && c >= 0;
+	}
+
+	private IOException missingField() {
+		return new IOException("Missing field in " + file.getName() + " at offset " + (base + lineStart));
+	}
+
+	/** missingField() for skimLine(), which has not yet moved past the line ending at end */
+	private IOException missingField(int end) {
+		lineEnd = end;
+		pos = next = end + 1;
+		return missingField();
+	}
+
+	public long nextLong() throws IOException {
+		final byte[] b = bytes;
+		final int end = lineEnd;
+		int p = pos;
+		while (p < end && isSpace(b[p]))
+			p++;
+		if (p >= end)
+			throw missingField();
+		boolean negative = false;
+		if (b[p] == '-') {
+			negative = true;
+			p++;
+		}
+		long ret = 0;
+		int c;
+		while (p < end && !isSpace(c = b[p])) {
+			ret = 10 * ret + (c - '0');
+			p++;
+		}
+		// consume the separator, as AsciiLineParser does
+		pos = p + 1;
+		return negative ? -ret : ret;
+	}
+
+	public double nextDouble() throws IOException {
+		final byte[] b = bytes;
+		final int end = lineEnd;
+		int p = pos;
+		while (p < end && isSpace(b[p]))
+			p++;
+		if (p >= end)
+			throw missingField();
+		int multiplier = 1;
+		if (b[p] == '-') {
+			multiplier = -1;
+			p++;
+		}
+		double ret = 0;
+		int counter = 0;
+		boolean decimal = false;
+		int c;
+		while (p < end && !isSpace(c = b[p])) {
+			p++;
+			if (c == '.') {
+				decimal = true;
+				continue;
+			}
+			if (decimal)
+				counter++;
+			ret = 10 * ret + (c - '0');
+		}
+		pos = p + 1;
+		return ret * multiplier / Math.pow(10, counter);
+	}
+
+	public String nextString(int strlen) {
+		int len = Math.min(strlen, Math.max(0, lineEnd - pos));
+		String ret = new String(bytes, pos, len);
+		pos += strlen;
+		return ret;
+	}
+
+	public boolean hasNextField() {
+		while (pos < lineEnd && isSpace(bytes[pos]))
+			pos++;
+		return pos < lineEnd;
+	}
+
+	protected void close() throws IOException {
+		if (in != null)
+			in.close();
+		if (channel != null)
+			channel.close();
+	}
+
+}
@@ -4,14 +4,25 @@ import java.awt.Component;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
-
-import javax.swing.ProgressMonitor;
+import java.util.TreeMap;
 
 import projections.gui.MainWindow;
 import projections.misc.LogEntry;
 
+/**
+ *  Which entry methods sent messages to which, with statistics on the sizes
+ *  of the messages.
+ *
+ *  Each PE's log is read as a task of its own, from the start of the range,
+ *  into statistics for just the (source, destination) pairs of entry methods
+ *  seen on that PE. These are merged once all the PEs are read.
+ */
 public class CallTable extends ProjDefs
 {
 	// Temporary hardcode. This variable will be assigned appropriate
@@ -19,191 +30,213 @@ public class CallTable extends ProjDefs
 	// runs.
 	private int myRun = 0;
 
-	private int numPe;		     //Number of processors
-	private int numEPs;	   	     //Number of entry methods
-	private double[][] byteSum;	     //Array for EP message byte sum to be stored
-	private double[][] msgCount;     //Array for EP message count to be stored
-	private double[][] sumSquares;   //Array for EP sum of byte counts squared
-	private int[][] minStats;	     //Array for EP min stats to be stored
-	private int[][] maxStats;	     //Array for EP max stats to be stored
-	private double[][] varStats;     //Array for EP variance stats to be stored
-	private boolean[] exists;	     //Array to remember if sourceEP sent any messages
 	private long startTime;	     //Interval begin
 	private long endTime;	     //Interval end
 	private SortedSet<Integer> peList;   //List of processors
 	private DecimalFormat _format;   //Format for output
 
+	/** The statistics of each pair of entry methods that sent messages, by key(sourceEP, destEP) */
+	private TreeMap<Long, PairStats> pairs = new TreeMap<Long, PairStats>();
+
+	/** The messages sent by one entry method to another */
+	private static final class PairStats
+	{
+		final int sourceEP;
+		final int destEP;
+		double msgCount;
+		double byteSum;
+		double sumSquares;
+		int min;
+		int max;
+
+		PairStats(int sourceEP, int destEP) {
+			this.sourceEP = sourceEP;
+			this.destEP = destEP;
+		}
+
+		void add(int msglen) {
+			if (msgCount == 0 || msglen < min)
+				min = msglen;
+			if (msglen > max)
+				max = msglen;
+			msgCount++;
+			byteSum += msglen;
+			sumSquares += (double)msglen*(double)msglen;
+		}
+
+		void merge(PairStats other) {
+			if (msgCount == 0 || other.min < min)
+				min = other.min;
+			if (other.max > max)
+				max = other.max;
+			msgCount += other.msgCount;
+			byteSum += other.byteSum;
+			sumSquares += other.sumSquares;
+		}
+
+		double variance() {
+			if (msgCount <= 1)
+				return 0;
+			double mean = byteSum/msgCount;
+			//Variance = (sumofsquares - 2*mean*sum + mean*mean*count) / (count-1)
+			return (sumSquares - 2.0*mean*byteSum + mean*mean*msgCount) / (msgCount-1.0);
+		}
+	}
+
+	/** Sorts the pairs by source, then by destination */
+	private static long key(int sourceEP, int destEP) {
+		return ((long)sourceEP << 32) | (destEP & 0xffffffffL);
+	}
+
 	public CallTable(long startInterval, long endInterval, 
 			SortedSet<Integer> processorList)
 	{
 		//Initialize class variables
 		peList = processorList;
-		numPe = peList.size();
-		numEPs = MainWindow.runObject[myRun].getNumUserEntries();
 		startTime = startInterval;
 		endTime = endInterval;
-		byteSum = new double[numEPs][numEPs];
-		msgCount = new double[numEPs][numEPs];
-		sumSquares = new double[numEPs][numEPs];
-		minStats = new int[numEPs][numEPs];
-		maxStats = new int[numEPs][numEPs];
-		varStats = new double[numEPs][numEPs];
-		exists = new boolean[numEPs];
 		_format = new DecimalFormat("###,###.###");
 	}
 
 	public void GatherData(Component parent)
 	{
-		GenericLogReader reader;
-		LogEntry logdata;
-
-		int currPeIndex = 0;
-		int sourceEP;
-
-		ProgressMonitor progressBar =
-			new ProgressMonitor(parent, "Generating Call Table",
-					"", 0, numPe);
+		final List<Map<Long, PairStats>> perPE = new ArrayList<Map<Long, PairStats>>();
+		List<Runnable> readers = new ArrayList<Runnable>();
+		for (final Integer pe : peList) {
+			final int pIdx = perPE.size();
+			perPE.add(null);
+			readers.add(new Runnable() {
+				public void run() {
+					perPE.set(pIdx, readPE(pe));
+				}
+			});
+		}
+		new TimedProgressThreadExecutor("Generating Call Table", readers, parent, true).runAll();
 
-		for (Integer pe : peList){
-			if (!progressBar.isCanceled()) {
-				progressBar.setNote("[PE: " + pe + " ] Reading data.");
-				progressBar.setProgress(currPeIndex+1);
-			}
-			else {
-				progressBar.close();
-				break;
+		// PEs skipped by a cancel are left out
+		pairs.clear();
+		for (Map<Long, PairStats> m : perPE) {
+			if (m == null)
+				continue;
+			for (Map.Entry<Long, PairStats> e : m.entrySet()) {
+				PairStats total = pairs.get(e.getKey());
+				if (total == null)
+					pairs.put(e.getKey(), e.getValue());
+				else
+					total.merge(e.getValue());
 			}
-			reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+		}
+	}
 
-			try
-			{
-				logdata = reader.nextEventOnOrAfter(startTime);
-				//Now we have entered into the time interval
+	/** Read the messages sent within the range on one PE */
+	private Map<Long, PairStats> readPE(int pe)
+	{
+		Map<Long, PairStats> stats = new HashMap<Long, PairStats>();
+		GenericLogReader reader = new GenericLogReader(pe, MainWindow.runObject[myRun].getVersion());
+		LogEntry logdata;
+		int sourceEP;
 
-				Deque<Integer> creationStack = new ArrayDeque<Integer>();
-				while ( (logdata.time<endTime)&&(logdata.type!=BEGIN_PROCESSING) ) {
-					//Account for any Creations encountered after a BP but before an EP
-					// Basically, the start interval begins inside a Processing Block
-					if (logdata.type == CREATION) {
-						creationStack.push(logdata.entry);
-						creationStack.push(logdata.msglen);
-					}
-					if (logdata.type == END_PROCESSING) {
-						sourceEP = logdata.entry;
-						while(creationStack.size() != 0) {
-							int msglen = creationStack.pop();
-							int destEP = creationStack.pop();
-							if ( (minStats[sourceEP][destEP]>msglen) ||
-									(minStats[sourceEP][destEP]==0) )
-								minStats[sourceEP][destEP] = msglen;
-							if (maxStats[sourceEP][destEP]<msglen)
-								maxStats[sourceEP][destEP] = msglen;
-							msgCount[sourceEP][destEP]++;
-							byteSum[sourceEP][destEP]+=msglen;
-							sumSquares[sourceEP][destEP]+=(double)msglen*(double)msglen;
-							if (!exists[sourceEP])
-								exists[sourceEP]=true;
-						}
-						logdata = reader.nextEvent();
-						break;
+		try
+		{
+			// Seeks straight to the start of the range if the log is indexed
+			logdata = reader.nextEventOnOrAfter(startTime);
+			//Now we have entered into the time interval
+
+			Deque<Integer> creationStack = new ArrayDeque<Integer>();
+			while ( (logdata.time<endTime)&&(logdata.type!=BEGIN_PROCESSING) ) {
+				//Account for any Creations encountered after a BP but before an EP
+				// Basically, the start interval begins inside a Processing Block
+				if (logdata.type == CREATION) {
+					creationStack.push(logdata.entry);
+					creationStack.push(logdata.msglen);
+				}
+				if (logdata.type == END_PROCESSING) {
+					sourceEP = logdata.entry;
+					while(creationStack.size() != 0) {
+						int msglen = creationStack.pop();
+						int destEP = creationStack.pop();
+						add(stats, sourceEP, destEP, msglen);
 					}
-					logdata = reader.nextEvent();
+					logdata = reader.nextEvent(logdata);
+					break;
 				}
+				logdata = reader.nextEvent(logdata);
+			}
 
-				while (logdata.time < endTime) {
-					//Go through each log file and for each Creation
-					//  in a Processing Block, update arrays
-					if (logdata.type == BEGIN_PROCESSING) {
-						//Starting new entry method
-						sourceEP = logdata.entry;
-						logdata = reader.nextEvent();
-						while ( (logdata.type != END_PROCESSING) &&
-								(logdata.type != END_COMPUTATION) &&
-								(logdata.time < endTime) ) {
-							if (logdata.type == CREATION) {
-								int msglen = logdata.msglen;
-								int destEP = logdata.entry;
-								if ( (minStats[sourceEP][destEP]>msglen) ||
-										(minStats[sourceEP][destEP]==0) )
-									minStats[sourceEP][destEP] = msglen;
-								if (maxStats[sourceEP][destEP]<msglen)
-									maxStats[sourceEP][destEP] = msglen;
-								msgCount[sourceEP][destEP]++;
-								byteSum[sourceEP][destEP]+=msglen;
-								sumSquares[sourceEP][destEP]+=(double)msglen*(double)msglen;
-								if (!exists[sourceEP])
-									exists[sourceEP]=true;
-							}
-							logdata = reader.nextEvent();
+			while (logdata.time < endTime) {
+				//Go through each log file and for each Creation
+				//  in a Processing Block, update the statistics
+				if (logdata.type == BEGIN_PROCESSING) {
+					//Starting new entry method
+					sourceEP = logdata.entry;
+					logdata = reader.nextEvent(logdata);
+					while ( (logdata.type != END_PROCESSING) &&
+							(logdata.type != END_COMPUTATION) &&
+							(logdata.time < endTime) ) {
+						if (logdata.type == CREATION) {
+							add(stats, sourceEP, logdata.entry, logdata.msglen);
 						}
+						logdata = reader.nextEvent(logdata);
 					}
-					logdata = reader.nextEvent();
 				}
-			} catch (EndOfLogSuccess e) {
-				// Reached end of the log file successfully
-			} catch (IOException e) {
-				System.err.println("Error reading log data for processor " + pe);
-				System.err.println(e);
-			}
-		
-			
-			try {
-				reader.close();
-			} catch (IOException e1) {
-				System.err.println("Error: could not close log file reader for processor " + pe );
+				logdata = reader.nextEvent(logdata);
 			}
-		    
-			
-			currPeIndex++;
+		} catch (EndOfLogSuccess e) {
+			// Reached end of the log file successfully
+		} catch (IOException e) {
+			System.err.println("Error reading log data for processor " + pe);
+			System.err.println(e);
 		}
 
-		// Update Variance Array
-		for (int srcEP=0; srcEP<numEPs; srcEP++) {
-			if (exists[srcEP]) {
-				for (int destEP=0; destEP<numEPs; destEP++) {
-					if (msgCount[srcEP][destEP]==1)
-						varStats[srcEP][destEP] = 0;
-					else if (msgCount[srcEP][destEP]>1) {
-						double mean = byteSum[srcEP][destEP]/msgCount[srcEP][destEP];
-						//Variance = (sumofsquares - 2*mean*sum + mean*mean*count) / (count-1)
-						varStats[srcEP][destEP] = ((sumSquares[srcEP][destEP]
-						                                              - 2.0*mean*byteSum[srcEP][destEP]
-						                                                                        + mean*mean*msgCount[srcEP][destEP])
-						                                                                        /(msgCount[srcEP][destEP]-1.0));
-					}
-				}
-			}
+		try {
+			reader.close();
+		} catch (IOException e1) {
+			System.err.println("Error: could not close log file reader for processor " + pe );
 		}
+		return stats;
+	}
 
-		progressBar.close();
+	private static void add(Map<Long, PairStats> stats, int sourceEP, int destEP, int msglen) {
+		Long k = key(sourceEP, destEP);
+		PairStats p = stats.get(k);
+		if (p == null) {
+			p = new PairStats(sourceEP, destEP);
+			stats.put(k, p);
+		}
+		p.add(msglen);
 	}
 
 	public String[][] getCallTableText(boolean epDetailToggle, boolean statsToggle)
 	{
-		// length is number of lines
+		// length is number of lines: each source EP, 2 for each of its
+		// destinations, and 2 line spaces between source EPs
 		int length = 0;
-		for (int sourceEP=0; sourceEP<numEPs; sourceEP++) {
-			if (exists[sourceEP]) {
-				length++;
-				for (int destEP=0; destEP<numEPs; destEP++) {
-					if (msgCount[sourceEP][destEP] > 0)
-						length+=2;
-				}
-				length+=2; //for 2 line spaces between source EPs
+		int lastSource = -1;
+		for (PairStats p : pairs.values()) {
+			if (p.sourceEP != lastSource) {
+				length += 3;
+				lastSource = p.sourceEP;
 			}
+			length += 2;
 		}
 
 		String[][] text = new String[length][1];
 		int lengthCounter = 0;
 
-		for (int sourceEP=0; sourceEP<numEPs; sourceEP++) {
-			if (exists[sourceEP]) {
+		lastSource = -1;
+		for (PairStats p : pairs.values()) {
+			if (p.sourceEP != lastSource) {
+				if (lastSource != -1) {
+					text[lengthCounter++][0] = "";
+					text[lengthCounter++][0] = "";
+				}
+				lastSource = p.sourceEP;
 
 				if (epDetailToggle==true) { //need ep detail
-					text[lengthCounter][0] = MainWindow.runObject[myRun].getEntryFullNameByIndex(sourceEP);
+					text[lengthCounter][0] = MainWindow.runObject[myRun].getEntryFullNameByIndex(p.sourceEP);
 				}
 				else { //don't need ep detail
-					String s = MainWindow.runObject[myRun].getEntryNameByIndex(sourceEP);
+					String s = MainWindow.runObject[myRun].getEntryNameByIndex(p.sourceEP);
 					int parenthIndex = s.indexOf('(');
 					if (parenthIndex != -1) //s has parenthesis
 						s = s.substring(0, parenthIndex);
@@ -211,45 +244,40 @@ public class CallTable extends ProjDefs
 				}
 
 				lengthCounter++;
+			}
 
-				for (int destEP=0; destEP<numEPs; destEP++) {
-					if (msgCount[sourceEP][destEP] > 0) {
-
-						if (epDetailToggle==true) { //need ep detail
-							text[lengthCounter][0] = "        " + MainWindow.runObject[myRun].getEntryFullNameByIndex(destEP);
-						}
-						else { //don't need ep detail
-							String s = MainWindow.runObject[myRun].getEntryNameByIndex(destEP);
-							int parenthIndex = s.indexOf('(');
-							if (parenthIndex != -1) //s has parenthesis
-								s = s.substring(0, parenthIndex);
-							text[lengthCounter][0] = "        " + s;
-						}
-
-						lengthCounter++;
+			if (epDetailToggle==true) { //need ep detail
+				text[lengthCounter][0] = "        " + MainWindow.runObject[myRun].getEntryFullNameByIndex(p.destEP);
+			}
+			else { //don't need ep detail
+				String s = MainWindow.runObject[myRun].getEntryNameByIndex(p.destEP);
+				int parenthIndex = s.indexOf('(');
+				if (parenthIndex != -1) //s has parenthesis
+					s = s.substring(0, parenthIndex);
+				text[lengthCounter][0] = "        " + s;
+			}
 
-						if (statsToggle==true) { //stats needed
-							text[lengthCounter][0] = "                " + 
-							"Msg's Rec'd=" + _format.format(msgCount[sourceEP][destEP]) + 
-							"  Bytes Rec'd=" + _format.format(byteSum[sourceEP][destEP]) +
-							"  Min=" + _format.format(minStats[sourceEP][destEP]) +
-							"  Max=" + _format.format(maxStats[sourceEP][destEP]) +
-							"  Mean=" +
-							_format.format(byteSum[sourceEP][destEP]/msgCount[sourceEP][destEP]) +
-							"  Variance=" + _format.format(varStats[sourceEP][destEP]);
-						}
-						else { //stats not needed
-							text[lengthCounter][0] = "";
-						}
+			lengthCounter++;
 
-						lengthCounter++;
-					}
-				}
-				text[lengthCounter][0] = "";
-				lengthCounter++;
+			if (statsToggle==true) { //stats needed
+				text[lengthCounter][0] = "                " + 
+				"Msg's Rec'd=" + _format.format(p.msgCount) + 
+				"  Bytes Rec'd=" + _format.format(p.byteSum) +
+				"  Min=" + _format.format(p.min) +
+				"  Max=" + _format.format(p.max) +
+				"  Mean=" +
+				_format.format(p.byteSum/p.msgCount) +
+				"  Variance=" + _format.format(p.variance());
+			}
+			else { //stats not needed
 				text[lengthCounter][0] = "";
-				lengthCounter++;
 			}
+
+			lengthCounter++;
+		}
+		if (lastSource != -1) {
+			text[lengthCounter++][0] = "";
+			text[lengthCounter++][0] = "";
 		}
 
 		return text;
@@ -0,0 +1,792 @@
+package projections.analysis;
+
+import java.awt.Component;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedSet;
+
+import projections.gui.MainWindow;
+import projections.misc.LogEntry;
+
+/**
+ *  Computes the critical path of a run, or of a range of it, from the logs
+ *  of a set of PEs: the chain of entry method executions, each one enabled
+ *  either by the previous execution on its PE or by the message that
+ *  invoked it, with the most execution time along it.
+ *
+ *  Unlike the trace on hover in the Timeline, nothing is loaded into the
+ *  Timeline, so it works for runs far too large to display there. The
+ *  memory used does not grow with the length of the run:
+ *
+ *  1. The readers stream each PE's log through GenericLogReader, in
+ *     parallel, and write its executions and the messages they sent to a
+ *     compact spill file.
+ *  2. compute() merges the spill files in order of begin time, a window of
+ *     time at a time. Every dependency points forward in time, so this is
+ *     a topological order, and the longest path to each execution is found
+ *     in one pass. Only the messages sent but not yet received are kept in
+ *     memory, keyed by (sending PE, EventID). A message is forgotten once
+ *     each of its receivers has begun, where a message is counted as having
+ *     at most one receiver per selected PE, or once it has waited through a
+ *     whole window without being received, as it then most likely went to
+ *     a PE that is not selected or was received after the range. The
+ *     predecessor of each execution is written to disk.
+ *  3. The path is followed backwards from its last execution through the
+ *     predecessors, adding up how much time each entry method and each PE
+ *     contributes to its length.
+ *
+ *  Of an execution that sent the message continuing the path, only the
+ *  time up to the send counts.
+ *
+ *  Executions that begin at the same time are taken in the order of their
+ *  PEs in the set. A message is only found if its sender comes first, so
+ *  a message received at the very time it was sent by a later PE, or
+ *  received "before" it was sent because the clocks of the PEs disagree,
+ *  is not followed; the execution that received it then depends only on
+ *  the previous execution on its PE.
+ *
+ *  The spill files are kept in a temporary directory, which close()
+ *  removes.
+ */
+public class CriticalPath {
+
+	/** The begin times are counted into this many buckets, to choose the windows of compute() */
+	private static final int NUM_BUCKETS = 1024;
+	/** Roughly how many executions compute() keeps in memory at once */
+	private static final int WINDOW_SIZE = 1 << 20;
+	/** The number of receivers of a broadcast or multicast whose destinations are not logged. Like
+	 *  any other count it is capped at the number of selected PEs once the message is sent. */
+	private static final int UNKNOWN_RECEIVERS = Integer.MAX_VALUE;
+	/** Bytes in each predecessor record: pe, ep, begin, end, predecessor, time counted of it */
+	private static final int RECORD_SIZE = 4 + 4 + 8 + 8 + 8 + 8;
+
+	private final Analysis run;
+	private final int[] peList;
+	private final long startTime;
+	private final long endTime;
+	private final int numEPs;
+
+	private final File workDir;
+	private final List<Runnable> readers = new ArrayList<Runnable>();
+	private final long[] bucketCounts = new long[NUM_BUCKETS];
+	private volatile IOException readFailure;
+
+	// Results
+	private long length;
+	private long[] entryTime;
+	private int[] entryCount;
+	private long[] peTime;
+	private int[] peCount;
+	private int[] pathPE;
+	private int[] pathEP;
+	private long[] pathBegin;
+	private long[] pathEnd;
+	private long[] pathCounted;
+
+	/** Set up the readers for the executions beginning from startTime up to endTime */
+	public CriticalPath(SortedSet<Integer> pes, long startTime, long endTime) throws IOException {
+		run = MainWindow.runObject[0];
+		peList = new int[pes.size()];
+		int pIdx = 0;
+		for (Integer pe : pes)
+			peList[pIdx++] = pe;
+		this.startTime = startTime;
+		this.endTime = endTime;
+		numEPs = run.getNumUserEntries();
+
+		workDir = Files.createTempDirectory("projections-criticalpath").toFile();
+		workDir.deleteOnExit();
+		for (pIdx = 0; pIdx < peList.length; pIdx++)
+			readers.add(new SpillWriter(pIdx));
+	}
+
+	/** The readers, to be run before compute() */
+	public List<Runnable> getReaders() {
+		return readers;
+	}
+
+	/** Run the readers on the shared worker pool, showing progress over guiRoot if it is not null, and compute the path */
+	public void load(Component guiRoot) throws IOException {
+		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Reading Logs for the Critical Path", readers, guiRoot, true);
+		try {
+			threadManager.runAll();
+		} catch (RuntimeException e) {
+			close();
+			throw e;
+		}
+		compute();
+	}
+
+	private File spillFile(int pIdx) {
+		return new File(workDir, "pe" + peList[pIdx] + ".bin");
+	}
+
+	private int bucket(long time) {
+		long b = (time - startTime) * NUM_BUCKETS / (endTime - startTime + 1);
+		return (int) Math.max(0, Math.min(NUM_BUCKETS - 1, b));
+	}
+
+
+	/** Writes the executions of one PE to its spill file. Each is written as its begin and end
+	 *  times, entry index, the PE and EventID of the message that invoked it, and the number of
+	 *  messages it sent followed by the send time, EventID and number of receivers of each. */
+	private class SpillWriter implements Runnable {
+
+		private final int pIdx;
+		private final long[] counts = new long[NUM_BUCKETS];
+
+		private boolean open = false;
+		private long begin;
+		private int ep;
+		private int srcPe;
+		private int eventID;
+		private int numSends = 0;
+		private long[] sendTime = new long[8];
+		private int[] sendEvent = new int[8];
+		private int[] sendReceivers = new int[8];
+
+		SpillWriter(int pIdx) {
+			this.pIdx = pIdx;
+		}
+
+		public void run() {
+			try {
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile(pIdx)), 64 * 1024));
+				try {
+					readLog(out);
+				} finally {
+					out.close();
+				}
+			} catch (IOException e) {
+				readFailure = e;
+			}
+			synchronized (bucketCounts) {
+				for (int b = 0; b < NUM_BUCKETS; b++)
+					bucketCounts[b] += counts[b];
+			}
+		}
+
+		private void readLog(DataOutputStream out) throws IOException {
+			GenericLogReader reader = new GenericLogReader(peList[pIdx], run.getVersion(), run);
+			long lastTime = startTime;
+			try {
+				LogEntry le = reader.nextEventOnOrAfter(startTime);
+				while (true) {
+					lastTime = le.time;
+					if (le.type == ProjDefs.BEGIN_PROCESSING) {
+						if (open)
+							write(out, le.time);
+						if (le.time > endTime)
+							break;
+						Integer index = run.getSts().getEntryIndex(le.entry);
+						open = true;
+						begin = le.time;
+						ep = (index == null) ? numEPs : index;
+						srcPe = le.pe;
+						eventID = le.event;
+						numSends = 0;
+					} else if (le.type == ProjDefs.END_PROCESSING) {
+						if (open)
+							write(out, le.time);
+					} else if (le.type == ProjDefs.CREATION) {
+						addSend(le.time, le.event, 1);
+					} else if (le.type == ProjDefs.CREATION_BCAST) {
+						addSend(le.time, le.event, le.numPEs > 0 ? le.numPEs : UNKNOWN_RECEIVERS);
+					} else if (le.type == ProjDefs.CREATION_MULTICAST) {
+						addSend(le.time, le.event, le.destPEs != null ? le.destPEs.length : UNKNOWN_RECEIVERS);
+					} else if (le.type == ProjDefs.END_COMPUTATION) {
+						break;
+					}
+					le = reader.nextEvent(le);
+				}
+			} catch (EndOfLogSuccess e) {
+				// Done
+			} finally {
+				reader.close();
+			}
+			if (open)
+				write(out, Math.min(lastTime, endTime));
+		}
+
+		/** Messages sent outside of any entry method have no execution to depend on */
+		private void addSend(long time, int event, int receivers) {
+			if (!open)
+				return;
+			if (numSends == sendTime.length) {
+				sendTime = Arrays.copyOf(sendTime, numSends * 2);
+				sendEvent = Arrays.copyOf(sendEvent, numSends * 2);
+				sendReceivers = Arrays.copyOf(sendReceivers, numSends * 2);
+			}
+			sendTime[numSends] = time;
+			sendEvent[numSends] = event;
+			sendReceivers[numSends++] = receivers;
+		}
+
+		private void write(DataOutputStream out, long end) throws IOException {
+			open = false;
+			out.writeLong(begin);
+			out.writeLong(Math.max(begin, end));
+			out.writeInt(ep);
+			out.writeInt(srcPe);
+			out.writeInt(eventID);
+			out.writeInt(numSends);
+			for (int s = 0; s < numSends; s++) {
+				out.writeLong(sendTime[s]);
+				out.writeInt(sendEvent[s]);
+				out.writeInt(sendReceivers[s]);
+			}
+			counts[bucket(begin)]++;
+		}
+	}
+
+
+	/** Executions read from the spill files, to be processed in order of begin time */
+	private static class Window {
+		int size = 0;
+		int[] pIdx = new int[1024];
+		long[] begin = new long[1024];
+		long[] end = new long[1024];
+		int[] ep = new int[1024];
+		int[] srcPe = new int[1024];
+		int[] eventID = new int[1024];
+		/** The sends of execution i are sends firstSend[i] to firstSend[i+1]-1 */
+		int[] firstSend = new int[1025];
+		int numSends = 0;
+		long[] sendTime = new long[1024];
+		int[] sendEvent = new int[1024];
+		int[] sendReceivers = new int[1024];
+
+		void clear() {
+			size = 0;
+			numSends = 0;
+		}
+
+		/** Add an execution, whose sends are then added with addSend() */
+		void add(int p, long b, long e, int entry, int src, int event) {
+			if (size == begin.length) {
+				int n = size * 2;
+				pIdx = Arrays.copyOf(pIdx, n);
+				begin = Arrays.copyOf(begin, n);
+				end = Arrays.copyOf(end, n);
+				ep = Arrays.copyOf(ep, n);
+				srcPe = Arrays.copyOf(srcPe, n);
+				eventID = Arrays.copyOf(eventID, n);
+				firstSend = Arrays.copyOf(firstSend, n + 1);
+			}
+			pIdx[size] = p;
+			begin[size] = b;
+			end[size] = e;
+			ep[size] = entry;
+			srcPe[size] = src;
+			eventID[size] = event;
+			firstSend[size] = numSends;
+			firstSend[++size] = numSends;
+		}
+
+		/** Add a message sent by the last execution added */
+		void addSend(long time, int event, int receivers) {
+			if (numSends == sendTime.length) {
+				sendTime = Arrays.copyOf(sendTime, numSends * 2);
+				sendEvent = Arrays.copyOf(sendEvent, numSends * 2);
+				sendReceivers = Arrays.copyOf(sendReceivers, numSends * 2);
+			}
+			sendTime[numSends] = time;
+			sendEvent[numSends] = event;
+			sendReceivers[numSends++] = receivers;
+			firstSend[size] = numSends;
+		}
+
+		/** Add execution i of another window, and return its index here */
+		int add(Window from, int i) {
+			add(from.pIdx[i], from.begin[i], from.end[i], from.ep[i], from.srcPe[i], from.eventID[i]);
+			for (int m = from.firstSend[i]; m < from.firstSend[i + 1]; m++)
+				addSend(from.sendTime[m], from.sendEvent[m], from.sendReceivers[m]);
+			return size - 1;
+		}
+
+		/** Remove the last execution added */
+		void removeLast() {
+			size--;
+			numSends = firstSend[size];
+		}
+
+		/** Read one execution of PE index p from in, or return false at the end of the file */
+		boolean read(DataInputStream in, int p) throws IOException {
+			long b;
+			try {
+				b = in.readLong();
+			} catch (EOFException e) {
+				return false;
+			}
+			add(p, b, in.readLong(), in.readInt(), in.readInt(), in.readInt());
+			int sends = in.readInt();
+			for (int s = 0; s < sends; s++)
+				addSend(in.readLong(), in.readInt(), in.readInt());
+			return true;
+		}
+
+		/** The executions sorted by begin time, then by PE */
+		Integer[] order() {
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++)
+				order[i] = i;
+			Arrays.sort(order, (a, b) -> begin[a] != begin[b] ? Long.compare(begin[a], begin[b]) : Integer.compare(pIdx[a], pIdx[b]));
+			return order;
+		}
+	}
+
+
+	/** The messages that have been sent but not yet received by every receiver, keyed by
+	 *  (sending PE, EventID). An open addressing table over primitives, so that each
+	 *  message costs a few dozen bytes. */
+	private static class SendTable {
+		/** A message can be received at most once on each selected PE */
+		private final int maxReceivers;
+		private long[] keys = new long[1024];
+		private boolean[] used = new boolean[1024];
+		/** The length of the path up to the send */
+		long[] dist = new long[1024];
+		/** The execution that sent the message, and how much of it is on the path */
+		long[] sender = new long[1024];
+		long[] counted = new long[1024];
+		private long[] sendTime = new long[1024];
+		private int[] receivers = new int[1024];
+		private int size = 0;
+
+		SendTable(int maxReceivers) {
+			this.maxReceivers = maxReceivers;
+		}
+
+		static long key(int pe, int eventID) {
+			return ((long) pe << 32) | (eventID & 0xffffffffL);
+		}
+
+		private int slot(long key) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			int i = (int) (h ^ h >>> 32) & (keys.length - 1);
+			while (used[i] && keys[i] != key)
+				i = (i + 1) & (keys.length - 1);
+			return i;
+		}
+
+		/** The slot of the message, or -1 if it is not known */
+		int find(long key) {
+			int i = slot(key);
+			return used[i] ? i : -1;
+		}
+
+		/** Add a message sent at time t, replacing any earlier message with the same key */
+		void put(long key, long d, long s, long c, long t, int r) {
+			if (2 * (size + 1) > keys.length)
+				grow();
+			int i = slot(key);
+			if (!used[i]) {
+				used[i] = true;
+				keys[i] = key;
+				size++;
+			}
+			dist[i] = d;
+			sender[i] = s;
+			counted[i] = c;
+			sendTime[i] = t;
+			receivers[i] = Math.min(r, maxReceivers);
+		}
+
+		/** Record that the message in slot i has been received once, and forget it once all its receivers have */
+		void received(int i) {
+			if (--receivers[i] > 0)
+				return;
+			// Remove it, shifting back any following entries that would no longer be found
+			used[i] = false;
+			size--;
+			int mask = keys.length - 1;
+			int j = i;
+			while (true) {
+				j = (j + 1) & mask;
+				if (!used[j])
+					return;
+				long k = keys[j];
+				used[j] = false;
+				int to = slot(k);
+				used[to] = true;
+				keys[to] = k;
+				dist[to] = dist[j];
+				sender[to] = sender[j];
+				counted[to] = counted[j];
+				sendTime[to] = sendTime[j];
+				receivers[to] = receivers[j];
+			}
+		}
+
+		/** Forget the messages sent before the given time, which are not expected to be received any more */
+		void evictSentBefore(long time) {
+			int keep = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (used[i] && sendTime[i] >= time)
+					keep++;
+			}
+			if (keep == size)
+				return;
+			int n = 1024;
+			while (2 * (keep + 1) > n)
+				n *= 2;
+			rebuild(n, time);
+		}
+
+		private void grow() {
+			rebuild(keys.length * 2, Long.MIN_VALUE);
+		}
+
+		/** Move the messages sent from the given time on into a table of n slots */
+		private void rebuild(int n, long from) {
+			long[] oldKeys = keys;
+			boolean[] oldUsed = used;
+			long[] oldDist = dist;
+			long[] oldSender = sender;
+			long[] oldCounted = counted;
+			long[] oldSendTime = sendTime;
+			int[] oldReceivers = receivers;
+			keys = new long[n];
+			used = new boolean[n];
+			dist = new long[n];
+			sender = new long[n];
+			counted = new long[n];
+			sendTime = new long[n];
+			receivers = new int[n];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldUsed[i] && oldSendTime[i] >= from) {
+					int j = slot(oldKeys[i]);
+					used[j] = true;
+					keys[j] = oldKeys[i];
+					dist[j] = oldDist[i];
+					sender[j] = oldSender[i];
+					counted[j] = oldCounted[i];
+					sendTime[j] = oldSendTime[i];
+					receivers[j] = oldReceivers[i];
+					size++;
+				}
+			}
+		}
+	}
+
+
+	/** Find the critical path in the spill files written by the readers. Removes the spill files. */
+	public void compute() throws IOException {
+		try {
+			if (readFailure != null)
+				throw readFailure;
+			File predecessors = new File(workDir, "predecessors.bin");
+			long last = findLongestPaths(predecessors);
+			followPath(predecessors, last);
+		} finally {
+			close();
+		}
+	}
+
+	/** Remove the spill files and their directory. Call this if compute() is not reached, e.g. after a failure. */
+	public void close() {
+		File[] files = workDir.listFiles();
+		if (files != null) {
+			for (File f : files)
+				f.delete();
+		}
+		workDir.delete();
+	}
+
+	/** The end of each window of begin times, chosen so that each holds about WINDOW_SIZE executions */
+	private long[] windowEnds() {
+		List<Long> ends = new ArrayList<Long>();
+		long count = 0;
+		long range = endTime - startTime + 1;
+		for (int b = 0; b < NUM_BUCKETS - 1; b++) {
+			count += bucketCounts[b];
+			if (count >= WINDOW_SIZE) {
+				// The first time in bucket b+1
+				ends.add(startTime + ((b + 1) * range + NUM_BUCKETS - 1) / NUM_BUCKETS);
+				count = 0;
+			}
+		}
+		ends.add(Long.MAX_VALUE);
+		long[] result = new long[ends.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = ends.get(i);
+		return result;
+	}
+
+	/** Write a predecessor record for every execution, in order of begin time, and return the
+	 *  record of the execution at the end of the longest path, or -1 if there are none */
+	private long findLongestPaths(File predecessors) throws IOException {
+		int numPEs = peList.length;
+		long[] lastDist = new long[numPEs];
+		long[] lastRecord = new long[numPEs];
+		long[] lastDuration = new long[numPEs];
+		Arrays.fill(lastRecord, -1);
+		// Where each spill file is to be read from next, or -1 once it is finished
+		long[] position = new long[numPEs];
+		// The execution read from each spill file that belongs to a later window
+		Window pending = new Window();
+		int[] pendingIndex = new int[numPEs];
+		Arrays.fill(pendingIndex, -1);
+
+		Window window = new Window();
+		SendTable sends = new SendTable(numPEs);
+		// The first begin time of the current and of the previous window
+		long windowStart = Long.MIN_VALUE;
+		long previousStart = Long.MIN_VALUE;
+		long record = 0;
+		long bestDist = -1;
+		long best = -1;
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(predecessors), 64 * 1024));
+		try {
+			for (long windowEnd : windowEnds()) {
+				// A message that has waited through the whole previous window went to a PE that
+				// is not selected, or is received after the range, so stop looking for it
+				sends.evictSentBefore(previousStart);
+				previousStart = windowStart;
+				windowStart = windowEnd;
+
+				window.clear();
+				Window nextPending = new Window();
+				for (int p = 0; p < numPEs; p++) {
+					if (pendingIndex[p] >= 0) {
+						if (pending.begin[pendingIndex[p]] >= windowEnd) {
+							pendingIndex[p] = nextPending.add(pending, pendingIndex[p]);
+							continue;
+						}
+						window.add(pending, pendingIndex[p]);
+						pendingIndex[p] = -1;
+					}
+					if (position[p] < 0)
+						continue;
+					FileInputStream file = new FileInputStream(spillFile(p));
+					try {
+						file.getChannel().position(position[p]);
+						CountingInputStream counter = new CountingInputStream(file);
+						DataInputStream in = new DataInputStream(counter);
+						while (true) {
+							if (!window.read(in, p)) {
+								position[p] = -1;
+								break;
+							}
+							if (window.begin[window.size - 1] >= windowEnd) {
+								// Hold it back for its own window
+								pendingIndex[p] = nextPending.add(window, window.size - 1);
+								window.removeLast();
+								break;
+							}
+						}
+						if (position[p] >= 0)
+							position[p] += counter.count;
+					} finally {
+						file.close();
+					}
+				}
+				pending = nextPending;
+
+				for (int i : window.order()) {
+					int p = window.pIdx[i];
+					long duration = window.end[i] - window.begin[i];
+
+					long dist = 0;
+					long predecessor = -1;
+					long predecessorCounted = 0;
+					if (lastRecord[p] >= 0) {
+						dist = lastDist[p];
+						predecessor = lastRecord[p];
+						predecessorCounted = lastDuration[p];
+					}
+					int s = sends.find(SendTable.key(window.srcPe[i], window.eventID[i]));
+					if (s >= 0) {
+						if (sends.dist[s] > dist) {
+							dist = sends.dist[s];
+							predecessor = sends.sender[s];
+							predecessorCounted = sends.counted[s];
+						}
+						sends.received(s);
+					}
+
+					out.writeInt(peList[p]);
+					out.writeInt(window.ep[i]);
+					out.writeLong(window.begin[i]);
+					out.writeLong(window.end[i]);
+					out.writeLong(predecessor);
+					out.writeLong(predecessorCounted);
+
+					for (int m = window.firstSend[i]; m < window.firstSend[i + 1]; m++) {
+						long counted = Math.max(0, Math.min(duration, window.sendTime[m] - window.begin[i]));
+						sends.put(SendTable.key(peList[p], window.sendEvent[m]), dist + counted, record, counted, window.sendTime[m], window.sendReceivers[m]);
+					}
+
+					dist += duration;
+					lastDist[p] = dist;
+					lastRecord[p] = record;
+					lastDuration[p] = duration;
+					if (dist > bestDist) {
+						bestDist = dist;
+						best = record;
+					}
+					record++;
+				}
+			}
+		} finally {
+			out.close();
+		}
+		return best;
+	}
+
+	/** Counts the bytes read through it, so the next window knows where to continue */
+	private static class CountingInputStream extends BufferedInputStream {
+		long count = 0;
+
+		CountingInputStream(FileInputStream in) {
+			super(in, 64 * 1024);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0)
+				count++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buf, int off, int len) throws IOException {
+			int n = super.read(buf, off, len);
+			if (n > 0)
+				count += n;
+			return n;
+		}
+	}
+
+	/** Follow the predecessors back from the last execution of the path */
+	private void followPath(File predecessors, long last) throws IOException {
+		entryTime = new long[numEPs + 1];
+		entryCount = new int[numEPs + 1];
+		peTime = new long[peList.length];
+		peCount = new int[peList.length];
+		length = 0;
+
+		List<long[]> path = new ArrayList<long[]>();
+		RandomAccessFile file = new RandomAccessFile(predecessors, "r");
+		try {
+			byte[] buf = new byte[RECORD_SIZE];
+			long record = last;
+			long counted = -1;
+			while (record >= 0) {
+				file.seek(record * RECORD_SIZE);
+				file.readFully(buf);
+				ByteBuffer b = ByteBuffer.wrap(buf);
+				int pe = b.getInt();
+				int ep = b.getInt();
+				long begin = b.getLong();
+				long end = b.getLong();
+				if (counted < 0)
+					counted = end - begin;
+				path.add(new long[] {pe, ep, begin, end, counted});
+
+				length += counted;
+				entryTime[ep] += counted;
+				entryCount[ep]++;
+				int pIdx = Arrays.binarySearch(peList, pe);
+				peTime[pIdx] += counted;
+				peCount[pIdx]++;
+
+				record = b.getLong();
+				counted = b.getLong();
+			}
+		} finally {
+			file.close();
+		}
+
+		int n = path.size();
+		pathPE = new int[n];
+		pathEP = new int[n];
+		pathBegin = new long[n];
+		pathEnd = new long[n];
+		pathCounted = new long[n];
+		for (int i = 0; i < n; i++) {
+			long[] step = path.get(n - 1 - i);
+			pathPE[i] = (int) step[0];
+			pathEP[i] = (int) step[1];
+			pathBegin[i] = step[2];
+			pathEnd[i] = step[3];
+			pathCounted[i] = step[4];
+		}
+	}
+
+
+	/** The execution time along the critical path */
+	public long getLength() {
+		return length;
+	}
+
+	/** The time from the beginning of the first execution on the path to the end of the last */
+	public long getSpan() {
+		return pathPE.length == 0 ? 0 : pathEnd[pathEnd.length - 1] - pathBegin[0];
+	}
+
+	/** The number of executions on the path */
+	public int getNumExecutions() {
+		return pathPE.length;
+	}
+
+	/** The time each entry index contributes to the length, with entries not in the sts file at index numEPs */
+	public long[] getEntryTime() {
+		return entryTime;
+	}
+
+	/** The number of executions of each entry index on the path */
+	public int[] getEntryCount() {
+		return entryCount;
+	}
+
+	/** The time each PE contributes to the length, indexed by the position of the PE in the set */
+	public long[] getPETime() {
+		return peTime;
+	}
+
+	/** The number of executions on each PE on the path, indexed by the position of the PE in the set */
+	public int[] getPECount() {
+		return peCount;
+	}
+
+	/** The PE of each execution on the path, from first to last */
+	public int[] getPathPE() {
+		return pathPE;
+	}
+
+	/** The entry index of each execution on the path */
+	public int[] getPathEntry() {
+		return pathEP;
+	}
+
+	public long[] getPathBegin() {
+		return pathBegin;
+	}
+
+	public long[] getPathEnd() {
+		return pathEnd;
+	}
+
+	/** How much of each execution on the path counts towards its length */
+	public long[] getPathCounted() {
+		return pathCounted;
+	}
+
+}
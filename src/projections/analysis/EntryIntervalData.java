@@ -0,0 +1,81 @@
+package projections.analysis;
+
+/**
+ *  EntryIntervalData holds one value for each (entry method, interval) cell
+ *  of one processor, e.g. the time spent in each entry method in each
+ *  interval, as computed by LogReader.
+ *
+ *  The intervals of each entry method are split into blocks of BLOCK_SIZE
+ *  cells, and a block is only allocated once a cell in it is added to. So
+ *  the memory used depends on the entry methods that actually ran, and on
+ *  when they ran, rather than on the number of entry methods times the
+ *  number of intervals, while adding to a cell is still just array indexing.
+ *  Use forEach() to visit the non-zero cells; all other cells are zero.
+ */
+public class EntryIntervalData {
+
+	/** Receives the non-zero cells from forEach() */
+	public interface CellVisitor {
+		void visit(int entry, int interval, int value);
+	}
+
+	private static final int BLOCK_BITS = 6;
+	private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+	private final int numIntervals;
+	/** blocks[entry][b] holds intervals b*BLOCK_SIZE onwards, or is null if they are all zero */
+	private final int[][][] blocks;
+
+	public EntryIntervalData(int numEntries, int numIntervals) {
+		this.numIntervals = numIntervals;
+		blocks = new int[numEntries][][];
+	}
+
+	public int getNumIntervals() {
+		return numIntervals;
+	}
+
+	/** Add amount to the cell of the given entry index and interval */
+	public void add(int entry, int interval, int amount) {
+		int[][] row = blocks[entry];
+		if (row == null) {
+			row = new int[(numIntervals + BLOCK_MASK) >> BLOCK_BITS][];
+			blocks[entry] = row;
+		}
+		int[] block = row[interval >> BLOCK_BITS];
+		if (block == null) {
+			block = new int[BLOCK_SIZE];
+			row[interval >> BLOCK_BITS] = block;
+		}
+		block[interval & BLOCK_MASK] += amount;
+	}
+
+	/** The value of a cell */
+	public int get(int entry, int interval) {
+		final int[][] row = blocks[entry];
+		if (row == null)
+			return 0;
+		final int[] block = row[interval >> BLOCK_BITS];
+		return block == null ? 0 : block[interval & BLOCK_MASK];
+	}
+
+	/** Visit every non-zero cell, by entry and then by interval */
+	public void forEach(CellVisitor visitor) {
+		for (int entry = 0; entry < blocks.length; entry++) {
+			final int[][] row = blocks[entry];
+			if (row == null)
+				continue;
+			for (int b = 0; b < row.length; b++) {
+				final int[] block = row[b];
+				if (block == null)
+					continue;
+				for (int i = 0; i < BLOCK_SIZE; i++) {
+					if (block[i] != 0)
+						visitor.visit(entry, (b << BLOCK_BITS) + i, block[i]);
+				}
+			}
+		}
+	}
+
+}
@@ -1,14 +1,9 @@
 package projections.analysis;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.util.Arrays;
 import java.util.InputMismatchException;
-import java.util.zip.GZIPInputStream;
 
 import projections.gui.MainWindow;
 import projections.analysis.StsReader;
@@ -24,6 +19,24 @@ import projections.misc.LogEntry;
  *  object creation time (which means the input can actually come from a
  *  networked stream instead of from just a file).
  *  
+ *  Lines are tokenized in place by ByteLogParser. The original
+ *  String-per-line path through LogLineReader and AsciiLineParser is kept
+ *  for comparison and is used when Projections is started with
+ *  -legacy-parser.
+ *
+ *  Logs large enough to be worth it get a LogIndex sidecar file, written
+ *  the first time the log is read sequentially to its end. Afterwards,
+ *  nextEventOnOrAfter() seeks directly to the nearest checkpoint instead
+ *  of parsing every preceding line.
+ *
+ *  When Projections is started with -binary-cache, the first complete read
+ *  of a large log from its start also records a ".projbin" binary cache of
+ *  it (see BinaryLogWriter). Readers that look up a range with
+ *  nextEventOnOrAfter() or skipToBefore() never start one. Once a cache
+ *  exists and is newer than the log, the log is replayed
+ *  from the cache through BinaryLogParser instead, producing the same
+ *  events without parsing any text. The index is then kept for the cache
+ *  rather than the log.
  *
  */
 
@@ -40,7 +53,28 @@ implements PointCapableReader
 	
 	private double version;
 
-	private BufferedReader reader;
+	/** Exactly one of parser and reader is used, depending on ProjMain.LEGACY_LOG_PARSER */
+	private ByteLogParser parser;
+	private LogLineReader reader;
+
+	/** The file actually read: the log itself, or its binary cache */
+	private File dataFile;
+
+	/** Non-null while this reader is recording a binary cache of its log */
+	private BinaryLogWriter cacheWriter;
+	/** Whether a cache should be recorded if the log is read from its start */
+	private boolean mayCache = false;
+
+	/** Checkpoints for seeking, loaded lazily on the first nextEventOnOrAfter() */
+	private LogIndex index;
+	private boolean indexLoaded = false;
+
+	/** Non-null while this reader is building the index for its log */
+	private LogIndex.Builder indexBuilder;
+	/** Largest unshifted timestamp read so far, for the index */
+	private long maxUnshiftedTime = Long.MIN_VALUE;
+	/** The record that produced the currently open lastBeginEvent, for the index */
+	private byte[] lastBeginRecord;
 	
 	/** Technically, lastRecordedTime is not required, but because this 
 	 * class cannot control what client modules do to the "data" object 
@@ -58,6 +92,26 @@ implements PointCapableReader
 
 	long shiftAmount = 0;
 
+	private static final long[] NO_PERF_COUNTS = new long[0];
+
+	/** For nextEventTypeAndTime(): which field after the type holds the time of each type of event */
+	private static final byte[] TIME_FIELD = new byte[USER_EVENT_PAIR + 1];
+	private static final byte NO_TIME = -1;
+	private static final byte UNKNOWN_TYPE = -2;
+	static {
+		Arrays.fill(TIME_FIELD, UNKNOWN_TYPE);
+		for (int type : new int[] { BEGIN_IDLE, END_IDLE, BEGIN_PACK, END_PACK, BEGIN_UNPACK, END_UNPACK,
+				USER_SUPPLIED_NOTE, USER_SUPPLIED_BRACKETED_NOTE, BEGIN_TRACE, END_TRACE,
+				BEGIN_INTERRUPT, END_INTERRUPT, BEGIN_COMPUTATION, END_COMPUTATION, USER_STAT })
+			TIME_FIELD[type] = 0;
+		for (int type : new int[] { MEMORY_USAGE, MESSAGE_RECV, ENQUEUE, DEQUEUE,
+				USER_EVENT, USER_EVENT_PAIR, BEGIN_USER_EVENT_PAIR, END_USER_EVENT_PAIR })
+			TIME_FIELD[type] = 1;
+		for (int type : new int[] { CREATION, CREATION_BCAST, CREATION_MULTICAST, BEGIN_PROCESSING, END_PROCESSING })
+			TIME_FIELD[type] = 2;
+		TIME_FIELD[USER_SUPPLIED] = NO_TIME;
+	}
+
 	/** Create a reader for the text log file or a compressed version of it ending in ".gz" */
 	public GenericLogReader(int peNum, double Nversion) {
 		this(peNum, Nversion, MainWindow.runObject[myRun]);
@@ -73,44 +127,42 @@ implements PointCapableReader
 		lastBeginEvent.setValid(false);
 		endComputationOccurred = false;
 
-		reader = createBufferedReader(sourceFile);
 		version = Nversion;
+		dataFile = sourceFile;
 		try {
-			reader.readLine(); // skip over the header (already read)
-		} catch (IOException e) {
-			System.err.println("Error reading file");
-		}
-	}
-
-
-	/** Try to load the log file or a corresponding compressed version ending in ".gz" */
-	private BufferedReader createBufferedReader(File file) {
-		BufferedReader r = null;
-		String filename = file.getAbsolutePath();
-		String s3 = filename.substring(filename.length()-3); // last 3 characters of filename
-		
-		try {
-			if(s3.compareTo(".gz")==0){
-				// Try loading the gz version of the log file
-				InputStream fis = new FileInputStream(file);
-				InputStream gis = new GZIPInputStream(fis);
-				r = new BufferedReader(new InputStreamReader(gis), bufferSize);
+			// skip over the header (already read)
+			if (ProjMain.LEGACY_LOG_PARSER) {
+				reader = new LogLineReader(sourceFile, bufferSize);
+				reader.readLine();
 			} else {
-				// Try loading the log file uncompressed
-				FileReader fr = new FileReader(file);
-				r = new BufferedReader(fr, bufferSize);			
+				File cache = null;
+				if (ProjMain.BINARY_LOG_CACHE && BinaryLogWriter.isCacheable(sourceFile)) {
+					cache = BinaryLogWriter.currentCacheFor(sourceFile, version);
+				}
+				if (cache != null) {
+					parser = new BinaryLogParser(cache, bufferSize);
+					dataFile = cache;
+				} else {
+					parser = new ByteLogParser(sourceFile, bufferSize);
+					parser.nextLine();
+					mayCache = ProjMain.BINARY_LOG_CACHE && ProjMain.WRITE_BINARY_LOG_CACHE && BinaryLogWriter.isCacheable(sourceFile);
+				}
 			}
+		} catch (IOException e) {
+			System.err.println("Error reading file " + sourceFile.getAbsolutePath());
+		}
 
-		} catch (IOException e2) {
-			System.err.println("Error reading file " + filename);
-			return null;
+		if (LogIndex.isIndexable(dataFile) && !LogIndex.isCurrent(dataFile)) {
+			indexBuilder = new LogIndex.Builder(dataFile);
 		}
-		
-		return r;
+	}
+
 
+	/** The offset in the uncompressed log of the next line to be read */
+	private long position() {
+		return parser != null ? parser.position() : reader.position();
 	}
-	
-	
+
 	/** Check if the log file or a corresponding compressed version ending in ".gz" is readable */
 	protected boolean checkAvailable() {
 		return sourceFile.canRead();
@@ -158,20 +210,159 @@ implements PointCapableReader
 	 * */
 	public LogEntry nextEvent(LogEntry data) throws InputMismatchException, IOException, EndOfLogSuccess
 	{
-		StsReader stsinfo = MainWindow.runObject[myRun].getSts();
-		
-		String line = reader.readLine();
-	    
-		if (line == null)
+		checkpoint();
+
+		if (mayCache) {
+			// Only start the cache once the log is read from its start,
+			// rather than for every reader that then seeks
+			mayCache = false;
+			cacheWriter = BinaryLogWriter.create(sourceFile, version);
+		}
+
+		String line = null;
+		if (parser != null) {
+			if (!parser.nextLine()) {
+				finishSidecars();
+				throw new EndOfLogSuccess();
+			}
+		} else {
+			line = reader.readLine();
+			if (line == null) {
+				finishSidecars();
+				throw new EndOfLogSuccess();
+			}
+		}
+
+		// We can't keep reading once we've past the END_COMPUTATION record
+		if(endComputationOccurred){
+			finishSidecars();
 			throw new EndOfLogSuccess();
-		
-		AsciiLineParser sc = new AsciiLineParser(line);
+		}
+
+		if (cacheWriter != null) {
+			cacheWriter.startRecord(parser);
+			try {
+				parseFields(cacheWriter, data);
+			} catch (IOException e) {
+				// A line that cannot be parsed cannot be replayed either
+				cacheWriter.abort();
+				cacheWriter = null;
+				throw e;
+			}
+			try {
+				cacheWriter.endRecord();
+			} catch (IOException e) {
+				System.err.println("Warning: could not write binary log cache for " + sourceFile.getAbsolutePath());
+				cacheWriter.abort();
+				cacheWriter = null;
+			}
+		} else if (parser != null) {
+			parseFields(parser, data);
+		} else {
+			parseLine(line, data);
+		}
+
+		if (indexBuilder != null) {
+			indexEvent(data, line);
+		}
+		return data;
+	}
+
+	/**
+	 * Like nextEvent(data), but only fill in the type and time of the event,
+	 * for scans that need nothing else, such as looking up the end time of
+	 * a log. The text is then hardly decoded beyond those two fields, which
+	 * makes a full scan of it about three times faster than with the
+	 * String-per-line parser. The other fields of data are left as they
+	 * were, and so are those of the begin event getLastOpenBE() returns.
+	 * A line cut short after its time, as the last line of a truncated log
+	 * may be, is not an error here.
+	 */
+	public LogEntry nextEventTypeAndTime(LogEntry data) throws IOException, EndOfLogSuccess
+	{
+		if (parser == null) {
+			return nextEvent(data);
+		}
+
+		checkpoint();
+
+		// A binary cache needs every field
+		mayCache = false;
+		if (cacheWriter != null) {
+			cacheWriter.abort();
+			cacheWriter = null;
+		}
+
+		if (!parser.skimLine(TIME_FIELD, data)) {
+			finishSidecars();
+			throw new EndOfLogSuccess();
+		}
 
 		// We can't keep reading once we've past the END_COMPUTATION record
 		if(endComputationOccurred){
+			finishSidecars();
 			throw new EndOfLogSuccess();
 		}
 
+		int type = data.type;
+		if (type < 0 || type >= TIME_FIELD.length || TIME_FIELD[type] == UNKNOWN_TYPE) {
+			data.type = -1;
+		} else if (TIME_FIELD[type] != NO_TIME) {
+			data.time += shiftAmount;
+		}
+		switch (data.type) {
+		case BEGIN_IDLE: case BEGIN_PROCESSING:
+			lastBeginEvent.type = data.type;
+			lastBeginEvent.time = data.time;
+			lastBeginEvent.setValid(true);
+			break;
+		case END_IDLE: case END_PROCESSING: case BEGIN_TRACE:
+			lastBeginEvent.setValid(false);
+			break;
+		case END_COMPUTATION:
+			endComputationOccurred = true;
+			break;
+		}
+		lastRecordedTime = data.time;
+
+		if (indexBuilder != null) {
+			indexEvent(data, null);
+		}
+		return data;
+	}
+
+	/** Record an index checkpoint before the next line, if one is due */
+	private void checkpoint() {
+		if (indexBuilder != null && indexBuilder.wantsCheckpoint(position())) {
+			indexBuilder.checkpoint(position(), maxUnshiftedTime, lastRecordedTime, lastBeginRecord);
+		}
+	}
+
+	/** Keep track of what the next index checkpoint needs, given the event just read from line, or from the parser if null */
+	private void indexEvent(LogEntry data, String line) {
+		if (data.time - shiftAmount > maxUnshiftedTime)
+			maxUnshiftedTime = data.time - shiftAmount;
+		if (!lastBeginEvent.isValid())
+			lastBeginRecord = null;
+		else if (data.type == BEGIN_PROCESSING || data.type == BEGIN_IDLE)
+			lastBeginRecord = (line != null) ? line.getBytes() : parser.currentRecord();
+	}
+
+	/** Write out the index and binary cache if this reader has been building them */
+	private void finishSidecars() {
+		if (indexBuilder != null) {
+			indexBuilder.write();
+			indexBuilder = null;
+		}
+		if (cacheWriter != null) {
+			cacheWriter.finish();
+			cacheWriter = null;
+		}
+	}
+
+	/** Parse one line of the log into data, updating lastBeginEvent */
+	private LogEntry parseLine(String line, LogEntry data) throws IOException
+	{
 		// If at end of file and we haven't s3een an END_COMPUTATION yet
 		if(line == null){
 			// Generate a fake END_COMPUTATION if no legitimate one was found
@@ -183,9 +374,23 @@ implements PointCapableReader
 			return data;			
 		}
 
+		return parseFields(new AsciiLineParser(line), data);
+	}
+
+	/** Callers may keep the counts of an event, so only the common empty array is shared */
+	private static long[] newPerfCounts(int n) {
+		return n == 0 ? NO_PERF_COUNTS : new long[n];
+	}
+
+	/** Fill in data from the fields of the current line, updating lastBeginEvent */
+	private LogEntry parseFields(LineTokenizer sc, LogEntry data) throws IOException
+	{
+		StsReader stsinfo = MainWindow.runObject[myRun].getSts();
+
 		data.type = (int) sc.nextLong();
 		switch (data.type) {
 		case BEGIN_IDLE:
+			lastBeginEvent.type = data.type;
 			lastBeginEvent.time = data.time = sc.nextLong() + shiftAmount;
 			lastBeginEvent.pe = data.pe = (int) sc.nextLong();
 			lastBeginEvent.setValid(true);
@@ -272,6 +477,7 @@ implements PointCapableReader
 			}
 			break;
 		case BEGIN_PROCESSING: 
+			lastBeginEvent.type = data.type;
 			lastBeginEvent.mtype = data.mtype = (int) sc.nextLong();
 			lastBeginEvent.entry = data.entry = (int) sc.nextLong();
 			lastBeginEvent.time = data.time = sc.nextLong() + shiftAmount;
@@ -308,8 +514,8 @@ implements PointCapableReader
 			if (version >= 6.6) {
 				//lastBeginEvent.numPerfCounts = data.numPerfCounts = (int) sc.nextLong();
 				lastBeginEvent.numPerfCounts = data.numPerfCounts = stsinfo.getNumPerfCounts();
-				lastBeginEvent.perfCounts = new long[data.numPerfCounts];
-				data.perfCounts = new long[data.numPerfCounts];
+				lastBeginEvent.perfCounts = newPerfCounts(data.numPerfCounts);
+				data.perfCounts = newPerfCounts(data.numPerfCounts);
 				for (int i=0; i<data.numPerfCounts; i++) {
 					lastBeginEvent.perfCounts[i] = data.perfCounts[i] = sc.nextLong();
 				}
@@ -333,7 +539,7 @@ implements PointCapableReader
 			if (version >= 6.6) {
 				//data.numPerfCounts = (int) sc.nextLong();
 				data.numPerfCounts = stsinfo.getNumPerfCounts();
-				data.perfCounts = new long[data.numPerfCounts];
+				data.perfCounts = newPerfCounts(data.numPerfCounts);
 				for (int i=0; i<data.numPerfCounts; i++) {
 					data.perfCounts[i] = sc.nextLong();
 				}
@@ -435,6 +641,7 @@ implements PointCapableReader
 	public LogEntry nextEventOnOrAfter(long timestamp)
 	throws IOException, EndOfLogSuccess
 	{
+		seekBefore(timestamp);
 		LogEntry data = new LogEntry();
 		while (true) {
 			data = nextEvent();
@@ -467,6 +674,102 @@ implements PointCapableReader
 	}
 
 	
+	/**
+	 * Skip ahead to the last index checkpoint before which every event is
+	 * earlier than timestamp, restoring the open begin event at that point.
+	 * Does nothing if the log has no index or the reader is already past it.
+	 */
+	private void seekBefore(long timestamp) throws IOException {
+		// A read of a range is not a read of the whole log
+		mayCache = false;
+		if (!indexLoaded) {
+			indexLoaded = true;
+			if (LogIndex.isIndexable(dataFile))
+				index = LogIndex.load(dataFile);
+		}
+		if (index == null || endComputationOccurred)
+			return;
+
+		int checkpoint = index.checkpointBefore(timestamp - shiftAmount);
+		if (checkpoint < 0 || index.offset(checkpoint) <= position())
+			return;
+
+		// The skipped lines will not be seen, so any index or cache being built would be incomplete
+		indexBuilder = null;
+		if (cacheWriter != null) {
+			cacheWriter.abort();
+			cacheWriter = null;
+		}
+
+		if (parser != null) {
+			parser.seek(index.offset(checkpoint));
+		} else {
+			reader.seek(index.offset(checkpoint));
+		}
+		lastBeginEvent.setValid(false);
+		byte[] openBegin = index.openBeginRecord(checkpoint);
+		if (openBegin != null) {
+			// Parsing the begin record re-establishes lastBeginEvent
+			if (parser != null) {
+				parseFields(parser.tokenizerFor(openBegin), new LogEntry());
+			} else {
+				parseLine(new String(openBegin), new LogEntry());
+			}
+		}
+		lastRecordedTime = index.lastTime(checkpoint);
+	}
+
+	/**
+	 * Skip to the first complete line within the last tailBytes bytes of the
+	 * text log, so that only its last events are read. The binary cache and
+	 * index are not used, and none are built. Returns false, leaving the
+	 * reader where it was, if the log is compressed or not much longer than
+	 * tailBytes.
+	 */
+	protected boolean seekToTail(long tailBytes) throws IOException {
+		if (sourceFile.getName().endsWith(".gz"))
+			return false;
+		long length = sourceFile.length();
+		if (length <= 2 * tailBytes)
+			return false;
+
+		indexBuilder = null;
+		index = null;
+		indexLoaded = true;
+		mayCache = false;
+		if (cacheWriter != null) {
+			cacheWriter.abort();
+			cacheWriter = null;
+		}
+		if (parser instanceof BinaryLogParser) {
+			// Offsets in the cache do not correspond to offsets in the log
+			parser.close();
+			parser = new ByteLogParser(sourceFile, bufferSize);
+			dataFile = sourceFile;
+		}
+
+		// The line containing the offset is only partly in the tail
+		if (parser != null) {
+			parser.seek(length - tailBytes);
+			parser.nextLine();
+		} else {
+			reader.seek(length - tailBytes);
+			reader.readLine();
+		}
+		lastBeginEvent.setValid(false);
+		endComputationOccurred = false;
+		return true;
+	}
+
+	/**
+	 * Skip ahead, if the log is indexed, to a point before timestamp from which
+	 * reading on gives every event on or after it. getLastOpenBE() then gives
+	 * the begin event still open at that point, if any.
+	 */
+	public void skipToBefore(long timestamp) throws IOException {
+		seekBefore(timestamp);
+	}
+
 	public LogEntry getLastOpenBE() {
 		if (lastBeginEvent.isValid()) {
 			return lastBeginEvent;
@@ -476,6 +779,13 @@ implements PointCapableReader
 
 
 	public void close() throws IOException {
+		if (cacheWriter != null) {
+			cacheWriter.abort();
+			cacheWriter = null;
+		}
+		if (parser != null) {
+			parser.close();
+		}
 		if (reader != null) {
 			reader.close();
 		}
@@ -3,7 +3,6 @@ package projections.analysis;
 import java.io.IOException;
 import java.util.*;
 
-import projections.analysis.SumDetailReader.RLEBlock;
 import projections.gui.MainWindow;
 
 /**
@@ -15,7 +14,9 @@ import projections.gui.MainWindow;
  *  1) partial data access (range of intervals, etc ...)
  *  2) "projected" data (summed across one of the dimensions)
  *
- *  The implementation stores this data in RLE compressed format.
+ *  The implementation stores this data in RLE compressed format, and
+ *  answers range queries directly from the runs. The summary detail files
+ *  are read in parallel.
  */
 public class IntervalData
 {
@@ -30,16 +31,10 @@ public class IntervalData
     private static final int TYPE_TIME = 0;
     private static final int TYPE_NUM_MSGS = 1;
 
-    // associated readers
-    private static SumDetailReader summaryDetails[];
-
     // Compressed Data
-    // A Vector of RLEBlocks for each Type, EP combination
     // Dim 0 - indexed by data type.
-    // Dim 1 - indexed by PE
-    // Dim 2 - indexed by EP, a not-quite-as dense format as the actual file
-    //                 but good enough.
-    private List rawData[][][];
+    // Dim 1 - indexed by PE, null if the PE has no data
+    private RLEIntervalData rawData[][];
 
     // Uncompressed Data (the old way of doing things) for supporting
     // old tools.
@@ -70,39 +65,53 @@ public class IntervalData
 
 	// load at least the summary detail data.
 	if (MainWindow.runObject[myRun].hasSumDetailData()) {
-	    summaryDetails = new SumDetailReader[numPEs];
-	    rawData = new ArrayList[SumDetailReader.NUM_TAGS][numPEs][];
+	    rawData = new RLEIntervalData[SumDetailReader.NUM_TAGS][numPEs];
+	    final long peIntervalSize[] = new long[numPEs];
 	    SortedSet<Integer> availablePEs =
 		MainWindow.runObject[myRun].getValidProcessorList(ProjMain.SUMDETAIL);
+	    LinkedList<Runnable> readers = new LinkedList<Runnable>();
 	    for(Integer pe : availablePEs) {
+		final int p = pe;
+		readers.add(new Runnable() {
+			public void run() {
+			    try {
+				SumDetailReader reader =
+				    new SumDetailReader(MainWindow.runObject[myRun].getSumDetailLog(p),
+							MainWindow.runObject[myRun].getVersion());
+				reader.readStaticData();
+				reader.read();
+				for (int type=0; type<SumDetailReader.NUM_TAGS; type++) {
+				    rawData[type][p] = reader.getData(type);
+				}
+				peIntervalSize[p] = (long)reader.getIntervalSize();
+			    } catch (IOException e) {
+				// This exception, in future, should simply cause the
+				// necessary adjustments to the list of available PEs
+				// listed in MainWindow.runObject for summary detail files.
+				System.err.println("Warning: Failed to read summary " +
+						   "detail file for processor " + p);
+				e.printStackTrace();
+			    }
+			}
+		    });
+	    }
+	    TimedProgressThreadExecutor threadManager =
+		new TimedProgressThreadExecutor("Reading summary detail data", readers,
+						MainWindow.runObject[myRun].guiRoot, true);
+	    threadManager.runAll();
 
-            try {
-		    summaryDetails[pe] =
-			new SumDetailReader(MainWindow.runObject[myRun].getSumDetailLog(pe),
-					    MainWindow.runObject[myRun].getVersion());
-		    summaryDetails[pe].readStaticData();
-		    summaryDetails[pe].read();
-		    for (int type=0; type<SumDetailReader.NUM_TAGS; type++) {
-			rawData[type][pe] = summaryDetails[pe].getData(type);
-		    }
-		    // get max (canonical) number of intervals
-		    if (numIntervals < summaryDetails[pe].getNumIntervals()) {
-			numIntervals = summaryDetails[pe].getNumIntervals();
-		    }
-		    // get (canonical) size of an interval.
-		    // **CW** do nothing for now. No rebinning facilities in
-		    // place yet.
-		    intervalSize = summaryDetails[pe].getIntervalSize();
-
-        } catch (IOException e) {
-		    // This exception, in future, should simply cause the
-		    // necessary adjustments to the list of available PEs
-		    // listed in MainWindow.runObject for summary detail files.
-		    System.err.println("Warning: Failed to read summary " +
-				       "detail file for processor " + pe);
-            e.printStackTrace();
+	    for(Integer pe : availablePEs) {
+		if (rawData[TYPE_TIME][pe] == null) {
 		    continue;
 		}
+		// get max (canonical) number of intervals
+		if (numIntervals < rawData[TYPE_TIME][pe].getNumIntervals()) {
+		    numIntervals = rawData[TYPE_TIME][pe].getNumIntervals();
+		}
+		// get (canonical) size of an interval.
+		// **CW** do nothing for now. No rebinning facilities in
+		// place yet.
+		intervalSize = peIntervalSize[pe];
 	    }
         System.out.println("IntervalData - hasSumDetailData + numIntervals: "+numIntervals+" intervalSize: " + intervalSize);
 	}
@@ -110,9 +119,11 @@ public class IntervalData
 
 	public void loadSumDetailIntervalData(long intervalSize, int intervalStart, int intervalEnd,
 										  SortedSet<Integer> processorList) {
-		int numIntervals = intervalEnd - intervalStart + 1;
+		final int numIntervals = intervalEnd - intervalStart + 1;
+		final int start = intervalStart;
 
-		sumDetailData_interval_EP = new int[numIntervals][numEPs];
+		final int[][] interval_EP = new int[numIntervals][numEPs];
+		sumDetailData_interval_EP = interval_EP;
 		sumDetailData_PE_EP = new int[numPEs][numEPs];
 		sumDetailData_PE_interval = new int[numPEs][numIntervals];
 		systemUsageData = new int[3][processorList.size()][numIntervals];
@@ -120,17 +131,41 @@ public class IntervalData
 		int processorCount = 0;
 
 		for (Integer curPe : processorList) {
-			double[][] tempData = getData(curPe, TYPE_TIME, intervalSize, intervalStart, numIntervals);
-			for (int i = 0; i < numIntervals; i++) {
+			final int[] PE_EP = sumDetailData_PE_EP[curPe];
+			final int[] PE_interval = sumDetailData_PE_interval[curPe];
+			final int[] usage = systemUsageData[1][processorCount];
+			RLEIntervalData data = rawData[TYPE_TIME][curPe];
+			if (data == null) {
+				// no data
+			} else if (intervalSize == this.intervalSize) {
+				// Read the runs that overlap the range straight into the sums
+				RLEIntervalData.RunVisitor accumulate = new RLEIntervalData.RunVisitor() {
+					public void visit(int ep, int runStart, int runEnd, int value) {
+						for (int i = runStart - start; i < runEnd - start; i++) {
+							interval_EP[i][ep] += value;
+							PE_interval[i] += value;
+							usage[i] += value;
+						}
+						PE_EP[ep] += value * (runEnd - runStart);
+					}
+				};
 				for (int ep = 0; ep < numEPs; ep++) {
-					sumDetailData_interval_EP[i][ep] += (int) tempData[ep][i];
-					sumDetailData_PE_EP[curPe][ep] += (int) tempData[ep][i];
-					sumDetailData_PE_interval[curPe][i] += (int) tempData[ep][i];
-					systemUsageData[1][processorCount][i] += (int) tempData[ep][i];
+					data.forEachRun(ep, start, start + numIntervals, accumulate);
 				}
-				// after accumulation for systemUsageData, convert to utilization percentage (0-100)
-				systemUsageData[1][processorCount][i] =
-						(int) IntervalUtils.timeToUtil(systemUsageData[1][processorCount][i], intervalSize);
+			} else {
+				double[][] tempData = getData(curPe, TYPE_TIME, intervalSize, intervalStart, numIntervals);
+				for (int i = 0; i < numIntervals; i++) {
+					for (int ep = 0; ep < numEPs; ep++) {
+						interval_EP[i][ep] += (int) tempData[ep][i];
+						PE_EP[ep] += (int) tempData[ep][i];
+						PE_interval[i] += (int) tempData[ep][i];
+						usage[i] += (int) tempData[ep][i];
+					}
+				}
+			}
+			// after accumulation for systemUsageData, convert to utilization percentage (0-100)
+			for (int i = 0; i < numIntervals; i++) {
+				usage[i] = (int) IntervalUtils.timeToUtil(usage[i], intervalSize);
 			}
 			processorCount++;
 		}
@@ -155,71 +190,37 @@ public class IntervalData
 
     
     /**
-     *  This is an old API for tools that require the data in expanded
-     *  format. 
-     */
-    private double[][] getData(int pe, int type) {
-	double returnData[][] = new double[numEPs][numIntervals];
-	for (int ep=0; ep<numEPs; ep++) {
-	    Iterator<RLEBlock> blockIterator = rawData[type][pe][ep].iterator();
-	    int curInterval = 0;
-	    while (blockIterator.hasNext()) {
-		RLEBlock nextBlock = blockIterator.next();
-		for (int offset=0; offset<nextBlock.count; offset++) {
-		    returnData[ep][curInterval+offset] = nextBlock.value;
-		}
-		curInterval += nextBlock.count;
-	    }
-	}
-	return returnData;
-    }
-
-    /**
-     *  This is a general method that offers flexibility in choosing
-     *  interval bin sizes and time ranges.
+     *  Rebins the data of one PE to the given interval size and range of
+     *  intervals.
      */
     private double[][] getData(int pe, int type, long destIntervalSize,
-			      int destIntervalStart, int numDestIntervals) {
-
-	// No interval size differences. Either use whatever is returned
-	// by getData() or copy a part of the whole array.
-	double tempData[][] = getData(pe, type);
-	double returnData[][] = null;
-	if (destIntervalSize == intervalSize) {
-	    if ((destIntervalStart == 0) && 
-		(numDestIntervals == numIntervals)) {
-		return tempData;
-	    } else {
-		returnData = new double[numEPs][numDestIntervals];
-		for (int ep=0; ep<tempData.length; ep++) {
-		    for (int interval=destIntervalStart; 
-			 interval<destIntervalStart+numDestIntervals;
-			 interval++) {
-			returnData[ep][interval-destIntervalStart] =
-			    tempData[ep][interval];
+			      final int destIntervalStart, int numDestIntervals) {
+	final double returnData[][] = new double[numEPs][numDestIntervals];
+	RLEIntervalData data = rawData[type][pe];
+	if (data == null) {
+	    return returnData;
+	}
+	final long destSize = destIntervalSize;
+	final boolean discrete = (type == TYPE_NUM_MSGS);
+	// Source intervals that do not overlap the destination range
+	// contribute nothing, so only look at the runs of those that do.
+	int srcStart = (int)Math.max(0, Math.floor(destIntervalStart*destIntervalSize/intervalSize) - 1);
+	int srcEnd = (int)Math.min(data.getNumIntervals(),
+				   Math.ceil((destIntervalStart+numDestIntervals)*destIntervalSize/intervalSize) + 1);
+	RLEIntervalData.RunVisitor spread = new RLEIntervalData.RunVisitor() {
+		public void visit(int ep, int runStart, int runEnd, int value) {
+		    for (int srcInt=runStart; srcInt<runEnd; srcInt++) {
+			IntervalUtils.fillIntervals(returnData[ep], destSize,
+						    destIntervalStart,
+						    (long)(srcInt*intervalSize),
+						    (long)((srcInt+1)*intervalSize-1),
+						    value,
+						    discrete);
 		    }
 		}
-		return returnData;
-	    }
-	}
-
-	// Interval size different, rebinning and interpolation of
-	// data required.
-	returnData = new double[numEPs][numDestIntervals];
-	boolean discrete = false;
-
-	if (type == TYPE_NUM_MSGS) {
-	    discrete = true;
-	}
-	for (int ep=0; ep<tempData.length; ep++) {
-	    for (int srcInt=0; srcInt<tempData[ep].length; srcInt++) {
-		IntervalUtils.fillIntervals(returnData[ep], destIntervalSize,
-					    destIntervalStart,
-					    (long)(srcInt*intervalSize),
-					    (long)((srcInt+1)*intervalSize-1),
-					    tempData[ep][srcInt],
-					    discrete);
-	    }
+	    };
+	for (int ep=0; ep<numEPs; ep++) {
+	    data.forEachRun(ep, srcStart, srcEnd, spread);
 	}
 	return returnData;
     }
@@ -1,109 +1,236 @@
 package projections.analysis;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 
+import projections.gui.MainWindow;
+
+/** k-means clustering of processors by their metrics, as used by the
+ *  Extrema tool to pick out representative and outlier processors.
+ *
+ *  The initial centroids are chosen by k-means++ seeding: each one after
+ *  the first is a point picked with probability proportional to its squared
+ *  distance from the nearest centroid chosen so far. The random numbers come
+ *  from a fixed seed, so the same data always gives the same clusters.
+ *
+ *  The iterations are Lloyd's, with Hamerly's bounds to skip most distance
+ *  computations: each point keeps an upper bound on its distance to its own
+ *  centroid and a lower bound on its distance to any other, and is only
+ *  compared against every centroid when the bounds no longer show that it
+ *  stays where it is. The clusters found are the same as without the bounds.
+ *
+ *  The work is split into ranges of points or of metrics that run on the
+ *  shared pool of TimedProgressThreadExecutor. Every point and metric is
+ *  computed the same way whatever the range it falls in, and every sum adds
+ *  up the points in order, so the result does not depend on the number of
+ *  threads.
+ *
+ *  Metrics that are the same on every processor, such as entry methods that
+ *  never ran, are dropped first since they add nothing to any distance.
+ *  Optionally, only the metrics that hold most of the variance are clustered
+ *  on, which is approximate; the distances from the cluster means that are
+ *  returned are still measured over all the metrics.
+ */
 public class KMeansClustering {
 
-    // clusterMap and distanceFromClusterMean are meant to be output arrays    
+    /** The fraction of the variance kept when clustering on fewer metrics */
+    public static final double REDUCED_VARIANCE = 0.99;
+
+    private static final long SEED = 11337;
+
+    /** A limit on the iterations, in case rounding makes a point go back and forth */
+    private static final int MAX_ITERATIONS = 1000;
+
+    /** The most clusters for which the distances between all the centroids are kept */
+    private static final int MAX_COMPARED_CLUSTERS = 1024;
+
+    /** The fewest points or metrics worth a task of their own */
+    private static final int MIN_CHUNK = 64;
+
+    /** Work over the indices first to last-1 of the points or metrics */
+    private interface RangeTask {
+	void run(int first, int last);
+    }
+
+    // clusterMap and distanceFromClusterMean are meant to be output arrays
     public static void kMeans(double in_data[][], int numClusters,
-			      int clusterMap[], 
+			      int clusterMap[],
 			      double distanceFromClusterMean[]) {
+	kMeans(in_data, numClusters, clusterMap, distanceFromClusterMean, 1.0);
+    }
 
-	double data[][] = normalize(in_data);
-    
-	int numProcs = data.length;
-	int numMetrics = data[0].length;
-
-	double centroids[][];
-	double newCentroidVectors[][];
-	int clusterCounts[];
-	boolean clusterChange[];
-
-	// initialization
-	centroids = new double[numClusters][numMetrics];
-	newCentroidVectors = new double[numClusters][numMetrics];
-	clusterCounts = new int[numClusters];
-	clusterChange = new boolean[numClusters];
-	for (int p=0; p<numProcs; p++) {
-	    clusterMap[p] = -1; // initialize with out-of-bound values
+    // As above, but only clustering on the metrics with the largest variance
+    //   that together hold varianceToKeep of the total.
+    public static void kMeans(double in_data[][], int numClusters,
+			      final int clusterMap[],
+			      final double distanceFromClusterMean[],
+			      double varianceToKeep) {
+	long startTime = System.nanoTime();
+	final int numProcs = in_data.length;
+	int numMetrics = in_data[0].length;
+
+	// With as many clusters as points, every point is its own cluster
+	if (numClusters >= numProcs) {
+	    for (int p=0; p<numProcs; p++) {
+		clusterMap[p] = p;
+		distanceFromClusterMean[p] = 0.0;
+	    }
+	    outputResults(clusterMap, numClusters, distanceFromClusterMean, false);
+	    return;
 	}
 
-	// set up initial centroid placement
-	setCentroidRandom(centroids, numClusters, data);
+	// The metrics clustered on come first in each point, followed by the
+	//   rest of those that vary.
+	int metrics[] = chooseMetrics(in_data, varianceToKeep);
+	final int dims = metrics[metrics.length-1];
+	metrics = Arrays.copyOf(metrics, metrics.length-1);
+	final double points[][] = normalize(in_data, metrics);
+	final int numVarying = metrics.length;
 
-	// initially, everything has changed.
-	for (int k=0; k<numClusters; k++) {
-	    clusterChange[k] = true;
-	}
+	final double centroids[][] = new double[numClusters][numVarying];
+	final double upper[] = new double[numProcs];
+	final double lower[] = new double[numProcs];
+	final double moved[] = new double[numClusters];
+	final double halfGap[] = new double[numClusters];
+	// kept only for a modest number of clusters
+	final double centroidDist[][] = (numClusters <= MAX_COMPARED_CLUSTERS) ? new double[numClusters][numClusters] : null;
+
+	// The seeding also assigns each point to its nearest centroid
+	seedCentroids(points, dims, centroids, clusterMap, upper);
 
 	// Main Algorithm Loop
-	while (!isConverged(clusterChange)) {
-	    // printMean(centroids);
-	    
-	    // reset cluster changes, counts and new centroid vectors
-	    for (int k=0; k<numClusters; k++) {
-		clusterChange[k] = false;
-		clusterCounts[k] = 0;
-		for (int metric=0; metric<numMetrics; metric++) {
-		    newCentroidVectors[k][metric] = 0.0;
-		}
-	    }
-	    
-	    // for each data point, compute distance from centroids
-	    //   and pick the centroid closest to it.
-	    for (int p=0; p<numProcs; p++) {
-		double minDist = Double.MAX_VALUE;
-		int currentK = -1;
-		// compute distance from centroids
-		for (int k=0; k<numClusters; k++) {
-		    double tempDist = 0.0;
-		    for (int metric=0; metric<numMetrics; metric++) {
-			tempDist += 
-			    Math.pow(data[p][metric] - 
-				     centroids[k][metric], 2.0);
-		    }
-		    tempDist = Math.sqrt(tempDist);
-		    if (tempDist < minDist) {
-			minDist = tempDist;
-			currentK = k;
+	int iterations = 0;
+	while (iterations < MAX_ITERATIONS) {
+	    iterations++;
+	    updateCentroids(points, 0, dims, clusterMap, centroids, moved);
+
+	    // The distances between the centroids, and half the distance from
+	    //   each to its nearest other; a point closer than that to its own
+	    //   centroid stays put.
+	    parallelFor("Comparing k-means Centroids", numClusters, new RangeTask() {
+		public void run(int first, int last) {
+		    for (int k=first; k<last; k++) {
+			double nearest = Double.MAX_VALUE;
+			for (int j=0; j<centroids.length; j++) {
+			    if (j != k) {
+				double dist = Math.sqrt(distanceSquared(centroids[k], centroids[j], dims));
+				if (centroidDist != null) {
+				    centroidDist[k][j] = dist;
+				}
+				nearest = Math.min(nearest, dist);
+			    }
+			}
+			halfGap[k] = nearest / 2;
 		    }
 		}
-		// found closest centroid from p, record the data
-		clusterCounts[currentK]++;
-		// since changes happen in pairs, we can get away with
-		//   just recording change on one side.
-		if (currentK != clusterMap[p]) {
-		    clusterChange[currentK] = true;
-		}
-		clusterMap[p] = currentK;
-		distanceFromClusterMean[p] = minDist;
-		for (int metric=0; metric<numMetrics; metric++) {
-		    newCentroidVectors[currentK][metric] += data[p][metric];
+	    });
+
+	    // The most any centroid moved, and the most any other did
+	    int farthest = 0;
+	    for (int k=1; k<numClusters; k++) {
+		if (moved[k] > moved[farthest]) {
+		    farthest = k;
 		}
 	    }
-	    
-	    // Compute new centroids from new centroid vectors
+	    double secondFarthest = 0.0;
 	    for (int k=0; k<numClusters; k++) {
-		for (int metric=0; metric<numMetrics; metric++) {
-		    if (clusterCounts[k] > 0) {
-			centroids[k][metric] = 
-			    (newCentroidVectors[k][metric]/clusterCounts[k]);
+		if (k != farthest) {
+		    secondFarthest = Math.max(secondFarthest, moved[k]);
+		}
+	    }
+	    final int maxMovedCluster = farthest;
+	    final double maxMoved = moved[farthest];
+	    final double maxMovedOther = secondFarthest;
+
+	    final AtomicInteger changes = new AtomicInteger();
+	    parallelFor("Assigning k-means Clusters", numProcs, new RangeTask() {
+		public void run(int first, int last) {
+		    int changed = 0;
+		    for (int p=first; p<last; p++) {
+			int k = clusterMap[p];
+			upper[p] += moved[k];
+			lower[p] -= (k == maxMovedCluster) ? maxMovedOther : maxMoved;
+			double bound = Math.max(halfGap[k], lower[p]);
+			if (upper[p] <= bound) {
+			    continue;
+			}
+			upper[p] = Math.sqrt(distanceSquared(points[p], centroids[k], dims));
+			if (upper[p] <= bound) {
+			    continue;
+			}
+			// compute distance from the other centroids, skipping any
+			//   at least twice as far from the closest so far as the
+			//   point is, which cannot be closer to it
+			double minDist = upper[p];
+			double nextDist = Double.MAX_VALUE;
+			int currentK = k;
+			for (int j=0; j<centroids.length; j++) {
+			    if (j == k) {
+				continue;
+			    }
+			    double tempDist;
+			    if (centroidDist != null && centroidDist[currentK][j] >= 2*minDist) {
+				// all that is known is a lower bound on its distance
+				tempDist = centroidDist[currentK][j] - minDist;
+			    } else {
+				tempDist = Math.sqrt(distanceSquared(points[p], centroids[j], dims));
+			    }
+			    if (tempDist < minDist) {
+				nextDist = minDist;
+				minDist = tempDist;
+				currentK = j;
+			    } else if (tempDist < nextDist) {
+				nextDist = tempDist;
+			    }
+			}
+			if (currentK != k) {
+			    clusterMap[p] = currentK;
+			    changed++;
+			}
+			upper[p] = minDist;
+			lower[p] = nextDist;
 		    }
+		    changes.addAndGet(changed);
 		}
+	    });
+	    if (changes.get() == 0) {
+		break;
 	    }
 	}
+
+	// The final centroids over the metrics not clustered on, and the
+	//   distances of the points from them over all the metrics
+	updateCentroids(points, dims, numVarying, clusterMap, centroids, null);
+	parallelFor("Measuring k-means Distances", numProcs, new RangeTask() {
+	    public void run(int first, int last) {
+		for (int p=first; p<last; p++) {
+		    distanceFromClusterMean[p] = Math.sqrt(distanceSquared(points[p], centroids[clusterMap[p]], numVarying));
+		}
+	    }
+	});
+
+	MainWindow.performanceLogger.log(Level.INFO, "k-means clustering of " + numProcs + " points into " + numClusters +
+		" clusters on " + dims + " of " + numMetrics + " metrics took " + iterations + " iterations and " +
+		(System.nanoTime() - startTime)/1000000 + " ms");
 	outputResults(clusterMap, numClusters, distanceFromClusterMean, false);
     }
-    
-    private static boolean isConverged(boolean clusterChange[]) {
-	for (int k=0; k<clusterChange.length; k++) {
-	    if (clusterChange[k]) {
-		return false;
-	    }
+
+    private static double distanceSquared(double a[], double b[], int dims) {
+	double sum = 0.0;
+	for (int metric=0; metric<dims; metric++) {
+	    double diff = a[metric] - b[metric];
+	    sum += diff*diff;
 	}
-	return true;
+	return sum;
     }
 
+
 //    public static void setCentroidDiagonal(double centroid[][], 
 //					   int numClusters,
 //					   double data[][]) {
@@ -133,58 +260,254 @@ public class KMeansClustering {
 //	}
 //    }
 
-    private static void setCentroidRandom(double centroid[][],
-					 int numClusters,
-					 double data[][]) {
-	int numProcs = data.length;
+    // k-means++ seeding. Each point is assigned to its nearest centroid,
+    //   and upper is set to its distance from it.
+    private static void seedCentroids(final double points[][], final int dims,
+				      double centroids[][],
+				      final int clusterMap[], double upper[]) {
+	final int numProcs = points.length;
+	// the squared distance of each point from its nearest centroid so far
+	final double nearest[] = new double[numProcs];
+	Arrays.fill(nearest, Double.MAX_VALUE);
 
-	int pickedCentroids[] = new int[numClusters];
-	for (int k=0; k<numClusters; k++) {
-	    pickedCentroids[k] = -1;
+	Random rand = new Random(SEED);
+	int picked = rand.nextInt(numProcs);
+	for (int k=0; k<centroids.length; k++) {
+	    final int newK = k;
+	    final double centroid[] = centroids[k];
+	    System.arraycopy(points[picked], 0, centroid, 0, dims);
+	    parallelFor("Seeding k-means Centroids", numProcs, new RangeTask() {
+		public void run(int first, int last) {
+		    for (int p=first; p<last; p++) {
+			double dist = distanceSquared(points[p], centroid, dims);
+			if (dist < nearest[p]) {
+			    nearest[p] = dist;
+			    clusterMap[p] = newK;
+			}
+		    }
+		}
+	    });
+
+	    if (k+1 < centroids.length) {
+		double total = 0.0;
+		for (int p=0; p<numProcs; p++) {
+		    total += nearest[p];
+		}
+		if (total > 0.0) {
+		    double target = rand.nextDouble() * total;
+		    double sum = 0.0;
+		    picked = -1;
+		    for (int p=0; p<numProcs; p++) {
+			if (nearest[p] > 0.0) {
+			    picked = p;
+			    sum += nearest[p];
+			    if (sum > target) {
+				break;
+			    }
+			}
+		    }
+		} else {
+		    // every point is already a centroid
+		    picked = rand.nextInt(numProcs);
+		}
+	    }
 	}
-	Random rand = new Random(11337);
-	int numPicked = 0;
-	while (numPicked < numClusters) {
-	    int randomNum = rand.nextInt(numProcs);
-	    boolean duplicate = false;
-	    for (int k=0; k<=numPicked; k++) {
-		if (pickedCentroids[k] == randomNum) {
-		    duplicate = true;
-		    break;
+
+	for (int p=0; p<numProcs; p++) {
+	    upper[p] = Math.sqrt(nearest[p]);
+	}
+    }
+
+    // Compute the centroids of the clusters over the metrics firstMetric to
+    //   lastMetric-1, keeping the old centroid of an empty cluster. If moved
+    //   is not null, it is set to how far each centroid moved.
+    private static void updateCentroids(final double points[][],
+					final int firstMetric, int lastMetric,
+					final int clusterMap[],
+					final double centroids[][],
+					double moved[]) {
+	int numClusters = centroids.length;
+	final int clusterCounts[] = new int[numClusters];
+	for (int p=0; p<points.length; p++) {
+	    clusterCounts[clusterMap[p]]++;
+	}
+
+	double oldCentroids[][] = null;
+	if (moved != null) {
+	    oldCentroids = new double[numClusters][];
+	    for (int k=0; k<numClusters; k++) {
+		oldCentroids[k] = Arrays.copyOfRange(centroids[k], firstMetric, lastMetric);
+	    }
+	}
+
+	parallelFor("Updating k-means Centroids", lastMetric - firstMetric, new RangeTask() {
+	    public void run(int first, int last) {
+		first += firstMetric;
+		last += firstMetric;
+		double newCentroidVectors[][] = new double[centroids.length][last - first];
+		for (int p=0; p<points.length; p++) {
+		    double point[] = points[p];
+		    double vector[] = newCentroidVectors[clusterMap[p]];
+		    for (int metric=first; metric<last; metric++) {
+			vector[metric - first] += point[metric];
+		    }
+		}
+		for (int k=0; k<centroids.length; k++) {
+		    if (clusterCounts[k] > 0) {
+			for (int metric=first; metric<last; metric++) {
+			    centroids[k][metric] =
+				(newCentroidVectors[k][metric - first]/clusterCounts[k]);
+			}
+		    }
+		}
+	    }
+	});
+
+	if (moved != null) {
+	    for (int k=0; k<numClusters; k++) {
+		double sum = 0.0;
+		for (int metric=firstMetric; metric<lastMetric; metric++) {
+		    double diff = centroids[k][metric] - oldCentroids[k][metric - firstMetric];
+		    sum += diff*diff;
+		}
+		moved[k] = Math.sqrt(sum);
+	    }
+	}
+    }
+
+    // Run task over the indices 0 to n-1 split into ranges, one per thread of
+    //   the shared pool, and return once all of them are done.
+    private static void parallelFor(String description, int n, final RangeTask task) {
+	int parallelism = TimedProgressThreadExecutor.getParallelism();
+	int chunk = Math.max(MIN_CHUNK, (n + parallelism - 1) / parallelism);
+	if (chunk >= n) {
+	    task.run(0, n);
+	    return;
+	}
+	List<Runnable> ranges = new ArrayList<Runnable>();
+	for (int start=0; start<n; start+=chunk) {
+	    final int first = start;
+	    final int last = Math.min(n, start + chunk);
+	    ranges.add(new Runnable() {
+		public void run() {
+		    task.run(first, last);
+		}
+	    });
+	}
+	new TimedProgressThreadExecutor(description, ranges, null, false).runAll();
+    }
+
+    // Choose the metrics that vary between the points, most variable first.
+    //   With varianceToKeep below 1, only those with the largest variance
+    //   that hold that fraction of the total are clustered on. Those come
+    //   first, each group in the original order, and the number of them is
+    //   appended at the end.
+    private static int[] chooseMetrics(final double data[][], double varianceToKeep) {
+	final int numMetrics = data[0].length;
+	final double variance[] = new double[numMetrics];
+	final boolean varies[] = new boolean[numMetrics];
+	parallelFor("Measuring Metric Variance", numMetrics, new RangeTask() {
+	    public void run(int first, int last) {
+		double mean[] = new double[last - first];
+		for (int p=0; p<data.length; p++) {
+		    for (int metric=first; metric<last; metric++) {
+			mean[metric - first] += data[p][metric];
+			if (data[p][metric] != data[0][metric]) {
+			    varies[metric] = true;
+			}
+		    }
 		}
+		for (int metric=first; metric<last; metric++) {
+		    mean[metric - first] /= data.length;
+		}
+		for (int p=0; p<data.length; p++) {
+		    for (int metric=first; metric<last; metric++) {
+			double diff = data[p][metric] - mean[metric - first];
+			variance[metric] += diff*diff;
+		    }
+		}
+	    }
+	});
+
+	List<Integer> varying = new ArrayList<Integer>();
+	double totalVariance = 0.0;
+	for (int metric=0; metric<numMetrics; metric++) {
+	    if (varies[metric]) {
+		varying.add(metric);
+		totalVariance += variance[metric];
 	    }
-	    if (!duplicate) {
-		pickedCentroids[numPicked] = randomNum;
-		System.out.println("Centroid " + randomNum + " picked");
-		for (int act=0; act<centroid[numPicked].length; act++) {
-		    centroid[numPicked][act] = data[randomNum][act];
+	}
+
+	boolean clustered[] = new boolean[numMetrics];
+	int numClustered = 0;
+	if (varianceToKeep < 1.0) {
+	    List<Integer> byVariance = new ArrayList<Integer>(varying);
+	    Collections.sort(byVariance, new Comparator<Integer>() {
+		public int compare(Integer a, Integer b) {
+		    int c = Double.compare(variance[b], variance[a]);
+		    return c != 0 ? c : a.compareTo(b);
+		}
+	    });
+	    double kept = 0.0;
+	    for (Integer metric : byVariance) {
+		if (numClustered > 0 && kept >= varianceToKeep * totalVariance) {
+		    break;
 		}
-		numPicked++;
+		clustered[metric] = true;
+		kept += variance[metric];
+		numClustered++;
+	    }
+	} else {
+	    for (Integer metric : varying) {
+		clustered[metric] = true;
 	    }
+	    numClustered = varying.size();
 	}
+
+	int metrics[] = new int[varying.size() + 1];
+	int i = 0;
+	for (Integer metric : varying) {
+	    if (clustered[metric]) {
+		metrics[i++] = metric;
+	    }
+	}
+	for (Integer metric : varying) {
+	    if (!clustered[metric]) {
+		metrics[i++] = metric;
+	    }
+	}
+	metrics[i] = numClustered;
+	return metrics;
     }
 
     // Absolute-value-biased normalization:
     //    (ie. normalized_value = value - min).
-    // The regular min-max normalization removes an important absolute-value 
-    //    bias required to recognize performance problems from the same 
+    // The regular min-max normalization removes an important absolute-value
+    //    bias required to recognize performance problems from the same
     //    metric domain.
-    private static double[][] normalize(double data[][]) {
-	double normalized[][] = new double[data.length][data[0].length];
-	// assume same length when normalizing.
-	for (int metric=0; metric<data[0].length; metric++) {
-	    double min = Double.MAX_VALUE;
-	    // pass #1 - find min
-	    for (int p=0; p<data.length; p++) {
-		if (data[p][metric] < min) {
-		    min = data[p][metric];
+    // Only the given metrics are kept, in the given order.
+    private static double[][] normalize(final double data[][], final int metrics[]) {
+	final double normalized[][] = new double[data.length][metrics.length];
+	final double min[] = new double[metrics.length];
+	Arrays.fill(min, Double.MAX_VALUE);
+	// pass #1 - find min
+	for (int p=0; p<data.length; p++) {
+	    for (int i=0; i<metrics.length; i++) {
+		if (data[p][metrics[i]] < min[i]) {
+		    min[i] = data[p][metrics[i]];
 		}
 	    }
-	    // pass #2 - normalize
-	    for (int p=0; p<data.length; p++) {
-		normalized[p][metric] = (data[p][metric] - min);
-	    }
 	}
+	// pass #2 - normalize
+	parallelFor("Normalizing Metrics", data.length, new RangeTask() {
+	    public void run(int first, int last) {
+		for (int p=first; p<last; p++) {
+		    for (int i=0; i<metrics.length; i++) {
+			normalized[p][i] = (data[p][metrics[i]] - min[i]);
+		    }
+		}
+	    }
+	});
 	return normalized;
     }
 
@@ -225,8 +548,6 @@ public class KMeansClustering {
 //		System.out.print(" " + mean[k][ep]);
 //	    }
 //	    System.out.println(" )");
-//	}
-//    }
     
     private static void outputResults(int clusterMap[], int numClusters,
 				     double distanceFromClusterMean[],
@@ -237,9 +558,9 @@ public class KMeansClustering {
 
 	int numNonEmpty = 0;
 	double quality = 0.0;
-	double clusterMax[] = new double[numPoints];
+	double clusterMax[] = new double[numClusters];
 	int clusterCounts[] = new int[numClusters];
-	boolean clusterHasStuff[] = new boolean[numClusters]; 
+	boolean clusterHasStuff[] = new boolean[numClusters];
 	for (int k=0; k<numClusters; k++) {
 	    clusterCounts[k] = 0;
 	    clusterHasStuff[k] = false;
@@ -260,7 +581,7 @@ public class KMeansClustering {
 		numNonEmpty++;
 	    }
 	}
-	
+
 	// Output
 	System.out.println("Cluster Results:");
 	System.out.println("----------------");
@@ -273,10 +594,10 @@ public class KMeansClustering {
 	    }
 	}
 	System.out.println();
-	System.out.println("Average Cluster Quality: " + 
+	System.out.println("Average Cluster Quality: " +
 			   quality/numNonEmpty);
 	System.out.println("================================");
-     
+
 	if (outputDetails) {
 	    for (int k=0; k<numClusters; k++) {
 		System.out.println("["+ k + "]:");
@@ -296,7 +617,7 @@ public class KMeansClustering {
 			  {5,7}, {6,1}, {7,2}, {9,4}, {9,5} };
 	int clusterMap[] = new int[data.length];
 	double distanceFromClusterMean[] = new double[data.length];
-	KMeansClustering.kMeans(data, numClusters, clusterMap, 
+	KMeansClustering.kMeans(data, numClusters, clusterMap,
 				distanceFromClusterMean);
 	outputResults(clusterMap, numClusters, distanceFromClusterMean, true);
     }
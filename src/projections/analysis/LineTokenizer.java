@@ -0,0 +1,25 @@
+package projections.analysis;
+
+import java.io.IOException;
+
+/**
+ *  The fields GenericLogReader pulls out of one line of a log, in order.
+ *
+ *  AsciiLineParser implements this on top of a String; ByteLogParser
+ *  implements it directly on the bytes of the log file.
+ */
+interface LineTokenizer {
+
+	/** Read the next whitespace separated integer field */
+	long nextLong() throws IOException;
+
+	/** Read the next whitespace separated decimal field */
+	double nextDouble() throws IOException;
+
+	/** Read the next strlen characters of the line verbatim */
+	String nextString(int strlen);
+
+	/** Whether another field follows on this line */
+	boolean hasNextField();
+
+}
@@ -0,0 +1,25 @@
+package projections.analysis;
+
+import projections.misc.LogEntry;
+
+/**
+ *  Receives, in order, the events of one PE's log.
+ *
+ *  Several visitors can be fed by a single read of a log (see
+ *  projections.Tools.ThreadedFileReaderBase), so a visitor must not modify
+ *  the entries it is given. Nor may it keep references to them: a single
+ *  LogEntry is refilled for every event, so a visitor copies the fields it
+ *  needs later.
+ */
+public interface LogEventVisitor {
+
+	/** Called before the first event. Allocate per-PE storage here rather than in a constructor. */
+	public void beginLog();
+
+	/** Returns false once no more events are needed, so that the log need not be read further */
+	public boolean visit(LogEntry data);
+
+	/** Called after the last event, once the end of the log has been reached or reading it has failed */
+	public void endOfLog();
+
+}
@@ -0,0 +1,216 @@
+package projections.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ *  LogIndex is a small sidecar file "<name>.<pe>.log.idx" stored next to a
+ *  log. It records a checkpoint roughly every CHECKPOINT_SPACING bytes of
+ *  the (uncompressed) log. Each checkpoint holds:
+ *
+ *    - the byte offset of a line in the log
+ *    - the largest timestamp seen in any line before that offset
+ *    - the time of the last record before that offset
+ *    - the raw record (a text line, or a record of a ".projbin" cache) of
+ *      the begin event (BEGIN_PROCESSING or BEGIN_IDLE) that is still open
+ *      at that offset, if any
+ *
+ *  Because the stored time is the maximum of everything that precedes the
+ *  checkpoint, a reader looking for the first event at or after time T can
+ *  jump to the last checkpoint whose maximum is less than T and get exactly
+ *  the same answer as a scan from the beginning of the log. The open begin
+ *  event lets GenericLogReader.getLastOpenBE() report the entry method that
+ *  straddles the requested time.
+ *
+ *  The index is built by GenericLogReader as a side effect of the first
+ *  complete sequential read of a log (normally the end time scan performed
+ *  when the run is opened). Times are stored before any tachyon shift is
+ *  applied. An index whose recorded log length or modification time does
+ *  not match the log is ignored and rebuilt.
+ */
+class LogIndex {
+
+	protected static final String SUFFIX = ".idx";
+
+	private static final int MAGIC = 0x504a4958; // "PJIX"
+	private static final int FORMAT_VERSION = 2;
+
+	/** Approximate number of log bytes between two checkpoints */
+	protected static final long CHECKPOINT_SPACING = 4L * 1024 * 1024;
+
+	/** Logs smaller than this are always scanned from the start; an index would not pay for itself. */
+	protected static final long MIN_INDEXED_LENGTH = 16L * 1024 * 1024;
+	/** Same threshold for ".gz" logs, which typically compress text logs about four times */
+	protected static final long MIN_INDEXED_COMPRESSED_LENGTH = MIN_INDEXED_LENGTH / 4;
+
+	private final long[] offsets;
+	private final long[] maxTimes;
+	private final long[] lastTimes;
+	private final byte[][] openBeginRecords;
+
+	private LogIndex(long[] offsets, long[] maxTimes, long[] lastTimes, byte[][] openBeginRecords) {
+		this.offsets = offsets;
+		this.maxTimes = maxTimes;
+		this.lastTimes = lastTimes;
+		this.openBeginRecords = openBeginRecords;
+	}
+
+	protected static File indexFileFor(File log) {
+		return new File(log.getPath() + SUFFIX);
+	}
+
+	/** Whether the log is big enough to be worth indexing */
+	protected static boolean isIndexable(File log) {
+		if (log.getName().endsWith(".gz"))
+			return log.length() >= MIN_INDEXED_COMPRESSED_LENGTH;
+		return log.length() >= MIN_INDEXED_LENGTH;
+	}
+
+	/** Check the header of an existing index without loading the checkpoints */
+	protected static boolean isCurrent(File log) {
+		File idx = indexFileFor(log);
+		if (!idx.isFile())
+			return false;
+		try (DataInputStream in = new DataInputStream(new FileInputStream(idx))) {
+			return readHeader(in, log);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private static boolean readHeader(DataInputStream in, File log) throws IOException {
+		return in.readInt() == MAGIC &&
+				in.readInt() == FORMAT_VERSION &&
+				in.readLong() == log.length() &&
+				in.readLong() == log.lastModified();
+	}
+
+	/** Load the index for a log, or return null if there is no up to date index */
+	protected static LogIndex load(File log) {
+		File idx = indexFileFor(log);
+		if (!idx.isFile())
+			return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(idx)))) {
+			if (!readHeader(in, log))
+				return null;
+			int n = in.readInt();
+			long[] offsets = new long[n];
+			long[] maxTimes = new long[n];
+			long[] lastTimes = new long[n];
+			byte[][] openBeginRecords = new byte[n][];
+			for (int i = 0; i < n; i++) {
+				offsets[i] = in.readLong();
+				maxTimes[i] = in.readLong();
+				lastTimes[i] = in.readLong();
+				int length = in.readInt();
+				if (length >= 0) {
+					openBeginRecords[i] = new byte[length];
+					in.readFully(openBeginRecords[i]);
+				}
+			}
+			return new LogIndex(offsets, maxTimes, lastTimes, openBeginRecords);
+		} catch (IOException e) {
+			System.err.println("Warning: ignoring unreadable log index " + idx.getAbsolutePath());
+			return null;
+		}
+	}
+
+	/**
+	 * Return the last checkpoint before which every event is earlier than
+	 * the given (unshifted) time, or -1 if the log must be read from its start.
+	 */
+	protected int checkpointBefore(long time) {
+		int lo = 0, hi = offsets.length - 1, found = -1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (maxTimes[mid] < time) {
+				found = mid;
+				lo = mid + 1;
+			} else {
+				hi = mid - 1;
+			}
+		}
+		return found;
+	}
+
+	protected long offset(int checkpoint) {
+		return offsets[checkpoint];
+	}
+
+	protected long lastTime(int checkpoint) {
+		return lastTimes[checkpoint];
+	}
+
+	protected byte[] openBeginRecord(int checkpoint) {
+		return openBeginRecords[checkpoint];
+	}
+
+
+	/** Collects checkpoints during a sequential read of a log, then writes them out */
+	protected static class Builder {
+
+		private final File log;
+		private final ArrayList<long[]> checkpoints = new ArrayList<long[]>();
+		private final ArrayList<byte[]> records = new ArrayList<byte[]>();
+		private long nextOffset = CHECKPOINT_SPACING;
+
+		protected Builder(File log) {
+			this.log = log;
+		}
+
+		/** Whether a checkpoint should be recorded for a line starting at this offset */
+		protected boolean wantsCheckpoint(long offset) {
+			return offset >= nextOffset;
+		}
+
+		protected void checkpoint(long offset, long maxTime, long lastTime, byte[] openBeginRecord) {
+			checkpoints.add(new long[] {offset, maxTime, lastTime});
+			records.add(openBeginRecord);
+			nextOffset = offset + CHECKPOINT_SPACING;
+		}
+
+		/** Write the index next to the log. Failures (e.g. a read-only log directory) are not fatal. */
+		protected void write() {
+			File idx = indexFileFor(log);
+			File tmp = null;
+			try {
+				tmp = File.createTempFile(idx.getName(), ".tmp", idx.getAbsoluteFile().getParentFile());
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(FORMAT_VERSION);
+					out.writeLong(log.length());
+					out.writeLong(log.lastModified());
+					out.writeInt(checkpoints.size());
+					for (int i = 0; i < checkpoints.size(); i++) {
+						long[] c = checkpoints.get(i);
+						out.writeLong(c[0]);
+						out.writeLong(c[1]);
+						out.writeLong(c[2]);
+						byte[] record = records.get(i);
+						out.writeInt(record != null ? record.length : -1);
+						if (record != null)
+							out.write(record);
+					}
+				}
+				// Another reader may have finished the same index first; either copy is fine
+				if (!tmp.renameTo(idx)) {
+					idx.delete();
+					if (!tmp.renameTo(idx))
+						tmp.delete();
+				}
+			} catch (IOException e) {
+				if (tmp != null)
+					tmp.delete();
+				System.err.println("Warning: could not write log index " + idx.getAbsolutePath());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,135 @@
+package projections.analysis;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ *  LogLineReader reads the lines of a text log file, or of a compressed
+ *  version of it ending in ".gz", while keeping track of the byte offset
+ *  of each line in the (uncompressed) log.
+ *
+ *  The offsets allow GenericLogReader to record checkpoints in a LogIndex
+ *  and later seek straight back to them. Seeking in an uncompressed log
+ *  just repositions the file channel; seeking in a compressed log has to
+ *  reopen the stream and inflate up to the requested offset, which still
+ *  avoids parsing the skipped lines.
+ */
+class LogLineReader {
+
+	private final File file;
+	private final boolean compressed;
+
+	private InputStream in;
+
+	private byte[] buffer;
+	/** First unread byte in buffer */
+	private int start;
+	/** One past the last valid byte in buffer */
+	private int end;
+	/** Offset in the uncompressed log of buffer[0] */
+	private long bufferOffset;
+
+	private boolean eof;
+
+	protected LogLineReader(File file, int bufferSize) throws IOException {
+		this.file = file;
+		this.compressed = file.getName().endsWith(".gz");
+		buffer = new byte[bufferSize];
+		open(0);
+	}
+
+	private void open(long offset) throws IOException {
+		if (compressed) {
+			in = new GZIPInputStream(new FileInputStream(file), buffer.length);
+			long remaining = offset;
+			while (remaining > 0) {
+				long skipped = in.skip(remaining);
+				if (skipped <= 0) {
+					throw new IOException("Could not seek to offset " + offset + " in " + file.getAbsolutePath());
+				}
+				remaining -= skipped;
+			}
+		} else {
+			FileInputStream fis = new FileInputStream(file);
+			fis.getChannel().position(offset);
+			in = fis;
+		}
+		start = end = 0;
+		bufferOffset = offset;
+		eof = false;
+	}
+
+	/** The offset in the uncompressed log of the next line to be returned */
+	protected long position() {
+		return bufferOffset + start;
+	}
+
+	/** Continue reading from the line beginning at the given offset in the uncompressed log */
+	protected void seek(long offset) throws IOException {
+		if (!compressed && offset >= bufferOffset && offset <= bufferOffset + end) {
+			start = (int) (offset - bufferOffset);
+			return;
+		}
+		in.close();
+		open(offset);
+	}
+
+	/** Read the next line without its terminator, or return null at the end of the log */
+	protected String readLine() throws IOException {
+		int scan = start;
+		while (true) {
+			while (scan < end) {
+				if (buffer[scan] == '\n') {
+					int lineEnd = scan;
+					if (lineEnd > start && buffer[lineEnd - 1] == '\r')
+						lineEnd--;
+					String line = new String(buffer, start, lineEnd - start);
+					start = scan + 1;
+					return line;
+				}
+				scan++;
+			}
+			int scanned = scan - start;
+			if (eof || !fill()) {
+				if (start == end)
+					return null;
+				// last line of the log has no terminator
+				String line = new String(buffer, start, end - start);
+				start = end;
+				return line;
+			}
+			scan = start + scanned;
+		}
+	}
+
+	/** Move any unread bytes to the front of the buffer and read more. Returns false at the end of the log. */
+	private boolean fill() throws IOException {
+		int unread = end - start;
+		if (start > 0) {
+			System.arraycopy(buffer, start, buffer, 0, unread);
+			bufferOffset += start;
+			start = 0;
+			end = unread;
+		} else if (end == buffer.length) {
+			// a single line longer than the whole buffer
+			byte[] larger = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, larger, 0, end);
+			buffer = larger;
+		}
+		int n = in.read(buffer, end, buffer.length - end);
+		if (n <= 0) {
+			eof = true;
+			return false;
+		}
+		end += n;
+		return true;
+	}
+
+	protected void close() throws IOException {
+		in.close();
+	}
+
+}
@@ -29,7 +29,7 @@ public class LogLoader extends ProjDefs
 		LinkedList workerThreads = new LinkedList();
 
 		for(Integer pe : selectedPEs){
-			if (validPEs.contains(pe)) workerThreads.add(new LogLoaderBeginEventThread(pe) );
+			if (validPEs.contains(pe)) workerThreads.add(new LogLoaderMetadataThread(pe) );
 		}
 
 		if (workerThreads.size() == 0) return 0; // If user entered only invalid PEs, return default start time.
@@ -37,14 +37,15 @@ public class LogLoader extends ProjDefs
 		// Pass this list of threads to a class that manages/runs the threads nicely
 		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Computing Earliest Begin Event Time in Parallel", workerThreads, MainWindow.runObject[myRun].guiRoot, true);
 		threadManager.runAll();
+		MainWindow.runObject[myRun].getLogMetadata().save();
 
 
 		Iterator iter = workerThreads.iterator();
 		long earliestTimeFound = Long.MAX_VALUE;
 		while(iter.hasNext()){
-			LogLoaderBeginEventThread worker = (LogLoaderBeginEventThread) iter.next();
-			if(worker.result < earliestTimeFound ){
-				earliestTimeFound = worker.result;
+			LogLoaderMetadataThread worker = (LogLoaderMetadataThread) iter.next();
+			if(worker.getEarliestBeginEventTime() < earliestTimeFound ){
+				earliestTimeFound = worker.getEarliestBeginEventTime();
 			}
 		}
 
@@ -62,7 +63,7 @@ public class LogLoader extends ProjDefs
 		LinkedList workerThreads = new LinkedList();
 
 		for(Integer pe : selectedPEs){
-			if (validPEs.contains(pe)) workerThreads.add(new LogLoaderEndEventThread(pe) );
+			if (validPEs.contains(pe)) workerThreads.add(new LogLoaderMetadataThread(pe) );
 		}
 
 		if (workerThreads.size() == 0) return MainWindow.runObject[myRun].getTotalTime(); // If user entered only invalid PEs, return default end time.
@@ -70,21 +71,23 @@ public class LogLoader extends ProjDefs
 		// Pass this list of threads to a class that manages/runs the threads nicely
 		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Computing Latest End Event Time in Parallel", workerThreads, MainWindow.runObject[myRun].guiRoot, true);
 		threadManager.runAll();
+		MainWindow.runObject[myRun].getLogMetadata().save();
 
 
 		Iterator iter = workerThreads.iterator();
 		long latestTimeFound = Long.MIN_VALUE;
 		while(iter.hasNext()){
-			LogLoaderEndEventThread worker = (LogLoaderEndEventThread) iter.next();
-			if(worker.result > latestTimeFound ){
-				latestTimeFound = worker.result;
+			LogLoaderMetadataThread worker = (LogLoaderMetadataThread) iter.next();
+			if(worker.getLatestEndEventTime() > latestTimeFound ){
+				latestTimeFound = worker.getLatestEndEventTime();
 			}
 		}
 
 		return latestTimeFound;
 	}
 
-	/** Determine the max endtime from any trace file, by seeking to the end and looking at the last few records */
+	/** Determine the max endtime from any trace file, by seeking to the end and looking at the last few records.
+	 *  The values found are kept in the run's LogMetadata, so later calls and later sessions need not read the logs again. */
 	public long determineEndTime(SortedSet<Integer> validPEs)
 	{
 				
@@ -95,20 +98,21 @@ public class LogLoader extends ProjDefs
 		LinkedList workerThreads = new LinkedList();
 
 		for(Integer pe : validPEs){
-			workerThreads.add(new LogLoaderEndTimeThread(pe) );
+			workerThreads.add(new LogLoaderMetadataThread(pe) );
 		}
 	
 		// Pass this list of threads to a class that manages/runs the threads nicely
 		TimedProgressThreadExecutor threadManager = new TimedProgressThreadExecutor("Computing End Time in Parallel", workerThreads, MainWindow.runObject[myRun].guiRoot, true);
 		threadManager.runAll();
+		MainWindow.runObject[myRun].getLogMetadata().save();
 
 		
 		Iterator iter = workerThreads.iterator();
 		long maxTimeFound = Long.MIN_VALUE;
 		while(iter.hasNext()){
-			LogLoaderEndTimeThread worker = (LogLoaderEndTimeThread) iter.next();
-			if(worker.result > maxTimeFound ){
-				maxTimeFound = worker.result;
+			LogLoaderMetadataThread worker = (LogLoaderMetadataThread) iter.next();
+			if(worker.getEndTime() > maxTimeFound ){
+				maxTimeFound = worker.getEndTime();
 			}
 		}
 		
@@ -0,0 +1,191 @@
+package projections.analysis;
+
+import java.io.File;
+import java.io.IOException;
+
+import projections.gui.MainWindow;
+import projections.misc.LogEntry;
+
+
+/** This thread's run() method will look up the begin and end times of an input log file.
+ *
+ *  The times come from the LogMetadata cache when it is up to date for the
+ *  log. Otherwise the log is read from its start only up to its first begin
+ *  event, and from its tail for its last events: the records are written
+ *  in time order, and END_COMPUTATION is the last of them, so a tail that
+ *  reaches the END_COMPUTATION record holds the latest times in the log.
+ *  Logs without one (e.g. truncated logs), compressed logs and short logs
+ *  are read in full, which also yields the number of events. Either way
+ *  only the type and time of each event are decoded.
+ */
+class LogLoaderMetadataThread  implements Runnable {
+
+	/** How much of the end of a log is read first when looking for its last events */
+	private static final long TAIL_BYTES = 64 * 1024;
+
+	private LogMetadata.Entry result;
+	private int myRun = 0;
+	private int pe;
+	private long shiftAmount;
+
+	protected LogLoaderMetadataThread(int pe) {
+		this.pe = pe;
+	}
+
+	/** The latest time of any event in the log */
+	protected long getEndTime() {
+		if (result.maxTime == Long.MIN_VALUE)
+			return 0L;
+		return Math.max(0L, result.maxTime + shiftAmount);
+	}
+
+	/** The time of the first begin event in the log, or Long.MAX_VALUE */
+	protected long getEarliestBeginEventTime() {
+		if (result.firstBeginTime == Long.MAX_VALUE)
+			return Long.MAX_VALUE;
+		return result.firstBeginTime + shiftAmount;
+	}
+
+	/** The latest time of an end event in the log, or Long.MIN_VALUE */
+	protected long getLatestEndEventTime() {
+		if (result.lastEndTime == Long.MIN_VALUE)
+			return Long.MIN_VALUE;
+		return result.lastEndTime + shiftAmount;
+	}
+
+	public void run() {
+		Analysis analysis = MainWindow.runObject[myRun];
+		File log = analysis.getLog(pe);
+		shiftAmount = analysis.tachyonShifts.getShiftAmount(pe);
+
+		LogMetadata cache = analysis.getLogMetadata();
+		result = cache.get(pe, log);
+		if (result == null) {
+			result = new LogMetadata.Entry();
+			if (!readHead()) {
+				readTail();
+			}
+			cache.put(pe, log, result);
+		}
+	}
+
+	/** Account for one event, whose time has the tachyon shift applied */
+	private void add(LogEntry data) {
+		long time = data.time - shiftAmount;
+		if (time > result.maxTime)
+			result.maxTime = time;
+		if (data.isEndType() && time > result.lastEndTime)
+			result.lastEndTime = time;
+	}
+
+	/**
+	 * Read the log from its start up to the first begin event. Returns true
+	 * if the end of the log was reached in doing so, leaving nothing to
+	 * read from its tail.
+	 */
+	private boolean readHead() {
+		GenericLogReader reader = new GenericLogReader( pe, MainWindow.runObject[myRun].getVersion());
+
+		LogEntry data = new LogEntry();
+		long count = 0;
+		boolean complete = false;
+		try {
+			while (true) {
+				reader.nextEventTypeAndTime(data);
+				count++;
+				add(data);
+				if (data.isBeginType())
+				{
+					result.firstBeginTime = data.time - shiftAmount;
+					break;
+				}
+			}
+		} catch (EndOfLogSuccess e) {
+			// finished reading the file
+			complete = true;
+			result.eventCount = count;
+		} catch (IOException e) {
+			// Some error occurred, possibly log files were truncated or corrupted, or some file format has changed that we are yet unaware of
+			complete = true;
+		}
+
+		close(reader);
+		return complete;
+	}
+
+	/** Find the latest times from the tail of the log, or from all of it if that is not possible */
+	private void readTail() {
+		for (long tail = TAIL_BYTES; ; tail *= 4) {
+			GenericLogReader reader = new GenericLogReader( pe, MainWindow.runObject[myRun].getVersion());
+			try {
+				if (!reader.seekToTail(tail)) {
+					close(reader);
+					break;
+				}
+
+				long maxTime = result.maxTime;
+				long lastEndTime = result.lastEndTime;
+				boolean endComputation = false;
+				LogEntry data = new LogEntry();
+				try {
+					while (true) {
+						reader.nextEventTypeAndTime(data);
+						add(data);
+						if (data.type == ProjDefs.END_COMPUTATION)
+							endComputation = true;
+					}
+				} catch (EndOfLogSuccess e) {
+					// finished reading the file
+				}
+				close(reader);
+
+				if (!endComputation) {
+					// Most likely a truncated log, which may end anywhere
+					result.maxTime = maxTime;
+					result.lastEndTime = lastEndTime;
+					break;
+				}
+				if (result.lastEndTime != lastEndTime) {
+					// found the last end event
+					return;
+				}
+			} catch (IOException e) {
+				// Could not make sense of the tail; read everything instead
+				close(reader);
+				break;
+			}
+		}
+		readAll();
+	}
+
+	/** Find the latest times by reading the whole log */
+	private void readAll() {
+		GenericLogReader reader = new GenericLogReader( pe, MainWindow.runObject[myRun].getVersion());
+
+		LogEntry data = new LogEntry();
+		long count = 0;
+		try {
+			while (true) {
+				reader.nextEventTypeAndTime(data);
+				count++;
+				add(data);
+			}
+		} catch (EndOfLogSuccess e) {
+			// finished reading the file
+			result.eventCount = count;
+		} catch (IOException e) {
+			// Some error occurred, possibly log files were truncated or corrupted, or some file format has changed that we are yet unaware of
+		}
+
+		close(reader);
+	}
+
+	private void close(GenericLogReader reader) {
+		try {
+			reader.close();
+		} catch (IOException e1) {
+			System.err.println("Error: could not close log file reader for processor " + pe );
+		}
+	}
+
+}
@@ -0,0 +1,136 @@
+package projections.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *  LogMetadata is a small cache file "<name>.logmeta", stored next to the
+ *  sts file, of the per-PE values that opening a run and adjusting a range
+ *  need from the logs:
+ *
+ *    - the largest timestamp in the log (LogLoader.determineEndTime)
+ *    - the time of the first begin event (determineEarliestBeginEventTime)
+ *    - the latest time of an end event (determineLatestEndEventTime)
+ *    - the number of events, when the whole log has been read (-1 otherwise)
+ *
+ *  Each entry is keyed by the length and modification time of its log and
+ *  is ignored if either has changed. Times are stored before any tachyon
+ *  shift is applied, so changing the shifts does not invalidate the cache.
+ *  The whole cache is ignored if the log version differs.
+ *
+ *  Entries are computed by LogLoaderMetadataThread.
+ */
+class LogMetadata {
+
+	private static final int MAGIC = 0x504a4d44; // "PJMD"
+	private static final int FORMAT_VERSION = 1;
+
+	/** The cached values for one PE */
+	protected static class Entry {
+		protected long length;
+		protected long lastModified;
+		/** Largest timestamp of any event, or Long.MIN_VALUE for an empty log */
+		protected long maxTime = Long.MIN_VALUE;
+		/** Time of the first begin event, or Long.MAX_VALUE if there is none */
+		protected long firstBeginTime = Long.MAX_VALUE;
+		/** Largest time of any end event, or Long.MIN_VALUE if there is none */
+		protected long lastEndTime = Long.MIN_VALUE;
+		/** Number of events, or -1 if the log was not read in full */
+		protected long eventCount = -1;
+	}
+
+	private final File file;
+	private final double version;
+	private final Map<Integer, Entry> entries = new HashMap<Integer, Entry>();
+	private boolean dirty = false;
+
+	protected LogMetadata(String fileName, double version) {
+		this.file = new File(fileName);
+		this.version = version;
+		load();
+	}
+
+	private void load() {
+		if (!file.isFile())
+			return;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readDouble() != version)
+				return;
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				int pe = in.readInt();
+				Entry e = new Entry();
+				e.length = in.readLong();
+				e.lastModified = in.readLong();
+				e.maxTime = in.readLong();
+				e.firstBeginTime = in.readLong();
+				e.lastEndTime = in.readLong();
+				e.eventCount = in.readLong();
+				entries.put(pe, e);
+			}
+		} catch (IOException e) {
+			System.err.println("Warning: ignoring unreadable log metadata " + file.getAbsolutePath());
+			entries.clear();
+		}
+	}
+
+	/** The cached entry for a PE, or null if there is none for the log as it is now */
+	protected synchronized Entry get(int pe, File log) {
+		Entry e = entries.get(pe);
+		if (e == null || e.length != log.length() || e.lastModified != log.lastModified())
+			return null;
+		return e;
+	}
+
+	protected synchronized void put(int pe, File log, Entry e) {
+		e.length = log.length();
+		e.lastModified = log.lastModified();
+		entries.put(pe, e);
+		dirty = true;
+	}
+
+	/** Write the cache if anything was added. Failures (e.g. a read-only directory) are not fatal. */
+	protected synchronized void save() {
+		if (!dirty)
+			return;
+		File tmp = null;
+		try {
+			tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeDouble(version);
+				out.writeInt(entries.size());
+				for (Map.Entry<Integer, Entry> me : entries.entrySet()) {
+					Entry e = me.getValue();
+					out.writeInt(me.getKey());
+					out.writeLong(e.length);
+					out.writeLong(e.lastModified);
+					out.writeLong(e.maxTime);
+					out.writeLong(e.firstBeginTime);
+					out.writeLong(e.lastEndTime);
+					out.writeLong(e.eventCount);
+				}
+			}
+			if (!tmp.renameTo(file)) {
+				file.delete();
+				if (!tmp.renameTo(file))
+					tmp.delete();
+			}
+			dirty = false;
+		} catch (IOException e) {
+			if (tmp != null)
+				tmp.delete();
+			System.err.println("Warning: could not write log metadata " + file.getAbsolutePath());
+		}
+	}
+
+}
@@ -38,7 +38,8 @@ public class LogReader
     public static final int TIME=2; 
 
     private int[][][] sysUsgData;
-    private int[][][][] userEntries;
+    /** userEntries[type][processor index], allocated only where entry methods ran */
+    private EntryIntervalData[][] userEntries;
     private int[][][][] categorized;
     private int numProcessors;
     private int numUserEntries; //Number of user entry points
@@ -55,15 +56,20 @@ public class LogReader
     private int processing;
     private boolean byEntryPoint;
 
-    // **CW** 8/23/2005 Make LogReader use GenericLogReader instead
-    private LogEntry curData;
+    // State of the entry method in progress while scanning one PE's log
+    private boolean isProcessing;
+    // Copied out of the last BEGIN_PROCESSING, since its entry may be reused
+    private int lastBeginMtype;
+    private int lastBeginEntry;
+    private long lastBeginTime;
+
+    private TreeMap<Double, String> phaseMarkers;
 
     public long getIntervalSize() {
 	return intervalSize;
     }
 	
     public LogReader() {
-		curData = new LogEntry();
     }
 
     /**
@@ -83,7 +89,7 @@ public class LogReader
     	else { //Processing an entry method
     		sysUsgData[SYS_CPU][curPeIdx][j-intervalStart] += extra;
     		if (byEntryPoint) {
-    			userEntries[MainWindow.runObject[myRun].getEntryIndex(currentEntry)][TIME][curPeIdx][j-intervalStart] += extra;
+    			userEntries[TIME][curPeIdx].add(MainWindow.runObject[myRun].getEntryIndex(currentEntry), j-intervalStart, (int)extra);
     			int catIdx = mtypeToCategoryIdx(currentMtype); 
     			if (catIdx!=-1) {
     				categorized[catIdx][TIME][curPeIdx][j-intervalStart] += extra;
@@ -102,15 +108,7 @@ public class LogReader
     if (!byEntryPoint) { 
 	    return;
 	}
-	if (userEntries[entry][TYPE][curPeIdx]==null) {
-	    userEntries[entry][TYPE][curPeIdx]=new int[numIntervals+1];
-	}
-	if (TYPE==PROCESS && 
-	    userEntries[entry][TIME][curPeIdx] == null) { 
-	    //Add a time array, too
-	    userEntries[entry][TIME][curPeIdx]=new int[numIntervals+1];
-	}
-	userEntries[entry][TYPE][curPeIdx][interval-intervalStart]++;
+	userEntries[TYPE][curPeIdx].add(entry, interval-intervalStart, 1);
 	
 	int catIdx=mtypeToCategoryIdx(mtype);
 	if (catIdx!=-1) {
@@ -156,8 +154,48 @@ public class LogReader
     	return sysUsgData; 
     }
 
+    /**
+       The counts and times of each entry method, as [entry][type][processor index][interval].
+
+       This dense copy takes numUserEntries * 3 * numProcessors * numIntervals
+       ints, so for large runs prefer getUserEntryData(), which holds only the
+       blocks of cells that are used.
+     */
     public int[][][][] getUserEntries() {
-    	return userEntries;
+    	if (userEntries == null) {
+    		return null;
+    	}
+    	final int[][][][] dense = new int[numUserEntries][3][numProcessors][numIntervals];
+    	for (int type=0; type<3; type++) {
+    		for (int p=0; p<numProcessors; p++) {
+    			if (userEntries[type][p] == null) {
+    				continue;
+    			}
+    			final int t = type;
+    			final int pIdx = p;
+    			userEntries[type][p].forEach(new EntryIntervalData.CellVisitor() {
+    				public void visit(int entry, int interval, int value) {
+    					if (interval < numIntervals) {
+    						dense[entry][t][pIdx][interval] = value;
+    					}
+    				}
+    			});
+    		}
+    	}
+    	return dense;
+    }
+
+    /**
+       The counts (type CREATE or PROCESS) or times (type TIME) of each entry
+       method in each interval, relative to the start interval, for the
+       processor at the given index of the processor list. Null if the data
+       was not read by entry point.
+     */
+    public EntryIntervalData getUserEntryData(int type, int processorIndex) {
+    	if (userEntries == null) {
+    		return null;
+    	}
+    	return userEntries[type][processorIndex];
     }
     
     // the interval values used are absolute. Only when array access is
@@ -248,48 +286,29 @@ public class LogReader
     		boolean NbyEntryPoint, SortedSet<Integer> processorList,
     		boolean showProgress, TreeMap<Double, String> phaseMarkers)  {
     	
-    	numProcessors = MainWindow.runObject[myRun].getNumProcessors();
-    	numUserEntries = MainWindow.runObject[myRun].getNumUserEntries();
-    	intervalSize = reqIntervalSize;
-    	intervalStart = NintervalStart;
-    	intervalEnd = NintervalEnd;
-    	numIntervals = intervalEnd - intervalStart + 1;
-    	byEntryPoint=NbyEntryPoint;
-
     	// assume full range of processors if null
     	if (processorList == null) {
     		processorList = new TreeSet<Integer>(MainWindow.runObject[myRun].getValidProcessorList());
     	}
 
-    	numProcessors = processorList.size();
-    	
-    	
     	ProgressMonitor progressBar=null;
     	if(showProgress){
     		progressBar = 
     			new ProgressMonitor(MainWindow.runObject[myRun].guiRoot, "Reading log files",
-    					"", 0, numProcessors);
+    					"", 0, processorList.size());
     		progressBar.setNote("Allocating Global Memory");
     		progressBar.setProgress(0);
     	}
 
-    	sysUsgData = new int[3][numProcessors][];
-    	if (byEntryPoint) {
-    		userEntries = new int[numUserEntries][3][numProcessors][numIntervals];
-    		categorized = new int[5][3][numProcessors][];
-    	}
-    	
-    	curPeIdx = 0;
+    	allocate(reqIntervalSize, NintervalStart, NintervalEnd, NbyEntryPoint, processorList.size(), phaseMarkers);
+
     	for(Integer pe : processorList) {
     		if(showProgress){
     			progressBar.setProgress(curPeIdx);
     			progressBar.setNote("[PE: " + pe + " ] Allocating Memory.");
     		}
 
-    		// gzheng: allocate sysUsgData only when needed.
-    		sysUsgData[0][curPeIdx] = new int [numIntervals+1];
-    		sysUsgData[1][curPeIdx] = new int [numIntervals+1];
-    		sysUsgData[2][curPeIdx] = new int [numIntervals+1];
+    		beginPe();
 
     		if(showProgress){
     			progressBar.setNote("[PE: " + pe + " ] Reading data.");
@@ -301,78 +320,12 @@ public class LogReader
     				return;
     			}
     		}
-    		processing = 0;
-    		interval = 0;
-    		currentEntry = NO_ENTRY;
-    		startTime = intervalStart * intervalSize;
-
-    		int nLines = 2;
 
     		GenericLogReader reader = new GenericLogReader( pe, MainWindow.runObject[myRun].getVersion());
 
-		boolean isProcessing = false;
-		LogEntry lastBeginData = null;
-    		
     		try { 
     			while (true) { //EndOfLogException will terminate loop
-    				curData = reader.nextEvent();
-    				nLines++;
-    				switch (curData.type) {
-    				case BEGIN_IDLE: case END_IDLE:
-    					intervalCalc(curData.type, 0, 0, curData.time);
-    					break;
-    				case CREATION:
-    					intervalCalc(CREATION, curData.mtype, 
-    							curData.entry, curData.time);
-    					break;
-    				case BEGIN_PROCESSING: 
-    					if(isProcessing){
-						// We add a "pretend" end event to accomodate
-						// the prior begin processing event.
-						intervalCalc(END_PROCESSING, lastBeginData.mtype, lastBeginData.entry, curData.time);
-    					}
-					// Normal case of handling EPs
-					isProcessing = true;
-					lastBeginData = null;
-					intervalCalc(curData.type, curData.mtype, curData.entry, curData.time);
-					lastBeginData = curData;
-    					break;
-    				case END_PROCESSING:
-    					if(isProcessing){
-    						intervalCalc(curData.type, curData.mtype, curData.entry, curData.time);
-					}
-					isProcessing = false;
-    					break;
-    				case ENQUEUE:
-    					intervalCalc(curData.type, curData.mtype, 
-    							0, curData.time);
-    					break;
-    				case END_COMPUTATION:
-					if (isProcessing) {
-						// If the last begin_processing has no end event,
-						// add a "pretend" end event.
-						intervalCalc(END_PROCESSING, lastBeginData.mtype, lastBeginData.entry, lastBeginData.time);
-					}
-					isProcessing = false;
-    					fillToInterval(numIntervals);
-    					break;
-    				case BEGIN_TRACE:
-    					//Sayantan: I think we do-not really need to do anything
-    					//for begin_trace. However, that may not be the case for a 
-    					//complex series of begin and end traces
-    					break;
-    				case END_TRACE:
-    					intervalCalc(curData.type,curData.mtype,0,curData.time);
-    					break;
-    				case USER_SUPPLIED_NOTE:
-    					double timeInBinUnits = (double)curData.time / intervalSize - intervalStart;
-    					if(phaseMarkers != null){
-    						synchronized(phaseMarkers){
-    							phaseMarkers.put(timeInBinUnits, curData.note);
-    						}
-    					}
-    					break;
-    				}
+    				processEvent(reader.nextEvent());
     			} // end while loop
     		} catch (EndOfLogSuccess e) {
     			// Do nothing
@@ -398,6 +351,137 @@ public class LogReader
     	}
     }
 
+    /**
+       Compute the same data as read() does for the single processor whose
+       log events are given to the returned visitor. This lets the log be
+       read once for several tools (see projections.Tools.ThreadedFileReaderBase).
+       The data is available once the visitor has seen the end of the log.
+     */
+    public LogEventVisitor visitor(final long reqIntervalSize,
+    		final int NintervalStart, final int NintervalEnd,
+    		final boolean NbyEntryPoint, final TreeMap<Double, String> phaseMarkers) {
+    	return new LogEventVisitor() {
+    		public void beginLog() {
+    			allocate(reqIntervalSize, NintervalStart, NintervalEnd, NbyEntryPoint, 1, phaseMarkers);
+    			beginPe();
+    		}
+
+    		public boolean visit(LogEntry data) {
+    			processEvent(data);
+    			return true;
+    		}
+
+    		public void endOfLog() {
+    			curPeIdx++;
+    			rescale();
+    		}
+    	};
+    }
+
+    /** Allocate the global data for the given number of processors */
+    private void allocate(long reqIntervalSize,
+    		int NintervalStart, int NintervalEnd,
+    		boolean NbyEntryPoint, int numPEs,
+    		TreeMap<Double, String> phaseMarkers) {
+    	numUserEntries = MainWindow.runObject[myRun].getNumUserEntries();
+    	intervalSize = reqIntervalSize;
+    	intervalStart = NintervalStart;
+    	intervalEnd = NintervalEnd;
+    	numIntervals = intervalEnd - intervalStart + 1;
+    	byEntryPoint=NbyEntryPoint;
+    	numProcessors = numPEs;
+    	this.phaseMarkers = phaseMarkers;
+
+    	sysUsgData = new int[3][numProcessors][];
+    	if (byEntryPoint) {
+    		userEntries = new EntryIntervalData[3][numProcessors];
+    		categorized = new int[5][3][numProcessors][];
+    	}
+    	
+    	curPeIdx = 0;
+    }
+
+    /** Start reading the log of processor curPeIdx */
+    private void beginPe() {
+    	// gzheng: allocate sysUsgData only when needed.
+    	sysUsgData[0][curPeIdx] = new int [numIntervals+1];
+    	sysUsgData[1][curPeIdx] = new int [numIntervals+1];
+    	sysUsgData[2][curPeIdx] = new int [numIntervals+1];
+    	if (byEntryPoint) {
+    		for (int type=0; type<3; type++) {
+    			userEntries[type][curPeIdx] = new EntryIntervalData(numUserEntries, numIntervals);
+    		}
+    	}
+
+    	processing = 0;
+    	interval = 0;
+    	currentEntry = NO_ENTRY;
+    	startTime = intervalStart * intervalSize;
+
+    	isProcessing = false;
+    }
+
+    /** Account for the next event in the log of processor curPeIdx */
+    private void processEvent(LogEntry curData) {
+    	switch (curData.type) {
+    	case BEGIN_IDLE: case END_IDLE:
+    		intervalCalc(curData.type, 0, 0, curData.time);
+    		break;
+    	case CREATION:
+    		intervalCalc(CREATION, curData.mtype, 
+    				curData.entry, curData.time);
+    		break;
+    	case BEGIN_PROCESSING: 
+    		if(isProcessing){
+    			// We add a "pretend" end event to accomodate
+    			// the prior begin processing event.
+    			intervalCalc(END_PROCESSING, lastBeginMtype, lastBeginEntry, curData.time);
+    		}
+    		// Normal case of handling EPs
+    		isProcessing = true;
+    		intervalCalc(curData.type, curData.mtype, curData.entry, curData.time);
+    		lastBeginMtype = curData.mtype;
+    		lastBeginEntry = curData.entry;
+    		lastBeginTime = curData.time;
+    		break;
+    	case END_PROCESSING:
+    		if(isProcessing){
+    			intervalCalc(curData.type, curData.mtype, curData.entry, curData.time);
+    		}
+    		isProcessing = false;
+    		break;
+    	case ENQUEUE:
+    		intervalCalc(curData.type, curData.mtype, 
+    				0, curData.time);
+    		break;
+    	case END_COMPUTATION:
+    		if (isProcessing) {
+    			// If the last begin_processing has no end event,
+    			// add a "pretend" end event.
+    			intervalCalc(END_PROCESSING, lastBeginMtype, lastBeginEntry, lastBeginTime);
+    		}
+    		isProcessing = false;
+    		fillToInterval(numIntervals);
+    		break;
+    	case BEGIN_TRACE:
+    		//Sayantan: I think we do-not really need to do anything
+    		//for begin_trace. However, that may not be the case for a 
+    		//complex series of begin and end traces
+    		break;
+    	case END_TRACE:
+    		intervalCalc(curData.type,curData.mtype,0,curData.time);
+    		break;
+    	case USER_SUPPLIED_NOTE:
+    		double timeInBinUnits = (double)curData.time / intervalSize - intervalStart;
+    		if(phaseMarkers != null){
+    			synchronized(phaseMarkers){
+    				phaseMarkers.put(timeInBinUnits, curData.note);
+    			}
+    		}
+    		break;
+    	}
+    }
+
     //Convert system usage and idle time from us to percent of an interval
     private void rescale() {
     	int l = sysUsgData[SYS_CPU].length;
@@ -21,8 +21,8 @@ public static final int END_COMPUTATION          = 7;
 protected static final int BEGIN_INTERRUPT          = 8;
 protected static final int END_INTERRUPT            = 9;
 protected static final int MESSAGE_RECV             = 10;
-protected static final int BEGIN_TRACE              = 11;
-protected static final int END_TRACE                = 12;
+public static final int BEGIN_TRACE              = 11;
+public static final int END_TRACE                = 12;
 public static final int USER_EVENT               = 13;
 public static final int BEGIN_IDLE               = 14;
 public static final int END_IDLE                 = 15;
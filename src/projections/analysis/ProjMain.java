@@ -38,6 +38,23 @@ public class ProjMain {
     // entry methods prevent proper analysis (like in cpaimd).
     public static boolean PRINT_USAGE = false;
 
+    // Read logs with the original String-per-line parser instead of
+    // ByteLogParser, for comparing the two.
+    public static boolean LEGACY_LOG_PARSER = false;
+
+    // Replay large logs from ".projbin" binary caches when they exist
+    // (see BinaryLogWriter).
+    public static boolean BINARY_LOG_CACHE = true;
+
+    // Also record such caches while reading logs. Off unless asked for,
+    // since each cache takes about as much disk as its log.
+    public static boolean WRITE_BINARY_LOG_CACHE = false;
+
+    // Number of worker threads shared by the tools when reading logs in
+    // parallel, or 0 for one and a half per core (see
+    // TimedProgressThreadExecutor).
+    public static int NUM_THREADS = 0;
+
     // **CW** My little going-away joke.
     public static boolean FUNNY = false;
 
@@ -64,6 +81,14 @@ public class ProjMain {
 	System.out.println("-bgsize <x> <y> <z>: bluegene torus emulation");
 	System.out.println("-print_usage: details written to stdout when " +
 			   "viewing usage profiles.");
+	System.out.println("-legacy-parser: read logs with the original " +
+			   "line-by-line parser");
+	System.out.println("-binary-cache: record .projbin binary caches " +
+			   "of large logs, to reopen them faster");
+	System.out.println("-no-binary-cache: neither read nor write " +
+			   ".projbin binary log caches");
+	System.out.println("-threads <n>: number of threads used to read " +
+			   "logs in parallel");
 	System.out.println();
 	System.exit(0);
     }
@@ -156,6 +181,16 @@ public class ProjMain {
     			SUM_OVERRIDE = true;
     		} else if (args[i].equals("-print_usage")) {
     			PRINT_USAGE = true;
+    		} else if (args[i].equals("-legacy-parser")) {
+    			LEGACY_LOG_PARSER = true;
+    		} else if (args[i].equals("-binary-cache")) {
+    			WRITE_BINARY_LOG_CACHE = true;
+    		} else if (args[i].equals("-no-binary-cache")) {
+    			BINARY_LOG_CACHE = false;
+    		} else if (args[i].equals("-threads")) {
+    			i++;
+    			if (i==args.length) help();
+    			NUM_THREADS = Integer.parseInt(args[i]);
     		} else if (args[i].equals("-humor")) {
     			FUNNY = true;
     		} else /* Expected Sts Filename */ {
@@ -0,0 +1,99 @@
+package projections.analysis;
+
+import java.util.Arrays;
+
+/**
+ *  RLEIntervalData holds one type of data from one PE's .sumd file: for
+ *  each entry method, one value per interval, as runs of equal values.
+ *
+ *  The runs of all entry methods are packed into two primitive arrays, one
+ *  of run values and one of where each run ends, counted in intervals from
+ *  the start of its entry method. A range of intervals is found with a
+ *  binary search of the latter and read straight off the runs, so the data
+ *  never has to be expanded to one value per interval.
+ */
+class RLEIntervalData {
+
+	/** Receives the runs from forEachRun() */
+	interface RunVisitor {
+		/** value is the value of each of the intervals from start up to but not including end */
+		void visit(int ep, int start, int end, int value);
+	}
+
+	private final int numIntervals;
+	/** The runs of entry method ep are runFrom[ep] up to runFrom[ep+1] */
+	private final int[] runFrom;
+	private int[] values;
+	/** The end of each run, exclusive, in intervals of its entry method */
+	private int[] ends;
+	private int numRuns = 0;
+	/** The entry method the last run was added to */
+	private int lastEP = 0;
+
+	RLEIntervalData(int numEPs, int numIntervals) {
+		this.numIntervals = numIntervals;
+		runFrom = new int[numEPs + 1];
+		values = new int[16];
+		ends = new int[16];
+	}
+
+	int getNumIntervals() {
+		return numIntervals;
+	}
+
+	/** Append count intervals of value to entry method ep. Entry methods must be added in order. */
+	void add(int ep, int value, int count) {
+		if (ep < lastEP)
+			throw new IllegalArgumentException("Entry method " + ep + " added after " + lastEP);
+		for (; lastEP < ep; lastEP++)
+			runFrom[lastEP + 1] = numRuns;
+		final int start = (numRuns > runFrom[ep]) ? ends[numRuns - 1] : 0;
+		if (numRuns > runFrom[ep] && values[numRuns - 1] == value) {
+			// Extends the previous run
+			ends[numRuns - 1] = start + count;
+			return;
+		}
+		if (numRuns == values.length) {
+			values = Arrays.copyOf(values, numRuns * 2);
+			ends = Arrays.copyOf(ends, numRuns * 2);
+		}
+		values[numRuns] = value;
+		ends[numRuns] = start + count;
+		numRuns++;
+	}
+
+	/** Called once all runs are added, to release the unused space */
+	void trim() {
+		for (; lastEP < runFrom.length - 1; lastEP++)
+			runFrom[lastEP + 1] = numRuns;
+		values = Arrays.copyOf(values, numRuns);
+		ends = Arrays.copyOf(ends, numRuns);
+	}
+
+	/** The first run of entry method ep that ends after the given interval */
+	private int findRun(int ep, int interval) {
+		int lo = runFrom[ep];
+		int hi = runFrom[ep + 1];
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (ends[mid] <= interval)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/** Visit the runs of entry method ep with non-zero values, cut to the intervals from start up to but not including end */
+	void forEachRun(int ep, int start, int end, RunVisitor visitor) {
+		final int last = runFrom[ep + 1];
+		for (int r = findRun(ep, start); r < last; r++) {
+			final int runStart = (r > runFrom[ep]) ? ends[r - 1] : 0;
+			if (runStart >= end)
+				break;
+			if (values[r] != 0)
+				visitor.visit(ep, Math.max(start, runStart), Math.min(end, ends[r]), values[r]);
+		}
+	}
+
+}
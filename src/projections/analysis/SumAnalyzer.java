@@ -1,16 +1,18 @@
 package projections.analysis;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.StreamTokenizer;
-
-import javax.swing.ProgressMonitor;
+import java.util.Arrays;
+import java.util.LinkedList;
 
 import projections.gui.MainWindow;
 import projections.misc.SummaryFormatException;
 
 /** This class reads and analyzes .sum files.
+ *
+ *  The files are read in parallel, one task per PE, each PE at its own
+ *  interval size. The data of any PE with a coarser interval size than the
+ *  finest is then rebinned to the finest. The utilization and idle
+ *  percentages of all PEs are held in one array each, PE after PE.
  */
 
 public class SumAnalyzer extends ProjDefs
@@ -25,7 +27,6 @@ public class SumAnalyzer extends ProjDefs
     private static final int ACC_MODE = 0;
     private static final int NORMAL_MODE = 1;
 
-    private StreamTokenizer tokenizer;
     // Holds the total time (in microseconds) spent executing messages
     private long[][] ChareTime;   
     // directed to each entry method during the entire program run
@@ -44,10 +45,11 @@ public class SumAnalyzer extends ProjDefs
 
     // The values in ProcessorUtilization and IdlePercentage are integer percentages
 	// (0-100), so they are byte arrays to save space
+    // [pe*IntervalCount + interval]
     //Holds the second line of summary data
-    private byte[][] ProcessorUtilization; 
+    private byte[] ProcessorUtilization; 
     // Holds the seventh line of summary data
-    private byte[][] IdlePercentage;
+    private byte[] IdlePercentage;
 
     private int mode = NORMAL_MODE;
     private int nPe;
@@ -66,399 +68,316 @@ public class SumAnalyzer extends ProjDefs
 //	IntervalSize = (long)accumulatedReader.intervalSize;
 //    }
 
+    /** The contents of one PE's .sum file, at that PE's own interval size */
+    private static class PeSummary {
+	double versionNum;
+	int nPe;
+	int count;
+	int numEntry;
+	long intervalSize;
+	int phaseCount;
+	byte[] utilization;
+	// only from version 7.0 on
+	byte[] idle;
+	long[] chareTime;
+	int[] numEntryMsgs;
+	int[] maxEntryTime;
+	// [phase][entry], only from version 4.0 on and with more than one phase
+	long[][] phaseChareTime;
+	int[][] phaseNumEntryMsgs;
+    }
+
     /********************** State Variables *******************/
     public SumAnalyzer()
 	throws IOException,SummaryFormatException
     {
-	int tokenType;
-	int CurrentUserEntry;
-	int numEntry=0;
-	double versionNum = 0.0;
-	IntervalCount=0;
-	TotalTime=0;
-    nPe = 1;
-	//ChareTime= new long [NumProcessors][NumUserEntries];			
-	//NumEntryMsgs = new int [NumProcessors][NumUserEntries];
-
-	// Perform a first pass of the reading to avoid having to
-	// approximate the maximum number of intervals over all
-	// processors. We must also present a unified interval
-	// size for the whole system.
-	ProgressMonitor progressBar;
-	progressBar =
-	    new ProgressMonitor(MainWindow.runObject[myRun].guiRoot, "Determining max intervals",
-				"", 0, nPe);
-	for (int p=0; p<nPe; p++) {
-            if (!progressBar.isCanceled()) {
-                progressBar.setNote(p + " of " + nPe);
-                progressBar.setProgress(p);
-            } else {
-                System.err.println("Fatal error - Projections cannot" +
-                                   " function without proper number of" +
-				   " summary intervals!");
-                System.exit(-1);
-            }
-	    FileReader file=new FileReader(MainWindow.runObject[myRun].getSumName(p));
-	    BufferedReader b = new BufferedReader(file);
-	    tokenizer = new StreamTokenizer(b);
-	    //Set up the tokenizer
-	    tokenizer.parseNumbers();
-	    tokenizer.eolIsSignificant(true);
-	    tokenizer.whitespaceChars('/','/');
-	    tokenizer.whitespaceChars(':',':');
-	    tokenizer.whitespaceChars('[','[');
-	    tokenizer.whitespaceChars(']',']');
-	    tokenizer.wordChars('a','z');
-	    tokenizer.wordChars('A','Z');
-	    //Read the first line (descriptive information)
-	    checkNextString("ver");
-	    versionNum = nextNumber("Version Number");
-	    nextNumber("processor number");
-	    nPe=(int)nextNumber("number of processors");
-	    checkNextString("count");
-	    int myCount= (int)nextNumber("count");
-	    checkNextString("ep");
-	    nextNumber("ep"); // do nothing with this.
-	    checkNextString("interval");
-	    double interval=nextScientific("intervalsize"); 
-	    long myIntervalSize = (long)Math.floor(interval*1000000);
-	    // determine base interval size, the finer the better.
-	    double factor = 1.0;
-	    if (myIntervalSize != IntervalSize) {
-		if (IntervalSize == 0) {
-		    IntervalSize = myIntervalSize;
-		} else {
-		    factor = myIntervalSize/(IntervalSize*1.0);
-		    if (myIntervalSize < IntervalSize) {
-			IntervalSize = myIntervalSize;
+	// The first file says how many there are
+	final PeSummary[] pes;
+	PeSummary first = readSumFile(0);
+	nPe = first.nPe;
+	pes = new PeSummary[nPe];
+	pes[0] = first;
+
+	// The other files are independent of each other, so read them in
+	// parallel. Each PE keeps its own interval size until all are read.
+	final Exception[] errors = new Exception[nPe];
+	LinkedList<Runnable> readers = new LinkedList<Runnable>();
+	for (int p=1; p<nPe; p++) {
+	    final int pe = p;
+	    readers.add(new Runnable() {
+		    public void run() {
+			try {
+			    pes[pe] = readSumFile(pe);
+			} catch (Exception e) {
+			    errors[pe] = e;
+			}
 		    }
-		}
-	    }
-	    // if a finer size was determined by this pe info, expand
-	    // the number of previous counts by the factor.
-	    if (factor < 1.0) {
-		IntervalCount = (int)(IntervalCount/factor);
-	    }
-	    // compare previous interval counts with my current count
-	    // multiplied by my factor
-	    if (IntervalCount<(myCount*factor)) {
-		IntervalCount=(int)(myCount*factor);
-	    }
-	    tokenizer = null;
-	    file.close();
+		});
 	}
-	progressBar.close();
-
-	// second pass
-	progressBar = 
-	    new ProgressMonitor(MainWindow.runObject[myRun].guiRoot, "Reading summary data",
-				"", 0, nPe);
-	for (int p = 0; p<nPe; p++) {
-            if (!progressBar.isCanceled()) {
-                progressBar.setNote(p + " of " + nPe);
-                progressBar.setProgress(p);
-            } else {
-		progressBar.close();
-		return;
-            }
-	    FileReader file=new FileReader(MainWindow.runObject[myRun].getSumName(p));
-	    BufferedReader b = new BufferedReader(file);
-	    tokenizer=new StreamTokenizer(b);
-	    //Set up the tokenizer
-	    tokenizer.parseNumbers();
-	    tokenizer.eolIsSignificant(true);
-	    tokenizer.whitespaceChars('/','/'); 
-	    tokenizer.whitespaceChars(':',':');
-	    tokenizer.whitespaceChars('[','[');
-	    tokenizer.whitespaceChars(']',']');
-	    tokenizer.wordChars('a','z');
-	    tokenizer.wordChars('A','Z');
-	    //Read the first line (descriptive information)
-	    checkNextString("ver");
-	    versionNum = nextNumber("Version Number");
-	    nextNumber("processor number");
-	    nPe=(int)nextNumber("number of processors");
-	    checkNextString("count");
-	    int myCount= (int)nextNumber("count");
-	    checkNextString("ep");
-	    numEntry=(int)nextNumber("number of entry methods");
-	    checkNextString("interval");
-	    double interval=nextScientific("processor usage sample interval"); 
-	    long myIntervalSize = (long)Math.floor(interval*1000000);
-	    if (TotalTime < myCount*myIntervalSize) {
-		TotalTime = myCount*myIntervalSize;
+	TimedProgressThreadExecutor threadManager =
+	    new TimedProgressThreadExecutor("Reading summary data", readers,
+					    MainWindow.runObject[myRun].guiRoot, true);
+	threadManager.runAll();
+	for (Exception e : errors) {
+	    if (e instanceof IOException) {
+		throw (IOException)e;
+	    } else if (e instanceof SummaryFormatException) {
+		throw (SummaryFormatException)e;
+	    } else if (e != null) {
+		throw (RuntimeException)e;
 	    }
-	    int factor = (int)(myIntervalSize/IntervalSize);
-	    if (versionNum > 2) {
-		checkNextString("phases");
-		PhaseCount = (int)nextNumber("phases");
-	    } else {
-		PhaseCount = 0;
-	    }
-	    if (StreamTokenizer.TT_EOL!=tokenizer.nextToken())
-		throw new SummaryFormatException("extra garbage at end of line 1");
-	    if (p==0) {
-		ProcessorUtilization = new byte[nPe][];
-		IdlePercentage = new byte[nPe][];
-		ChareTime= new long [nPe][numEntry];
-		NumEntryMsgs = new int [nPe][numEntry];
-		MaxEntryTime = new int [nPe][numEntry];
+	}
+
+	// Use the finest interval size of any PE for the whole system,
+	// and rebin the data of the PEs with coarser intervals to it.
+	// PEs not read because the user cancelled are left empty.
+	IntervalSize = 0;
+	for (PeSummary pe : pes) {
+	    if (pe != null && (IntervalSize == 0 || pe.intervalSize < IntervalSize)) {
+		IntervalSize = pe.intervalSize;
 	    }
-	    ProcessorUtilization[p] = new byte[IntervalCount];
-	    IdlePercentage[p] = new byte[IntervalCount];
-	    
-	    //Read the SECOND line (processor usage)
-	    int nUsageRead=0;
-	    // we perform on-the-fly expansion of larger interval sized
-	    // data (ie. myIntervalSize > IntervalSize).
-	    int val = 0;
-	    int extraCount = 0;
-	    while ((tokenType=tokenizer.nextToken()) != 
-		   StreamTokenizer.TT_EOL) {
-		if (tokenType == StreamTokenizer.TT_NUMBER) {
-                    val =  (int)tokenizer.nval;
-		    for (int f=0; f<factor; f++) {
-			ProcessorUtilization[p][nUsageRead++] = (byte)val;
-		    }
-                    if ((tokenType=tokenizer.nextToken()) == '+') {
-                        tokenType=tokenizer.nextToken();
-                        if (tokenType !=  StreamTokenizer.TT_NUMBER) {
-			    System.out.println("Unrecorgnized syntax at " +
-					       "end of line 2");
-			}
-			extraCount = (int)tokenizer.nval;
-			if (extraCount > myCount) {
-			    System.err.println("[" + p + "] Token read = [" +
-					       val + "+" + extraCount +
-					       "] is impossible as the " +
-					       "count is larger than the " +
-					       "total count of " + myCount);
-			    System.exit(-1);
-			}
-                        for (int i=1; i<extraCount; i++) {
-			    for (int f=0; f<factor; f++) {
-				ProcessorUtilization[p][nUsageRead++] = (byte)val;
-			    }
-			}
-                    } else {
-			tokenizer.pushBack();
-		    }
-		}
-		if (nUsageRead > (myCount*factor)) {
-		    System.err.println("[" + p + "] Corrupted data: " +
-				       "Number of datapoints read exceeds " +
-				       "file recorded value of " + myCount +
-				       "adjusted by factor " + factor);
-		    System.err.print("The violating token is [" + val);
-		    if (extraCount > 1) {
-			System.err.println("+" + extraCount + "]");
-		    } else {
-			System.err.println("]");
-		    }
-		    System.exit(-1);
-		}
+	}
+	IntervalCount = 0;
+	TotalTime = 0;
+	for (PeSummary pe : pes) {
+	    if (pe == null) {
+		continue;
 	    }
-	    if ((myCount*factor) != nUsageRead) {
-		System.err.println("numIntervals for Utilization do not agree: " + 
-				   (myCount*factor) + " v.s. "+nUsageRead+"!");
+	    if (pe.intervalSize != IntervalSize) {
+		pe.utilization = rebin(pe.utilization, pe.intervalSize);
+		pe.idle = rebin(pe.idle, pe.intervalSize);
 	    }
-	    // Read in the THIRD line (time spent by entries)
-	    CurrentUserEntry = 0;
-	    // **CW** for now, ignore the labels. Check to see if it is a 
-	    // label. if yes, consume it. if not, push it back onto the 
-	    // stream.
-	    if ((StreamTokenizer.TT_WORD==
-		 (tokenType=tokenizer.nextToken()))) {
-		// do nothing. Label consumed.
-		// System.out.println(tokenizer.sval + " read.");
-	    } else {
-		tokenizer.pushBack();
+	    IntervalCount = Math.max(IntervalCount, pe.utilization.length);
+	    TotalTime = Math.max(TotalTime, pe.count*pe.intervalSize);
+	}
+
+	if ((long)nPe*IntervalCount > Integer.MAX_VALUE) {
+	    throw new SummaryFormatException(nPe + " processors of " +
+					     IntervalCount + " intervals " +
+					     "are too many to load");
+	}
+	int numEntry = first.numEntry;
+	PhaseCount = first.phaseCount;
+	ProcessorUtilization = new byte[nPe*IntervalCount];
+	IdlePercentage = new byte[nPe*IntervalCount];
+	ChareTime = new long[nPe][];
+	NumEntryMsgs = new int[nPe][];
+	MaxEntryTime = new int[nPe][];
+	if (first.phaseChareTime != null) {
+	    PhaseChareTime = new long[PhaseCount][nPe][];
+	    PhaseNumEntryMsgs = new int[PhaseCount][nPe][];
+	}
+	for (int p=0; p<nPe; p++) {
+	    PeSummary pe = pes[p];
+	    if (pe == null) {
+		pe = new PeSummary();
+		pe.utilization = new byte[0];
+		pe.chareTime = new long[numEntry];
+		pe.numEntryMsgs = new int[numEntry];
+		pe.maxEntryTime = new int[numEntry];
 	    }
-	    while ((StreamTokenizer.TT_NUMBER==
-		    (tokenType=tokenizer.nextToken())) &&
-		   (numEntry>CurrentUserEntry)) {
-		ChareTime[p][CurrentUserEntry++] = (int)tokenizer.nval;
+	    System.arraycopy(pe.utilization, 0, ProcessorUtilization,
+			     p*IntervalCount, pe.utilization.length);
+	    if (pe.idle != null) {
+		System.arraycopy(pe.idle, 0, IdlePercentage,
+				 p*IntervalCount, pe.idle.length);
 	    }
-	    // Make sure we're at the end of the line
-	    if (StreamTokenizer.TT_EOL!=tokenType)
-		throw new SummaryFormatException("extra garbage at end of line 3");
-	    // Read in the FOURTH line (number of messages)
-	    // **CW** for now, ignore the labels. Check to see if it is a label
-	    // if yes, consume it. if not, push it back onto the stream.
-	    if ((StreamTokenizer.TT_WORD==(tokenType=tokenizer.nextToken()))) {
-		// do nothing. Label consumed.
-		// System.out.println(tokenizer.sval + " read.");
-	    } else {
-		tokenizer.pushBack();
+	    ChareTime[p] = pe.chareTime;
+	    NumEntryMsgs[p] = pe.numEntryMsgs;
+	    MaxEntryTime[p] = pe.maxEntryTime;
+	    if (PhaseChareTime != null) {
+		for (int m=0; m<PhaseCount; m++) {
+		    boolean hasPhase = pe.phaseChareTime != null &&
+			m < pe.phaseChareTime.length;
+		    PhaseChareTime[m][p] = hasPhase ?
+			pe.phaseChareTime[m] : new long[numEntry];
+		    PhaseNumEntryMsgs[m][p] = hasPhase ?
+			pe.phaseNumEntryMsgs[m] : new int[numEntry];
+		}
 	    }
-	    CurrentUserEntry = 0;
-	    while ((StreamTokenizer.TT_NUMBER==(tokenType=tokenizer.nextToken())) &&
-		   (numEntry>CurrentUserEntry)) {
-		NumEntryMsgs[p][CurrentUserEntry] = (int)tokenizer.nval;
-		CurrentUserEntry++;
+	    pes[p] = null;
+	}
+	MainWindow.runObject[myRun].setTotalTime(TotalTime);
+    }
+
+    /** Read the whole of one PE's .sum file */
+    private PeSummary readSumFile(int p)
+	throws IOException,SummaryFormatException
+    {
+	SummaryTokenizer tokenizer =
+	    SummaryTokenizer.open(MainWindow.runObject[myRun].getSumName(p));
+	PeSummary pe = new PeSummary();
+	//Read the first line (descriptive information)
+	tokenizer.checkNextString("ver");
+	pe.versionNum = tokenizer.nextNumber("Version Number");
+	tokenizer.nextNumber("processor number");
+	pe.nPe = (int)tokenizer.nextNumber("number of processors");
+	tokenizer.checkNextString("count");
+	pe.count = (int)tokenizer.nextNumber("count");
+	tokenizer.checkNextString("ep");
+	pe.numEntry = (int)tokenizer.nextNumber("number of entry methods");
+	tokenizer.checkNextString("interval");
+	double interval =
+	    tokenizer.nextScientific("processor usage sample interval");
+	pe.intervalSize = (long)Math.floor(interval*1000000);
+	if (pe.intervalSize <= 0) {
+	    throw new SummaryFormatException("[" + p + "] Impossible " +
+					     "interval size of " + interval);
+	}
+	if (pe.versionNum > 2) {
+	    tokenizer.checkNextString("phases");
+	    pe.phaseCount = (int)tokenizer.nextNumber("phases");
+	}
+	if (SummaryTokenizer.TT_EOL!=tokenizer.nextToken())
+	    throw new SummaryFormatException("extra garbage at end of line 1");
+
+	//Read the SECOND line (processor usage)
+	pe.utilization = readIntervalLine(tokenizer, p, pe.count, "Utilization");
+	// Read in the THIRD line (time spent by entries)
+	// **CW** for now, ignore the labels.
+	tokenizer.skipLabel();
+	pe.chareTime = readEntryLine(tokenizer, pe.numEntry, 3);
+	// Read in the FOURTH line (number of messages)
+	tokenizer.skipLabel();
+	pe.numEntryMsgs = toInts(readEntryLine(tokenizer, pe.numEntry, 4));
+	// Read in the FIFTH line (Maximum EP Time)
+	// this line applies only to version 4.0 and above.
+	if (pe.versionNum > 3.0) {
+	    tokenizer.skipLabel();
+	    pe.maxEntryTime = toInts(readEntryLine(tokenizer, pe.numEntry, 5));
+	} else {
+	    pe.maxEntryTime = new int[pe.numEntry];
+	}
+	if (pe.versionNum > 3.0) {
+	    // Read in the SIXTH line (phase pairs)
+	    tokenizer.skipLabel();
+	    int NumberofPairs =
+		(int)tokenizer.nextNumber("Number of Marked Events");
+	    for (int g=0; g<NumberofPairs; g++) {
+		tokenizer.nextNumber("Number of Marked Events");
+		tokenizer.nextNumber("Number of Marked Events");
 	    }
 	    //Make sure we're at the end of the line
-	    if (StreamTokenizer.TT_EOL!=tokenType)
-		throw new SummaryFormatException("extra garbage at end of line 4");
-	    // Read in the FIFTH line (Maximum EP Time)
-	    // **CW** for now, ignore the labels. Check to see if it is a label
-	    // if yes, consume it. if not, push it back onto the stream.
-	    // this line applies only to version 4.0 and above.
-	    if (versionNum > 3.0) {
-		if ((StreamTokenizer.TT_WORD==(tokenType=tokenizer.nextToken()))) {
-		    // do nothing. Label consumed.
-		    // System.out.println(tokenizer.sval + " read.");
-		} else {
-		    tokenizer.pushBack();
-		}
-		CurrentUserEntry = 0;
-		while ((StreamTokenizer.TT_NUMBER==(tokenType=tokenizer.nextToken())) &&
-		       (numEntry>CurrentUserEntry)) {
-		    MaxEntryTime[p][CurrentUserEntry] = (int)tokenizer.nval;
-		    CurrentUserEntry++;
-		}
-		//Make sure we're at the end of the line
-		if (StreamTokenizer.TT_EOL!=tokenType)
-		    throw new SummaryFormatException("extra garbage at end of line 5");
-	    }
-	    if (versionNum > 3.0) {
-		// Read in the SIXTH line (phase pairs)
-		int NumberofPairs;
-		// **CW** for now, ignore the labels. Check to see if it is a label
-		// if yes, consume it. if not, push it back onto the stream.
-		if ((StreamTokenizer.TT_WORD==(tokenType=tokenizer.nextToken()))) {
-		    // do nothing. Label consumed.
-		    // System.out.println(tokenizer.sval + " read.");
-		} else {
-		    tokenizer.pushBack();
-		}
-		NumberofPairs = (int)nextNumber("Number of Marked Events");
-		for (int g=0; g<NumberofPairs; g++) {
-		    nextNumber("Number of Marked Events");
-		    nextNumber("Number of Marked Events");
-		}
-		//Make sure we're at the end of the line
-		if (StreamTokenizer.TT_EOL!=(tokenType=tokenizer.nextToken()))
-		    throw new SummaryFormatException("extra garbage at end of line 6");
-		if (PhaseCount > 1) {				
-		    if (p == 0) {
-			PhaseChareTime= new long [PhaseCount][nPe][numEntry];
-			PhaseNumEntryMsgs = new int [PhaseCount][nPe][numEntry];
-		    }
-		    for(int m=0; m<PhaseCount; m++) {		
-			CurrentUserEntry = 0;
-			tokenizer.nextToken();
-			tokenizer.nextToken();
-			while ((StreamTokenizer.TT_NUMBER==(tokenType=tokenizer.nextToken())) &&
-			       (numEntry>CurrentUserEntry)) {
-			    PhaseNumEntryMsgs[m][p][CurrentUserEntry] = 
-				(int)tokenizer.nval;
-			    CurrentUserEntry++;
-			}
-			// Make sure we're at the end of the line
-			if (StreamTokenizer.TT_EOL!=tokenType)
-			    throw new SummaryFormatException("extra garbage at end of line 3");
-			// Read in the FOURTH line
-			CurrentUserEntry = 0;
-			tokenizer.nextToken();
-			tokenizer.nextToken();
-			while ((StreamTokenizer.TT_NUMBER==(tokenType=tokenizer.nextToken())) &&
-			       (numEntry>CurrentUserEntry)) {
-			    PhaseChareTime[m][p][CurrentUserEntry] = 
-				(int)tokenizer.nval;
-			    CurrentUserEntry++;
-			}
-			//Make sure we're at the end of the line
-			if (StreamTokenizer.TT_EOL!=tokenType)
-			    throw new SummaryFormatException("extra garbage at end of line 4");
-		    }
+	    if (SummaryTokenizer.TT_EOL!=tokenizer.nextToken())
+		throw new SummaryFormatException("extra garbage at end of line 6");
+	    if (pe.phaseCount > 1) {
+		pe.phaseNumEntryMsgs = new int[pe.phaseCount][];
+		pe.phaseChareTime = new long[pe.phaseCount][];
+		for (int m=0; m<pe.phaseCount; m++) {
+		    // Each line starts with two tokens of its own
+		    tokenizer.nextToken();
+		    tokenizer.nextToken();
+		    pe.phaseNumEntryMsgs[m] =
+			toInts(readEntryLine(tokenizer, pe.numEntry, 3));
+		    tokenizer.nextToken();
+		    tokenizer.nextToken();
+		    pe.phaseChareTime[m] = readEntryLine(tokenizer, pe.numEntry, 4);
 		}
 	    }
+	}
+	//Read the SEVENTH line (idle percentage)
+	if (pe.versionNum > 7.0) {
+	    tokenizer.skipLabel();
+	    pe.idle = readIntervalLine(tokenizer, p, pe.count, "Idle");
+	}
+	return pe;
+    }
 
-	    //Read the SEVENTH line (processor usage)
-	    // **CW** for now, ignore the labels. Check to see if it is a label
-	    // if yes, consume it. if not, push it back onto the stream.
-	    if (versionNum > 7.0) {
-		if ((StreamTokenizer.TT_WORD==
-		     (tokenType=tokenizer.nextToken()))) {
-		    // do nothing. Label consumed.
-		    // System.out.println(tokenizer.sval + " read.");
-		} else {
-		    tokenizer.pushBack();
-		}
-		int nIdleRead=0;
-		// we perform on-the-fly expansion of larger interval sized
-		// data (ie. myIntervalSize > IntervalSize).
-		val = 0;
-		extraCount = 0;
-		while ((tokenType=tokenizer.nextToken()) != 
-		       StreamTokenizer.TT_EOL) {
-		    if (tokenType == StreamTokenizer.TT_NUMBER) {
-			val =  (int)tokenizer.nval;
-			for (int f=0; f<factor; f++) {
-			    IdlePercentage[p][nIdleRead++] = (byte)val;
-			}
-			if ((tokenType=tokenizer.nextToken()) == '+') {
-			    tokenType=tokenizer.nextToken();
-			    if (tokenType !=  StreamTokenizer.TT_NUMBER) {
-				System.out.println("Unrecorgnized syntax at " +
-						   "end of line 2");
-			    }
-			    extraCount = (int)tokenizer.nval;
-			    if (extraCount > myCount) {
-				System.err.println("["+p+"] Token read = [" +
-						   val + "+" + extraCount +
-						   "] is impossible as the " +
-						   "count is larger than " +
-						   "the total count of " + 
-						   myCount);
-				System.exit(-1);
-			    }
-			    for (int i=1; i<extraCount; i++) {
-				for (int f=0; f<factor; f++) {
-				    IdlePercentage[p][nIdleRead++] = (byte)val;
-				}
-			    }
-			} else {
-			    tokenizer.pushBack();
-			}
-		    }
-		    if (nIdleRead > (myCount*factor)) {
-			System.err.println("[" + p + "] Corrupted data: " +
-					   "Number of datapoints read " +
-					   "exceeds " +
-					   "file recorded value of " + 
-					   myCount +
-					   "adjusted by factor " + factor);
-			System.err.print("The violating token is [" + val);
-			if (extraCount > 1) {
-			    System.err.println("+" + extraCount + "]");
-			} else {
-			    System.err.println("]");
-			}
-			System.exit(-1);
-		    }
-		}
-		if ((myCount*factor) != nIdleRead) {
-		    System.err.println("numIntervals for Idle do not agree: " + 
-				       (myCount*factor) + " v.s. "+
-				       nIdleRead+"!");
+    /**
+     * Read a line of one percentage per interval, where "v+n" stands for
+     * n intervals of v.
+     */
+    private static byte[] readIntervalLine(SummaryTokenizer tokenizer, int p,
+					   int count, String description)
+	throws SummaryFormatException
+    {
+	byte[] data = new byte[count];
+	int nRead = 0;
+	int tokenType;
+	while ((tokenType=tokenizer.nextToken()) != SummaryTokenizer.TT_EOL &&
+	       tokenType != SummaryTokenizer.TT_EOF) {
+	    if (tokenType != SummaryTokenizer.TT_NUMBER) {
+		continue;
+	    }
+	    int val = (int)tokenizer.nval;
+	    int repeat = 1;
+	    if (tokenizer.nextToken() == '+') {
+		if (tokenizer.nextToken() != SummaryTokenizer.TT_NUMBER) {
+		    throw new SummaryFormatException("[" + p + "] Unrecognized " +
+						     "syntax after " + val + "+");
 		}
+		repeat = Math.max(1, (int)tokenizer.nval);
+	    } else {
+		tokenizer.pushBack();
 	    }
-	    tokenizer = null;
-	    file.close();
-	    // System.out.println("Finished reading in data for processor #"+p+"/"+nPe);
+	    if (repeat > count - nRead) {
+		throw new SummaryFormatException("[" + p + "] Corrupted data: " +
+						 "token [" + val +
+						 (repeat > 1 ? "+" + repeat : "") +
+						 "] takes the number of " +
+						 description + " datapoints " +
+						 "past the file recorded value " +
+						 "of " + count);
+	    }
+	    Arrays.fill(data, nRead, nRead + repeat, (byte)val);
+	    nRead += repeat;
 	}
-	progressBar.close();
-	MainWindow.runObject[myRun].setTotalTime(TotalTime);
+	if (count != nRead) {
+	    System.err.println("numIntervals for " + description +
+			       " do not agree: " + count + " v.s. " +
+			       nRead + "!");
+	}
+	return data;
     }
 
-    private void checkNextString(String expected) 
-	throws IOException,SummaryFormatException
+    /** Read a line of one value per entry method, which must end there */
+    private static long[] readEntryLine(SummaryTokenizer tokenizer,
+					int numEntry, int lineNumber)
+	throws SummaryFormatException
     {
-	String ret=nextString(expected);
-	if (!expected.equals(ret))
-	    throw new SummaryFormatException("Expected "+expected+" got "+ret);
+	long[] data = new long[numEntry];
+	int CurrentUserEntry = 0;
+	int tokenType;
+	while ((SummaryTokenizer.TT_NUMBER==(tokenType=tokenizer.nextToken())) &&
+	       (numEntry>CurrentUserEntry)) {
+	    data[CurrentUserEntry++] = (long)tokenizer.nval;
+	}
+	// Make sure we're at the end of the line
+	if (SummaryTokenizer.TT_EOL!=tokenType)
+	    throw new SummaryFormatException("extra garbage at end of line " +
+					     lineNumber);
+	return data;
+    }
+
+    private static int[] toInts(long[] data) {
+	int[] ret = new int[data.length];
+	for (int i=0; i<data.length; i++) {
+	    ret[i] = (int)data[i];
+	}
+	return ret;
+    }
+
+    /**
+     * Rebin percentages per interval of the given size to IntervalSize.
+     * When the size is a multiple of IntervalSize, each value is simply
+     * repeated.
+     */
+    private byte[] rebin(byte[] data, long originalSize) {
+	if (data == null) {
+	    return null;
+	}
+	double[] time = new double[data.length];
+	for (int i=0; i<data.length; i++) {
+	    time[i] = data[i];
+	}
+	IntervalUtils.utilToTime(time, originalSize);
+	double[] rebinned = IntervalUtils.rebin(time, originalSize, IntervalSize);
+	IntervalUtils.timeToUtil(rebinned, IntervalSize);
+	byte[] ret = new byte[rebinned.length];
+	for (int i=0; i<rebinned.length; i++) {
+	    ret[i] = (byte)Math.round(rebinned[i]);
+	}
+	return ret;
     }
 
     public long getIntervalSize() {
@@ -470,8 +389,23 @@ public class SumAnalyzer extends ProjDefs
 	return ChareTime;
     }
 
+    /** A copy of the utilization of every PE, as [pe][interval] */
     public byte[][] getProcessorUtilization() {
-        return ProcessorUtilization;
+        return perPE(ProcessorUtilization);
+    }
+
+    /** The utilization of one PE in one interval */
+    public byte getProcessorUtilization(int pe, int interval) {
+        return ProcessorUtilization[pe*IntervalCount + interval];
+    }
+
+    private byte[][] perPE(byte[] data) {
+	byte[][] ret = new byte[nPe][];
+	for (int p=0; p<nPe; p++) {
+	    ret[p] = Arrays.copyOfRange(data, p*IntervalCount,
+					(p+1)*IntervalCount);
+	}
+	return ret;
     }
 
     public long[][] getPhaseChareTime(int Phase)
@@ -490,7 +424,7 @@ public class SumAnalyzer extends ProjDefs
     public int[][] getSystemUsageData(int intervalStart, int intervalEnd, 
 				      long outIntervalSize)
     {
-	int numProcessors=ProcessorUtilization.length;
+	int numProcessors=nPe;
 	int intervalRange = intervalEnd - intervalStart + 1;
 	int [][]ret = new int[numProcessors][intervalRange];
 
@@ -499,10 +433,10 @@ public class SumAnalyzer extends ProjDefs
 	if (outIntervalSize == IntervalSize) {
 	    for (int p=0; p<numProcessors; p++) {
 		for (int i=intervalStart; 
-		     (i<intervalEnd) && (i<ProcessorUtilization[p].length); 
+		     (i<intervalEnd) && (i<IntervalCount); 
 		     i++) {
 		    ret[p][i-intervalStart] = 
-			ProcessorUtilization[p][i];
+			ProcessorUtilization[p*IntervalCount + i];
 		}
 	    }
 	    return ret;
@@ -513,17 +447,18 @@ public class SumAnalyzer extends ProjDefs
 	double [][]tempData = new double[numProcessors][intervalRange];
 	for (int p=0; p<numProcessors; p++) {
 	    int interval = sourceStartInterval;
-	    while ((interval < ProcessorUtilization[p].length) &&
+	    while ((interval < IntervalCount) &&
 		   (interval < sourceStartInterval+intervalRange)){
+		byte util = ProcessorUtilization[p*IntervalCount + interval];
 		// **CW** optimization, if there's nothing to spread, then
 		// don't spread it!
-		if (ProcessorUtilization[p][interval] > 0) {
+		if (util > 0) {
 		    IntervalUtils.fillIntervals(tempData[p],
 						outIntervalSize,
 						intervalStart,
 						interval*IntervalSize,
 						(interval+1)*IntervalSize,
-						IntervalUtils.utilToTime(ProcessorUtilization[p][interval],
+						IntervalUtils.utilToTime(util,
 									 IntervalSize),
 						false);
 		}
@@ -546,12 +481,13 @@ public class SumAnalyzer extends ProjDefs
      */
     public double[][] getSummaryAverageData() {
 	if (mode == NORMAL_MODE) {
-	    int numProcessors = ProcessorUtilization.length;
+	    int numProcessors = nPe;
 	    double[][] ret = new double[IntervalCount][2];
 	    for (int p=0; p<numProcessors; p++) {
+		int offset = p*IntervalCount;
 		for (int interval=0; interval<IntervalCount; interval++) {
-		    ret[interval][0] += ProcessorUtilization[p][interval];
-		    ret[interval][1] += IdlePercentage[p][interval];
+		    ret[interval][0] += ProcessorUtilization[offset + interval];
+		    ret[interval][1] += IdlePercentage[offset + interval];
 		}
 	    }
 	    for (int interval=0; interval<IntervalCount; interval++) {
@@ -582,50 +518,6 @@ public class SumAnalyzer extends ProjDefs
 	return TotalTime;
     }
 	
-    private double nextNumber(String description) 
-	throws IOException,SummaryFormatException
-    {
-	if (StreamTokenizer.TT_NUMBER!=tokenizer.nextToken()) 
-	    throw new SummaryFormatException("Couldn't read "+description);
-	return tokenizer.nval;
-    }
-
-    private double nextScientific(String description) 
-	throws IOException,SummaryFormatException
-    {
-	double mantissa=nextNumber(description+" mantissa");
-	String expString=nextString(description+" exponent");
-	char expChar=expString.charAt(0);
-	if (expChar!='e'&&expChar!='d'&&expChar!='E'&&expChar!='D')
-	    throw new SummaryFormatException("Couldn't find exponent in "+
-					     expString);
-	int exponent;
-	expString=expString.substring(1);//Clip off leading "e"
-	// the old scheme does not take into account the fact that 
-	// "e+kk" is a valid exponent string.
-	if (expString.equals("")) {
-	    tokenizer.nextToken(); // get rid of the stupid "+" symbol
-	    exponent=(int)(nextNumber("exponent"));
-	} else {
-	    try { 
-		exponent=Integer.parseInt(expString);
-	    } catch (NumberFormatException e) {
-		throw new SummaryFormatException("Couldn't parse exponent "+
-						 expString);
-	    }
-	}
-	return mantissa*Math.pow(10.0,exponent);
-    }
-
-    private String nextString(String description) 
-	throws IOException,SummaryFormatException
-    {
-	if (StreamTokenizer.TT_WORD!=tokenizer.nextToken()) 
-	    throw new SummaryFormatException("Couldn't read string "+
-					     description);
-	return tokenizer.sval;
-    }
-
 	public double[] getTotalIdlePercentagePerInterval() {
 		return getTotalIdlePercentagePerInterval(0, IntervalCount - 1);
 	}
@@ -635,7 +527,7 @@ public class SumAnalyzer extends ProjDefs
 		double[] totalIdlePercentage = new double[(int) numIntervals];
 		for (int pe = 0; pe < nPe; pe++) {
 			for (int interval = startInterval; interval <= endInterval; interval++) {
-				totalIdlePercentage[interval - startInterval] += IdlePercentage[pe][interval] / numIntervals;
+				totalIdlePercentage[interval - startInterval] += IdlePercentage[pe*IntervalCount + interval] / numIntervals;
 			}
 		}
 		return totalIdlePercentage;
@@ -650,13 +542,14 @@ public class SumAnalyzer extends ProjDefs
 		double[] totalIdlePercentage = new double[nPe];
 		for (int pe = 0; pe < nPe; pe++) {
 			for (int interval = startInterval; interval <= endInterval; interval++) {
-				totalIdlePercentage[pe] += IdlePercentage[pe][interval] / numIntervals;
+				totalIdlePercentage[pe] += IdlePercentage[pe*IntervalCount + interval] / numIntervals;
 			}
 		}
 		return totalIdlePercentage;
 	}
 
+	/** A copy of the idle percentage of every PE, as [pe][interval] */
 	public byte[][] getIdlePercentage(){
-		return IdlePercentage;
+		return perPE(IdlePercentage);
 	}
 }
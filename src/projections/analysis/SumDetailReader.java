@@ -1,12 +1,7 @@
 package projections.analysis;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.StreamTokenizer;
-import java.util.ArrayList;
-import java.util.List;
 
 /** 
  *  Written by Chee Wai Lee
@@ -23,6 +18,8 @@ import java.util.List;
  *  3/18/2003 - changed to read and store data in a dense internal data
  *              structure. This dense structure should be used up till
  *              the time Graph is presented with the data for rendering.
+ *  10/18/2026 - the file is now read once, with a SummaryTokenizer, and the
+ *              runs are kept packed in an RLEIntervalData per type.
  */
 
 class SumDetailReader extends ProjectionsReader
@@ -42,15 +39,10 @@ class SumDetailReader extends ProjectionsReader
     private int numEPs;
     private long intervalSize;
 
-    // Compressed Data
-    // A Vector of RLEBlocks for each Type, EP combination
-    // Dim 0 - indexed by data type.
-    // Dim 1 - indexed by EP, a not-quite-as dense format as the actual file
-    //                 but good enough.
-    private List<RLEBlock> rawData[][];
+    // Compressed Data, indexed by data type.
+    private RLEIntervalData rawData[];
 
-    private BufferedReader reader;
-    private ParseTokenizer tokenizer;
+    private SummaryTokenizer tokenizer;
     protected SumDetailReader(File file, double Nversion)
     {
 	super(file, String.valueOf(Nversion));
@@ -64,21 +56,14 @@ class SumDetailReader extends ProjectionsReader
 	return sourceFile.canRead();
     }
 
+    /**
+     *  Reads the header. The rest of the file is kept for read(), which
+     *  must be called next.
+     */
     protected void readStaticData() 
 	throws IOException
     {
-	reader = new BufferedReader(new FileReader(sourceFile));
-	// Set up the tokenizer  
-	tokenizer=new ParseTokenizer(reader);
-	tokenizer.parseNumbers();
-	tokenizer.eolIsSignificant(true);
-	tokenizer.whitespaceChars('/','/'); 
-	tokenizer.whitespaceChars(':',':');
-	tokenizer.whitespaceChars('[','[');
-	tokenizer.whitespaceChars(']',']');
-	tokenizer.wordChars('a','z');
-	tokenizer.wordChars('A','Z');
-	tokenizer.wordChars('+','+');
+	tokenizer = SummaryTokenizer.open(sourceFile.getPath());
 
 	// Read the first line (Header information)
 	tokenizer.checkNextString("ver");
@@ -101,52 +86,28 @@ class SumDetailReader extends ProjectionsReader
 	numIntervals = (int)tokenizer.nextNumber("numIntervals");
 	tokenizer.checkNextString("numEPs");
 	numEPs = (int)tokenizer.nextNumber("number of entry methods");
-        System.out.println("numEPs: "+ numEPs);
 	tokenizer.checkNextString("intervalSize");
 	double interval =
 	    tokenizer.nextScientific("processor usage sample interval");
-    intervalSize = (long)Math.floor(interval*1000000);
+	intervalSize = (long)Math.floor(interval*1000000);
 
-        System.out.println("intervalSize: "+ intervalSize);
-
-        if (StreamTokenizer.TT_EOL!=tokenizer.nextToken()) {
-        System.out.println("\nEX\n");
+	if (SummaryTokenizer.TT_EOL!=tokenizer.nextToken()) {
 	    throw new ProjectionsFormatException(expectedVersion, 
 						 "extra garbage at end of " +
 						 "header line");
 	}
-
-	reader.close();
-	reader = null;
     }
 
     
     protected void read() 
 	throws IOException
     {
-	reader = new BufferedReader(new FileReader(sourceFile));
+	// the header was read by readStaticData()
 
-	// Set up the tokenizer  
-	tokenizer=new ParseTokenizer(reader);
-	tokenizer.parseNumbers();
-	tokenizer.eolIsSignificant(true);
-	tokenizer.whitespaceChars('/','/'); 
-	tokenizer.whitespaceChars(':',':');
-	tokenizer.whitespaceChars('[','[');
-	tokenizer.whitespaceChars(']',']');
-	tokenizer.wordChars('a','z');
-	tokenizer.wordChars('A','Z');
-	tokenizer.wordChars('+','+');
-
-	// ignore the first line -> header
-	tokenizer.skipLine();
-
-	// prepare to store summary data into arrays
-	rawData = new ArrayList[NUM_TAGS][numEPs];
+	// prepare to store summary data
+	rawData = new RLEIntervalData[NUM_TAGS];
 	for (int type=0; type<NUM_TAGS; type++) {
-	    for (int ep=0; ep<numEPs; ep++) {
-		rawData[type][ep] = new ArrayList();
-	    }
+	    rawData[type] = new RLEIntervalData(numEPs, numIntervals);
 	}
 
 	// Read the data (labelled lines)
@@ -156,95 +117,82 @@ class SumDetailReader extends ProjectionsReader
 	//
 	// The current format uses run-length encoding that cuts across
 	// EPs, so an EP ID count has to be maintained for each line.
-	while (StreamTokenizer.TT_EOF!=tokenizer.nextToken()) {
-	    if (tokenizer.ttype != StreamTokenizer.TT_WORD) {
+	int tokenType;
+	while (SummaryTokenizer.TT_EOF!=(tokenType=tokenizer.nextToken())) {
+	    if (tokenType == SummaryTokenizer.TT_EOL) {
+		continue;
+	    }
+	    if (tokenType != SummaryTokenizer.TT_WORD) {
 		throw new IOException("Bad Sumdetail format-label expected");
 	    }
-	    String label = tokenizer.sval;
+	    String label = tokenizer.sval();
 	    if (label.equals("ExeTimePerEPperInterval")) {
 		buildTable(TOTAL_TIME);
 	    } else if (label.equals("EPCallTimePerInterval")) {
 		buildTable(NUM_MSGS);
 	    } else {
-		// do nothing. Unrecognized labels are not an error.
+		// skip the line. Unrecognized labels are not an error.
 		// this allows new formats to be implemented without
 		// immediately rendering this tool useless.
+		while ((tokenType=tokenizer.nextToken()) != SummaryTokenizer.TT_EOL
+		       && tokenType != SummaryTokenizer.TT_EOF) {
+		}
 	    }
 	}
-	reader.close();
-	reader = null;
-    }
-
-    
-    class RLEBlock {
-        int count = 0;
-        int value = 0;
+	for (int type=0; type<NUM_TAGS; type++) {
+	    rawData[type].trim();
+	}
+	tokenizer = null;
     }
 
-    
 
     private void buildTable(int type) 
 	throws IOException
     {
-            System.out.println("buildTable\n");
+	RLEIntervalData data = rawData[type];
 	int epIdx = 0;
 	int intervalsLeft = numIntervals;
 
 	int value = 0;
 	int count = 1;
-	while (StreamTokenizer.TT_EOL != tokenizer.nextToken()
-			&& StreamTokenizer.TT_EOF != tokenizer.ttype) {
-	    switch (tokenizer.ttype) {
-	    case StreamTokenizer.TT_NUMBER:
-
-		value = (int)tokenizer.nval;
-		count = 1;
-
-		if (StreamTokenizer.TT_WORD==tokenizer.nextToken()) {
-		    String temp = tokenizer.sval;
-		    if (temp.startsWith("+")) {
-			count = Integer.parseInt(temp.substring(1));
-		    } else {
-			throw new IOException("Bad SumDetail Format - " +
-					      "invalid data in run-length " +
-					      "encoded block.");
-		    }
-		} else {
-		    tokenizer.pushBack();
+	int tokenType;
+	while ((tokenType=tokenizer.nextToken()) != SummaryTokenizer.TT_EOL
+	       && tokenType != SummaryTokenizer.TT_EOF) {
+	    if (tokenType != SummaryTokenizer.TT_NUMBER) {
+		throw new IOException("Bad SumDetail Format - number " +
+				      "expected.");
+	    }
+	    value = (int)tokenizer.nval;
+	    count = 1;
+
+	    // "value+count" is a run of count intervals
+	    if (tokenizer.nextToken() == '+') {
+		if (tokenizer.nextToken() != SummaryTokenizer.TT_NUMBER) {
+		    throw new IOException("Bad SumDetail Format - " +
+					  "invalid data in run-length " +
+					  "encoded block.");
 		}
+		count = (int)tokenizer.nval;
+	    } else {
+		tokenizer.pushBack();
+	    }
 
-		// store the data into our table
-		while (count > intervalsLeft) {
-		    RLEBlock newBlock = new RLEBlock();
-		    newBlock.value = value;
-		    newBlock.count = intervalsLeft;
-		    try{
-		    boolean r = rawData[type][epIdx++].add(newBlock);
-		    }catch(Exception e){
-		    System.out.println("\nADD EXCEPTION: " + e.toString());
-		    break;
-		    }
-		    count -= intervalsLeft;
-		    intervalsLeft = numIntervals;
+	    // store the data into our table, a run may carry on into the
+	    // following EPs
+	    while (count > 0) {
+		if (epIdx >= numEPs) {
+		    throw new IOException("Bad SumDetail Format - more data " +
+					  "than " + numEPs + " entry methods " +
+					  "of " + numIntervals + " intervals.");
 		}
-		// handle left-overs
-		if (count < intervalsLeft) {
-		    RLEBlock newBlock = new RLEBlock();
-		    newBlock.value = value;
-		    newBlock.count = count;
-		    rawData[type][epIdx].add(newBlock);
-		    intervalsLeft -= count;
-		} else if (count == intervalsLeft) {
-		    RLEBlock newBlock = new RLEBlock();
-		    newBlock.value = value;
-		    newBlock.count = count;
-		    rawData[type][epIdx++].add(newBlock);
+		int n = Math.min(count, intervalsLeft);
+		data.add(epIdx, value, n);
+		count -= n;
+		intervalsLeft -= n;
+		if (intervalsLeft == 0) {
+		    epIdx++;
 		    intervalsLeft = numIntervals;
 		}
-		break;
-	    default:
-		throw new IOException("Bad SumDetail Format - number " +
-				      "expected.");
 	    }
 	}
     }
@@ -270,7 +218,7 @@ class SumDetailReader extends ProjectionsReader
 	return numIntervals;
     }
 
-    protected List<RLEBlock>[] getData(int type) {
+    protected RLEIntervalData getData(int type) {
 	return rawData[type];
     }
 }
@@ -0,0 +1,208 @@
+package projections.analysis;
+
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ *  SummaryTokenizer splits a summary file into the same tokens as a
+ *  StreamTokenizer set up the way the summary readers have always set it
+ *  up: numbers are parsed, line ends are significant, '/', ':', '[' and ']'
+ *  separate tokens like whitespace, and a word is a letter followed by
+ *  letters, digits, '.' or '-'.
+ *
+ *  It works directly on the bytes of the whole file, read in one go, so
+ *  there is no Reader to go through a character at a time and no String is
+ *  made for a word unless sval() is asked for. Each one is independent of
+ *  all others, so files can be tokenized on several threads at once.
+ */
+class SummaryTokenizer {
+
+	static final int TT_EOF = StreamTokenizer.TT_EOF;
+	static final int TT_EOL = StreamTokenizer.TT_EOL;
+	static final int TT_NUMBER = StreamTokenizer.TT_NUMBER;
+	static final int TT_WORD = StreamTokenizer.TT_WORD;
+
+	private final byte[] bytes;
+	private final int limit;
+	private int pos = 0;
+
+	private int ttype = TT_EOF;
+	private boolean pushedBack = false;
+
+	/** The value of the last TT_NUMBER token */
+	double nval;
+	/** The bounds in bytes of the last TT_WORD token */
+	private int wordStart, wordEnd;
+
+	SummaryTokenizer(byte[] bytes) {
+		this.bytes = bytes;
+		this.limit = bytes.length;
+	}
+
+	/** Tokenize the whole of the named file */
+	static SummaryTokenizer open(String fileName) throws IOException {
+		return new SummaryTokenizer(Files.readAllBytes(Paths.get(fileName)));
+	}
+
+	/** Like StreamTokenizer.nextToken(): one of the TT_ types, or the character itself */
+	int nextToken() {
+		if (pushedBack) {
+			pushedBack = false;
+			return ttype;
+		}
+		while (pos < limit) {
+			final byte c = bytes[pos];
+			if (c == '\n') {
+				pos++;
+				return ttype = TT_EOL;
+			} else if (c == '\r') {
+				pos++;
+				if (pos < limit && bytes[pos] == '\n')
+					pos++;
+				return ttype = TT_EOL;
+			} else if ((c >= 0 && c <= ' ') || c == '/' || c == ':' || c == '[' || c == ']') {
+				pos++;
+			} else {
+				break;
+			}
+		}
+		if (pos >= limit)
+			return ttype = TT_EOF;
+
+		final byte c = bytes[pos];
+		if (isDigit(c) || c == '.' || c == '-')
+			return ttype = parseNumber();
+		if (isLetter(c)) {
+			wordStart = pos++;
+			while (pos < limit && (isLetter(bytes[pos]) || isDigit(bytes[pos]) || bytes[pos] == '.' || bytes[pos] == '-'))
+				pos++;
+			wordEnd = pos;
+			return ttype = TT_WORD;
+		}
+		pos++;
+		return ttype = c;
+	}
+
+	/** Parse a number the way StreamTokenizer does, so the values are identical */
+	private int parseNumber() {
+		boolean negative = false;
+		if (bytes[pos] == '-') {
+			pos++;
+			if (pos >= limit || !(isDigit(bytes[pos]) || bytes[pos] == '.'))
+				return '-';
+			negative = true;
+		}
+		double v = 0;
+		int decexp = 0;
+		int seendot = 0;
+		for (; pos < limit; pos++) {
+			final byte c = bytes[pos];
+			if (c == '.' && seendot == 0) {
+				seendot = 1;
+			} else if (isDigit(c)) {
+				v = v * 10 + (c - '0');
+				decexp += seendot;
+			} else {
+				break;
+			}
+		}
+		if (decexp != 0) {
+			double denom = 10;
+			decexp--;
+			while (decexp > 0) {
+				denom *= 10;
+				decexp--;
+			}
+			v = v / denom;
+		}
+		nval = negative ? -v : v;
+		return TT_NUMBER;
+	}
+
+	private static boolean isDigit(byte c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isLetter(byte c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+
+	/** Make the next call to nextToken() return the current token again */
+	void pushBack() {
+		pushedBack = true;
+	}
+
+	/** The text of the last TT_WORD token */
+	String sval() {
+		return new String(bytes, wordStart, wordEnd - wordStart, StandardCharsets.US_ASCII);
+	}
+
+	/** Whether the last token was the given word */
+	private boolean wordEquals(String word) {
+		if (wordEnd - wordStart != word.length())
+			return false;
+		for (int i = 0; i < word.length(); i++) {
+			if (bytes[wordStart + i] != word.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/** Consume a word label if there is one */
+	void skipLabel() {
+		if (nextToken() != TT_WORD)
+			pushBack();
+	}
+
+	/** Throw IOException if expected isn't the next token */
+	void checkNextString(String expected) throws IOException {
+		if (nextToken() != TT_WORD || !wordEquals(expected))
+			throw new IOException("Expected " + expected + " got " + describe());
+	}
+
+	/** Return next number or throw IOException */
+	double nextNumber(String description) throws IOException {
+		if (nextToken() != TT_NUMBER)
+			throw new IOException("Couldn't read " + description + " got " + describe());
+		return nval;
+	}
+
+	/** Return next number, written as e.g. 1.000000e-03 or 1.0e+03, or throw IOException */
+	double nextScientific(String description) throws IOException {
+		double mantissa = nextNumber(description + " mantissa");
+		if (nextToken() != TT_WORD)
+			throw new IOException("Couldn't read string " + description + " exponent got " + describe());
+		String expString = sval();
+		char expChar = expString.charAt(0);
+		if (expChar != 'e' && expChar != 'd' && expChar != 'E' && expChar != 'D')
+			throw new IOException("Couldn't find exponent in " + expString);
+		expString = expString.substring(1);
+		int exponent;
+		if (expString.equals("")) {
+			// "e+kk" is a word "e", then '+', then the number
+			nextToken();
+			exponent = (int) nextNumber(description + " exponent");
+		} else {
+			try {
+				exponent = Integer.parseInt(expString);
+			} catch (NumberFormatException e) {
+				throw new IOException("Couldn't parse exponent " + expString);
+			}
+		}
+		return mantissa * Math.pow(10.0, exponent);
+	}
+
+	private String describe() {
+		switch (ttype) {
+		case TT_EOF: return "EOF";
+		case TT_EOL: return "EOL";
+		case TT_NUMBER: return "n=" + nval;
+		case TT_WORD: return sval();
+		default: return "'" + (char) ttype + "'";
+		}
+	}
+
+}
@@ -1,11 +1,19 @@
 package projections.analysis;
 
 import java.awt.Component;
-import java.util.Date;
-import java.util.Iterator;
+import java.awt.GraphicsEnvironment;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import javax.swing.ProgressMonitor;
@@ -13,17 +21,31 @@ import javax.swing.ProgressMonitor;
 import projections.gui.MainWindow;
 
 
-/** This class runs a set of objects in threads, updating a progress bar as threads complete. 
- * 
+/** This class runs a set of objects on a shared pool of threads, updating a progress bar as they complete.
+ *
  *  Runnable objects are provided either to the constructor or through calls to execute(Runnable r).
- *  
- *  The threads are only run when runAll() is called.
- *  
- *  The class also prints out the time taken to run the threads.
- * 
+ *
+ *  The objects are only run when runAll() is called, which returns once all of them have finished.
+ *
+ *  All tools share one long lived pool of worker threads, sized by
+ *  ProjMain.NUM_THREADS (the "-threads" option) or by default at one and a
+ *  half threads per core, since most tasks spend part of their time waiting
+ *  on the disk. The progress bar advances as each task completes. If the
+ *  user cancels, the tasks that have not started yet are dropped right away
+ *  (those implementing Skippable are told so) and runAll() returns once the
+ *  running ones finish.
+ *
+ *  The class also logs the time taken to run the tasks, overall and per task,
+ *  to MainWindow.performanceLogger.
+ *
  * */
 public class TimedProgressThreadExecutor implements Executor{
 
+	/** How often runAll() checks whether the user cancelled while no task completes */
+	private static final long CANCEL_POLL_MILLIS = 100;
+
+	private static ThreadPoolExecutor sharedPool;
+
 	/** A copy of the list of threads */
 	private LinkedList<Runnable> runableObjects;
 	public int numInitialThreads;
@@ -35,28 +57,118 @@ public class TimedProgressThreadExecutor implements Executor{
 	public int numConcurrentThreads;
 
 	private Component guiRootForProgressBar;
-	
+
+	/** Set when the user cancels, after which tasks that have not started yet do nothing */
+	private volatile boolean cancelled = false;
+
 	public TimedProgressThreadExecutor(String description, List<Runnable> runableObjects, Component guiRoot, boolean showProgress){
 		this.runableObjects = new LinkedList<Runnable>();
 		if(runableObjects != null)
 			this.runableObjects.addAll(runableObjects);
 		this.description = description;
-		this.numInitialThreads = runableObjects.size();
+		this.numInitialThreads = this.runableObjects.size();
 		this.guiRootForProgressBar = guiRoot;
-		this.showProgress = showProgress;
+		// A ProgressMonitor cannot be created without a display
+		this.showProgress = showProgress && !GraphicsEnvironment.isHeadless();
 
+		numConcurrentThreads = getParallelism();
+	}
+
+	/** The number of worker threads in the shared pool */
+	public static int getParallelism() {
+		if (ProjMain.NUM_THREADS > 0)
+			return ProjMain.NUM_THREADS;
 		int numProcs = Runtime.getRuntime().availableProcessors();
-		numConcurrentThreads = numProcs + numProcs/2;
+		return numProcs + numProcs/2;
+	}
+
+	/** Change the number of worker threads used by subsequent calls to runAll() */
+	public static synchronized void setParallelism(int numThreads) {
+		ProjMain.NUM_THREADS = numThreads;
+		if (sharedPool != null) {
+			int n = getParallelism();
+			if (n > sharedPool.getMaximumPoolSize()) {
+				sharedPool.setMaximumPoolSize(n);
+				sharedPool.setCorePoolSize(n);
+			} else {
+				sharedPool.setCorePoolSize(n);
+				sharedPool.setMaximumPoolSize(n);
+			}
+		}
+	}
+
+	private static synchronized ThreadPoolExecutor sharedPool() {
+		if (sharedPool == null) {
+			final AtomicInteger count = new AtomicInteger();
+			int n = getParallelism();
+			sharedPool = new ThreadPoolExecutor(n, n, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new WorkerThread(r, "Projections worker " + count.incrementAndGet());
+					// Never keep Projections from exiting
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			sharedPool.allowCoreThreadTimeOut(true);
+		}
+		return sharedPool;
+	}
+
+	/** Run a single task on the shared pool in the background, without any progress bar */
+	public static Future<?> submit(Runnable task) {
+		return sharedPool().submit(task);
+	}
+
+	/** The threads of the shared pool, marked by their class rather than their name */
+	private static class WorkerThread extends Thread {
+		private WorkerThread(Runnable r, String name) {
+			super(r, name);
+		}
+	}
+
+	/** Whether the current thread is one of the shared pool's workers */
+	private static boolean onWorkerThread() {
+		return Thread.currentThread() instanceof WorkerThread;
 	}
 
 	public void execute(Runnable r){
 		runableObjects.add(r);
 	}
 
+	/** Implemented by tasks that hold on to shared state until they run, and must release it if they are dropped */
+	public interface Skippable {
+		/** Called instead of run() when the task is dropped after a cancel */
+		public void skipped();
+	}
+
+	/** Wraps a task to record how long it ran, and to skip it after a cancel */
+	private class TimedTask implements Runnable {
+		private final Runnable task;
+		private long nanos;
+
+		private TimedTask(Runnable task) {
+			this.task = task;
+		}
+
+		public void run() {
+			if (cancelled) {
+				if (task instanceof Skippable)
+					((Skippable) task).skipped();
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				task.run();
+			} finally {
+				nanos = System.nanoTime() - start;
+			}
+		}
+	}
+
 	public void runAll(){
 
-		Date startReadingTime  = new Date();
-				
+		long startTime = System.nanoTime();
+
 		ProgressMonitor progressBar=null;
 		if(showProgress){
 			progressBar = new ProgressMonitor(guiRootForProgressBar, description,"Starting", 0, numInitialThreads);
@@ -70,76 +182,93 @@ public class TimedProgressThreadExecutor implements Executor{
 			progressBar.setMaximum(totalToLoad);
 		}
 
-		if(totalToLoad < numConcurrentThreads){
-			numConcurrentThreads = totalToLoad;
+		numConcurrentThreads = Math.min(getParallelism(), totalToLoad);
+
+		ArrayList<TimedTask> tasks = new ArrayList<TimedTask>(totalToLoad);
+		while (runableObjects.size() > 0) {
+			tasks.add(new TimedTask(runableObjects.removeFirst()));
 		}
 
-		// execute reader threads, a few at a time, until all have executed
-		LinkedList<Thread> spawnedThreads = new LinkedList<Thread>();
-		while(runableObjects.size() > 0 || spawnedThreads.size() > 0){
-
-			//------------------------------------
-			// spawn as many threads as needed to keep 
-			// numConcurrentThreads running at once
-			while(runableObjects.size()>0 && spawnedThreads.size()<numConcurrentThreads){
-				Thread t = new Thread(runableObjects.removeFirst()); // retrieve and remove from list
-				spawnedThreads.add(t);
-				t.start(); // will cause the run method to be executed
+		if (onWorkerThread()) {
+			// A task that itself runs tasks could otherwise wait on workers that are all waiting too
+			for (TimedTask t : tasks) {
+				t.run();
 			}
+		} else {
+			runOnSharedPool(tasks, progressBar);
+		}
 
-			//------------------------------------
-			// update the progress bar
-			if(showProgress){
-				int doneCount = totalToLoad-runableObjects.size()-spawnedThreads.size();
-				if (!progressBar.isCanceled()) {
-					progressBar.setNote(doneCount + " of " + totalToLoad);
-					progressBar.setProgress(doneCount);
-				} else {
-					// user cancelled this operation
-					// Wait on all spawned threads to finish
-					Iterator<Thread> iter = spawnedThreads.iterator();
-					while(iter.hasNext()){
-						Thread t = iter.next();
-						try {
-							t.join(); 
-							// All actions in a thread happen-before this thread successfully returns from a join on that thread.
-							// See http://java.sun.com/javase/6/docs/api/java/util/concurrent/package-summary.html
-						}
-						catch (InterruptedException e) {
-							throw new RuntimeException("Thread was interrupted. This should not ever occur");
-						}
-					}
-					break;
-				}
-			}
+		long endTime = System.nanoTime();
+		MainWindow.performanceLogger.log(Level.INFO,"Time to read " + numInitialThreads +  " input files(using " + numConcurrentThreads + " concurrent threads): " + ((endTime - startTime)/1000000)/1000.0 + "sec");
+		logTaskTimes(tasks);
 
+		if(showProgress){
+			progressBar.close();
+		}
+	}
+
+	private void runOnSharedPool(List<TimedTask> tasks, ProgressMonitor progressBar) {
+		ExecutorCompletionService<Object> completion = new ExecutorCompletionService<Object>(sharedPool());
+		ArrayList<Future<Object>> futures = new ArrayList<Future<Object>>(tasks.size());
+		for (TimedTask t : tasks) {
+			futures.add(completion.submit(t, null));
+		}
 
-			//------------------------------------
-			// wait on the threads to complete
-			Iterator<Thread> iter = spawnedThreads.iterator();
-			if(iter.hasNext()){
-				Thread t = iter.next();
+		int doneCount = 0;
+		while (doneCount < futures.size()) {
+			Future<Object> done;
+			try {
+				done = completion.poll(CANCEL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				throw new RuntimeException("Thread was interrupted. This should not ever occur");
+			}
+
+			if (done != null) {
+				doneCount++;
 				try {
-					t.join(10);
-					if(! t.isAlive()) {
-						// Thread Finished
-						iter.remove();
-					}
-				}
-				catch (InterruptedException e) {
+					// All actions in a task happen-before its Future.get() returns
+					done.get();
+				} catch (ExecutionException e) {
+					// As an uncaught exception in a thread of its own would have been
+					e.getCause().printStackTrace();
+				} catch (InterruptedException e) {
 					throw new RuntimeException("Thread was interrupted. This should not ever occur");
 				}
 			}
 
+			if(showProgress && !cancelled){
+				if (!progressBar.isCanceled()) {
+					if (done != null) {
+						progressBar.setNote(doneCount + " of " + futures.size());
+						progressBar.setProgress(doneCount);
+					}
+				} else {
+					// user cancelled this operation: the queued tasks now return
+					// immediately, so this just waits on the running ones to finish
+					cancelled = true;
+				}
+			}
 		}
-		
-		Date endReadingTime  = new Date();
-		MainWindow.performanceLogger.log(Level.INFO,"Time to read " + numInitialThreads +  " input files(using " + numConcurrentThreads + " concurrent threads): " + ((double)(endReadingTime.getTime() - startReadingTime.getTime())/1000.0) + "sec");
+	}
 
-		if(showProgress){
-			progressBar.close();
+	private void logTaskTimes(List<TimedTask> tasks) {
+		if (tasks.isEmpty() || !MainWindow.performanceLogger.isLoggable(Level.INFO))
+			return;
+		long min = Long.MAX_VALUE, max = 0, total = 0;
+		int count = 0;
+		for (int i = 0; i < tasks.size(); i++) {
+			long nanos = tasks.get(i).nanos;
+			if (nanos == 0)
+				continue; // never ran
+			MainWindow.performanceLogger.log(Level.FINE, description + ": task " + i + " took " + nanos/1000000 + " ms");
+			min = Math.min(min, nanos);
+			max = Math.max(max, nanos);
+			total += nanos;
+			count++;
+		}
+		if (count > 0) {
+			MainWindow.performanceLogger.log(Level.INFO, description + ": " + count + " tasks, per task min " + min/1000000 + " ms, mean " + total/count/1000000 + " ms, max " + max/1000000 + " ms");
 		}
 	}
 
-
 }
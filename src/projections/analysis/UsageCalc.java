@@ -135,21 +135,36 @@ public class UsageCalc extends ProjDefs
 		logEntry = new LogEntry();
 		curEntry = -1;
 
-		startTime = 0;
+		// Anything begun before beginTime is counted from beginTime
+		startTime = beginTime;
+		packstarttime = beginTime;
+		unpackstarttime = beginTime;
 		long time=0;
 		boolean isProcessing = false;
-		LogEntry lastBeginData = null;
-		long prevTime = 0;
+		// The entry of the open BEGIN_PROCESSING, as logEntry is reused
+		int lastBeginEntry = -1;
 		try { 
+			// Skip the events before beginTime, which only count for the
+			// begin event still open at beginTime
+			reader.skipToBefore(beginTime);
+			LogEntry open = reader.getLastOpenBE();
+			if (open != null && open.type == BEGIN_PROCESSING) {
+				intervalCalc(data, BEGIN_PROCESSING, open.entry, open.time);
+				isProcessing = true;
+				lastBeginEntry = open.entry;
+			} else if (open != null && open.type == BEGIN_IDLE) {
+				intervalCalc(data, BEGIN_IDLE, 0, open.time);
+			}
+
 			while (time<endTime) { //EOF exception terminates loop
-				logEntry = reader.nextEvent();
+				logEntry = reader.nextEvent(logEntry);
 				time = logEntry.time;
 				switch(logEntry.type) {
 				case BEGIN_IDLE: case END_IDLE:
 					if (isProcessing) {
-						intervalCalc(data, END_PROCESSING, lastBeginData.entry, logEntry.time);
+						intervalCalc(data, END_PROCESSING, lastBeginEntry, logEntry.time);
 						isProcessing = false;
-						lastBeginData = null;
+						lastBeginEntry = -1;
 					}
 					intervalCalc(data, logEntry.type, 0, time);
 					break;
@@ -159,12 +174,12 @@ public class UsageCalc extends ProjDefs
 					break;
 				case BEGIN_PROCESSING:
 					if (isProcessing) {
-						intervalCalc(data, END_PROCESSING, lastBeginData.entry, logEntry.time);
+						intervalCalc(data, END_PROCESSING, lastBeginEntry, logEntry.time);
 					}
 					intervalCalc(data, logEntry.type, 
 							logEntry.entry, time);
 					isProcessing = true;
-					lastBeginData = logEntry;
+					lastBeginEntry = logEntry.entry;
 					break;
 				case END_PROCESSING:
 					if (!isProcessing) {
@@ -222,6 +237,12 @@ public class UsageCalc extends ProjDefs
 		} catch (IOException e) {
 			System.out.println("Exception while reading log file " +
 					pnum); 
+		} finally {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// Nothing more to read anyway
+			}
 		}
 		for (int j=0; j<dataLen; j++) { //Scale times to percent
 			// System.out.println("Data " + data[0][j] + " Send Time " + 
@@ -20,6 +20,7 @@ import projections.Tools.MessageSizeEvolution.MessageSizeEvolutionWindow;
 import projections.Tools.PerformanceCounters.PerfWindow;
 import projections.Tools.CommunicationOverTime.CommTimeWindow;
 import projections.Tools.CommunicationPerPE.CommWindow;
+import projections.Tools.CommunicationMatrix.CommMatrixWindow;
 import projections.Tools.Extrema.ExtremaWindow;
 import projections.Tools.Histogram.HistogramWindow;
 import projections.Tools.LogFileViewer.LogFileViewerWindow;
@@ -81,6 +82,7 @@ implements ActionListener, ItemListener
 	private JMenuItem usageProfileMenuItem;
 	private JMenuItem communicationMenuItem;
 	private JMenuItem communicationVsTimeMenuItem;
+	private JMenuItem communicationMatrixMenuItem;
 	private JMenuItem callTableMenuItem;
 	private JMenuItem viewLogFilesMenuItem;
 	private JMenuItem histogramsMenuItem;
@@ -122,6 +124,7 @@ implements ActionListener, ItemListener
 			usageProfileMenuItem.setEnabled(false);
 			communicationMenuItem.setEnabled(false);
 			communicationVsTimeMenuItem.setEnabled(false);
+			communicationMatrixMenuItem.setEnabled(false);
 			callTableMenuItem.setEnabled(false);
 			viewLogFilesMenuItem.setEnabled(false);
 			histogramsMenuItem.setEnabled(false);
@@ -152,6 +155,7 @@ implements ActionListener, ItemListener
 			usageProfileMenuItem.setEnabled(true);
 			communicationMenuItem.setEnabled(false);
 			communicationVsTimeMenuItem.setEnabled(false);
+			communicationMatrixMenuItem.setEnabled(false);
 			callTableMenuItem.setEnabled(false);
 			viewLogFilesMenuItem.setEnabled(false);
 			histogramsMenuItem.setEnabled(false);
@@ -185,6 +189,7 @@ implements ActionListener, ItemListener
 			usageProfileMenuItem.setEnabled(true);
 			communicationMenuItem.setEnabled(true);
 			communicationVsTimeMenuItem.setEnabled(true);
+			communicationMatrixMenuItem.setEnabled(true);
 			callTableMenuItem.setEnabled(true);
 			viewLogFilesMenuItem.setEnabled(true);
 			histogramsMenuItem.setEnabled(true);
@@ -258,6 +263,7 @@ implements ActionListener, ItemListener
 		usageProfileMenuItem = new JMenuItem("Usage Profile");
 		communicationMenuItem = new JMenuItem("Communication Per Processor");
 		communicationVsTimeMenuItem = new JMenuItem("Communication Over Time");
+		communicationMatrixMenuItem = new JMenuItem("Communication Matrix");
 		callTableMenuItem = new JMenuItem("Call Table");
 		viewLogFilesMenuItem = new JMenuItem("View Log Files");
 		histogramsMenuItem = new JMenuItem("Histograms");
@@ -281,6 +287,7 @@ implements ActionListener, ItemListener
 		usageProfileMenuItem.addActionListener(this);
 		communicationMenuItem.addActionListener(this);
 		communicationVsTimeMenuItem.addActionListener(this);
+		communicationMatrixMenuItem.addActionListener(this);
 		callTableMenuItem.addActionListener(this);
 		viewLogFilesMenuItem.addActionListener(this);
 		histogramsMenuItem.addActionListener(this);
@@ -304,6 +311,7 @@ implements ActionListener, ItemListener
 		toolMenu.add(usageProfileMenuItem);
 		toolMenu.add(communicationMenuItem);
 		toolMenu.add(communicationVsTimeMenuItem);
+		toolMenu.add(communicationMatrixMenuItem);
 		toolMenu.add(callTableMenuItem);
 		toolMenu.add(viewLogFilesMenuItem);
 		toolMenu.add(histogramsMenuItem);
@@ -385,6 +393,9 @@ implements ActionListener, ItemListener
 			else if (mi == communicationVsTimeMenuItem)	
 				parent.openTool(new CommTimeWindow(parent) );
 			
+			else if (mi == communicationMatrixMenuItem)
+				parent.openTool(new CommMatrixWindow(parent) );
+			
 			else if (mi == callTableMenuItem)	
 				parent.openTool(new CallTableWindow(parent) ); 
 			
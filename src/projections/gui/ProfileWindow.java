@@ -11,7 +11,10 @@ import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.SortedSet;
 import java.util.Stack;
 import java.util.Vector;
 
@@ -32,6 +35,7 @@ import javax.swing.table.DefaultTableModel;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
+import projections.analysis.TimedProgressThreadExecutor;
 import projections.gui.ChooseEntriesWindow;
 import projections.gui.FormattedNumber;
 
@@ -444,7 +448,7 @@ class ProfileWindow extends ProjectionsWindow
         int numEPs = MainWindow.runObject[myRun].getNumUserEntries();
         // the first row is for entry method execution time the second is for
         // time spent sending messages in that entry method
-        float[][] avg=new float[2][numEPs+NUM_SYS_EPS];
+        final float[][] avg=new float[2][numEPs+NUM_SYS_EPS];
         for (int i =0;i<numEPs+NUM_SYS_EPS;i++) {
             avg[0][i] = 0.0f;
             avg[1][i] = 0.0f;
@@ -452,8 +456,6 @@ class ProfileWindow extends ProjectionsWindow
 
         avgData = avg; //set instance's avg data
 
-        double avgScale=1.0/data.plist.size();
-
 
         int progressCount = 0;
         ProgressMonitor progressBar;
@@ -464,34 +466,59 @@ class ProfileWindow extends ProjectionsWindow
         // // Phase 1b - assign colors based on average work
         // // Phase 2 - create display data sources
 
-        float[][][] rawData = new float[data.plist.size()][][];
-
-
-        // Phase 1a: compute average work
-        progressBar =
-	    new ProgressMonitor(this,
-				"Computing Usage Values",
-				"", 0, data.numPs);
-        
-        for(Integer pe : data.plist){
-        	if (!progressBar.isCanceled()) {
-        		progressBar.setNote("[PE: " + pe + " ] Computing Average.");
-        		progressBar.setProgress(progressCount);
-        	} else {
-        		break;
-        	}
-
-        	// the first row is for entry method execution time
-        	// the second is for time spent sending messages in
-        	// that entry method
-        	rawData[progressCount] =
-        		MainWindow.runObject[myRun].GetUsageData(pe,data.begintime,data.endtime,data.phaselist);
-        	for (int i=0;i<avg[0].length && i<rawData[progressCount][0].length;i++) {
-        		avg[0][i]+=(float)(rawData[progressCount][0][i]*avgScale);
-        		avg[1][i]+=(float)(rawData[progressCount][1][i]*avgScale);
-        	}
-        	progressCount++;
+        final float[][][] rawData = new float[data.plist.size()][][];
+
+
+        // Phase 1a: compute the usage of each PE in parallel
+        final long begintime = data.begintime;
+        final long endtime = data.endtime;
+        final SortedSet<Integer> phaselist = data.phaselist;
+        List<Runnable> readers = new ArrayList<Runnable>();
+        for(final Integer pe : data.plist){
+        	final int pIdx = readers.size();
+        	readers.add(new Runnable() {
+        		public void run() {
+        			// the first row is for entry method execution time
+        			// the second is for time spent sending messages in
+        			// that entry method
+        			rawData[pIdx] =
+        				MainWindow.runObject[myRun].GetUsageData(pe,begintime,endtime,phaselist);
+        		}
+        	});
+        }
+        new TimedProgressThreadExecutor("Computing Usage Values", readers, this, true).runAll();
+
+        // The PEs skipped by a cancel show no usage, and are left out of the average
+        int numRead = 0;
+        for (int p=0; p<rawData.length; p++) {
+        	if (rawData[p] == null)
+        		rawData[p] = new float[2][avg[0].length];
+        	else
+        		numRead++;
+        }
+        final double avgScale = (numRead > 0) ? 1.0/numRead : 0.0;
+
+        // Then average them, with each range of entries summed on a thread of
+        // its own. Each sum adds up the PEs in order, so it does not depend on
+        // the number of threads.
+        final int width = avg[0].length;
+        final int chunk = Math.max(64, (width + TimedProgressThreadExecutor.getParallelism() - 1) / TimedProgressThreadExecutor.getParallelism());
+        List<Runnable> reducers = new ArrayList<Runnable>();
+        for (int start=0; start<width; start+=chunk) {
+        	final int first = start;
+        	final int last = Math.min(width, start + chunk);
+        	reducers.add(new Runnable() {
+        		public void run() {
+        			for (float[][] raw : rawData) {
+        				for (int i=first; i<last && i<raw[0].length; i++) {
+        					avg[0][i]+=(float)(raw[0][i]*avgScale);
+        					avg[1][i]+=(float)(raw[1][i]*avgScale);
+        				}
+        			}
+        		}
+        	});
         }
+        new TimedProgressThreadExecutor("Averaging Usage Values", reducers, this, false).runAll();
 
 	// Phase1b: Assigning colors based on the average usage
         Vector sigElements = new Vector();
@@ -523,6 +550,11 @@ class ProfileWindow extends ProjectionsWindow
 	}
 
 	// Phase 2: create display data source
+        progressBar =
+	    new ProgressMonitor(this,
+				"Computing Usage Values",
+				"", 0, data.numPs);
+
         //first create average one
         createSingleProcSource(avg,-1);
         dataSource[0] = sDataSrc;
@@ -49,6 +49,10 @@ public class FileUtils {
 	    return baseName + ".projrc";
 	}
 
+	public String getLogMetadataName(){
+	    return baseName + ".logmeta";
+	}
+
 	public String dirFromFile() {
 		// pre condition - filename is a full path name
 		int index = baseName.lastIndexOf(File.separator);